@@ -36,6 +36,16 @@ public class J6502 extends J6502Skeleton {
         super ();
     }
 
+/**
+ * Create a new <code>J6502</code> for <code>fork</code>.
+ *
+ * @see j6502.J6502Skeleton#newInstance(MemoryModel)
+ */
+
+    protected J6502 newInstance (MemoryModel mem) {
+        return new J6502 (mem);
+    }
+
 /**
  * Execute the instruction in the array.
  *
@@ -43,1864 +53,3349 @@ public class J6502 extends J6502Skeleton {
  */
 
     public int execute (byte[] insn) {
-        int clocks;
         int opcode = insn[0] & 0xff;
-        boolean badOpcode = false;
-        char    addr;
-        byte    tmp;
+        int size = J6502Constants.info[opcode] & J6502Constants.INFO_SIZE;
+
+        return dispatch (opcode,
+                         (size > 1) ? insn[1] : 0,
+                         (size > 2) ? insn[2] : 0);
+    }
+
+/**
+ * Run instructions until the cycle budget is used up, a
+ * <code>BRK</code> or bad opcode is reached, or the stop condition
+ * asks to stop.  Instructions come from the decode cache when it
+ * is enabled, and then superinstructions are used, as long as
+ * they cannot run past the end of the budget or the next
+ * scheduled event.  The cycle count is kept in a local, and only
+ * written back to <code>elapsedClocks</code> for
+ * <code>service</code>, the stop condition and the end of the
+ * run, and before each instruction when memory is not plain RAM,
+ * so that devices see the cycle the instruction started on.
+ * Between instructions, only the cycle count is compared with
+ * <code>checkpoint</code> to see whether events are due, an
+ * interrupt is waiting, or it is time to look for an idle loop to
+ * skip.  Idle loops are not skipped when there is a stop
+ * condition, which has to see every instruction.  When breakpoints
+ * are set, <code>runBreakpoints</code> is used instead, so this
+ * loop never checks for them.
+ *
+ * @see j6502.J6502Skeleton#runUntil(StopCondition,int)
+ */
+
+    public int runUntil (StopCondition condition, int cycleBudget) {
+        if (breakpoints != null) {
+            return runBreakpoints (condition, cycleBudget);
+        }
+
+        int clocks = lastClocks;
+        long cycles = elapsedClocks;
+        long end = cycles + cycleBudget;
+        int reason = STOP_BUDGET;
+
+        while (cycles < end) {
+            if (cycles >= checkpoint) {
+                elapsedClocks = cycles;
+                lastClocks = clocks;
+                service ((condition == null) ? end : Long.MIN_VALUE);
+                clocks = lastClocks;
+                cycles = elapsedClocks;
+                continue;
+            }
+            if (condition != null) {
+                elapsedClocks = cycles;
+                lastClocks = clocks;
+                if (condition.shouldStop (pc)) {
+                    reason = STOP_CONDITION;
+                    break;
+                }
+                cycles = elapsedClocks;
+            }
+
+            long insn = decode ();
+            int opcode = (int)insn & 0xff;
+            int size = (int)insn >>> 24;
+
+            if (size == 0) {
+                reason = STOP_BAD_OPCODE;
+                break;
+            }
+            if (opcode == 0x00) {
+                reason = STOP_BREAK;
+                break;
+            }
+            pc += size;
+            if (ram == null) {
+                elapsedClocks = cycles;
+            }
+
+            int number = (int)(insn >>> 32) & 0xff;
+            if ((number != 0) && (condition == null)
+                && (Math.min (end, checkpoint) - cycles > MAX_LEADING_CLOCKS)) {
+                int result = dispatchSuper (number, insn);
+                clocks = result >>> 16;
+                cycles += result & 0xffff;
+            } else {
+                clocks = dispatch (opcode, (byte)(insn >> 8), (byte)(insn >> 16));
+                cycles += clocks;
+            }
+        }
+
+        elapsedClocks = cycles;
+        lastClocks = clocks;
+        return reason;
+    } // runUntil
+
+/**
+ * The <code>runUntil</code> loop used when breakpoints are set.
+ * Before each instruction, the bit for the program counter is
+ * tested in <code>breakpoints</code>.  The first instruction is
+ * run even if it is at a breakpoint, so that running again
+ * carries on from one.  Every instruction has to be seen, so
+ * superinstructions are not used and idle loops are not skipped.
+ */
 
-        extraClocks = 0;
-        clocks = J6502Constants.clocks[opcode];
+    final int runBreakpoints (StopCondition condition, int cycleBudget) {
+        int clocks = lastClocks;
+        long cycles = elapsedClocks;
+        long end = cycles + cycleBudget;
+        int reason = STOP_BUDGET;
+        int resume = pc;
 
+        while (cycles < end) {
+            if (cycles >= checkpoint) {
+                elapsedClocks = cycles;
+                lastClocks = clocks;
+                service (Long.MIN_VALUE);
+                clocks = lastClocks;
+                cycles = elapsedClocks;
+                continue;
+            }
+            if (((breakpoints[pc >> 5] & (1 << (pc & 31))) != 0)
+                && (pc != resume)) {
+                reason = STOP_BREAKPOINT;
+                break;
+            }
+            if (condition != null) {
+                elapsedClocks = cycles;
+                lastClocks = clocks;
+                if (condition.shouldStop (pc)) {
+                    reason = STOP_CONDITION;
+                    break;
+                }
+                cycles = elapsedClocks;
+            }
+
+            long insn = decode ();
+            int opcode = (int)insn & 0xff;
+            int size = (int)insn >>> 24;
+
+            if (size == 0) {
+                reason = STOP_BAD_OPCODE;
+                break;
+            }
+            if (opcode == 0x00) {
+                reason = STOP_BREAK;
+                break;
+            }
+            pc += size;
+            resume = -1;
+            if (ram == null) {
+                elapsedClocks = cycles;
+            }
+
+            clocks = dispatch (opcode, (byte)(insn >> 8), (byte)(insn >> 16));
+            cycles += clocks;
+        }
+
+        elapsedClocks = cycles;
+        lastClocks = clocks;
+        return reason;
+    } // runBreakpoints
+
+/**
+ * Execute one instruction whose operands have already been
+ * fetched.  The program counter must already point to the next
+ * instruction.
+ *
+ * @see j6502.J6502Skeleton#dispatch(int,byte,byte)
+ */
+
+    final int dispatch (int opcode, byte op1, byte op2) {
         switch (opcode) {
         case 0x00:
-            {
-                setBreak (true);
-                push ((byte)((pc >> 8) & 0xff));
-                push ((byte)(pc & 0xff));
-                push (getStatus ());
-                setInterrupt (true);
-                byte tmpLSB = readMemory ((char)0xfffe);
-                byte tmpMSB = readMemory ((char)0xffff);
-                pc = (char)(((tmpMSB & 0xff) << 8) + (tmpLSB & 0xff));
-            }
-            break;
-            
+            return brk_00 (op1, op2);
         case 0x01:
-            addr = preIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator |= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
-        case 0x02:
-            badOpcode = true;
-            break;
-            
-        case 0x03:
-            badOpcode = true;
-            break;
-            
-        case 0x04:
-            badOpcode = true;
-            break;
-            
+            return ora_01 (op1, op2);
         case 0x05:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator |= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return ora_05 (op1, op2);
         case 0x06:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                setCarry ((tmp & 0x80) != 0);
-                tmp <<= 1;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x07:
-            badOpcode = true;
-            break;
-            
+            return asl_06 (op1, op2);
         case 0x08:
-            {
-                push (getStatus ());
-            }
-            break;
-            
+            return php_08 (op1, op2);
         case 0x09:
-            tmp = insn[1];
-            {
-                accumulator |= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return ora_09 (op1, op2);
         case 0x0a:
-            {
-                setCarry ((accumulator & 0x80) != 0);
-                accumulator <<= 1;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
-        case 0x0b:
-            badOpcode = true;
-            break;
-            
-        case 0x0c:
-            badOpcode = true;
-            break;
-            
+            return asl_0a (op1, op2);
         case 0x0d:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                accumulator |= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return ora_0d (op1, op2);
         case 0x0e:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                setCarry ((tmp & 0x80) != 0);
-                tmp <<= 1;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x0f:
-            badOpcode = true;
-            break;
-            
+            return asl_0e (op1, op2);
         case 0x10:
-            tmp = insn[1];
-            jmpRelative (tmp);
-            {
-                if (!isSign ()) pc += tmp;
-            }
-            clocks += extraClocks;
-            break;
-            
+            return bpl_10 (op1, op2);
         case 0x11:
-            addr = postIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator |= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0x12:
-            badOpcode = true;
-            break;
-            
-        case 0x13:
-            badOpcode = true;
-            break;
-            
-        case 0x14:
-            badOpcode = true;
-            break;
-            
+            return ora_11 (op1, op2);
         case 0x15:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator |= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return ora_15 (op1, op2);
         case 0x16:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                setCarry ((tmp & 0x80) != 0);
-                tmp <<= 1;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x17:
-            badOpcode = true;
-            break;
-            
+            return asl_16 (op1, op2);
         case 0x18:
-            {
-                setCarry (false);
-            }
-            break;
-            
+            return clc_18 (op1, op2);
         case 0x19:
-            addr = indexedY (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                accumulator |= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0x1a:
-            badOpcode = true;
-            break;
-            
-        case 0x1b:
-            badOpcode = true;
-            break;
-            
-        case 0x1c:
-            badOpcode = true;
-            break;
-            
+            return ora_19 (op1, op2);
         case 0x1d:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                accumulator |= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            clocks += extraClocks;
-            break;
-            
+            return ora_1d (op1, op2);
         case 0x1e:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                setCarry ((tmp & 0x80) != 0);
-                tmp <<= 1;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x1f:
-            badOpcode = true;
-            break;
-            
+            return asl_1e (op1, op2);
         case 0x20:
-            addr = jmpDirect (insn[1], insn[2]);
-            {
-                pc--;
-                push ((byte)((pc >> 8) & 0xff));
-                push ((byte)((pc & 0xff)));
-                pc = addr;
-            }
-            break;
-            
+            return jsr_20 (op1, op2);
         case 0x21:
-            addr = preIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator &= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
-        case 0x22:
-            badOpcode = true;
-            break;
-            
-        case 0x23:
-            badOpcode = true;
-            break;
-            
+            return and_21 (op1, op2);
         case 0x24:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                setSign ((tmp & 0x80) != 0);
-                setOverflow ((tmp & 0x40) != 0);
-                setZero ((accumulator & tmp) != 0);
-            }
-            break;
-            
+            return bit_24 (op1, op2);
         case 0x25:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator &= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return and_25 (op1, op2);
         case 0x26:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                boolean tmpCarry = isCarry ();
-                setCarry ((tmp & 0x80) != 0);
-                tmp <<= 1;
-                if (tmpCarry) {
-                  tmp++;
-                }
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x27:
-            badOpcode = true;
-            break;
-            
+            return rol_26 (op1, op2);
         case 0x28:
-            {
-                setStatus (pop ());
-            }
-            break;
-            
+            return plp_28 (op1, op2);
         case 0x29:
-            tmp = insn[1];
-            {
-                accumulator &= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return and_29 (op1, op2);
         case 0x2a:
-            {
-                boolean tmpCarry = isCarry ();
-                setCarry ((accumulator & 0x80) != 0);
-                accumulator <<= 1;
-                if (tmpCarry) {
-                  accumulator++;
-                }
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
-        case 0x2b:
-            badOpcode = true;
-            break;
-            
+            return rol_2a (op1, op2);
         case 0x2c:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                setSign ((tmp & 0x80) != 0);
-                setOverflow ((tmp & 0x40) != 0);
-                setZero ((accumulator & tmp) != 0);
-            }
-            break;
-            
+            return bit_2c (op1, op2);
         case 0x2d:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                accumulator &= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return and_2d (op1, op2);
         case 0x2e:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                boolean tmpCarry = isCarry ();
-                setCarry ((tmp & 0x80) != 0);
-                tmp <<= 1;
-                if (tmpCarry) {
-                  tmp++;
-                }
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x2f:
-            badOpcode = true;
-            break;
-            
+            return rol_2e (op1, op2);
         case 0x30:
-            tmp = insn[1];
-            jmpRelative (tmp);
-            {
-                if (isSign ()) pc += tmp;
-            }
-            clocks += extraClocks;
-            break;
-            
+            return bmi_30 (op1, op2);
         case 0x31:
-            addr = postIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator &= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0x32:
-            badOpcode = true;
-            break;
-            
-        case 0x33:
-            badOpcode = true;
-            break;
-            
-        case 0x34:
-            badOpcode = true;
-            break;
-            
+            return and_31 (op1, op2);
         case 0x35:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator &= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return and_35 (op1, op2);
         case 0x36:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                boolean tmpCarry = isCarry ();
-                setCarry ((tmp & 0x80) != 0);
-                tmp <<= 1;
-                if (tmpCarry) {
-                  tmp++;
-                }
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x37:
-            badOpcode = true;
-            break;
-            
+            return rol_36 (op1, op2);
         case 0x38:
-            {
-                setCarry (true);
-            }
-            break;
-            
+            return sec_38 (op1, op2);
         case 0x39:
-            addr = indexedY (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                accumulator &= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0x3a:
-            badOpcode = true;
-            break;
-            
-        case 0x3b:
-            badOpcode = true;
-            break;
-            
-        case 0x3c:
-            badOpcode = true;
-            break;
-            
+            return and_39 (op1, op2);
         case 0x3d:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                accumulator &= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            clocks += extraClocks;
-            break;
-            
+            return and_3d (op1, op2);
         case 0x3e:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                boolean tmpCarry = isCarry ();
-                setCarry ((tmp & 0x80) != 0);
-                tmp <<= 1;
-                if (tmpCarry) {
-                  tmp++;
-                }
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x3f:
-            badOpcode = true;
-            break;
-            
+            return rol_3e (op1, op2);
         case 0x40:
-            {
-                setStatus (pop ());
-                byte tmpLSB = pop ();
-                byte tmpMSB = pop ();
-                pc = (char)(((tmpMSB & 0xff) << 8) + (tmpLSB & 0xff));
-                pc++;
-            }
-            break;
-            
+            return rti_40 (op1, op2);
         case 0x41:
-            addr = preIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator ^= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
-        case 0x42:
-            badOpcode = true;
-            break;
-            
-        case 0x43:
-            badOpcode = true;
-            break;
-            
-        case 0x44:
-            badOpcode = true;
-            break;
-            
+            return eor_41 (op1, op2);
         case 0x45:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator ^= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return eor_45 (op1, op2);
         case 0x46:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                setCarry ((tmp & 0x01) != 0);
-                tmp >>>= 1;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x47:
-            badOpcode = true;
-            break;
-            
+            return lsr_46 (op1, op2);
         case 0x48:
-            {
-                push (accumulator);
-            }
-            break;
-            
+            return pha_48 (op1, op2);
         case 0x49:
-            tmp = insn[1];
-            {
-                accumulator ^= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return eor_49 (op1, op2);
         case 0x4a:
-            {
-                setCarry ((accumulator & 0x01) != 0);
-                accumulator >>>= 1;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
-        case 0x4b:
-            badOpcode = true;
-            break;
-            
+            return lsr_4a (op1, op2);
         case 0x4c:
-            addr = jmpDirect (insn[1], insn[2]);
-            {
-                pc = addr;
-            }
-            break;
-            
+            return jmp_4c (op1, op2);
         case 0x4d:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                accumulator ^= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return eor_4d (op1, op2);
         case 0x4e:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                setCarry ((tmp & 0x01) != 0);
-                tmp >>>= 1;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x4f:
-            badOpcode = true;
-            break;
-            
+            return lsr_4e (op1, op2);
         case 0x50:
-            tmp = insn[1];
-            jmpRelative (tmp);
-            {
-                if (!isOverflow ()) pc += tmp;
-            }
-            clocks += extraClocks;
-            break;
-            
+            return bvc_50 (op1, op2);
         case 0x51:
-            addr = postIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator ^= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0x52:
-            badOpcode = true;
-            break;
-            
-        case 0x53:
-            badOpcode = true;
-            break;
-            
-        case 0x54:
-            badOpcode = true;
-            break;
-            
+            return eor_51 (op1, op2);
         case 0x55:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator ^= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return eor_55 (op1, op2);
         case 0x56:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                setCarry ((tmp & 0x01) != 0);
-                tmp >>>= 1;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x57:
-            badOpcode = true;
-            break;
-            
+            return lsr_56 (op1, op2);
         case 0x58:
-            {
-                setInterrupt (false);
-            }
-            break;
-            
+            return cli_58 (op1, op2);
         case 0x59:
-            addr = indexedY (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                accumulator ^= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0x5a:
-            badOpcode = true;
-            break;
-            
-        case 0x5b:
-            badOpcode = true;
-            break;
-            
-        case 0x5c:
-            badOpcode = true;
-            break;
-            
+            return eor_59 (op1, op2);
         case 0x5d:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                accumulator ^= tmp;
-                setArithmeticFlags (accumulator);
-            }
-            clocks += extraClocks;
-            break;
-            
+            return eor_5d (op1, op2);
         case 0x5e:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                setCarry ((tmp & 0x01) != 0);
-                tmp >>>= 1;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x5f:
-            badOpcode = true;
-            break;
-            
+            return lsr_5e (op1, op2);
         case 0x60:
-            {
-                byte tmpLSB = pop ();
-                byte tmpMSB = pop ();
-                pc = (char)(((tmpMSB & 0xff) << 8) + (tmpLSB & 0xff));
-                pc++;
-            }
-            break;
-            
+            return rts_60 (op1, op2);
         case 0x61:
-            addr = preIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  adcBCD (tmp);
-                } else {
-                  adc (tmp);
-                }
-            }
-            break;
-            
-        case 0x62:
-            badOpcode = true;
-            break;
-            
-        case 0x63:
-            badOpcode = true;
-            break;
-            
-        case 0x64:
-            badOpcode = true;
-            break;
-            
+            return adc_61 (op1, op2);
         case 0x65:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  adcBCD (tmp);
-                } else {
-                  adc (tmp);
-                }
-            }
-            break;
-            
+            return adc_65 (op1, op2);
         case 0x66:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                boolean tmpCarry = isCarry ();
-                setCarry ((tmp & 0x01) != 0);
-                tmp >>>= 1;
-                if (tmpCarry) {
-                  tmp |= 0x80;
-                }
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x67:
-            badOpcode = true;
-            break;
-            
+            return ror_66 (op1, op2);
         case 0x68:
-            {
-                accumulator = pop ();
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return pla_68 (op1, op2);
         case 0x69:
-            tmp = insn[1];
-            {
-                if (isBCDMode ()) {
-                  adcBCD (tmp);
-                } else {
-                  adc (tmp);
-                }
-            }
-            break;
-            
+            return adc_69 (op1, op2);
         case 0x6a:
-            {
-                boolean tmpCarry = isCarry ();
-                setCarry ((accumulator & 0x01) != 0);
-                accumulator >>>= 1;
-                if (tmpCarry) {
-                  accumulator |= 0x80;
-                }
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
-        case 0x6b:
-            badOpcode = true;
-            break;
-            
+            return ror_6a (op1, op2);
         case 0x6c:
-            addr = jmpDirect (insn[1], insn[2]);
-            {
-                pc = addr;
-            }
-            break;
-            
+            return jmp_6c (op1, op2);
         case 0x6d:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  adcBCD (tmp);
-                } else {
-                  adc (tmp);
-                }
-            }
-            break;
-            
+            return adc_6d (op1, op2);
         case 0x6e:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                boolean tmpCarry = isCarry ();
-                setCarry ((tmp & 0x01) != 0);
-                tmp >>>= 1;
-                if (tmpCarry) {
-                  tmp |= 0x80;
-                }
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x6f:
-            badOpcode = true;
-            break;
-            
+            return ror_6e (op1, op2);
         case 0x70:
-            tmp = insn[1];
-            jmpRelative (tmp);
-            {
-                if (isOverflow ()) pc += tmp;
-            }
-            clocks += extraClocks;
-            break;
-            
+            return bvs_70 (op1, op2);
         case 0x71:
-            addr = postIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  adcBCD (tmp);
-                } else {
-                  adc (tmp);
-                }
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0x72:
-            badOpcode = true;
-            break;
-            
-        case 0x73:
-            badOpcode = true;
-            break;
-            
-        case 0x74:
-            badOpcode = true;
-            break;
-            
+            return adc_71 (op1, op2);
         case 0x75:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  adcBCD (tmp);
-                } else {
-                  adc (tmp);
-                }
-            }
-            break;
-            
+            return adc_75 (op1, op2);
         case 0x76:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                boolean tmpCarry = isCarry ();
-                setCarry ((tmp & 0x01) != 0);
-                tmp >>>= 1;
-                if (tmpCarry) {
-                  tmp |= 0x80;
-                }
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x77:
-            badOpcode = true;
-            break;
-            
+            return ror_76 (op1, op2);
         case 0x78:
-            {
-                setInterrupt (true);
-            }
-            break;
-            
+            return sei_78 (op1, op2);
         case 0x79:
-            addr = indexedY (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  adcBCD (tmp);
-                } else {
-                  adc (tmp);
-                }
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0x7a:
-            badOpcode = true;
-            break;
-            
-        case 0x7b:
-            badOpcode = true;
-            break;
-            
-        case 0x7c:
-            badOpcode = true;
-            break;
-            
+            return adc_79 (op1, op2);
         case 0x7d:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  adcBCD (tmp);
-                } else {
-                  adc (tmp);
-                }
-            }
-            clocks += extraClocks;
-            break;
-            
+            return adc_7d (op1, op2);
         case 0x7e:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                boolean tmpCarry = isCarry ();
-                setCarry ((tmp & 0x01) != 0);
-                tmp >>>= 1;
-                if (tmpCarry) {
-                  tmp |= 0x80;
-                }
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x7f:
-            badOpcode = true;
-            break;
-            
+            return ror_7e (op1, op2);
         case 0x80:
-            tmp = insn[1];
-            jmpRelative (tmp);
-            {
-                if (isCarry ()) pc += tmp;
-            }
-            clocks += extraClocks;
-            break;
-            
+            return bcs_80 (op1, op2);
         case 0x81:
-            addr = preIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                tmp = accumulator;
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x82:
-            badOpcode = true;
-            break;
-            
-        case 0x83:
-            badOpcode = true;
-            break;
-            
+            return sta_81 (op1, op2);
         case 0x84:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                tmp = regY;
-            }
-            writeMemory (addr, tmp);
-            break;
-            
+            return sty_84 (op1, op2);
         case 0x85:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                tmp = accumulator;
-            }
-            writeMemory (addr, tmp);
-            break;
-            
+            return sta_85 (op1, op2);
         case 0x86:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                tmp = regX;
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x87:
-            badOpcode = true;
-            break;
-            
+            return stx_86 (op1, op2);
         case 0x88:
-            {
-                regY--;
-                setArithmeticFlags (regY);
-            }
-            break;
-            
-        case 0x89:
-            badOpcode = true;
-            break;
-            
+            return dey_88 (op1, op2);
         case 0x8a:
-            {
-                accumulator = regX;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
-        case 0x8b:
-            badOpcode = true;
-            break;
-            
+            return txa_8a (op1, op2);
         case 0x8c:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                tmp = regY;
-            }
-            writeMemory (addr, tmp);
-            break;
-            
+            return sty_8c (op1, op2);
         case 0x8d:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                tmp = accumulator;
-            }
-            writeMemory (addr, tmp);
-            break;
-            
+            return sta_8d (op1, op2);
         case 0x8e:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                tmp = regX;
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x8f:
-            badOpcode = true;
-            break;
-            
+            return stx_8e (op1, op2);
         case 0x90:
-            tmp = insn[1];
-            jmpRelative (tmp);
-            {
-                if (!isCarry ()) pc += tmp;
-            }
-            clocks += extraClocks;
-            break;
-            
+            return bcc_90 (op1, op2);
         case 0x91:
-            addr = postIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                tmp = accumulator;
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x92:
-            badOpcode = true;
-            break;
-            
-        case 0x93:
-            badOpcode = true;
-            break;
-            
+            return sta_91 (op1, op2);
         case 0x94:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                tmp = regY;
-            }
-            writeMemory (addr, tmp);
-            break;
-            
+            return sty_94 (op1, op2);
         case 0x95:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                tmp = accumulator;
-            }
-            writeMemory (addr, tmp);
-            break;
-            
+            return sta_95 (op1, op2);
         case 0x96:
-            addr = zpIndexedY (insn[1]);
-            tmp = readMemory (addr);
-            {
-                tmp = regX;
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x97:
-            badOpcode = true;
-            break;
-            
+            return stx_96 (op1, op2);
         case 0x98:
-            {
-                accumulator = regY;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return tya_98 (op1, op2);
         case 0x99:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                tmp = accumulator;
-            }
-            writeMemory (addr, tmp);
-            break;
-            
+            return sta_99 (op1, op2);
         case 0x9a:
-            {
-                regSP = regX;
-            }
-            break;
-            
-        case 0x9b:
-            badOpcode = true;
-            break;
-            
-        case 0x9c:
-            badOpcode = true;
-            break;
-            
+            return txs_9a (op1, op2);
         case 0x9d:
-            addr = indexedY (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                tmp = accumulator;
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0x9e:
-            badOpcode = true;
-            break;
-            
-        case 0x9f:
-            badOpcode = true;
-            break;
-            
+            return sta_9d (op1, op2);
         case 0xa0:
-            tmp = insn[1];
-            {
-                regY = tmp;
-                setArithmeticFlags (regY);
-            }
-            break;
-            
+            return ldy_a0 (op1, op2);
         case 0xa1:
-            addr = preIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator = tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return lda_a1 (op1, op2);
         case 0xa2:
-            tmp = insn[1];
-            {
-                regX = tmp;
-                setArithmeticFlags (regX);
-            }
-            break;
-            
-        case 0xa3:
-            badOpcode = true;
-            break;
-            
+            return ldx_a2 (op1, op2);
         case 0xa4:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                regY = tmp;
-                setArithmeticFlags (regY);
-            }
-            break;
-            
+            return ldy_a4 (op1, op2);
         case 0xa5:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator = tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return lda_a5 (op1, op2);
         case 0xa6:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                regX = tmp;
-                setArithmeticFlags (regX);
-            }
-            break;
-            
-        case 0xa7:
-            badOpcode = true;
-            break;
-            
+            return ldx_a6 (op1, op2);
         case 0xa8:
-            {
-                regY = accumulator;
-                setArithmeticFlags (regY);
-            }
-            break;
-            
+            return tay_a8 (op1, op2);
         case 0xa9:
-            tmp = insn[1];
-            {
-                accumulator = tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return lda_a9 (op1, op2);
         case 0xaa:
-            {
-                regX = accumulator;
-                setArithmeticFlags (regX);
-            }
-            break;
-            
-        case 0xab:
-            badOpcode = true;
-            break;
-            
+            return tax_aa (op1, op2);
         case 0xac:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                regY = tmp;
-                setArithmeticFlags (regY);
-            }
-            break;
-            
+            return ldy_ac (op1, op2);
         case 0xad:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                accumulator = tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return lda_ad (op1, op2);
         case 0xae:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                regX = tmp;
-                setArithmeticFlags (regX);
-            }
-            break;
-            
-        case 0xaf:
-            badOpcode = true;
-            break;
-            
-        case 0xb0:
-            badOpcode = true;
-            break;
-            
+            return ldx_ae (op1, op2);
         case 0xb1:
-            addr = postIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator = tmp;
-                setArithmeticFlags (accumulator);
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0xb2:
-            badOpcode = true;
-            break;
-            
-        case 0xb3:
-            badOpcode = true;
-            break;
-            
+            return lda_b1 (op1, op2);
         case 0xb4:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                regY = tmp;
-                setArithmeticFlags (regY);
-            }
-            break;
-            
+            return ldy_b4 (op1, op2);
         case 0xb5:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                accumulator = tmp;
-                setArithmeticFlags (accumulator);
-            }
-            break;
-            
+            return lda_b5 (op1, op2);
         case 0xb6:
-            addr = zpIndexedY (insn[1]);
-            tmp = readMemory (addr);
-            {
-                regX = tmp;
-                setArithmeticFlags (regX);
-            }
-            break;
-            
-        case 0xb7:
-            badOpcode = true;
-            break;
-            
+            return ldx_b6 (op1, op2);
         case 0xb8:
-            {
-                setOverflow (false);
-            }
-            break;
-            
+            return clv_b8 (op1, op2);
         case 0xb9:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                accumulator = tmp;
-                setArithmeticFlags (accumulator);
-            }
-            clocks += extraClocks;
-            break;
-            
+            return lda_b9 (op1, op2);
         case 0xba:
-            {
-                regX = regSP;
-                setArithmeticFlags (regX);
-            }
-            break;
-            
-        case 0xbb:
-            badOpcode = true;
-            break;
-            
+            return tsx_ba (op1, op2);
         case 0xbc:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                regY = tmp;
-                setArithmeticFlags (regY);
-            }
-            break;
-            
+            return ldy_bc (op1, op2);
         case 0xbd:
-            addr = indexedY (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                accumulator = tmp;
-                setArithmeticFlags (accumulator);
-            }
-            clocks += extraClocks;
-            break;
-            
+            return lda_bd (op1, op2);
         case 0xbe:
-            addr = indexedY (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                regX = tmp;
-                setArithmeticFlags (regX);
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0xbf:
-            badOpcode = true;
-            break;
-            
+            return ldx_be (op1, op2);
         case 0xc0:
-            tmp = insn[1];
-            {
-                cmp (regY, tmp);
-            }
-            break;
-            
+            return cpy_c0 (op1, op2);
         case 0xc1:
-            addr = preIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                cmp (accumulator, tmp);
-            }
-            break;
-            
-        case 0xc2:
-            badOpcode = true;
-            break;
-            
-        case 0xc3:
-            badOpcode = true;
-            break;
-            
+            return cmp_c1 (op1, op2);
         case 0xc4:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                cmp (regY, tmp);
-            }
-            break;
-            
+            return cpy_c4 (op1, op2);
         case 0xc5:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                cmp (accumulator, tmp);
-            }
-            break;
-            
+            return cmp_c5 (op1, op2);
         case 0xc6:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                tmp--;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0xc7:
-            badOpcode = true;
-            break;
-            
+            return dec_c6 (op1, op2);
         case 0xc8:
-            {
-                regY++;
-                setArithmeticFlags (regY);
-            }
-            break;
-            
+            return iny_c8 (op1, op2);
         case 0xc9:
-            tmp = insn[1];
-            {
-                cmp (accumulator, tmp);
-            }
-            break;
-            
+            return cmp_c9 (op1, op2);
         case 0xca:
-            {
-                regX--;
-                setArithmeticFlags (regX);
-            }
-            break;
-            
-        case 0xcb:
-            badOpcode = true;
-            break;
-            
+            return dex_ca (op1, op2);
         case 0xcc:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                cmp (regY, tmp);
-            }
-            break;
-            
+            return cpy_cc (op1, op2);
         case 0xcd:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                cmp (accumulator, tmp);
-            }
-            break;
-            
+            return cmp_cd (op1, op2);
         case 0xce:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                tmp--;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0xcf:
-            badOpcode = true;
-            break;
-            
+            return dec_ce (op1, op2);
         case 0xd0:
-            tmp = insn[1];
-            jmpRelative (tmp);
-            {
-                if (!isZero ()) pc += tmp;
-            }
-            clocks += extraClocks;
-            break;
-            
+            return bne_d0 (op1, op2);
         case 0xd1:
-            addr = postIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                cmp (accumulator, tmp);
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0xd2:
-            badOpcode = true;
-            break;
-            
-        case 0xd3:
-            badOpcode = true;
-            break;
-            
-        case 0xd4:
-            badOpcode = true;
-            break;
-            
+            return cmp_d1 (op1, op2);
         case 0xd5:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                cmp (accumulator, tmp);
-            }
-            break;
-            
+            return cmp_d5 (op1, op2);
         case 0xd6:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                tmp--;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0xd7:
-            badOpcode = true;
-            break;
-            
+            return dec_d6 (op1, op2);
         case 0xd8:
-            {
-                setDecimal (false);
-            }
-            break;
-            
+            return cld_d8 (op1, op2);
         case 0xd9:
-            addr = indexedY (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                cmp (accumulator, tmp);
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0xda:
-            badOpcode = true;
-            break;
-            
-        case 0xdb:
-            badOpcode = true;
-            break;
-            
-        case 0xdc:
-            badOpcode = true;
-            break;
-            
+            return cmp_d9 (op1, op2);
         case 0xdd:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                cmp (accumulator, tmp);
-            }
-            clocks += extraClocks;
-            break;
-            
+            return cmp_dd (op1, op2);
         case 0xde:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                tmp--;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0xdf:
-            badOpcode = true;
-            break;
-            
+            return dec_de (op1, op2);
         case 0xe0:
-            tmp = insn[1];
-            {
-                cmp (regX, tmp);
-            }
-            break;
-            
+            return cpx_e0 (op1, op2);
         case 0xe1:
-            addr = preIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  sbcBCD (tmp);
-                } else {
-                  sbc (tmp);
-                }
-            }
-            break;
-            
-        case 0xe2:
-            badOpcode = true;
-            break;
-            
-        case 0xe3:
-            badOpcode = true;
-            break;
-            
+            return sbc_e1 (op1, op2);
         case 0xe4:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                cmp (regX, tmp);
-            }
-            break;
-            
+            return cpx_e4 (op1, op2);
         case 0xe5:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  sbcBCD (tmp);
-                } else {
-                  sbc (tmp);
-                }
-            }
-            break;
-            
+            return sbc_e5 (op1, op2);
         case 0xe6:
-            addr = zpDirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                tmp++;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0xe7:
-            badOpcode = true;
-            break;
-            
+            return inc_e6 (op1, op2);
         case 0xe8:
-            {
-                regX++;
-                setArithmeticFlags (regX);
-            }
-            break;
-            
+            return inx_e8 (op1, op2);
         case 0xe9:
-            tmp = insn[1];
-            {
-                if (isBCDMode ()) {
-                  sbcBCD (tmp);
-                } else {
-                  sbc (tmp);
-                }
-            }
-            break;
-            
+            return sbc_e9 (op1, op2);
         case 0xea:
-            {
-            }
-            break;
-            
-        case 0xeb:
-            badOpcode = true;
-            break;
-            
+            return nop_ea (op1, op2);
         case 0xec:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                cmp (regX, tmp);
-            }
-            break;
-            
+            return cpx_ec (op1, op2);
         case 0xed:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  sbcBCD (tmp);
-                } else {
-                  sbc (tmp);
-                }
-            }
-            break;
-            
+            return sbc_ed (op1, op2);
         case 0xee:
-            addr = direct (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                tmp++;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0xef:
-            badOpcode = true;
-            break;
-            
+            return inc_ee (op1, op2);
         case 0xf0:
-            tmp = insn[1];
-            jmpRelative (tmp);
-            {
-                if (isZero ()) pc += tmp;
-            }
-            clocks += extraClocks;
-            break;
-            
+            return beq_f0 (op1, op2);
         case 0xf1:
-            addr = postIndexedIndirect (insn[1]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  sbcBCD (tmp);
-                } else {
-                  sbc (tmp);
-                }
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0xf2:
-            badOpcode = true;
-            break;
-            
-        case 0xf3:
-            badOpcode = true;
-            break;
-            
-        case 0xf4:
-            badOpcode = true;
-            break;
-            
+            return sbc_f1 (op1, op2);
         case 0xf5:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  sbcBCD (tmp);
-                } else {
-                  sbc (tmp);
-                }
-            }
-            break;
-            
+            return sbc_f5 (op1, op2);
         case 0xf6:
-            addr = zpIndexedX (insn[1]);
-            tmp = readMemory (addr);
-            {
-                tmp++;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0xf7:
-            badOpcode = true;
-            break;
-            
+            return inc_f6 (op1, op2);
         case 0xf8:
-            {
-                setDecimal (true);
-            }
-            break;
-            
+            return sed_f8 (op1, op2);
         case 0xf9:
-            addr = indexedY (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  sbcBCD (tmp);
-                } else {
-                  sbc (tmp);
-                }
-            }
-            clocks += extraClocks;
-            break;
-            
-        case 0xfa:
-            badOpcode = true;
-            break;
-            
-        case 0xfb:
-            badOpcode = true;
-            break;
-            
-        case 0xfc:
-            badOpcode = true;
-            break;
-            
+            return sbc_f9 (op1, op2);
         case 0xfd:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                if (isBCDMode ()) {
-                  sbcBCD (tmp);
-                } else {
-                  sbc (tmp);
-                }
-            }
-            clocks += extraClocks;
-            break;
-            
+            return sbc_fd (op1, op2);
         case 0xfe:
-            addr = indexedX (insn[1], insn[2]);
-            tmp = readMemory (addr);
-            {
-                tmp++;
-                setArithmeticFlags (tmp);
-            }
-            writeMemory (addr, tmp);
-            break;
-            
-        case 0xff:
-            badOpcode = true;
-            break;
-            
+            return inc_fe (op1, op2);
+        default:
+            return 0;
         }
-        return clocks;
-    } // execute
+    } // dispatch
+
+/**
+ * The opcode sequences which have superinstructions, from
+ * superinstructions.profile.
+ *
+ * @see j6502.J6502Skeleton#getSuperinstructions()
+ */
+
+    static final int[][] superinstructions = {
+        { 0x8a, 0xc9, 0x10 },
+        { 0xa8, 0x8a, 0xc9 },
+        { 0xb5, 0xe8, 0xa8 },
+        { 0xe8, 0xa8, 0x8a },
+        { 0xc9, 0x10 },
+        { 0x8a, 0xc9 },
+        { 0xa8, 0x8a },
+        { 0xb5, 0xe8 },
+        { 0xd5, 0x10 },
+        { 0xe8, 0xa8 },
+        { 0x98, 0x4c },
+        { 0xb5, 0xca, 0xb4 },
+        { 0xca, 0xb4, 0x95 },
+        { 0xa5, 0xc9, 0x10 },
+        { 0xa2, 0xd5, 0x10 },
+        { 0xa5, 0xa2, 0xd5 },
+    };
+    
+    static final int MAX_LEADING_CLOCKS = 6;
+    
+    final int[][] getSuperinstructions () {
+        return superinstructions;
+    }
+    
+/**
+ * Run a superinstruction.
+ *
+ * @see j6502.J6502Skeleton#dispatchSuper(int,long)
+ */
+
+    final int dispatchSuper (int number, long insn) {
+        switch (number) {
+        case 1:
+            return txa_8a_cmp_c9_bpl_10 (insn);
+        case 2:
+            return tay_a8_txa_8a_cmp_c9 (insn);
+        case 3:
+            return lda_b5_inx_e8_tay_a8 (insn);
+        case 4:
+            return inx_e8_tay_a8_txa_8a (insn);
+        case 5:
+            return cmp_c9_bpl_10 (insn);
+        case 6:
+            return txa_8a_cmp_c9 (insn);
+        case 7:
+            return tay_a8_txa_8a (insn);
+        case 8:
+            return lda_b5_inx_e8 (insn);
+        case 9:
+            return cmp_d5_bpl_10 (insn);
+        case 10:
+            return inx_e8_tay_a8 (insn);
+        case 11:
+            return tya_98_jmp_4c (insn);
+        case 12:
+            return lda_b5_dex_ca_ldy_b4 (insn);
+        case 13:
+            return dex_ca_ldy_b4_sta_95 (insn);
+        case 14:
+            return lda_a5_cmp_c9_bpl_10 (insn);
+        case 15:
+            return ldx_a2_cmp_d5_bpl_10 (insn);
+        case 16:
+            return lda_a5_ldx_a2_cmp_d5 (insn);
+        default:
+            return 0;
+        }
+    } // dispatchSuper
+    
+    // TXA INHERENT, CMP IMMEDIATE, BPL JMP_RELATIVE
+    int txa_8a_cmp_c9_bpl_10 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 2;
+        {
+            accumulator = regX;
+            setArithmeticFlags (accumulator);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 40);
+        {
+            cmp (accumulator, tmp);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 48);
+        clocks += ((((pc + tmp) ^ pc) & 0xff00) == 0) ? 1 : 2;
+        {
+            if (!isSign ()) pc += tmp;
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // TAY INHERENT, TXA INHERENT, CMP IMMEDIATE
+    int tay_a8_txa_8a_cmp_c9 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 2;
+        {
+            regY = accumulator;
+            setArithmeticFlags (regY);
+        }
+        total += clocks;
+        
+        pc += 1;
+        clocks = 2;
+        {
+            accumulator = regX;
+            setArithmeticFlags (accumulator);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 40);
+        {
+            cmp (accumulator, tmp);
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // LDA ZP_INDEXED_X, INX INHERENT, TAY INHERENT
+    int lda_b5_inx_e8_tay_a8 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 4;
+        addr = (char)(((byte)(insn >> 8) + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        total += clocks;
+        
+        pc += 1;
+        clocks = 2;
+        {
+            regX++;
+            setArithmeticFlags (regX);
+        }
+        total += clocks;
+        
+        pc += 1;
+        clocks = 2;
+        {
+            regY = accumulator;
+            setArithmeticFlags (regY);
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // INX INHERENT, TAY INHERENT, TXA INHERENT
+    int inx_e8_tay_a8_txa_8a (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 2;
+        {
+            regX++;
+            setArithmeticFlags (regX);
+        }
+        total += clocks;
+        
+        pc += 1;
+        clocks = 2;
+        {
+            regY = accumulator;
+            setArithmeticFlags (regY);
+        }
+        total += clocks;
+        
+        pc += 1;
+        clocks = 2;
+        {
+            accumulator = regX;
+            setArithmeticFlags (accumulator);
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // CMP IMMEDIATE, BPL JMP_RELATIVE
+    int cmp_c9_bpl_10 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 2;
+        tmp = (byte)(insn >> 8);
+        {
+            cmp (accumulator, tmp);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 40);
+        clocks += ((((pc + tmp) ^ pc) & 0xff00) == 0) ? 1 : 2;
+        {
+            if (!isSign ()) pc += tmp;
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // TXA INHERENT, CMP IMMEDIATE
+    int txa_8a_cmp_c9 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 2;
+        {
+            accumulator = regX;
+            setArithmeticFlags (accumulator);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 40);
+        {
+            cmp (accumulator, tmp);
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // TAY INHERENT, TXA INHERENT
+    int tay_a8_txa_8a (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 2;
+        {
+            regY = accumulator;
+            setArithmeticFlags (regY);
+        }
+        total += clocks;
+        
+        pc += 1;
+        clocks = 2;
+        {
+            accumulator = regX;
+            setArithmeticFlags (accumulator);
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // LDA ZP_INDEXED_X, INX INHERENT
+    int lda_b5_inx_e8 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 4;
+        addr = (char)(((byte)(insn >> 8) + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        total += clocks;
+        
+        pc += 1;
+        clocks = 2;
+        {
+            regX++;
+            setArithmeticFlags (regX);
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // CMP ZP_INDEXED_X, BPL JMP_RELATIVE
+    int cmp_d5_bpl_10 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 4;
+        addr = (char)(((byte)(insn >> 8) + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 40);
+        clocks += ((((pc + tmp) ^ pc) & 0xff00) == 0) ? 1 : 2;
+        {
+            if (!isSign ()) pc += tmp;
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // INX INHERENT, TAY INHERENT
+    int inx_e8_tay_a8 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 2;
+        {
+            regX++;
+            setArithmeticFlags (regX);
+        }
+        total += clocks;
+        
+        pc += 1;
+        clocks = 2;
+        {
+            regY = accumulator;
+            setArithmeticFlags (regY);
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // TYA INHERENT, JMP JMP_DIRECT
+    int tya_98_jmp_4c (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 2;
+        {
+            accumulator = regY;
+            setArithmeticFlags (accumulator);
+        }
+        total += clocks;
+        
+        pc += 3;
+        clocks = 3;
+        addr = (char)((((byte)(insn >> 48) & 0xff) << 8) | ((byte)(insn >> 40) & 0xff));
+        {
+            pc = addr;
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // LDA ZP_INDEXED_X, DEX INHERENT, LDY ZP_INDEXED_X
+    int lda_b5_dex_ca_ldy_b4 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 4;
+        addr = (char)(((byte)(insn >> 8) + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        total += clocks;
+        
+        pc += 1;
+        clocks = 2;
+        {
+            regX--;
+            setArithmeticFlags (regX);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 4;
+        addr = (char)(((byte)(insn >> 40) + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            regY = tmp;
+            setArithmeticFlags (regY);
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // DEX INHERENT, LDY ZP_INDEXED_X, STA ZP_INDEXED_X
+    int dex_ca_ldy_b4_sta_95 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 2;
+        {
+            regX--;
+            setArithmeticFlags (regX);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 4;
+        addr = (char)(((byte)(insn >> 40) + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            regY = tmp;
+            setArithmeticFlags (regY);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 4;
+        addr = (char)(((byte)(insn >> 48) + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            tmp = accumulator;
+        }
+        writeMemory (addr, tmp);
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // LDA ZP_DIRECT, CMP IMMEDIATE, BPL JMP_RELATIVE
+    int lda_a5_cmp_c9_bpl_10 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 3;
+        addr = (char)((byte)(insn >> 8) & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 40);
+        {
+            cmp (accumulator, tmp);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 48);
+        clocks += ((((pc + tmp) ^ pc) & 0xff00) == 0) ? 1 : 2;
+        {
+            if (!isSign ()) pc += tmp;
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // LDX IMMEDIATE, CMP ZP_INDEXED_X, BPL JMP_RELATIVE
+    int ldx_a2_cmp_d5_bpl_10 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 2;
+        tmp = (byte)(insn >> 8);
+        {
+            regX = tmp;
+            setArithmeticFlags (regX);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 4;
+        addr = (char)(((byte)(insn >> 40) + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 48);
+        clocks += ((((pc + tmp) ^ pc) & 0xff00) == 0) ? 1 : 2;
+        {
+            if (!isSign ()) pc += tmp;
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // LDA ZP_DIRECT, LDX IMMEDIATE, CMP ZP_INDEXED_X
+    int lda_a5_ldx_a2_cmp_d5 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 3;
+        addr = (char)((byte)(insn >> 8) & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 40);
+        {
+            regX = tmp;
+            setArithmeticFlags (regX);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 4;
+        addr = (char)(((byte)(insn >> 48) + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // BRK INHERENT - software interrupt
+    int brk_00 (byte op1, byte op2) {
+        int clocks = 7;
+        
+        {
+            setBreak (true);
+            push ((byte)((pc >> 8) & 0xff));
+            push ((byte)(pc & 0xff));
+            push (getStatus ());
+            setInterrupt (true);
+            byte tmpLSB = readMemory ((char)0xfffe);
+            byte tmpMSB = readMemory ((char)0xffff);
+            pc = (char)(((tmpMSB & 0xff) << 8) + (tmpLSB & 0xff));
+        }
+        return clocks;
+    }
+    
+    // ORA PRE_INDEXED_INDIRECT - bitwise or operation, accumulator with memory
+    int ora_01 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regY) & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        tmp = readMemory (addr);
+        {
+            accumulator |= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ORA ZP_DIRECT - bitwise or operation, accumulator with memory
+    int ora_05 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator |= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ASL ZP_DIRECT - arithmetic shift right
+    int asl_06 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            setCarry ((tmp & 0x80) != 0);
+            tmp <<= 1;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // PHP INHERENT - push status register on the stack
+    int php_08 (byte op1, byte op2) {
+        int clocks = 3;
+        
+        {
+            push (getStatus ());
+        }
+        return clocks;
+    }
+    
+    // ORA IMMEDIATE - bitwise or operation, accumulator with memory
+    int ora_09 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            accumulator |= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ASL ACCUMULATOR - arithmetic shift right
+    int asl_0a (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            setCarry ((accumulator & 0x80) != 0);
+            accumulator <<= 1;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ORA DIRECT - bitwise or operation, accumulator with memory
+    int ora_0d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator |= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ASL DIRECT - arithmetic shift right
+    int asl_0e (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            setCarry ((tmp & 0x80) != 0);
+            tmp <<= 1;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // BPL JMP_RELATIVE - branch on sign flag clear (branch if plus)
+    int bpl_10 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        clocks += ((((pc + tmp) ^ pc) & 0xff00) == 0) ? 1 : 2;
+        {
+            if (!isSign ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // ORA POST_INDEXED_INDIRECT - bitwise or operation, accumulator with memory
+    int ora_11 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator |= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ORA ZP_INDEXED_X - bitwise or operation, accumulator with memory
+    int ora_15 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator |= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ASL ZP_INDEXED_X - arithmetic shift right
+    int asl_16 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            setCarry ((tmp & 0x80) != 0);
+            tmp <<= 1;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // CLC INHERENT - clear carry flag
+    int clc_18 (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            setCarry (false);
+        }
+        return clocks;
+    }
+    
+    // ORA INDEXED_Y - bitwise or operation, accumulator with memory
+    int ora_19 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator |= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ORA INDEXED_X - bitwise or operation, accumulator with memory
+    int ora_1d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regX & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator |= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ASL INDEXED_X - arithmetic shift right
+    int asl_1e (byte op1, byte op2) {
+        int clocks = 7;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            setCarry ((tmp & 0x80) != 0);
+            tmp <<= 1;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // JSR JMP_DIRECT - call subroutine
+    int jsr_20 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        {
+            pc--;
+            push ((byte)((pc >> 8) & 0xff));
+            push ((byte)((pc & 0xff)));
+            pc = addr;
+        }
+        return clocks;
+    }
+    
+    // AND PRE_INDEXED_INDIRECT - bitwise logical and operation, accumulator with memory
+    int and_21 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regY) & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        tmp = readMemory (addr);
+        {
+            accumulator &= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // BIT ZP_DIRECT - bit test accumulator with memory
+    int bit_24 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            setSign ((tmp & 0x80) != 0);
+            setOverflow ((tmp & 0x40) != 0);
+            setZero ((accumulator & tmp) != 0);
+        }
+        return clocks;
+    }
+    
+    // AND ZP_DIRECT - bitwise logical and operation, accumulator with memory
+    int and_25 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator &= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ROL ZP_DIRECT - rotate memory contents left through carry
+    int rol_26 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            boolean tmpCarry = isCarry ();
+            setCarry ((tmp & 0x80) != 0);
+            tmp <<= 1;
+            if (tmpCarry) {
+              tmp++;
+            }
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // PLP INHERENT - pop (pull) status register from the stack
+    int plp_28 (byte op1, byte op2) {
+        int clocks = 4;
+        
+        {
+            setStatus (pop ());
+        }
+        return clocks;
+    }
+    
+    // AND IMMEDIATE - bitwise logical and operation, accumulator with memory
+    int and_29 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            accumulator &= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ROL ACCUMULATOR - rotate memory contents left through carry
+    int rol_2a (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            boolean tmpCarry = isCarry ();
+            setCarry ((accumulator & 0x80) != 0);
+            accumulator <<= 1;
+            if (tmpCarry) {
+              accumulator++;
+            }
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // BIT DIRECT - bit test accumulator with memory
+    int bit_2c (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            setSign ((tmp & 0x80) != 0);
+            setOverflow ((tmp & 0x40) != 0);
+            setZero ((accumulator & tmp) != 0);
+        }
+        return clocks;
+    }
+    
+    // AND DIRECT - bitwise logical and operation, accumulator with memory
+    int and_2d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator &= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ROL DIRECT - rotate memory contents left through carry
+    int rol_2e (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            boolean tmpCarry = isCarry ();
+            setCarry ((tmp & 0x80) != 0);
+            tmp <<= 1;
+            if (tmpCarry) {
+              tmp++;
+            }
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // BMI JMP_RELATIVE - branch on sign flag set (branch if minus)
+    int bmi_30 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        clocks += ((((pc + tmp) ^ pc) & 0xff00) == 0) ? 1 : 2;
+        {
+            if (isSign ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // AND POST_INDEXED_INDIRECT - bitwise logical and operation, accumulator with memory
+    int and_31 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator &= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // AND ZP_INDEXED_X - bitwise logical and operation, accumulator with memory
+    int and_35 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator &= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ROL ZP_INDEXED_X - rotate memory contents left through carry
+    int rol_36 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            boolean tmpCarry = isCarry ();
+            setCarry ((tmp & 0x80) != 0);
+            tmp <<= 1;
+            if (tmpCarry) {
+              tmp++;
+            }
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // SEC INHERENT - set carry flag
+    int sec_38 (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            setCarry (true);
+        }
+        return clocks;
+    }
+    
+    // AND INDEXED_Y - bitwise logical and operation, accumulator with memory
+    int and_39 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator &= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // AND INDEXED_X - bitwise logical and operation, accumulator with memory
+    int and_3d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regX & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator &= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ROL INDEXED_X - rotate memory contents left through carry
+    int rol_3e (byte op1, byte op2) {
+        int clocks = 7;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            boolean tmpCarry = isCarry ();
+            setCarry ((tmp & 0x80) != 0);
+            tmp <<= 1;
+            if (tmpCarry) {
+              tmp++;
+            }
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // RTI INHERENT - return from interrupt
+    int rti_40 (byte op1, byte op2) {
+        int clocks = 6;
+        
+        {
+            setStatus (pop ());
+            byte tmpLSB = pop ();
+            byte tmpMSB = pop ();
+            pc = (char)(((tmpMSB & 0xff) << 8) + (tmpLSB & 0xff));
+            pc++;
+        }
+        return clocks;
+    }
+    
+    // EOR PRE_INDEXED_INDIRECT - bitwise exclusive or operation, accumulator with memory
+    int eor_41 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regY) & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        tmp = readMemory (addr);
+        {
+            accumulator ^= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // EOR ZP_DIRECT - bitwise exclusive or operation, accumulator with memory
+    int eor_45 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator ^= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LSR ZP_DIRECT - logical shift right
+    int lsr_46 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            setCarry ((tmp & 0x01) != 0);
+            tmp >>>= 1;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // PHA INHERENT - push accumulator on the stack
+    int pha_48 (byte op1, byte op2) {
+        int clocks = 3;
+        
+        {
+            push (accumulator);
+        }
+        return clocks;
+    }
+    
+    // EOR IMMEDIATE - bitwise exclusive or operation, accumulator with memory
+    int eor_49 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            accumulator ^= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LSR ACCUMULATOR - logical shift right
+    int lsr_4a (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            setCarry ((accumulator & 0x01) != 0);
+            accumulator >>>= 1;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // JMP JMP_DIRECT - transfer control to new memory location
+    int jmp_4c (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        {
+            pc = addr;
+        }
+        return clocks;
+    }
+    
+    // EOR DIRECT - bitwise exclusive or operation, accumulator with memory
+    int eor_4d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator ^= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LSR DIRECT - logical shift right
+    int lsr_4e (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            setCarry ((tmp & 0x01) != 0);
+            tmp >>>= 1;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // BVC JMP_RELATIVE - branch if overflow flag clear
+    int bvc_50 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        clocks += ((((pc + tmp) ^ pc) & 0xff00) == 0) ? 1 : 2;
+        {
+            if (!isOverflow ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // EOR POST_INDEXED_INDIRECT - bitwise exclusive or operation, accumulator with memory
+    int eor_51 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator ^= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // EOR ZP_INDEXED_X - bitwise exclusive or operation, accumulator with memory
+    int eor_55 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator ^= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LSR ZP_INDEXED_X - logical shift right
+    int lsr_56 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            setCarry ((tmp & 0x01) != 0);
+            tmp >>>= 1;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // CLI INHERENT - clear interrupt flag
+    int cli_58 (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            setInterrupt (false);
+        }
+        return clocks;
+    }
+    
+    // EOR INDEXED_Y - bitwise exclusive or operation, accumulator with memory
+    int eor_59 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator ^= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // EOR INDEXED_X - bitwise exclusive or operation, accumulator with memory
+    int eor_5d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regX & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator ^= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LSR INDEXED_X - logical shift right
+    int lsr_5e (byte op1, byte op2) {
+        int clocks = 7;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            setCarry ((tmp & 0x01) != 0);
+            tmp >>>= 1;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // RTS INHERENT - return from subroutine
+    int rts_60 (byte op1, byte op2) {
+        int clocks = 6;
+        
+        {
+            byte tmpLSB = pop ();
+            byte tmpMSB = pop ();
+            pc = (char)(((tmpMSB & 0xff) << 8) + (tmpLSB & 0xff));
+            pc++;
+        }
+        return clocks;
+    }
+    
+    // ADC PRE_INDEXED_INDIRECT - add to accumulator with carry
+    int adc_61 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regY) & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              adcBCD (tmp);
+            } else {
+              adc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // ADC ZP_DIRECT - add to accumulator with carry
+    int adc_65 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              adcBCD (tmp);
+            } else {
+              adc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // ROR ZP_DIRECT - rotate memory contents right through carry
+    int ror_66 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            boolean tmpCarry = isCarry ();
+            setCarry ((tmp & 0x01) != 0);
+            tmp >>>= 1;
+            if (tmpCarry) {
+              tmp |= 0x80;
+            }
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // PLA INHERENT - pop (pull) accumulator from stack
+    int pla_68 (byte op1, byte op2) {
+        int clocks = 4;
+        
+        {
+            accumulator = pop ();
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ADC IMMEDIATE - add to accumulator with carry
+    int adc_69 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            if (isBCDMode ()) {
+              adcBCD (tmp);
+            } else {
+              adc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // ROR ACCUMULATOR - rotate memory contents right through carry
+    int ror_6a (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            boolean tmpCarry = isCarry ();
+            setCarry ((accumulator & 0x01) != 0);
+            accumulator >>>= 1;
+            if (tmpCarry) {
+              accumulator |= 0x80;
+            }
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // JMP JMP_INDIRECT - transfer control to new memory location
+    int jmp_6c (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        {
+            pc = addr;
+        }
+        return clocks;
+    }
+    
+    // ADC DIRECT - add to accumulator with carry
+    int adc_6d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              adcBCD (tmp);
+            } else {
+              adc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // ROR DIRECT - rotate memory contents right through carry
+    int ror_6e (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            boolean tmpCarry = isCarry ();
+            setCarry ((tmp & 0x01) != 0);
+            tmp >>>= 1;
+            if (tmpCarry) {
+              tmp |= 0x80;
+            }
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // BVS JMP_RELATIVE - branch if overflow flag set
+    int bvs_70 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        clocks += ((((pc + tmp) ^ pc) & 0xff00) == 0) ? 1 : 2;
+        {
+            if (isOverflow ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // ADC POST_INDEXED_INDIRECT - add to accumulator with carry
+    int adc_71 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              adcBCD (tmp);
+            } else {
+              adc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // ADC ZP_INDEXED_X - add to accumulator with carry
+    int adc_75 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              adcBCD (tmp);
+            } else {
+              adc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // ROR ZP_INDEXED_X - rotate memory contents right through carry
+    int ror_76 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            boolean tmpCarry = isCarry ();
+            setCarry ((tmp & 0x01) != 0);
+            tmp >>>= 1;
+            if (tmpCarry) {
+              tmp |= 0x80;
+            }
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // SEI INHERENT - set interrupt flag
+    int sei_78 (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            setInterrupt (true);
+        }
+        return clocks;
+    }
+    
+    // ADC INDEXED_Y - add to accumulator with carry
+    int adc_79 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              adcBCD (tmp);
+            } else {
+              adc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // ADC INDEXED_X - add to accumulator with carry
+    int adc_7d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regX & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              adcBCD (tmp);
+            } else {
+              adc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // ROR INDEXED_X - rotate memory contents right through carry
+    int ror_7e (byte op1, byte op2) {
+        int clocks = 7;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            boolean tmpCarry = isCarry ();
+            setCarry ((tmp & 0x01) != 0);
+            tmp >>>= 1;
+            if (tmpCarry) {
+              tmp |= 0x80;
+            }
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // BCS JMP_RELATIVE - branch on carry set
+    int bcs_80 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        clocks += ((((pc + tmp) ^ pc) & 0xff00) == 0) ? 1 : 2;
+        {
+            if (isCarry ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // STA PRE_INDEXED_INDIRECT - store accumulator to memory
+    int sta_81 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regY) & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        tmp = readMemory (addr);
+        {
+            tmp = accumulator;
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // STY ZP_DIRECT - store y register to memory
+    int sty_84 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            tmp = regY;
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // STA ZP_DIRECT - store accumulator to memory
+    int sta_85 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            tmp = accumulator;
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // STX ZP_DIRECT - store x register to memory
+    int stx_86 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            tmp = regX;
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // DEY INHERENT - decrement y register
+    int dey_88 (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            regY--;
+            setArithmeticFlags (regY);
+        }
+        return clocks;
+    }
+    
+    // TXA INHERENT - transfer x register to accumulator
+    int txa_8a (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            accumulator = regX;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // STY DIRECT - store y register to memory
+    int sty_8c (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            tmp = regY;
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // STA DIRECT - store accumulator to memory
+    int sta_8d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            tmp = accumulator;
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // STX DIRECT - store x register to memory
+    int stx_8e (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            tmp = regX;
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // BCC JMP_RELATIVE - branch on carry clear
+    int bcc_90 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        clocks += ((((pc + tmp) ^ pc) & 0xff00) == 0) ? 1 : 2;
+        {
+            if (!isCarry ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // STA POST_INDEXED_INDIRECT - store accumulator to memory
+    int sta_91 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            tmp = accumulator;
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // STY ZP_INDEXED_X - store y register to memory
+    int sty_94 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            tmp = regY;
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // STA ZP_INDEXED_X - store accumulator to memory
+    int sta_95 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            tmp = accumulator;
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // STX ZP_INDEXED_Y - store x register to memory
+    int stx_96 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regY) & 0xff);
+        tmp = readMemory (addr);
+        {
+            tmp = regX;
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // TYA INHERENT - transfer y register to accumulator
+    int tya_98 (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            accumulator = regY;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // STA INDEXED_X - store accumulator to memory
+    int sta_99 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            tmp = accumulator;
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // TXS INHERENT - transfer x register to stack pointer
+    int txs_9a (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            regSP = regX;
+        }
+        return clocks;
+    }
+    
+    // STA INDEXED_Y - store accumulator to memory
+    int sta_9d (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            tmp = accumulator;
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // LDY IMMEDIATE - load y register from memory
+    int ldy_a0 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            regY = tmp;
+            setArithmeticFlags (regY);
+        }
+        return clocks;
+    }
+    
+    // LDA PRE_INDEXED_INDIRECT - load accumulator with memory
+    int lda_a1 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regY) & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LDX IMMEDIATE - load x register from memory
+    int ldx_a2 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            regX = tmp;
+            setArithmeticFlags (regX);
+        }
+        return clocks;
+    }
+    
+    // LDY ZP_DIRECT - load y register from memory
+    int ldy_a4 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            regY = tmp;
+            setArithmeticFlags (regY);
+        }
+        return clocks;
+    }
+    
+    // LDA ZP_DIRECT - load accumulator with memory
+    int lda_a5 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LDX ZP_DIRECT - load x register from memory
+    int ldx_a6 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            regX = tmp;
+            setArithmeticFlags (regX);
+        }
+        return clocks;
+    }
+    
+    // TAY INHERENT - transfer accumulator to y register
+    int tay_a8 (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            regY = accumulator;
+            setArithmeticFlags (regY);
+        }
+        return clocks;
+    }
+    
+    // LDA IMMEDIATE - load accumulator with memory
+    int lda_a9 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // TAX INHERENT - transfer accumulator to x register
+    int tax_aa (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            regX = accumulator;
+            setArithmeticFlags (regX);
+        }
+        return clocks;
+    }
+    
+    // LDY DIRECT - load y register from memory
+    int ldy_ac (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            regY = tmp;
+            setArithmeticFlags (regY);
+        }
+        return clocks;
+    }
+    
+    // LDA DIRECT - load accumulator with memory
+    int lda_ad (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LDX DIRECT - load x register from memory
+    int ldx_ae (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            regX = tmp;
+            setArithmeticFlags (regX);
+        }
+        return clocks;
+    }
+    
+    // LDA POST_INDEXED_INDIRECT - load accumulator with memory
+    int lda_b1 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LDY ZP_INDEXED_X - load y register from memory
+    int ldy_b4 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            regY = tmp;
+            setArithmeticFlags (regY);
+        }
+        return clocks;
+    }
+    
+    // LDA ZP_INDEXED_X - load accumulator with memory
+    int lda_b5 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LDX ZP_INDEXED_Y - load x register from memory
+    int ldx_b6 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regY) & 0xff);
+        tmp = readMemory (addr);
+        {
+            regX = tmp;
+            setArithmeticFlags (regX);
+        }
+        return clocks;
+    }
+    
+    // CLV INHERENT - clear overflow flag
+    int clv_b8 (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            setOverflow (false);
+        }
+        return clocks;
+    }
+    
+    // LDA INDEXED_X - load accumulator with memory
+    int lda_b9 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regX & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // TSX INHERENT - transfer stack pointer to x register
+    int tsx_ba (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            regX = regSP;
+            setArithmeticFlags (regX);
+        }
+        return clocks;
+    }
+    
+    // LDY INDEXED_X - load y register from memory
+    int ldy_bc (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            regY = tmp;
+            setArithmeticFlags (regY);
+        }
+        return clocks;
+    }
+    
+    // LDA INDEXED_Y - load accumulator with memory
+    int lda_bd (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LDX INDEXED_Y - load x register from memory
+    int ldx_be (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            regX = tmp;
+            setArithmeticFlags (regX);
+        }
+        return clocks;
+    }
+    
+    // CPY IMMEDIATE - compare y register to memory
+    int cpy_c0 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            cmp (regY, tmp);
+        }
+        return clocks;
+    }
+    
+    // CMP PRE_INDEXED_INDIRECT - compare accumulator with memory
+    int cmp_c1 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regY) & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        return clocks;
+    }
+    
+    // CPY ZP_DIRECT - compare y register to memory
+    int cpy_c4 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            cmp (regY, tmp);
+        }
+        return clocks;
+    }
+    
+    // CMP ZP_DIRECT - compare accumulator with memory
+    int cmp_c5 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        return clocks;
+    }
+    
+    // DEC ZP_DIRECT - decrement memory
+    int dec_c6 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            tmp--;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // INY INHERENT - increment y register
+    int iny_c8 (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            regY++;
+            setArithmeticFlags (regY);
+        }
+        return clocks;
+    }
+    
+    // CMP IMMEDIATE - compare accumulator with memory
+    int cmp_c9 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            cmp (accumulator, tmp);
+        }
+        return clocks;
+    }
+    
+    // DEX INHERENT - decrement x register
+    int dex_ca (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            regX--;
+            setArithmeticFlags (regX);
+        }
+        return clocks;
+    }
+    
+    // CPY DIRECT - compare y register to memory
+    int cpy_cc (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            cmp (regY, tmp);
+        }
+        return clocks;
+    }
+    
+    // CMP DIRECT - compare accumulator with memory
+    int cmp_cd (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        return clocks;
+    }
+    
+    // DEC DIRECT - decrement memory
+    int dec_ce (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            tmp--;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // BNE JMP_RELATIVE - branch on zero flag clear
+    int bne_d0 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        clocks += ((((pc + tmp) ^ pc) & 0xff00) == 0) ? 1 : 2;
+        {
+            if (!isZero ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // CMP POST_INDEXED_INDIRECT - compare accumulator with memory
+    int cmp_d1 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        return clocks;
+    }
+    
+    // CMP ZP_INDEXED_X - compare accumulator with memory
+    int cmp_d5 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        return clocks;
+    }
+    
+    // DEC ZP_INDEXED_X - decrement memory
+    int dec_d6 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            tmp--;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // CLD INHERENT - clear decimal flag
+    int cld_d8 (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            setDecimal (false);
+        }
+        return clocks;
+    }
+    
+    // CMP INDEXED_Y - compare accumulator with memory
+    int cmp_d9 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        return clocks;
+    }
+    
+    // CMP INDEXED_X - compare accumulator with memory
+    int cmp_dd (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regX & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        return clocks;
+    }
+    
+    // DEC INDEXED_X - decrement memory
+    int dec_de (byte op1, byte op2) {
+        int clocks = 7;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            tmp--;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // CPX IMMEDIATE - compare x register to memory
+    int cpx_e0 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            cmp (regX, tmp);
+        }
+        return clocks;
+    }
+    
+    // SBC PRE_INDEXED_INDIRECT - subtract from accumulator with borrow
+    int sbc_e1 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regY) & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              sbcBCD (tmp);
+            } else {
+              sbc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // CPX ZP_DIRECT - compare x register to memory
+    int cpx_e4 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            cmp (regX, tmp);
+        }
+        return clocks;
+    }
+    
+    // SBC ZP_DIRECT - subtract from accumulator with borrow
+    int sbc_e5 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              sbcBCD (tmp);
+            } else {
+              sbc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // INC ZP_DIRECT - increment memory or accumulator
+    int inc_e6 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            tmp++;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // INX INHERENT - increment x register
+    int inx_e8 (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            regX++;
+            setArithmeticFlags (regX);
+        }
+        return clocks;
+    }
+    
+    // SBC IMMEDIATE - subtract from accumulator with borrow
+    int sbc_e9 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            if (isBCDMode ()) {
+              sbcBCD (tmp);
+            } else {
+              sbc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // NOP INHERENT - no operation
+    int nop_ea (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+        }
+        return clocks;
+    }
+    
+    // CPX DIRECT - compare x register to memory
+    int cpx_ec (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            cmp (regX, tmp);
+        }
+        return clocks;
+    }
+    
+    // SBC DIRECT - subtract from accumulator with borrow
+    int sbc_ed (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              sbcBCD (tmp);
+            } else {
+              sbc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // INC DIRECT - increment memory or accumulator
+    int inc_ee (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            tmp++;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // BEQ JMP_RELATIVE - branch on zero flag set
+    int beq_f0 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        clocks += ((((pc + tmp) ^ pc) & 0xff00) == 0) ? 1 : 2;
+        {
+            if (isZero ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // SBC POST_INDEXED_INDIRECT - subtract from accumulator with borrow
+    int sbc_f1 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              sbcBCD (tmp);
+            } else {
+              sbc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // SBC ZP_INDEXED_X - subtract from accumulator with borrow
+    int sbc_f5 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              sbcBCD (tmp);
+            } else {
+              sbc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // INC ZP_INDEXED_X - increment memory or accumulator
+    int inc_f6 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            tmp++;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
+    // SED INHERENT - set decimal flag
+    int sed_f8 (byte op1, byte op2) {
+        int clocks = 2;
+        
+        {
+            setDecimal (true);
+        }
+        return clocks;
+    }
+    
+    // SBC INDEXED_Y - subtract from accumulator with borrow
+    int sbc_f9 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              sbcBCD (tmp);
+            } else {
+              sbc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // SBC INDEXED_X - subtract from accumulator with borrow
+    int sbc_fd (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regX & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              sbcBCD (tmp);
+            } else {
+              sbc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // INC INDEXED_X - increment memory or accumulator
+    int inc_fe (byte op1, byte op2) {
+        int clocks = 7;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            tmp++;
+            setArithmeticFlags (tmp);
+        }
+        writeMemory (addr, tmp);
+        return clocks;
+    }
+    
 } // class J6502
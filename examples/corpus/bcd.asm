@@ -0,0 +1,61 @@
+        ;; bcd.asm
+        ;; Decimal mode arithmetic, for the j6502 workload corpus.
+        ;;
+        ;; Works out the first 70 Fibonacci numbers in 16 digit
+        ;; binary coded decimal, 8 bytes each, least significant byte
+        ;; first, ending with F(70) = 190392490709135 in fib_a.  Then
+        ;; 2000 times over adds 1234 to the 4 digit decimal score and
+        ;; subtracts 999 from it.
+        ;;
+        ;; Run from $0200.
+
+        .org $0010
+fib_a:  .byte 0, 0, 0, 0, 0, 0, 0, 0
+fib_b:  .byte 1, 0, 0, 0, 0, 0, 0, 0
+count:  .byte 0
+score:  .byte 0, 0
+
+        .org $0200
+start:  sed
+        lda #70
+        sta count
+
+        ;; fib_a, fib_b = fib_b, fib_a + fib_b.  X runs from $f8 up
+        ;; to 0, so inx ends the loop without touching the carry;
+        ;; the zero page index wraps around to fib_a and fib_b.
+fib:    clc
+        ldx #$f8
+add:    lda fib_a+8,X
+        adc fib_b+8,X
+        ldy fib_b+8,X
+        sta fib_b+8,X
+        sty fib_a+8,X
+        inx
+        bne add
+        dec count
+        bne fib
+
+        lda #8
+        sta count
+outer:  ldx #250
+inner:  clc
+        lda score
+        adc #$34
+        sta score
+        lda score+1
+        adc #$12
+        sta score+1
+        sec
+        lda score
+        sbc #$99
+        sta score
+        lda score+1
+        sbc #$09
+        sta score+1
+        dex
+        bne inner
+        dec count
+        bne outer
+
+        cld
+        brk
@@ -0,0 +1,87 @@
+        ;; memcpy.asm
+        ;; Block copies, for the j6502 workload corpus.
+        ;;
+        ;; Fills 16 pages at $1000 with a pattern, copies them to
+        ;; $3000 four times through (src),Y and (dst),Y, and adds up
+        ;; the bytes of the copy into sum.  Then adds up the first 8
+        ;; pages again into total, with absolute indexed addressing.
+        ;;
+        ;; Run from $0200.
+
+        .org $0000
+src:    .word $1000
+dst:    .word $3000
+sum:    .byte 0, 0
+pass:   .byte 0
+total:  .byte 0, 0
+
+        .org $0200
+start:  ldx #16
+        ldy #0
+fill:   tya
+        eor src+1
+        sta (src),Y
+        iny
+        bne fill
+        inc src+1
+        dex
+        bne fill
+
+        lda #4
+        sta pass
+copy:   lda #$10
+        sta src+1
+        lda #$30
+        sta dst+1
+        ldx #16
+        ldy #0
+page:   lda (src),Y
+        sta (dst),Y
+        iny
+        lda (src),Y
+        sta (dst),Y
+        iny
+        bne page
+        inc src+1
+        inc dst+1
+        dex
+        bne page
+        dec pass
+        bne copy
+
+        lda #$30
+        sta dst+1
+        ldx #16
+        ldy #0
+check:  lda (dst),Y
+        clc
+        adc sum
+        sta sum
+        bcc nocarry
+        inc sum+1
+nocarry:
+        iny
+        bne check
+        inc dst+1
+        dex
+        bne check
+
+        ;; the program steps the high byte of the address itself
+        ldy #8
+abs:    ldx #0
+absloop:
+        clc
+        lda total
+page_adc:
+        adc $1000,X
+        sta total
+        bcc absnext
+        inc total+1
+absnext:
+        inx
+        bne absloop
+        inc page_adc+2
+        dey
+        bne abs
+
+        brk
@@ -0,0 +1,58 @@
+        ;; recursion.asm
+        ;; Deep subroutine calls, for the j6502 workload corpus.
+        ;;
+        ;; Works out fib(18) = 2584 the slow way, by adding up the
+        ;; leaves of the call tree in sum (8361 calls, counted in
+        ;; calls), then calls a subroutine 120 deep, 100 times over.
+        ;;
+        ;; Run from $0200.
+
+        .org $0000
+sum:    .byte 0, 0
+calls:  .byte 0, 0
+runs:   .byte 0
+
+        .org $0200
+start:  ldx #$ff
+        txs
+        lda #18
+        jsr fib
+
+        lda #100
+        sta runs
+deep:   ldx #120
+        jsr descend
+        dec runs
+        bne deep
+
+        brk
+
+        ;; add fib(A) to sum
+fib:    inc calls
+        bne counted
+        inc calls+1
+counted:
+        cmp #2
+        bcc leaf
+        pha
+        clc
+        adc #$ff
+        jsr fib
+        pla
+        clc
+        adc #$fe
+        jsr fib
+        rts
+leaf:   clc
+        adc sum
+        sta sum
+        bcc added
+        inc sum+1
+added:  rts
+
+        ;; call itself until X is 0
+descend:
+        dex
+        beq bottom
+        jsr descend
+bottom: rts
@@ -0,0 +1,106 @@
+        ;; tablewalk.asm
+        ;; Table lookups through pointers, for the j6502 workload
+        ;; corpus.
+        ;;
+        ;; Fills $4000-$4bff with a pattern, then 8 times over adds
+        ;; into sum every byte of 8 tables of 256 bytes, found through
+        ;; the pointers at tables and read with (zp),Y; three of the
+        ;; tables cross a page.  Each round also follows
+        ;; a linked list of 12 nodes and adds up their values.
+        ;;
+        ;; Run from $0200.
+
+        .org $0000
+sum:    .byte 0, 0
+ptr:    .word $4000
+node:   .word 0
+rounds: .byte 0
+
+        .org $0080
+tables: .word $4000, $4100, $4280, $4400, $45c0, $4700, $4810, $4a00
+
+        .org $0200
+start:  ldy #0
+        ldx #12
+fill:   tya
+        asl
+        eor ptr+1
+        sta (ptr),Y
+        iny
+        bne fill
+        inc ptr+1
+        dex
+        bne fill
+
+        lda #8
+        sta rounds
+round:  ldx #0
+table:  lda tables,X
+        sta ptr
+        lda tables+1,X
+        sta ptr+1
+        ldy #0
+entry:  lda (ptr),Y
+        jsr add
+        iny
+        bne entry
+        inx
+        inx
+        cpx #16
+        bne table
+
+        lda head
+        sta node
+        lda head+1
+        sta node+1
+walk:   ldy #2
+        lda (node),Y
+        jsr add
+        ldy #1
+        lda (node),Y
+        tax
+        dey
+        lda (node),Y
+        sta node
+        stx node+1
+        txa
+        bne walk
+
+        dec rounds
+        bne round
+        brk
+
+        ;; add A to sum
+add:    clc
+        adc sum
+        sta sum
+        bcc added
+        inc sum+1
+added:  rts
+
+        ;; the list: next node, then value; the last next is 0
+head:   .word n0
+n5:     .word n6
+        .byte 55
+n2:     .word n3
+        .byte 22
+n9:     .word n10
+        .byte 99
+n0:     .word n1
+        .byte 100
+n7:     .word n8
+        .byte 77
+n3:     .word n4
+        .byte 33
+n11:    .word 0
+        .byte 111
+n1:     .word n2
+        .byte 11
+n8:     .word n9
+        .byte 88
+n4:     .word n5
+        .byte 44
+n10:    .word n11
+        .byte 110
+n6:     .word n7
+        .byte 66
@@ -0,0 +1,84 @@
+package j6502;
+
+// ArithmeticBenchmark.java
+// Richard Russo
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the arithmetic helpers of <code>J6502Skeleton</code> on
+ * their own: binary against decimal <code>adc</code> and
+ * <code>sbc</code>, and packing and unpacking the status register,
+ * which the core keeps as separate lazy flags.
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+@State (Scope.Thread)
+public class ArithmeticBenchmark {
+
+    J6502 cpu;
+
+    /**
+     * The next operand; stepped by an odd number, so the carry and
+     * every flag take both values.
+     */
+
+    byte operand;
+
+    @Setup
+    public void setUp () {
+        cpu = new J6502 (new DefaultMemoryModel ());
+    }
+
+    @Benchmark
+    public byte adc () {
+        cpu.adc (operand += 37);
+        return cpu.accumulator;
+    }
+
+    @Benchmark
+    public byte adcBCD () {
+        cpu.adcBCD (operand += 37);
+        return cpu.accumulator;
+    }
+
+    @Benchmark
+    public byte sbc () {
+        cpu.sbc (operand += 37);
+        return cpu.accumulator;
+    }
+
+    @Benchmark
+    public byte sbcBCD () {
+        cpu.sbcBCD (operand += 37);
+        return cpu.accumulator;
+    }
+
+    @Benchmark
+    public byte getStatus () {
+        cpu.adc (operand += 37);
+        return cpu.getStatus ();
+    }
+
+    @Benchmark
+    public void setStatus () {
+        cpu.setStatus (operand += 37);
+    }
+
+    @Benchmark
+    public byte setAndGetStatus () {
+        cpu.setStatus (operand += 37);
+        return cpu.getStatus ();
+    }
+
+} // class ArithmeticBenchmark
@@ -0,0 +1,64 @@
+package j6502;
+
+// DisassemblerBenchmark.java
+// Richard Russo
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures <code>Disassembler.getCode</code>, one instruction per
+ * operation, going through every opcode in turn.
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+@State (Scope.Thread)
+public class DisassemblerBenchmark {
+
+    Disassembler disassembler;
+    char[] addresses;
+    int next;
+
+    @Setup
+    public void setUp () {
+        DefaultMemoryModel memory = new DefaultMemoryModel ();
+        char addr = 0x0800;
+        int count = 0;
+
+        addresses = new char[256];
+        for (int op = 0; op < 256; op++) {
+            if (J6502Constants.sizes[op] != 0) {
+                memory.writeMemory (addr, (byte)op);
+                memory.writeMemory ((char)(addr + 1), (byte)0x34);
+                memory.writeMemory ((char)(addr + 2), (byte)0x12);
+                addresses[count++] = addr;
+                addr += 3;
+            }
+        }
+
+        char[] used = new char[count];
+        System.arraycopy (addresses, 0, used, 0, count);
+        addresses = used;
+        disassembler = new Disassembler (memory);
+    }
+
+    @Benchmark
+    public String getCode () {
+        char addr = addresses[next];
+
+        if (++next == addresses.length) {
+            next = 0;
+        }
+        return disassembler.getCode (addr);
+    }
+
+} // class DisassemblerBenchmark
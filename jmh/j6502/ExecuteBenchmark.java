@@ -0,0 +1,181 @@
+package j6502;
+
+// ExecuteBenchmark.java
+// Richard Russo
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures <code>J6502.execute</code>, one instruction per operation,
+ * for each opcode and for each addressing mode.
+ *
+ * <p>
+ * Each instruction is run from the same address again and again, with
+ * its operand pointing at ordinary RAM, so jumps and branches go
+ * nowhere.  The <code>clocks</code> counter gives the emulated clock
+ * rate: run with <code>-tu us</code> to read it in MHz.
+ * </p>
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class ExecuteBenchmark {
+
+    /**
+     * Where the instructions are put, 4 bytes apart.
+     */
+
+    final static int CODE = 0x0800;
+
+    /**
+     * Where the operands of the instructions point; zero page
+     * <code>POINTER</code> points here too.
+     */
+
+    final static int DATA = 0x0300;
+    final static int POINTER = 0x40;
+
+    /**
+     * A CPU with each of <code>opcodes</code> at its own address.
+     */
+
+    static abstract class Program {
+        DefaultMemoryModel memory;
+        J6502 cpu;
+        char[] addresses;
+        int next;
+
+        void setUp (int[] opcodes) {
+            memory = new DefaultMemoryModel ();
+            cpu = new J6502 (memory);
+
+            memory.writeMemory ((char)POINTER, (byte)(DATA & 0xff));
+            memory.writeMemory ((char)(POINTER + 1), (byte)(DATA >> 8));
+
+            addresses = new char[opcodes.length];
+            for (int i = 0; i < opcodes.length; i++) {
+                char addr = (char)(CODE + i * 4);
+
+                memory.writeMemory (addr, (byte)opcodes[i]);
+                if (J6502Constants.sizes[opcodes[i]] == 2) {
+                    memory.writeMemory ((char)(addr + 1), (byte)POINTER);
+                } else {
+                    memory.writeMemory ((char)(addr + 1), (byte)(DATA & 0xff));
+                    memory.writeMemory ((char)(addr + 2), (byte)(DATA >> 8));
+                }
+                addresses[i] = addr;
+            }
+        }
+
+        final int step () {
+            cpu.pc = addresses[next];
+            if (++next == addresses.length) {
+                next = 0;
+            }
+            return cpu.execute ();
+        }
+    }
+
+    @State (Scope.Thread)
+    public static class OpcodeProgram extends Program {
+        @Param ({
+            "00", "01", "05", "06", "08", "09", "0A", "0D", "0E", "10",
+            "11", "15", "16", "18", "19", "1D", "1E", "20", "21", "24",
+            "25", "26", "28", "29", "2A", "2C", "2D", "2E", "30", "31",
+            "35", "36", "38", "39", "3D", "3E", "40", "41", "45", "46",
+            "48", "49", "4A", "4C", "4D", "4E", "50", "51", "55", "56",
+            "58", "59", "5D", "5E", "60", "61", "65", "66", "68", "69",
+            "6A", "6C", "6D", "6E", "70", "71", "75", "76", "78", "79",
+            "7D", "7E", "80", "81", "84", "85", "86", "88", "8A", "8C",
+            "8D", "8E", "90", "91", "94", "95", "96", "98", "99", "9A",
+            "9D", "A0", "A1", "A2", "A4", "A5", "A6", "A8", "A9", "AA",
+            "AC", "AD", "AE", "B1", "B4", "B5", "B6", "B8", "B9", "BA",
+            "BC", "BD", "BE", "C0", "C1", "C4", "C5", "C6", "C8", "C9",
+            "CA", "CC", "CD", "CE", "D0", "D1", "D5", "D6", "D8", "D9",
+            "DD", "DE", "E0", "E1", "E4", "E5", "E6", "E8", "E9", "EA",
+            "EC", "ED", "EE", "F0", "F1", "F5", "F6", "F8", "F9", "FD",
+            "FE"
+        })
+        public String opcode;
+
+        @Setup
+        public void setUp () {
+            setUp (new int[] { Integer.parseInt (opcode, 16) });
+        }
+    }
+
+    @State (Scope.Thread)
+    public static class ModeProgram extends Program {
+        @Param ({
+            "INHERENT", "ACCUMULATOR", "IMMEDIATE", "ZP_DIRECT",
+            "ZP_INDEXED_X", "ZP_INDEXED_Y", "DIRECT", "INDEXED_X",
+            "INDEXED_Y", "PRE_INDEXED_INDIRECT", "POST_INDEXED_INDIRECT",
+            "JMP_RELATIVE", "JMP_DIRECT", "JMP_INDIRECT"
+        })
+        public String mode;
+
+        /**
+         * Every opcode with this addressing mode, in turn.
+         */
+
+        @Setup
+        public void setUp () {
+            AddressingMode am = AddressingMode.getByName (mode);
+            int[] opcodes = new int[256];
+            int count = 0;
+
+            for (int op = 0; op < 256; op++) {
+                if ((J6502Constants.sizes[op] != 0)
+                    && (J6502Constants.modes[op] == am)) {
+                    opcodes[count++] = op;
+                }
+            }
+
+            int[] used = new int[count];
+            System.arraycopy (opcodes, 0, used, 0, count);
+            setUp (used);
+        }
+    }
+
+    /**
+     * Emulated clocks, reported per second, or per microsecond (MHz)
+     * with <code>-tu us</code>.
+     */
+
+    @State (Scope.Thread)
+    @AuxCounters (AuxCounters.Type.OPERATIONS)
+    public static class Clocks {
+        public long clocks;
+
+        @Setup (Level.Iteration)
+        public void clear () {
+            clocks = 0;
+        }
+    }
+
+    @Benchmark
+    public int opcode (OpcodeProgram program, Clocks clocks) {
+        int n = program.step ();
+
+        clocks.clocks += n;
+        return n;
+    }
+
+    @Benchmark
+    public int addressingMode (ModeProgram program, Clocks clocks) {
+        int n = program.step ();
+
+        clocks.clocks += n;
+        return n;
+    }
+
+} // class ExecuteBenchmark
@@ -0,0 +1,169 @@
+package j6502;
+
+// LockstepBenchmark.java
+// Richard Russo
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures a <code>LockstepEngine</code> against the same number of
+ * separate <code>J6502</code>s, each on its own
+ * <code>DefaultMemoryModel</code>, running the same program with a
+ * different input in each lane.
+ *
+ * <p>
+ * One operation sets up every lane, loads its input, and runs it for
+ * <code>BUDGET</code> clocks, as a fuzzing or sweep run would for
+ * each batch of inputs.  The program adds one to each of 32 bytes of
+ * zero page over and over; with <code>diverge</code> set, it also
+ * takes a branch which depends on the lane's data, so the lanes split
+ * into groups.  The <code>clocks</code> counter gives the emulated
+ * clock rate of all the lanes together: run with <code>-tu us</code>
+ * to read it in MHz.
+ * </p>
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (value = 1, jvmArgsAppend = "-Xmx2g")
+public class LockstepBenchmark {
+
+    final static int BUDGET = 10000;
+
+    final static char START = 0x0200;
+
+    /**
+     * The lane's input is in <code>INPUT</code>, the first of the
+     * bytes the program adds to.
+     */
+
+    final static char INPUT = 0x10;
+
+    /**
+     *     LDX #0
+     * L:  LDA $10,X
+     *     CLC
+     *     ADC #1
+     *     STA $10,X
+     *     INX
+     *     CPX #$20
+     *     BNE L
+     *     JMP $0200
+     */
+
+    final static int[] SAME = {
+        0xa2, 0x00, 0xb5, 0x10, 0x18, 0x69, 0x01, 0x95,
+        0x10, 0xe8, 0xe0, 0x20, 0xd0, 0xf4, 0x4c, 0x00,
+        0x02
+    };
+
+    /**
+     * As <code>SAME</code>, but after each pass, lanes whose byte at
+     * <code>INPUT</code> is odd add it to <code>$40</code> before
+     * starting again.
+     *
+     *     LDX #0
+     * L:  LDA $10,X
+     *     CLC
+     *     ADC #1
+     *     STA $10,X
+     *     INX
+     *     CPX #$20
+     *     BNE L
+     *     LDA $10
+     *     LSR A
+     *     BCC E
+     *     ADC $40
+     *     STA $40
+     * E:  JMP $0200
+     */
+
+    final static int[] DIVERGE = {
+        0xa2, 0x00, 0xb5, 0x10, 0x18, 0x69, 0x01, 0x95,
+        0x10, 0xe8, 0xe0, 0x20, 0xd0, 0xf4, 0xa5, 0x10,
+        0x4a, 0x90, 0x04, 0x65, 0x40, 0x85, 0x40, 0x4c,
+        0x00, 0x02
+    };
+
+    @State (Scope.Thread)
+    public static class Lanes {
+        @Param ({ "16", "256", "4096" })
+        public int lanes;
+
+        @Param ({ "false", "true" })
+        public boolean diverge;
+
+        byte[] image;
+
+        @Setup
+        public void setUp () {
+            int[] code = diverge ? DIVERGE : SAME;
+
+            image = new byte[65536];
+            for (int i = 0; i < code.length; i++) {
+                image[START + i] = (byte)code[i];
+            }
+        }
+    }
+
+    /**
+     * Emulated clocks, reported per second, or per microsecond (MHz)
+     * with <code>-tu us</code>.
+     */
+
+    @State (Scope.Thread)
+    @AuxCounters (AuxCounters.Type.OPERATIONS)
+    public static class Clocks {
+        public long clocks;
+
+        @Setup (Level.Iteration)
+        public void clear () {
+            clocks = 0;
+        }
+    }
+
+    @Benchmark
+    public long lockstep (Lanes lanes, Clocks clocks) {
+        LockstepEngine engine = new LockstepEngine (lanes.image, lanes.lanes);
+        long total = 0;
+
+        for (int lane = 0; lane < lanes.lanes; lane++) {
+            engine.setPC (lane, START);
+            engine.writeMemory (lane, INPUT, (byte)lane);
+        }
+        engine.run (BUDGET);
+
+        for (int lane = 0; lane < lanes.lanes; lane++) {
+            total += engine.getCycleCount (lane);
+        }
+        clocks.clocks += total;
+        return total;
+    }
+
+    @Benchmark
+    public long separate (Lanes lanes, Clocks clocks) {
+        long total = 0;
+
+        for (int lane = 0; lane < lanes.lanes; lane++) {
+            DefaultMemoryModel memory = new DefaultMemoryModel ();
+            J6502 cpu = new J6502 (memory);
+
+            System.arraycopy (lanes.image, 0, memory.memory, 0, lanes.image.length);
+            cpu.setPC (START);
+            cpu.writeMemory (INPUT, (byte)lane);
+            cpu.run (BUDGET);
+            total += cpu.getCycleCount ();
+        }
+        clocks.clocks += total;
+        return total;
+    }
+
+} // class LockstepBenchmark
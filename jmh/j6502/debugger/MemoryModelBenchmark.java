@@ -0,0 +1,155 @@
+package j6502.debugger;
+
+// MemoryModelBenchmark.java
+// Richard Russo
+
+import j6502.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the cost of memory access through each
+ * <code>MemoryModel</code>, including the debugger's
+ * <code>ITableModel</code>, which records every write so it can be
+ * undone.
+ *
+ * <p>
+ * <code>read</code> and <code>write</code> sweep all 64K through the
+ * <code>MemoryModel</code> interface and count one operation per byte.
+ * <code>run</code> has a CPU run a short loop over zero page, which
+ * also shows what the CPU's direct access to page tables saves; its
+ * <code>clocks</code> counter gives the emulated clock rate, in MHz
+ * with <code>-tu us</code>.
+ * </p>
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+@State (Scope.Thread)
+public class MemoryModelBenchmark {
+
+    final static int SIZE = 65536;
+
+    /**
+     * Increments the 32 bytes at $10 forever:
+     *
+     * <pre>
+     *     $0200  LDX #$00
+     *     $0202  LDA $10,X
+     *            CLC
+     *            ADC #$01
+     *            STA $10,X
+     *            INX
+     *            CPX #$20
+     *            BNE $0202
+     *            JMP $0200
+     * </pre>
+     */
+
+    final static int[] LOOP = {
+        0xa2, 0x00, 0xb5, 0x10, 0x18, 0x69, 0x01, 0x95, 0x10,
+        0xe8, 0xe0, 0x20, 0xd0, 0xf4, 0x4c, 0x00, 0x02
+    };
+
+    final static char ORIGIN = 0x0200;
+
+    @Param ({ "DefaultMemoryModel", "ITableModel", "PageTableMemoryModel",
+              "BufferMemoryModel" })
+    public String model;
+
+    MemoryModel memory;
+    J6502 cpu;
+    byte value;
+
+    @Setup
+    public void setUp () {
+        if (model.equals ("DefaultMemoryModel")) {
+            memory = new DefaultMemoryModel ();
+        } else if (model.equals ("ITableModel")) {
+            memory = new ITableModel ();
+        } else if (model.equals ("PageTableMemoryModel")) {
+            PageTableMemoryModel pages = new PageTableMemoryModel ();
+
+            pages.mapRAM (0, PageTableMemoryModel.PAGES);
+            memory = pages;
+        } else if (model.equals ("BufferMemoryModel")) {
+            memory = new BufferMemoryModel ();
+        } else {
+            throw new IllegalArgumentException (model);
+        }
+
+        cpu = new J6502 (memory);
+        for (int i = 0; i < LOOP.length; i++) {
+            memory.writeMemory ((char)(ORIGIN + i), (byte)LOOP[i]);
+        }
+        cpu.setPC (ORIGIN);
+    }
+
+    /**
+     * <code>ITableModel</code> keeps every write; drop them, so the
+     * list does not grow without end.
+     */
+
+    @Setup (Level.Invocation)
+    public void dropPatch () {
+        if (memory instanceof ITableModel) {
+            ((ITableModel)memory).resetPatch ();
+        }
+    }
+
+    /**
+     * Emulated clocks, reported per second, or per microsecond (MHz)
+     * with <code>-tu us</code>.
+     */
+
+    @State (Scope.Thread)
+    @AuxCounters (AuxCounters.Type.OPERATIONS)
+    public static class Clocks {
+        public long clocks;
+
+        @Setup (Level.Iteration)
+        public void clear () {
+            clocks = 0;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation (SIZE)
+    public int read () {
+        int sum = 0;
+
+        for (int addr = 0; addr < SIZE; addr++) {
+            sum += memory.readMemory ((char)addr);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation (SIZE)
+    public void write () {
+        byte v = value++;
+
+        for (int addr = 0; addr < SIZE; addr++) {
+            memory.writeMemory ((char)addr, v);
+        }
+    }
+
+    @Benchmark
+    public int run (Clocks clocks) {
+        long before = cpu.getCycleCount ();
+
+        cpu.run (SIZE);
+        clocks.clocks += cpu.getCycleCount () - before;
+        return cpu.getPC ();
+    }
+
+} // class MemoryModelBenchmark
@@ -17,6 +17,8 @@ public class AddressingMode {
 
     private static int ordCount = 0;
 
+    private static AddressingMode[] ordinals = new AddressingMode[16];
+
     private final int ordinalValue = ordCount++;
 
     /**
@@ -42,6 +44,7 @@ public class AddressingMode {
         pattern = pat;
 
         table.put (name, this);
+        ordinals[ordinalValue] = this;
     }
 
     /**
@@ -59,6 +62,23 @@ public class AddressingMode {
         return null;
     }
 
+    /**
+     * Get the AddressingMode with the specified ordinal value, as
+     * packed into <code>J6502Constants.info</code>.  A
+     * <code>null</code> return value indicates that none has it.
+     *
+     * @see j6502.J6502Constants#info
+     *
+     * @since 1.2
+     */
+
+    public static AddressingMode forOrdinal (int ord) {
+        if ((ord < 0) || (ord >= ordinals.length)) {
+            return null;
+        }
+        return ordinals[ord];
+    }
+
     /**
      * Returns true if this <code>AddressingMode</code> matches the
      * specified <code>AddressingMode</code>.
@@ -0,0 +1,135 @@
+package j6502;
+
+// ArithmeticTables.java
+// Richard Russo
+
+/**
+ * The results of <code>ADC</code> and <code>SBC</code> in decimal
+ * mode, for every accumulator, operand and carry, so that each is one
+ * table read instead of the nibble by nibble adjustments.
+ *
+ * <p>
+ * A table is indexed by <code>(carry &lt;&lt; 16) | (accumulator
+ * &lt;&lt; 8) | operand</code>.  Each entry holds the new accumulator
+ * in bits 0-7 and the carry flag in bit 8, as
+ * <code>carryResult</code> keeps it; the overflow flag in bit 15, so
+ * that <code>entry &gt;&gt; 8</code> is an
+ * <code>overflowResult</code>; and in bits 16-24 an
+ * <code>nzResult</code> which gives the sign and zero flags.
+ * </p>
+ * <p>
+ * The tables are worked out when the class is first used, by the
+ * functions below, which do the arithmetic the core has always done,
+ * quirks included.  Binary mode is left to <code>adc</code> and
+ * <code>sbc</code>, which are a few integer operations, no slower
+ * than a read from a half megabyte table.
+ * </p>
+ *
+ * @see j6502.J6502Skeleton#adcBCD(byte)
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+final class ArithmeticTables {
+
+    static final int[] ADC_BCD = new int[0x20000];
+    static final int[] SBC_BCD = new int[0x20000];
+
+    static {
+        for (int index = 0; index < 0x20000; index++) {
+            byte a = (byte)(index >> 8);
+            byte b = (byte)index;
+            boolean carry = (index & 0x10000) != 0;
+
+            ADC_BCD[index] = adcBCD (a, b, carry);
+            SBC_BCD[index] = sbcBCD (a, b, carry);
+        }
+    }
+
+    private ArithmeticTables () {
+    }
+
+    /**
+     * Pack a result and its flags into a table entry.
+     */
+
+    static int entry (int result, boolean sign, boolean overflow,
+                      boolean zero, boolean carry) {
+        int nz;
+
+        if (sign) {
+            nz = zero ? 0x100 : 0x80;
+        } else {
+            nz = zero ? 0 : 1;
+        }
+
+        return (result & 0xff)
+            | (carry ? 0x100 : 0)
+            | (overflow ? 0x8000 : 0)
+            | (nz << 16);
+    }
+
+    static int adcBCD (byte a, byte b, boolean carry) {
+        int low = (a & 0x0f) + (b & 0x0f);
+        int high = (a & 0xf0) + (b & 0xf0);
+
+        if (carry) {
+            low++;
+        }
+
+        boolean zero = ((low + high) & 0xff) == 0;
+
+        if (low > 9) {
+            low += 6;
+        }
+
+        boolean sign = ((low + high) & 0x80) != 0;
+        boolean overflow = ((((low + ((a & 0x70) + (b & 0x70))) & 0x80) << 1) // bit 6 carry
+                            ^ ((low + high) & 0x100)) != 0; // bit 7 carry
+
+        if (high > 0x90) {
+            high += 0x60;
+        }
+
+        int result = high + low;
+
+        return entry (result, sign, overflow, zero, (result & 0x100) != 0);
+    }
+
+    static int sbcBCD (byte a, byte b, boolean carry) {
+        int low = (a & 0x0f) - (b & 0x0f);
+
+        if (!carry) {
+            low--;
+        }
+
+        low &= 0xff;
+        if ((low & 0x10) != 0) {
+            low -= 6;
+        }
+
+        int high = (a & 0xf0) - (b & 0xf0);
+        high &= 0xff;
+
+        if ((low & 0x10) != 0) {
+            high -= 0x10;
+        }
+        if ((high & 0x100) != 0) {
+            high -= 0x60;
+        }
+
+        int result = (a & 0xff) - (b & 0xff);
+        if (carry) {
+            result--;
+        }
+
+        return entry ((high & 0xf0) + (low & 0x0f),
+                      (result & 0x80) != 0,
+                      ((result ^ a) != 0) && (((a ^ b) & 0x80) != 0),
+                      (result & 0xff) == 0,
+                      (result & 0x100) != 0);
+    }
+
+} // class ArithmeticTables
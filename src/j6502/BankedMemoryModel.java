@@ -0,0 +1,269 @@
+package j6502;
+
+// BankedMemoryModel.java
+// Richard Russo
+
+/**
+ * A <code>BankedMemoryModel</code> is a <code>PageTableMemoryModel</code>
+ * whose windows show banks of a larger ROM or RAM image, the way a
+ * NES cartridge mapper or the C64's banking chip swaps memory in and
+ * out of the 64K address space.
+ *
+ * <p>
+ * The image is split into banks of <code>getBankSize ()</code> bytes.
+ * <code>mapROMBank</code> and <code>mapRAMBank</code> show one bank at
+ * a given page by pointing that window's page table entries into the
+ * image.  Nothing is copied, so a bank switch costs the same however
+ * often the program does it, and writes to a RAM bank land in the
+ * image itself.
+ * </p>
+ * <p>
+ * Writes which select banks are caught with a
+ * <code>MapperRegister</code>, attached to the pages where the
+ * hardware has its registers.  The CPU still reads those pages
+ * directly; only writes to them go through the register.
+ * </p>
+ *
+ * @see j6502.MapperRegister
+ * @see j6502.PageTableMemoryModel
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class BankedMemoryModel extends PageTableMemoryModel {
+
+    byte[] image;
+    int bankSize;
+
+    /**
+     * The bank shown at each page, or -1 for pages mapped some other
+     * way.
+     */
+
+    int[] banks = new int[PAGES];
+
+    MapperRegister[] registers = new MapperRegister[PAGES];
+
+    /**
+     * The write entry each page would have without a register.
+     * Pages with a register have a <code>null</code> write entry, so
+     * that the CPU calls <code>writeMemory</code>.
+     */
+
+    byte[][] heldPages = new byte[PAGES][];
+    int[] heldOffsets = new int[PAGES];
+
+    /**
+     * Create a banked memory model with every page unmapped.
+     *
+     * @param image the ROM or RAM the banks are taken from.
+     * @param bankSize the size of a bank in bytes, a multiple of
+     * <code>PAGE_SIZE</code>.
+     *
+     * @since 1.2
+     */
+
+    public BankedMemoryModel (byte[] image, int bankSize) {
+        if ((bankSize <= 0) || ((bankSize % PAGE_SIZE) != 0)) {
+            throw new IllegalArgumentException ();
+        }
+        this.image = image;
+        this.bankSize = bankSize;
+        java.util.Arrays.fill (banks, -1);
+    }
+
+    /**
+     * Get the array the banks are taken from.
+     *
+     * @since 1.2
+     */
+
+    public byte[] getImage () {
+        return image;
+    }
+
+    /**
+     * Get the size of a bank, in bytes.
+     *
+     * @since 1.2
+     */
+
+    public int getBankSize () {
+        return bankSize;
+    }
+
+    /**
+     * Get the number of whole banks in the image.
+     *
+     * @since 1.2
+     */
+
+    public int getBankCount () {
+        return image.length / bankSize;
+    }
+
+    /**
+     * Show bank <code>bank</code> of the image, read-only, in the
+     * window starting at <code>page</code>.
+     *
+     * @since 1.2
+     */
+
+    public void mapROMBank (int page, int bank) {
+        mapROM (page, bankSize / PAGE_SIZE, image, bankOffset (bank));
+        setBanks (page, bank);
+    }
+
+    /**
+     * Show bank <code>bank</code> of the image, writable, in the
+     * window starting at <code>page</code>.
+     *
+     * @since 1.2
+     */
+
+    public void mapRAMBank (int page, int bank) {
+        mapRAM (page, bankSize / PAGE_SIZE, image, bankOffset (bank));
+        setBanks (page, bank);
+    }
+
+    /**
+     * Get the bank shown at a page, or -1 if the page was not mapped
+     * with <code>mapROMBank</code> or <code>mapRAMBank</code>.
+     *
+     * @since 1.2
+     */
+
+    public int getBank (int page) {
+        return banks[page];
+    }
+
+    /**
+     * Attach <code>register</code> to <code>count</code> pages starting
+     * at <code>page</code>.  It stays attached when other banks are
+     * mapped there.  A <code>null</code> register detaches it.
+     *
+     * @since 1.2
+     */
+
+    public void setMapperRegister (int page, int count, MapperRegister register) {
+        if ((page < 0) || (count < 0) || (page + count > PAGES)) {
+            throw new IllegalArgumentException ();
+        }
+
+        for (int i = page; i < page + count; i++) {
+            registers[i] = register;
+            if (register == null) {
+                writePages[i] = heldPages[i];
+                writeOffsets[i] = heldOffsets[i];
+            } else {
+                writePages[i] = null;
+                writeOffsets[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Get the register attached to a page, or <code>null</code>.
+     *
+     * @since 1.2
+     */
+
+    public MapperRegister getMapperRegister (int page) {
+        return registers[page];
+    }
+
+    /**
+     * Banked memory can't be forked: RAM banks which are not mapped
+     * would still be shared.
+     *
+     * @exception UnsupportedOperationException always.
+     *
+     * @since 1.2
+     */
+
+    public PageTableMemoryModel fork ()
+    {
+        throw new UnsupportedOperationException ("can't fork banked memory");
+    }
+
+    private int bankOffset (int bank) {
+        if ((bank < 0) || (bank >= getBankCount ())) {
+            throw new IllegalArgumentException ("no bank " + bank);
+        }
+        return bank * bankSize;
+    }
+
+    private void setBanks (int page, int bank) {
+        for (int i = 0; i < bankSize / PAGE_SIZE; i++) {
+            banks[page + i] = bank;
+        }
+    }
+
+    void setPage (int page, byte[] read, int readOffset,
+                  byte[] write, int writeOffset, MemoryModel handler)
+    {
+        banks[page] = -1;
+        heldPages[page] = write;
+        heldOffsets[page] = writeOffset;
+
+        if (registers[page] != null) {
+            write = null;
+            writeOffset = 0;
+        }
+        super.setPage (page, read, readOffset, write, writeOffset, handler);
+    }
+
+    /**
+     * See the general contract of method <CODE>writeMemory</CODE> of
+     * <CODE>MemoryModel</CODE>.  Writes to a page with a
+     * <code>MapperRegister</code> are stored if the page is RAM, or
+     * passed to the page's I/O handler, and then given to the
+     * register.
+     *
+     * @see j6502.MemoryModel#writeMemory(char,byte)
+     *
+     * @since 1.2
+     */
+
+    public void writeMemory (char addr, byte value)
+    {
+        int page = addr >> 8;
+        MapperRegister register = registers[page];
+
+        if (register == null) {
+            super.writeMemory (addr, value);
+            return;
+        }
+
+        if (heldPages[page] != null) {
+            heldPages[page][heldOffsets[page] + (addr & 0xff)] = value;
+        } else if (ioHandlers[page] != null) {
+            ioHandlers[page].writeMemory (addr, value);
+        }
+        register.writeRegister (this, addr, value);
+    }
+
+    /**
+     * Sets every RAM location mapped into the address space to 0,
+     * including RAM banks which are mapped.  Banks which are not
+     * mapped, ROM, I/O handlers and registers are left alone.
+     *
+     * @see j6502.MemoryModel#reset
+     * @since 1.2
+     */
+
+    public void reset ()
+    {
+        super.reset ();
+
+        for (int page = 0; page < PAGES; page++) {
+            if ((registers[page] != null) && (heldPages[page] != null)) {
+                java.util.Arrays.fill (heldPages[page], heldOffsets[page],
+                                       heldOffsets[page] + PAGE_SIZE, (byte)0);
+            }
+        }
+    }
+
+} // class BankedMemoryModel
@@ -0,0 +1,52 @@
+package j6502;
+
+/**
+ * A <code>BatchJob</code> describes the instances a
+ * <code>BatchRunner</code> runs: how to set each one up, and what to
+ * keep from it when it stops.
+ *
+ * <p>
+ * Both methods are called on the pool thread which runs the instance,
+ * so that the instance's memory is created, used and dropped by one
+ * thread.  They may be called for different instances at the same
+ * time, and must not share anything mutable between instances.
+ * </p>
+ *
+ * @see j6502.BatchRunner
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public interface BatchJob {
+
+    /**
+     * Create the CPU for instance <code>index</code>, with its program
+     * loaded and its registers set.
+     *
+     * @exception Exception if the instance can't be set up; it is
+     * recorded in the instance's result.
+     *
+     * @since 1.2
+     */
+
+    public J6502 start (int index)
+        throws Exception;
+
+    /**
+     * Called when instance <code>index</code> stops, to pick out what
+     * should be kept of it, for example a few bytes of memory.  The
+     * CPU is dropped afterwards.
+     *
+     * @param stopReason one of the <code>STOP_</code> constants of
+     * <code>J6502</code>.
+     *
+     * @returns the value to store in the instance's result.
+     *
+     * @since 1.2
+     */
+
+    public Object finish (int index, J6502 cpu, int stopReason);
+
+} // interface BatchJob
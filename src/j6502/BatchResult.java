@@ -0,0 +1,76 @@
+package j6502;
+
+/**
+ * Objects of this class hold what a <code>BatchRunner</code> found
+ * out about one instance.
+ *
+ * @see j6502.BatchRunner
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class BatchResult {
+
+    /**
+     * The number of the instance, from 0.
+     *
+     * @since 1.2
+     */
+
+    public int index;
+
+    /**
+     * Why the instance stopped: one of the <code>STOP_</code>
+     * constants of <code>J6502</code>, or <code>STOP_ERROR</code>.
+     *
+     * @since 1.2
+     */
+
+    public int stopReason;
+
+    /**
+     * <code>stopReason</code> when setting up or running the instance
+     * threw an exception.
+     *
+     * @since 1.2
+     */
+
+    public final static int STOP_ERROR = -1;
+
+    /**
+     * The instance's clock count when it stopped.
+     *
+     * @since 1.2
+     */
+
+    public long elapsedClocks;
+
+    /**
+     * The instance's registers when it stopped.
+     *
+     * @since 1.2
+     */
+
+    public J6502Registers registers;
+
+    /**
+     * The value returned by <code>BatchJob.finish</code>, if there is
+     * one.
+     *
+     * @since 1.2
+     */
+
+    public Object value;
+
+    /**
+     * The exception which stopped the instance, for
+     * <code>STOP_ERROR</code>.
+     *
+     * @since 1.2
+     */
+
+    public Exception error;
+
+} // class BatchResult
@@ -0,0 +1,189 @@
+package j6502;
+
+// BatchRunner.java
+// Richard Russo
+
+import java.util.concurrent.*;
+
+/**
+ * A <code>BatchRunner</code> runs many independent 6502 instances at
+ * once, e.g. a regression corpus of programs, or one program from
+ * many initial states, and collects a <code>BatchResult</code> for
+ * each.
+ *
+ * <p>
+ * The instances are spread over a work-stealing
+ * <code>ForkJoinPool</code> with one thread per processor by default.
+ * Each instance is set up, run and finished by one thread, and is only
+ * ever touched by that thread, so <code>J6502</code> itself needs no
+ * locking.  The range of instances is split in halves, so each thread
+ * works through neighbouring instances until it runs out and steals
+ * half of another thread's range.
+ * </p>
+ * <pre>
+ *     BatchResult[] results = new BatchRunner ().run (images.length, new BatchJob () {
+ *         public J6502 start (int index) throws Exception {
+ *             DefaultMemoryModel memory = new DefaultMemoryModel ();
+ *             J6502 cpu = new J6502 (memory);
+ *             ... load images[index] ...
+ *             return cpu;
+ *         }
+ *         public Object finish (int index, J6502 cpu, int stopReason) {
+ *             return null;
+ *         }
+ *     }, 1000000);
+ * </pre>
+ *
+ * @see j6502.BatchJob
+ * @see j6502.BatchResult
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class BatchRunner {
+
+    ForkJoinPool pool;
+
+    /**
+     * Create a runner with one thread per available processor.
+     *
+     * @since 1.2
+     */
+
+    public BatchRunner () {
+        this (Runtime.getRuntime ().availableProcessors ());
+    }
+
+    /**
+     * Create a runner with <code>parallelism</code> threads.
+     *
+     * @since 1.2
+     */
+
+    public BatchRunner (int parallelism) {
+        pool = new ForkJoinPool (parallelism);
+    }
+
+    /**
+     * Get the number of threads instances are run on.
+     *
+     * @since 1.2
+     */
+
+    public int getParallelism () {
+        return pool.getParallelism ();
+    }
+
+    /**
+     * Run <code>count</code> instances made by <code>job</code>, each
+     * until it stops or has run for <code>cycleBudget</code> clocks,
+     * and wait for all of them.  An exception from one instance is
+     * recorded in its result; an <code>Error</code> stops the batch,
+     * and is thrown from here.
+     *
+     * @returns the result of each instance, in order.
+     *
+     * @since 1.2
+     */
+
+    public BatchResult[] run (int count, BatchJob job, int cycleBudget) {
+        BatchResult[] results = new BatchResult[count];
+
+        pool.invoke (new Batch (job, cycleBudget, results, 0, count));
+        return results;
+    }
+
+    /**
+     * Run CPUs which are already set up, each until it stops or has run
+     * for <code>cycleBudget</code> clocks, and wait for all of them.
+     * The CPUs are left in the state they stopped in.
+     *
+     * @returns the result of each CPU, in order.
+     *
+     * @since 1.2
+     */
+
+    public BatchResult[] run (final J6502[] cpus, int cycleBudget) {
+        return run (cpus.length, new BatchJob () {
+                public J6502 start (int index) {
+                    return cpus[index];
+                }
+
+                public Object finish (int index, J6502 cpu, int stopReason) {
+                    return null;
+                }
+            }, cycleBudget);
+    }
+
+    /**
+     * Stop the pool's threads.  The runner can't be used afterwards.
+     *
+     * @since 1.2
+     */
+
+    public void shutdown () {
+        pool.shutdown ();
+    }
+
+    /**
+     * Run one instance, catching any exception it throws.  An
+     * <code>Error</code>, such as running out of memory, is not
+     * caught, so that it stops the whole batch.
+     */
+
+    static BatchResult runOne (BatchJob job, int index, int cycleBudget) {
+        BatchResult result = new BatchResult ();
+        result.index = index;
+
+        try {
+            J6502 cpu = job.start (index);
+
+            result.stopReason = cpu.run (cycleBudget);
+            result.elapsedClocks = cpu.getCycleCount ();
+            result.registers = cpu.getRegisters ();
+            result.value = job.finish (index, cpu, result.stopReason);
+        } catch (Exception e) {
+            result.stopReason = BatchResult.STOP_ERROR;
+            result.error = e;
+        }
+        return result;
+    }
+
+    /**
+     * The instances from <code>first</code> up to <code>end</code>.
+     * Splits itself in halves until it is down to one instance.
+     */
+
+    static class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        BatchJob job;
+        int cycleBudget;
+        BatchResult[] results;
+        int first;
+        int end;
+
+        Batch (BatchJob job, int cycleBudget, BatchResult[] results,
+               int first, int end) {
+            this.job = job;
+            this.cycleBudget = cycleBudget;
+            this.results = results;
+            this.first = first;
+            this.end = end;
+        }
+
+        protected void compute () {
+            if (end - first == 1) {
+                results[first] = runOne (job, first, cycleBudget);
+            } else if (end > first) {
+                int middle = (first + end) >>> 1;
+
+                invokeAll (new Batch (job, cycleBudget, results, first, middle),
+                           new Batch (job, cycleBudget, results, middle, end));
+            }
+        }
+    }
+
+} // class BatchRunner
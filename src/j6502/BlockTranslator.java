@@ -0,0 +1,452 @@
+package j6502;
+
+// BlockTranslator.java
+// Richard Russo
+
+import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * Translates a basic block of 6502 code into a class whose
+ * <code>run</code> method executes the whole block.
+ *
+ * <p>
+ * The method calls the <code>J6502</code> handler for each
+ * instruction in turn, with the operands as constants.  The handlers
+ * are generated from the templates in 6502.txt, so the translated
+ * code has exactly the same behavior and clock counts as the
+ * interpreter.  The JIT compiles the method as one unit, inlining the
+ * handlers and folding the constant operands into the address
+ * calculations.  The class is version 49, which needs no stack map
+ * frames.
+ * </p>
+ * <p>
+ * The classes are defined as hidden classes, which can be unloaded
+ * when the block is thrown away.  Hidden classes need Java 15;
+ * <code>isAvailable</code> returns false on older JVMs, and nothing is
+ * translated.
+ * </p>
+ *
+ * @see j6502.TieredEngine
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+class BlockTranslator {
+
+    /**
+     * The most instructions put in one block.
+     */
+
+    static final int MAX_INSTRUCTIONS = 64;
+
+    private static final String
+        CPU_CLASS   = "j6502/J6502",
+        BLOCK_CLASS = "j6502/TranslatedBlock";
+
+    /**
+     * Opcodes which may change the program counter.  A block ends
+     * with one of these.
+     */
+
+    static final boolean[] endsBlock = new boolean[256];
+
+    static {
+        for (int opcode = 0; opcode < 256; opcode++) {
+            AddressingMode mode = J6502Constants.modes[opcode];
+            String name = J6502Constants.names[opcode];
+
+            endsBlock[opcode] = (mode != null)
+                && (mode.equals (AddressingMode.JMP_RELATIVE)
+                    || mode.equals (AddressingMode.JMP_DIRECT)
+                    || mode.equals (AddressingMode.JMP_INDIRECT)
+                    || name.equals ("RTS")
+                    || name.equals ("RTI")
+                    || name.equals ("BRK"));
+        }
+    }
+
+    private static Method defineHiddenClass;
+    private static Object noOptions;
+
+    static {
+        try {
+            Class optionClass = Class.forName
+                ("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            noOptions = Array.newInstance (optionClass, 0);
+            defineHiddenClass = MethodHandles.Lookup.class.getMethod
+                ("defineHiddenClass", new Class[] { byte[].class,
+                                                    boolean.class,
+                                                    noOptions.getClass () });
+        } catch (Exception e) {
+            defineHiddenClass = null;
+        }
+    }
+
+    /**
+     * Returns true if this JVM can define the translated classes.
+     */
+
+    static boolean isAvailable () {
+        return defineHiddenClass != null;
+    }
+
+    /**
+     * Get the name of the <code>J6502</code> method which executes
+     * <code>opcode</code>.  This must match
+     * <code>J6502Creator.handlerName</code>.
+     */
+
+    static String handlerName (int opcode) {
+        String hex = Integer.toHexString (opcode);
+        if (hex.length () < 2) {
+            hex = "0" + hex;
+        }
+        return J6502Constants.names[opcode].toLowerCase () + "_" + hex;
+    }
+
+    /**
+     * Translate the block starting at <code>start</code>.  The code is
+     * read through the CPU's <code>MemoryModel</code>.
+     *
+     * @returns the translated block, or <code>null</code> if there is
+     * no code to translate there (e.g. it starts with a
+     * <code>BRK</code> or an invalid opcode).
+     */
+
+    static TranslatedBlock translate (J6502 cpu, char start) {
+        if (!isAvailable ()) {
+            return null;
+        }
+
+        int[] insns = new int[MAX_INSTRUCTIONS];
+        int count = 0;
+        char addr = start;
+
+        while (count < MAX_INSTRUCTIONS) {
+            int opcode = cpu.readMemory (addr) & 0xff;
+            int size = J6502Constants.info[opcode] & J6502Constants.INFO_SIZE;
+
+            if ((size == 0) || (opcode == 0x00)) {
+                break;
+            }
+
+            int insn = opcode | (size << 24);
+            if (size > 1) {
+                insn |= (cpu.readMemory ((char)(addr + 1)) & 0xff) << 8;
+                if (size > 2) {
+                    insn |= (cpu.readMemory ((char)(addr + 2)) & 0xff) << 16;
+                }
+            }
+            insns[count++] = insn;
+            addr += size;
+
+            if (endsBlock[opcode]) {
+                break;
+            }
+        }
+
+        if (count == 0) {
+            return null;
+        }
+
+        TranslatedBlock block;
+        try {
+            byte[] classFile = new BlockTranslator ().assemble (start, insns, count);
+            MethodHandles.Lookup lookup = (MethodHandles.Lookup)defineHiddenClass
+                .invoke (MethodHandles.lookup (),
+                         new Object[] { classFile, Boolean.TRUE, noOptions });
+            block = (TranslatedBlock)lookup.lookupClass ()
+                .getDeclaredConstructor ().newInstance ();
+        } catch (Exception e) {
+            throw new Error ("can't translate block at "
+                             + Integer.toHexString (start), e);
+        }
+
+        block.start = start;
+        block.length = (char)(addr - start);
+        return block;
+    } // translate
+
+    // constant pool of the class being written
+
+    ByteArrayOutputStream poolBytes = new ByteArrayOutputStream ();
+    DataOutputStream pool = new DataOutputStream (poolBytes);
+    Hashtable poolIndex = new Hashtable ();
+    int poolCount = 1;
+
+    /**
+     * Look up a constant pool entry.  If it isn't there yet, the
+     * caller must write it to <code>pool</code> and call
+     * <code>added</code>.
+     *
+     * @returns the index of the entry, or 0 if it is not there yet.
+     */
+
+    private int lookup (String key) {
+        Integer idx = (Integer)poolIndex.get (key);
+        return (idx == null) ? 0 : idx.intValue ();
+    }
+
+    private int added (String key) {
+        poolIndex.put (key, Integer.valueOf (poolCount));
+        return poolCount++;
+    }
+
+    private int utf8 (String s)
+        throws IOException
+    {
+        String key = "Utf8 " + s;
+        int idx = lookup (key);
+        if (idx == 0) {
+            pool.writeByte (1);
+            pool.writeUTF (s);
+            idx = added (key);
+        }
+        return idx;
+    }
+
+    private int integer (int value)
+        throws IOException
+    {
+        String key = "Integer " + value;
+        int idx = lookup (key);
+        if (idx == 0) {
+            pool.writeByte (3);
+            pool.writeInt (value);
+            idx = added (key);
+        }
+        return idx;
+    }
+
+    private int classRef (String name)
+        throws IOException
+    {
+        String key = "Class " + name;
+        int idx = lookup (key);
+        if (idx == 0) {
+            int nameIdx = utf8 (name);
+            pool.writeByte (7);
+            pool.writeShort (nameIdx);
+            idx = added (key);
+        }
+        return idx;
+    }
+
+    private int nameAndType (String name, String desc)
+        throws IOException
+    {
+        String key = "NameAndType " + name + " " + desc;
+        int idx = lookup (key);
+        if (idx == 0) {
+            int nameIdx = utf8 (name);
+            int descIdx = utf8 (desc);
+            pool.writeByte (12);
+            pool.writeShort (nameIdx);
+            pool.writeShort (descIdx);
+            idx = added (key);
+        }
+        return idx;
+    }
+
+    /**
+     * A field (<code>tag</code> 9) or method (<code>tag</code> 10)
+     * reference.
+     */
+
+    private int memberRef (int tag, String owner, String name, String desc)
+        throws IOException
+    {
+        String key = "Ref" + tag + " " + owner + " " + name + " " + desc;
+        int idx = lookup (key);
+        if (idx == 0) {
+            int ownerIdx = classRef (owner);
+            int typeIdx = nameAndType (name, desc);
+            pool.writeByte (tag);
+            pool.writeShort (ownerIdx);
+            pool.writeShort (typeIdx);
+            idx = added (key);
+        }
+        return idx;
+    }
+
+    /**
+     * Write the class file for a block.
+     *
+     * <p>
+     * <code>run (cpu)</code> does this for each instruction, with the
+     * running total of clocks in local 2 and the clocks of the last
+     * instruction in local 3:
+     * </p>
+     * <pre>
+     *     cpu.pc = nextPC;
+     *     last = cpu.lda_a9 (op1, op2);
+     *     clocks += last;
+     *     if (cpu.codeWritten) {                // after writes only
+     *         cpu.lastClocks = last;
+     *         return clocks;
+     *     }
+     * </pre>
+     */
+
+    byte[] assemble (char start, int[] insns, int count)
+        throws IOException
+    {
+        ByteArrayOutputStream codeBytes = new ByteArrayOutputStream ();
+        DataOutputStream code = new DataOutputStream (codeBytes);
+
+        int pcField = memberRef (9, CPU_CLASS, "pc", "C");
+        int writtenField = memberRef (9, CPU_CLASS, "codeWritten", "Z");
+        int lastField = memberRef (9, CPU_CLASS, "lastClocks", "I");
+
+        code.writeByte (0x03);                          // iconst_0
+        code.writeByte (0x3d);                          // istore_2
+
+        char pc = start;
+        for (int idx = 0; idx < count; idx++) {
+            int insn = insns[idx];
+            int opcode = insn & 0xff;
+
+            pc += insn >>> 24;
+
+            code.writeByte (0x2b);                      // aload_1
+            if (pc <= Short.MAX_VALUE) {
+                code.writeByte (0x11);                  // sipush
+                code.writeShort (pc);
+            } else {
+                code.writeByte (0x13);                  // ldc_w
+                code.writeShort (integer (pc));
+            }
+            code.writeByte (0xb5);                      // putfield
+            code.writeShort (pcField);
+
+            code.writeByte (0x2b);                      // aload_1
+            code.writeByte (0x10);                      // bipush
+            code.writeByte ((byte)(insn >> 8));
+            code.writeByte (0x10);                      // bipush
+            code.writeByte ((byte)(insn >> 16));
+            code.writeByte (0xb6);                      // invokevirtual
+            code.writeShort (memberRef (10, CPU_CLASS, handlerName (opcode),
+                                        "(BB)I"));
+            code.writeByte (0x3e);                      // istore_3
+            code.writeByte (0x1c);                      // iload_2
+            code.writeByte (0x1d);                      // iload_3
+            code.writeByte (0x60);                      // iadd
+            code.writeByte (0x3d);                      // istore_2
+
+            if (writesMemory (opcode)) {
+                code.writeByte (0x2b);                  // aload_1
+                code.writeByte (0xb4);                  // getfield
+                code.writeShort (writtenField);
+                code.writeByte (0x99);                  // ifeq +10
+                code.writeShort (10);
+                writeReturn (code, lastField);
+            }
+        }
+
+        writeReturn (code, lastField);
+
+        int superInit = memberRef (10, BLOCK_CLASS, "<init>", "()V");
+        int thisClass = classRef ("j6502/Block");
+        int superClass = classRef (BLOCK_CLASS);
+        int codeName = utf8 ("Code");
+        int initName = utf8 ("<init>");
+        int initDesc = utf8 ("()V");
+        int runName = utf8 ("run");
+        int runDesc = utf8 ("(L" + CPU_CLASS + ";)I");
+
+        ByteArrayOutputStream classBytes = new ByteArrayOutputStream ();
+        DataOutputStream out = new DataOutputStream (classBytes);
+
+        out.writeInt (0xcafebabe);
+        out.writeShort (0);
+        out.writeShort (49);
+        out.writeShort (poolCount);
+        pool.flush ();
+        out.write (poolBytes.toByteArray ());
+
+        out.writeShort (0x0031);                        // public final super
+        out.writeShort (thisClass);
+        out.writeShort (superClass);
+        out.writeShort (0);                             // interfaces
+        out.writeShort (0);                             // fields
+        out.writeShort (2);                             // methods
+
+        out.writeShort (0x0001);                        // public
+        out.writeShort (initName);
+        out.writeShort (initDesc);
+        out.writeShort (1);
+        out.writeShort (codeName);
+        out.writeInt (12 + 5);
+        out.writeShort (1);                             // max stack
+        out.writeShort (1);                             // max locals
+        out.writeInt (5);
+        out.writeByte (0x2a);                           // aload_0
+        out.writeByte (0xb7);                           // invokespecial
+        out.writeShort (superInit);
+        out.writeByte (0xb1);                           // return
+        out.writeShort (0);
+        out.writeShort (0);
+
+        code.flush ();
+        byte[] runCode = codeBytes.toByteArray ();
+
+        out.writeShort (0x0010);                        // final
+        out.writeShort (runName);
+        out.writeShort (runDesc);
+        out.writeShort (1);
+        out.writeShort (codeName);
+        out.writeInt (12 + runCode.length);
+        out.writeShort (4);                             // max stack
+        out.writeShort (4);                             // max locals
+        out.writeInt (runCode.length);
+        out.write (runCode);
+        out.writeShort (0);
+        out.writeShort (0);
+
+        out.writeShort (0);                             // attributes
+
+        out.flush ();
+        return classBytes.toByteArray ();
+    } // assemble
+
+    /**
+     * Write the 7 bytes which store the last instruction's clocks in
+     * <code>cpu.lastClocks</code> and return the total.
+     */
+
+    private static void writeReturn (DataOutputStream code, int lastField)
+        throws IOException
+    {
+        code.writeByte (0x2b);                          // aload_1
+        code.writeByte (0x1d);                          // iload_3
+        code.writeByte (0xb5);                          // putfield
+        code.writeShort (lastField);
+        code.writeByte (0x1c);                          // iload_2
+        code.writeByte (0xac);                          // ireturn
+    }
+
+    /**
+     * Returns true if the instruction can write to memory.  The
+     * instructions which end a block are not counted, since the block
+     * returns right after them anyway.
+     */
+
+    static boolean writesMemory (int opcode) {
+        String name = J6502Constants.names[opcode];
+
+        if (endsBlock[opcode]) {
+            return false;
+        }
+        if (name.equals ("PHA") || name.equals ("PHP")) {
+            return true;
+        }
+
+        return (J6502Constants.info[opcode] & J6502Constants.INFO_WRITE) != 0;
+    }
+
+} // class BlockTranslator
@@ -0,0 +1,179 @@
+package j6502;
+
+// BufferMemoryModel.java
+// Richard Russo
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+
+/**
+ * A <code>BufferMemoryModel</code> keeps the 64K address space in a
+ * <code>ByteBuffer</code> instead of a Java array: a direct buffer
+ * outside the Java heap, a buffer supplied by the caller, or a file
+ * mapped into memory.
+ *
+ * <p>
+ * Anything holding the buffer sees the emulated memory as the CPU
+ * changes it, with nothing copied: a renderer drawing video memory, a
+ * debugger, or another process mapping the same file.  Memory mapped
+ * from a file is also written back to the file by the operating
+ * system, so battery-backed RAM survives without a separate save
+ * step; call <code>force</code> to write it out at a known point.
+ * </p>
+ * <p>
+ * Address <code>addr</code> is at index <code>addr</code> of the
+ * buffer returned by <code>getBuffer</code>.  The CPU cannot index a
+ * buffer directly, so every access costs a call to
+ * <code>readMemory</code> or <code>writeMemory</code>; use
+ * <code>DefaultMemoryModel</code> when nothing outside the emulator
+ * needs to see the memory.
+ * </p>
+ *
+ * @see j6502.MemoryModel
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class BufferMemoryModel implements MemoryModel {
+
+    /**
+     * The size, in bytes, of the address space.
+     *
+     * @since 1.2
+     */
+
+    public final static int SIZE = 65536;
+
+    ByteBuffer buffer;
+
+    /**
+     * True if the memory is kept in a file, and so is not cleared by
+     * <code>reset</code>.
+     */
+
+    boolean persistent;
+
+    /**
+     * Create a memory model in a new direct buffer.
+     *
+     * @since 1.2
+     */
+
+    public BufferMemoryModel () {
+        this (ByteBuffer.allocateDirect (SIZE));
+    }
+
+    /**
+     * Create a memory model in the first 64K of <code>buffer</code>,
+     * starting at its current position.  The buffer's position and
+     * limit are not used after this.
+     *
+     * @since 1.2
+     */
+
+    public BufferMemoryModel (ByteBuffer buffer) {
+        if (buffer.remaining () < SIZE) {
+            throw new IllegalArgumentException ("buffer is smaller than 64K");
+        }
+        this.buffer = buffer.slice ();
+        this.buffer.limit (SIZE);
+    }
+
+    /**
+     * Create a memory model mapped onto the first 64K of a file.  The
+     * file is created, or made longer, if it holds less than that.
+     * Its contents are the initial contents of memory, and are kept
+     * by <code>reset</code>.
+     *
+     * @exception IOException if the file can't be opened or mapped.
+     *
+     * @since 1.2
+     */
+
+    public BufferMemoryModel (File file)
+        throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile (file, "rw");
+
+        try {
+            buffer = raf.getChannel ().map (FileChannel.MapMode.READ_WRITE,
+                                            0, SIZE);
+        } finally {
+            raf.close ();
+        }
+        persistent = true;
+    }
+
+    /**
+     * Get the buffer holding memory.  Changes to it are seen by the
+     * CPU, and changes made by the CPU are seen in it.
+     *
+     * @since 1.2
+     */
+
+    public ByteBuffer getBuffer () {
+        return buffer;
+    }
+
+    /**
+     * Write memory out to its file now, if it is mapped from one.
+     *
+     * @since 1.2
+     */
+
+    public void force () {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer)buffer).force ();
+        }
+    }
+
+    /**
+     * See the general contract of method <CODE>writeMemory</CODE> of
+     * <CODE>MemoryModel</CODE>.
+     *
+     * @see j6502.MemoryModel#writeMemory(char,byte)
+     *
+     * @since 1.2
+     */
+
+    public void writeMemory (char addr, byte value)
+    {
+        buffer.put (addr, value);
+    }
+
+    /**
+     * See the general contract of method <CODE>readMemory</CODE> of
+     * <CODE>MemoryModel</CODE>.
+     *
+     * @see j6502.MemoryModel#readMemory(char)
+     *
+     * @since 1.2
+     */
+
+    public byte readMemory (char addr)
+    {
+        return buffer.get (addr);
+    }
+
+    /**
+     * Sets all memory locations to 0, unless memory is mapped from a
+     * file, in which case it keeps its contents, as battery-backed RAM
+     * would.
+     *
+     * @see j6502.MemoryModel#reset
+     * @since 1.2
+     */
+
+    public void reset ()
+    {
+        if (!persistent) {
+            for (int count = 0; count < SIZE; count++) {
+                buffer.put (count, (byte)0);
+            }
+        }
+    }
+
+} // class BufferMemoryModel
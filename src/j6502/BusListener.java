@@ -0,0 +1,33 @@
+package j6502;
+
+/**
+ * A <code>BusListener</code> sees every bus cycle of a CPU run by a
+ * <code>CycleEngine</code>: the opcode and operand fetches, the reads
+ * and writes of each instruction, and the dummy reads and writes the
+ * 6502 makes on the cycles it is busy inside.
+ *
+ * @see j6502.CycleEngine#setBusListener(BusListener)
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public interface BusListener {
+
+    /**
+     * Called after each bus cycle.
+     *
+     * @param cycle the cycle count when the bus cycle started.  The
+     * opcode fetch of an instruction is on the cycle
+     * <code>getCycleCount ()</code> returned before it.
+     * @param addr the address on the bus.
+     * @param value the byte read or written.
+     * @param write true for a write, false for a read.
+     *
+     * @since 1.2
+     */
+
+    public void busCycle (long cycle, char addr, byte value, boolean write);
+
+} // interface BusListener
@@ -0,0 +1,579 @@
+package j6502;
+
+// CycleEngine.java
+// Richard Russo
+
+import java.util.*;
+
+/**
+ * A <code>CycleEngine</code> runs a <code>J6502</code> one bus cycle
+ * at a time.  Every read and write lands on the cycle the 6502 makes
+ * it on, including the dummy reads and writes of its internal
+ * cycles, and scheduled events are called on the cycle they are due,
+ * even in the middle of an instruction.  A <code>BusListener</code>
+ * can watch every cycle.
+ *
+ * <p>
+ * The bus cycles of each opcode come from <code>6502.txt</code>,
+ * through <code>J6502Constants.cycles</code>.  The instructions
+ * themselves are run by the CPU's own generated code, with the
+ * engine's bus in front of memory, so registers and memory always end
+ * up as they would with <code>J6502.run</code>.  An instruction's
+ * operands are the bytes its <code>OPL</code> and <code>OPH</code>
+ * bus cycles read.  Stores do not read the byte they are about to
+ * write.
+ * </p>
+ * <p>
+ * The clock counts are those of the 6502, and so differ from those
+ * of the <code>clocks</code> table, which <code>J6502.run</code>
+ * charges, in two places: a branch which is not taken takes 2
+ * clocks, where <code>J6502</code> charges 3, or 4 if the branch
+ * would have crossed a page; and <code>LDY abs,X</code> takes one
+ * more when the index crosses a page, where <code>J6502</code>
+ * charges 4 either way.  Every other instruction, and every
+ * interrupt, takes as many clocks as with <code>J6502</code>.  For
+ * this reason <code>WorkloadRunner</code> checks the state a
+ * workload ends in with a <code>CycleEngine</code>, but not its clock
+ * count.
+ * </p>
+ * <p>
+ * The engine only changes the CPU while it runs, and always stops
+ * between instructions, so a program can be run fast with
+ * <code>J6502.run</code> or a <code>TieredEngine</code>, and switched
+ * to a <code>CycleEngine</code> for code whose timing matters, and
+ * back.
+ * </p>
+ *
+ * @see j6502.BusListener
+ * @see j6502.EventScheduler
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class CycleEngine {
+
+    /**
+     * The bus cycles of the CYCLES language of
+     * <code>6502.txt</code>, and <code>OP</code>, which reads the
+     * opcode again, for interrupts.
+     */
+
+    static final int
+        OPL = 0, OPH = 1, PC = 2, ZP = 3, PTR = 4, PTR_1 = 5, FIX = 6,
+        FIX_IF = 7, S = 8, RET = 9, OLD = 10, TAKEN_IF = 11, CROSS_IF = 12,
+        R = 13, W = 14, N = 15, OP = 16;
+
+    static final String[] TOKENS = {
+        "OPL", "OPH", "PC", "ZP", "PTR", "PTR+1", "FIX",
+        "FIX?", "S", "RET", "OLD", "TAKEN?", "CROSS?",
+        "r", "w", "n", "OP"
+    };
+
+    /**
+     * The bus cycles of each opcode, after the opcode fetch.
+     */
+
+    static final int[][] sequences = new int[256][];
+
+    /**
+     * The bus cycles of an interrupt, after the opcode fetch, which
+     * is thrown away.
+     */
+
+    static final int[] INTERRUPT = parse ("OP w w w r r");
+
+    /**
+     * <code>JSR</code> reads the high byte of its target last, after
+     * it has pushed the return address, so its code is run before
+     * that byte is known, and the program counter is set afterwards.
+     */
+
+    static final int JSR = 0x20;
+
+    static final String[] BRANCHES = {
+        "BPL", "BMI", "BVC", "BVS", "BCC", "BCS", "BNE", "BEQ"
+    };
+
+    /**
+     * For each opcode, 0, or one more than the index of the branch
+     * in <code>BRANCHES</code>.
+     */
+
+    static final int[] branches = new int[256];
+
+    static {
+        for (int opcode = 0; opcode < 256; opcode++) {
+            sequences[opcode] = parse (J6502Constants.cycles[opcode]);
+            branches[opcode] = Arrays.asList (BRANCHES)
+                .indexOf (J6502Constants.names[opcode]) + 1;
+        }
+    }
+
+    static int[] parse (String cycles) {
+        StringTokenizer st = new StringTokenizer (cycles, " ");
+        int[] tokens = new int[st.countTokens ()];
+
+        for (int count = 0; count < tokens.length; count++) {
+            String token = st.nextToken ();
+
+            tokens[count] = Arrays.asList (TOKENS).indexOf (token);
+            if (tokens[count] < 0) {
+                throw new Error ("bad bus cycle " + token);
+            }
+        }
+        return tokens;
+    }
+
+    J6502 cpu;
+
+    BusListener listener;
+
+    /**
+     * The CPU's memory model, while the engine runs.
+     */
+
+    MemoryModel memory;
+
+    final Bus bus = new Bus ();
+
+    /**
+     * True while an instruction runs, when accesses through the bus
+     * are its bus cycles.  Accesses made by events are not.
+     */
+
+    boolean counting;
+
+    /**
+     * The instruction being run: its address, its bus cycles, the
+     * next one, its addressing mode, its operands as the
+     * <code>OPL</code> and <code>OPH</code> bus cycles read them, and
+     * whether it is a branch which will be taken.
+     */
+
+    char at;
+    int[] sequence;
+    int next;
+    AddressingMode mode;
+    byte op1, op2;
+    boolean taken;
+
+    /**
+     * The cycle the instruction started on, and the bus cycles it has
+     * made so far.
+     */
+
+    long start;
+    int cycles;
+
+    /**
+     * The last two bytes read, and the address of the last one.
+     */
+
+    byte lastRead, previousRead;
+    char lastAddr;
+
+    /**
+     * Create an engine which runs <code>cpu</code>.
+     *
+     * @since 1.2
+     */
+
+    public CycleEngine (J6502 cpu) {
+        this.cpu = cpu;
+    }
+
+    /**
+     * Get the CPU this engine runs.
+     *
+     * @since 1.2
+     */
+
+    public J6502 getCPU () {
+        return cpu;
+    }
+
+    /**
+     * Set the listener which sees every bus cycle, or
+     * <code>null</code> for none.
+     *
+     * @since 1.2
+     */
+
+    public void setBusListener (BusListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Get the listener which sees every bus cycle.
+     *
+     * @since 1.2
+     */
+
+    public BusListener getBusListener () {
+        return listener;
+    }
+
+    /**
+     * Execute one instruction, cycle by cycle, like
+     * <code>J6502.execute</code>.  If an interrupt is waiting, it is
+     * taken instead.
+     *
+     * @returns the number of clock cycles elapsed, or 0 if the
+     * opcode was invalid, in which case the program counter is not
+     * advanced.
+     *
+     * @since 1.2
+     */
+
+    public int step () {
+        enter ();
+        try {
+            if ((cpu.elapsedClocks >= cpu.checkpoint) && service ()) {
+                return cycles;
+            }
+
+            int opcode = memory.readMemory (cpu.pc) & 0xff;
+            if (J6502Constants.info[opcode] == 0) {
+                return 0;
+            }
+            return instruction (opcode, -1);
+        } finally {
+            leave ();
+        }
+    }
+
+    /**
+     * Run cycle by cycle until at least <code>cycleBudget</code> clock
+     * cycles have elapsed, or a <code>BRK</code> or invalid opcode is
+     * reached.  This works like <code>J6502.run</code>, and likewise
+     * stops only between instructions.
+     *
+     * @returns one of the <code>STOP_</code> constants of
+     * <code>J6502</code>.
+     *
+     * @see j6502.J6502Skeleton#run(int)
+     *
+     * @since 1.2
+     */
+
+    public int run (int cycleBudget) {
+        long end = cpu.elapsedClocks + cycleBudget;
+        int reason = J6502.STOP_BUDGET;
+
+        enter ();
+        try {
+            while (cpu.elapsedClocks < end) {
+                if ((cpu.elapsedClocks >= cpu.checkpoint) && service ()) {
+                    continue;
+                }
+
+                int opcode = memory.readMemory (cpu.pc) & 0xff;
+                if (J6502Constants.info[opcode] == 0) {
+                    reason = J6502.STOP_BAD_OPCODE;
+                    break;
+                }
+                if (opcode == 0x00) {
+                    reason = J6502.STOP_BREAK;
+                    break;
+                }
+                instruction (opcode, -1);
+            }
+        } finally {
+            leave ();
+        }
+        return reason;
+    }
+
+    private void enter () {
+        if (cpu.busMemory != null) {
+            throw new IllegalStateException ("the CPU is already on a bus");
+        }
+        cpu.enterBus (bus);
+        memory = cpu.busMemory;
+    }
+
+    private void leave () {
+        counting = false;
+        cpu.leaveBus ();
+        memory = null;
+    }
+
+    /**
+     * Call the events which are due, and then take an interrupt if
+     * one is waiting, like <code>J6502Skeleton.service</code>.
+     */
+
+    private boolean service () {
+        int vector = -1;
+
+        cpu.scheduler.fireDue (cpu.elapsedClocks);
+        if (cpu.nmiPending) {
+            cpu.nmiPending = false;
+            vector = J6502.NMI_VECTOR;
+        } else if ((cpu.irqSources != 0) && !cpu.isInterrupt ()) {
+            vector = J6502.IRQ_VECTOR;
+        }
+
+        if (vector >= 0) {
+            instruction (-1, vector);
+        }
+        cpu.idle.rearm ();
+        cpu.updateCheckpoint ();
+        return vector >= 0;
+    }
+
+    /**
+     * Run the instruction with <code>opcode</code> at the program
+     * counter, or the interrupt through <code>vector</code>.
+     *
+     * @returns the number of clock cycles elapsed.
+     */
+
+    private int instruction (int opcode, int vector) {
+        at = cpu.pc;
+        start = cpu.elapsedClocks;
+        cycles = 0;
+        counting = true;
+
+        read (at);
+
+        if (vector >= 0) {
+            sequence = INTERRUPT;
+            next = 0;
+            mode = null;
+            cpu.interrupt (vector);
+        } else {
+            sequence = sequences[opcode];
+            next = 0;
+            int info = J6502Constants.info[opcode];
+            int size = info & J6502Constants.INFO_SIZE;
+
+            mode = AddressingMode.forOrdinal ((info >> J6502Constants.INFO_MODE_SHIFT)
+                                              & J6502Constants.INFO_MODE_MASK);
+            taken = (branches[opcode] != 0) && isTaken (branches[opcode] - 1);
+
+            op1 = op2 = 0;
+            while ((next < sequence.length) && isLeading (sequence[next])) {
+                cycle (sequence[next++]);
+            }
+
+            cpu.pc = (char)(at + size);
+            cpu.dispatch (opcode, op1, op2);
+        }
+
+        while (next < sequence.length) {
+            int token = sequence[next++];
+
+            if ((token != R) && (token != W) && (token != N)) {
+                cycle (token);
+            }
+        }
+        counting = false;
+
+        if (opcode == JSR) {
+            cpu.pc = pointer ();
+        }
+
+        cpu.elapsedClocks = start + cycles;
+        cpu.lastClocks = cycles;
+        return cycles;
+    }
+
+    /**
+     * Returns true for the bus cycles which come before the
+     * instruction runs.
+     */
+
+    private static boolean isLeading (int token) {
+        return (token != R) && (token != W) && (token != N)
+            && (token != TAKEN_IF) && (token != CROSS_IF)
+            && (token != RET) && (token != OLD);
+    }
+
+    private boolean isTaken (int branch) {
+        boolean set;
+
+        switch (branch / 2) {
+        case 0:
+            set = cpu.isSign ();
+            break;
+        case 1:
+            set = cpu.isOverflow ();
+            break;
+        case 2:
+            set = cpu.isCarry ();
+            break;
+        default:
+            set = cpu.isZero ();
+            break;
+        }
+        return set == ((branch & 1) != 0);
+    }
+
+    /**
+     * Make one of the bus cycles the instruction's own code does not.
+     */
+
+    private void cycle (int token) {
+        switch (token) {
+        case OPL:
+            op1 = read ((char)(at + 1));
+            break;
+        case OPH:
+            op2 = read ((char)(at + 2));
+            break;
+        case PC:
+            read ((char)(at + 1));
+            break;
+        case OP:
+            read (at);
+            break;
+        case ZP:
+            read ((char)(op1 & 0xff));
+            break;
+        case PTR:
+            read (pointer ());
+            break;
+        case PTR_1:
+            char ptr = pointer ();
+            read ((char)((ptr & 0xff00) | ((ptr + 1) & 0xff)));
+            break;
+        case FIX:
+        case FIX_IF:
+            int base, index;
+
+            if (mode == AddressingMode.POST_INDEXED_INDIRECT) {
+                base = ((lastRead & 0xff) << 8) | (previousRead & 0xff);
+            } else {
+                base = pointer ();
+            }
+            index = ((mode == AddressingMode.INDEXED_X) ? cpu.regX : cpu.regY) & 0xff;
+
+            if ((token == FIX) || (((base + index) ^ base) & 0xff00) != 0) {
+                read ((char)((base & 0xff00) | ((base + index) & 0xff)));
+            }
+            break;
+        case S:
+            read ((char)(J6502.STACK_BASE + (cpu.regSP & 0xff)));
+            break;
+        case RET:
+            read ((char)(cpu.pc - 1));
+            break;
+        case OLD:
+            write (lastAddr, lastRead);
+            break;
+        case TAKEN_IF:
+            if (taken) {
+                read ((char)(at + 2));
+            }
+            break;
+        case CROSS_IF:
+            char from = (char)(at + 2);
+            if (taken && (((cpu.pc ^ from) & 0xff00) != 0)) {
+                read ((char)((from & 0xff00) | (cpu.pc & 0xff)));
+            }
+            break;
+        }
+    }
+
+    private char pointer () {
+        return (char)((op1 & 0xff) | ((op2 & 0xff) << 8));
+    }
+
+    /**
+     * Start the next bus cycle: call the events due by then.
+     *
+     * @returns the cycle.
+     */
+
+    private long tick () {
+        long cycle = start + cycles++;
+
+        cpu.elapsedClocks = cycle;
+        if (cycle >= cpu.scheduler.getNextCycle ()) {
+            counting = false;
+            cpu.scheduler.fireDue (cycle);
+            counting = true;
+        }
+        return cycle;
+    }
+
+    private byte read (char addr) {
+        long cycle = tick ();
+        byte value = memory.readMemory (addr);
+
+        previousRead = lastRead;
+        lastRead = value;
+        lastAddr = addr;
+        if (listener != null) {
+            listener.busCycle (cycle, addr, value, false);
+        }
+        return value;
+    }
+
+    private void write (char addr, byte value) {
+        long cycle = tick ();
+
+        memory.writeMemory (addr, value);
+        if (listener != null) {
+            listener.busCycle (cycle, addr, value, true);
+        }
+    }
+
+    /**
+     * Make the bus cycles which come before the next access of the
+     * instruction's own code.
+     *
+     * @returns false if the access is a read the bus does not see.
+     */
+
+    private boolean advance (boolean write) {
+        while (next < sequence.length) {
+            int token = sequence[next++];
+
+            if ((token == R) || (token == W)) {
+                return true;
+            }
+            if (token == N) {
+                return write;
+            }
+            cycle (token);
+        }
+        return true;
+    }
+
+    /**
+     * The memory model the CPU sees while the engine runs.  Reads and
+     * writes made by the instruction become its bus cycles.
+     */
+
+    class Bus implements MemoryModel {
+
+        public byte readMemory (char addr) {
+            if (!counting) {
+                return memory.readMemory (addr);
+            }
+            if (!advance (false)) {
+                return 0;
+            }
+            return read (addr);
+        }
+
+        public void writeMemory (char addr, byte data) {
+            if (!counting) {
+                memory.writeMemory (addr, data);
+                return;
+            }
+            advance (true);
+            write (addr, data);
+        }
+
+        public void reset () {
+            memory.reset ();
+        }
+
+    } // class Bus
+
+} // class CycleEngine
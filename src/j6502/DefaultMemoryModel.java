@@ -1,5 +1,8 @@
 package j6502;
 
+import java.lang.ref.WeakReference;
+import java.util.Vector;
+
 /**
  * DefaultMemoryModel.java<BR>
  * Richard Russo <A HREF="mailto:rrusso@cs.ucf.edu">rrusso@cs.ucf.edu</A>
@@ -12,6 +15,16 @@ package j6502;
  *
  * </p>
  *
+ * <P>
+ *
+ * The CPU reads and writes the memory array directly (see
+ * <CODE>DirectMemoryModel</CODE>).  To emulate memory-mapped I/O, give
+ * the pages holding the I/O registers to another
+ * <CODE>MemoryModel</CODE> with <CODE>setIOHandler</CODE>; accesses to
+ * those pages are passed on to it.
+ *
+ * </p>
+ *
  *
  * <P>
  *
@@ -45,17 +58,43 @@ package j6502;
  *
  * </p>
  *
- * @version 1.0
+ * @version 1.2
  * @since   1.0
  *
  * @author Richard Russo
  *
  * @see j6502.MemoryModel
+ * @see j6502.DirectMemoryModel
  */
 
-public class DefaultMemoryModel implements MemoryModel {
+public class DefaultMemoryModel implements DirectMemoryModel {
     byte[] memory;
 
+    /**
+     * The array holding each page, or <code>null</code> for pages
+     * with an I/O handler.  Used for both reading and writing.
+     */
+
+    byte[][] pages = new byte[256][];
+
+    int[] offsets = new int[256];
+
+    /**
+     * The I/O handler for each page, or <code>null</code> when no
+     * page has one.
+     */
+
+    MemoryModel[] ioHandlers;
+
+    /**
+     * The CPUs using this memory, which are told when the I/O
+     * handlers change.  Each is held by a <code>WeakReference</code>,
+     * so that a CPU which is thrown away, such as a fork, is not kept
+     * alive by its memory; cleared references are dropped.
+     */
+
+    Vector cpus = new Vector ();
+
     /**
      * The size, in bytes, of the address space of every instance of
      * <code>DefaultMemoryModel</code>
@@ -73,6 +112,132 @@ public class DefaultMemoryModel implements MemoryModel {
 
     public DefaultMemoryModel () {
 	memory = new byte[SIZE];
+
+        for (int page = 0; page < pages.length; page++) {
+            pages[page] = memory;
+            offsets[page] = page * 256;
+        }
+    }
+
+    /**
+     * Pass all reads and writes of one page on to another
+     * <code>MemoryModel</code>, which is given the full address.  A
+     * <code>null</code> handler makes the page plain memory again.
+     *
+     * @param page the page number, from 0 to 255.
+     *
+     * @since 1.2
+     */
+
+    public void setIOHandler (int page, MemoryModel handler)
+    {
+        MemoryModel[] handlers = ioHandlers;
+
+        if (handlers == null) {
+            if (handler == null) {
+                return;
+            }
+            handlers = new MemoryModel[256];
+        }
+
+        handlers[page] = handler;
+        pages[page] = (handler == null) ? memory : null;
+
+        ioHandlers = null;
+        for (int i = 0; i < pages.length; i++) {
+            if (pages[i] == null) {
+                ioHandlers = handlers;
+                break;
+            }
+        }
+
+        for (int i = cpus.size () - 1; i >= 0; i--) {
+            J6502Skeleton cpu = (J6502Skeleton)((WeakReference)cpus.elementAt (i)).get ();
+
+            if (cpu == null) {
+                cpus.removeElementAt (i);
+            } else {
+                cpu.memoryMapChanged (page, 1);
+            }
+        }
+    }
+
+    void addCPU (J6502Skeleton cpu)
+    {
+        for (int i = cpus.size () - 1; i >= 0; i--) {
+            if (((WeakReference)cpus.elementAt (i)).get () == null) {
+                cpus.removeElementAt (i);
+            }
+        }
+        cpus.addElement (new WeakReference (cpu));
+    }
+
+    /**
+     * Get the I/O handler of a page, or <code>null</code> if it is
+     * plain memory.
+     *
+     * @since 1.2
+     */
+
+    public MemoryModel getIOHandler (int page)
+    {
+        return (ioHandlers == null) ? null : ioHandlers[page];
+    }
+
+    /**
+     * See the general contract of method <code>getReadPages</code> of
+     * <code>DirectMemoryModel</code>.
+     *
+     * @see j6502.DirectMemoryModel#getReadPages()
+     *
+     * @since 1.2
+     */
+
+    public byte[][] getReadPages ()
+    {
+        return pages;
+    }
+
+    /**
+     * See the general contract of method <code>getReadOffsets</code>
+     * of <code>DirectMemoryModel</code>.
+     *
+     * @see j6502.DirectMemoryModel#getReadOffsets()
+     *
+     * @since 1.2
+     */
+
+    public int[] getReadOffsets ()
+    {
+        return offsets;
+    }
+
+    /**
+     * See the general contract of method <code>getWritePages</code> of
+     * <code>DirectMemoryModel</code>.
+     *
+     * @see j6502.DirectMemoryModel#getWritePages()
+     *
+     * @since 1.2
+     */
+
+    public byte[][] getWritePages ()
+    {
+        return pages;
+    }
+
+    /**
+     * See the general contract of method <code>getWriteOffsets</code>
+     * of <code>DirectMemoryModel</code>.
+     *
+     * @see j6502.DirectMemoryModel#getWriteOffsets()
+     *
+     * @since 1.2
+     */
+
+    public int[] getWriteOffsets ()
+    {
+        return offsets;
     }
 
     /**
@@ -97,6 +262,10 @@ public class DefaultMemoryModel implements MemoryModel {
 
     public void writeMemory (char addr, byte value)
     {
+        if ((ioHandlers != null) && (ioHandlers[addr >> 8] != null)) {
+            ioHandlers[addr >> 8].writeMemory (addr, value);
+            return;
+        }
 	memory[addr] = value;
     }
 
@@ -111,11 +280,15 @@ public class DefaultMemoryModel implements MemoryModel {
 
     public byte readMemory (char addr)
     {
+        if ((ioHandlers != null) && (ioHandlers[addr >> 8] != null)) {
+            return ioHandlers[addr >> 8].readMemory (addr);
+        }
 	return memory[addr];
     }
 
     /**
-     * Sets all memory locations to have the value 0.
+     * Sets all memory locations to have the value 0.  I/O handlers
+     * are left alone.
      *
      * @see j6502.MemoryModel#reset
      * @since 1.0
@@ -0,0 +1,79 @@
+package j6502;
+
+/**
+ * A <code>MemoryModel</code> which keeps its memory, or some of it,
+ * in byte arrays that the CPU may read and write directly, instead of
+ * calling <code>readMemory</code> and <code>writeMemory</code> for
+ * every access.
+ *
+ * <p>
+ * Memory is described one 256-byte page at a time.  For page
+ * <code>p</code>, the byte at <code>addr</code> is
+ * <code>getReadPages ()[p][getReadOffsets ()[p] + (addr &amp; 0xff)]</code>
+ * when reading, and likewise with the write tables when writing.  A
+ * <code>null</code> entry means that accesses to the page must go
+ * through <code>readMemory</code> or <code>writeMemory</code>, e.g.
+ * because the page holds I/O registers, or is ROM which ignores
+ * writes.
+ * </p>
+ * <p>
+ * The CPU gets the tables once, when it is created, and keeps using
+ * the same array objects.  The model may change their entries at any
+ * time (for example to switch banks), and the CPU sees the change on
+ * its next access.
+ * </p>
+ *
+ * @see j6502.DefaultMemoryModel
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public interface DirectMemoryModel extends MemoryModel {
+
+    /**
+     * Get the array holding each page for reading, or
+     * <code>null</code> for pages which must be read with
+     * <code>readMemory</code>.
+     *
+     * @returns an array of 256 entries.
+     *
+     * @since 1.2
+     */
+
+    public byte[][] getReadPages ();
+
+    /**
+     * Get the offset of each page within its read array.
+     *
+     * @returns an array of 256 entries.
+     *
+     * @since 1.2
+     */
+
+    public int[] getReadOffsets ();
+
+    /**
+     * Get the array holding each page for writing, or
+     * <code>null</code> for pages which must be written with
+     * <code>writeMemory</code>.
+     *
+     * @returns an array of 256 entries.
+     *
+     * @since 1.2
+     */
+
+    public byte[][] getWritePages ();
+
+    /**
+     * Get the offset of each page within its write array.
+     *
+     * @returns an array of 256 entries.
+     *
+     * @since 1.2
+     */
+
+    public int[] getWriteOffsets ();
+
+} // interface DirectMemoryModel
@@ -65,12 +65,14 @@ public class Disassembler {
         int opcode = memory.readMemory (address) & 0xff;
         char origAddress = address;
 
-        int size = J6502Constants.sizes[opcode];
+        int info = J6502Constants.info[opcode];
+        int size = info & J6502Constants.INFO_SIZE;
         if (size == 0) {
             return null;
         }
 
-        AddressingMode mode = J6502Constants.modes[opcode];
+        AddressingMode mode = AddressingMode.forOrdinal
+            ((info >> J6502Constants.INFO_MODE_SHIFT) & J6502Constants.INFO_MODE_MASK);
         String[] data;
 
         if (mode.equals (AddressingMode.JMP_RELATIVE)) {
@@ -0,0 +1,241 @@
+package j6502;
+
+// EventScheduler.java
+// Richard Russo
+
+/**
+ * Holds the events the devices of one CPU are waiting for, in the
+ * order of the cycle they are due.  Each CPU has its own scheduler,
+ * returned by <code>getScheduler</code>.
+ *
+ * <p>
+ * The run loops only look at the scheduler when the cycle count
+ * reaches the first event, so devices do not have to be polled after
+ * every instruction: between events, instructions run at full speed.
+ * Events are called between instructions by <code>run</code>,
+ * <code>runUntil</code> and <code>execute</code>, and by a
+ * <code>TieredEngine</code>, which only stops between blocks.  A
+ * <code>CycleEngine</code> calls them on the bus cycle they are due.
+ * Events due on the same cycle are called in the order they were
+ * scheduled.
+ * </p>
+ * <p>
+ * The events are kept in a binary heap, so scheduling and calling an
+ * event take time logarithmic in the number waiting.
+ * </p>
+ *
+ * @see j6502.J6502Skeleton#getScheduler()
+ * @see j6502.ScheduledEvent
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class EventScheduler {
+
+    J6502 cpu;
+
+    /**
+     * The heap: the cycle each event is due, the order it was
+     * scheduled in, which breaks ties, and the event.
+     */
+
+    long[] cycles = new long[16];
+    long[] sequence = new long[16];
+    ScheduledEvent[] events = new ScheduledEvent[16];
+    int count;
+    long nextSequence;
+
+    EventScheduler (J6502Skeleton cpu) {
+        this.cpu = (J6502)cpu;
+    }
+
+    /**
+     * Call <code>event</code> once the CPU's cycle count reaches
+     * <code>cycle</code>.  If that cycle has already passed, the event
+     * is called before the next instruction.  An event may be
+     * scheduled more than once.
+     *
+     * @see j6502.J6502Skeleton#getCycleCount()
+     *
+     * @since 1.2
+     */
+
+    public void schedule (long cycle, ScheduledEvent event) {
+        if (event == null) {
+            throw new NullPointerException ();
+        }
+
+        if (count == cycles.length) {
+            cycles = grow (cycles);
+            sequence = grow (sequence);
+
+            ScheduledEvent[] e = new ScheduledEvent[count * 2];
+            System.arraycopy (events, 0, e, 0, count);
+            events = e;
+        }
+
+        cycles[count] = cycle;
+        sequence[count] = nextSequence++;
+        events[count] = event;
+        up (count++);
+
+        cpu.updateCheckpoint ();
+    }
+
+    /**
+     * Call <code>event</code> <code>clocks</code> cycles from now.
+     * While an instruction is running, for example when a memory
+     * model handles one of its reads or writes, now is the cycle the
+     * instruction started on, or with a <code>CycleEngine</code>, the
+     * bus cycle of the access.
+     *
+     * @since 1.2
+     */
+
+    public void scheduleAfter (int clocks, ScheduledEvent event) {
+        schedule (cpu.elapsedClocks + clocks, event);
+    }
+
+    /**
+     * Remove every scheduled call of <code>event</code>.
+     *
+     * @returns true if the event was scheduled.
+     *
+     * @since 1.2
+     */
+
+    public boolean cancel (ScheduledEvent event) {
+        int kept = 0;
+
+        for (int idx = 0; idx < count; idx++) {
+            if (events[idx] != event) {
+                cycles[kept] = cycles[idx];
+                sequence[kept] = sequence[idx];
+                events[kept] = events[idx];
+                kept++;
+            }
+        }
+        if (kept == count) {
+            return false;
+        }
+
+        java.util.Arrays.fill (events, kept, count, null);
+        count = kept;
+        for (int idx = count / 2 - 1; idx >= 0; idx--) {
+            down (idx);
+        }
+
+        cpu.updateCheckpoint ();
+        return true;
+    }
+
+    /**
+     * Remove every event.
+     *
+     * @since 1.2
+     */
+
+    public void clear () {
+        java.util.Arrays.fill (events, 0, count, null);
+        count = 0;
+
+        cpu.updateCheckpoint ();
+    }
+
+    /**
+     * @returns the cycle the first event is due, or
+     * <code>Long.MAX_VALUE</code> if no events are scheduled.
+     *
+     * @since 1.2
+     */
+
+    public long getNextCycle () {
+        return (count == 0) ? Long.MAX_VALUE : cycles[0];
+    }
+
+    /**
+     * @returns the number of events scheduled.
+     *
+     * @since 1.2
+     */
+
+    public int size () {
+        return count;
+    }
+
+    /**
+     * Call, in order, every event due at or before <code>now</code>,
+     * including ones they schedule.
+     */
+
+    void fireDue (long now) {
+        while ((count > 0) && (cycles[0] <= now)) {
+            long cycle = cycles[0];
+            ScheduledEvent event = events[0];
+
+            removeFirst ();
+            event.fire (cpu, cycle);
+        }
+    }
+
+    private static long[] grow (long[] a) {
+        long[] b = new long[a.length * 2];
+
+        System.arraycopy (a, 0, b, 0, a.length);
+        return b;
+    }
+
+    private boolean before (int i, int j) {
+        return (cycles[i] < cycles[j])
+            || ((cycles[i] == cycles[j]) && (sequence[i] < sequence[j]));
+    }
+
+    private void swap (int i, int j) {
+        long c = cycles[i];
+        cycles[i] = cycles[j];
+        cycles[j] = c;
+
+        long s = sequence[i];
+        sequence[i] = sequence[j];
+        sequence[j] = s;
+
+        ScheduledEvent e = events[i];
+        events[i] = events[j];
+        events[j] = e;
+    }
+
+    private void up (int idx) {
+        while ((idx > 0) && before (idx, (idx - 1) / 2)) {
+            swap (idx, (idx - 1) / 2);
+            idx = (idx - 1) / 2;
+        }
+    }
+
+    private void down (int idx) {
+        while (true) {
+            int child = idx * 2 + 1;
+
+            if (child >= count) {
+                return;
+            }
+            if ((child + 1 < count) && before (child + 1, child)) {
+                child++;
+            }
+            if (!before (child, idx)) {
+                return;
+            }
+            swap (idx, child);
+            idx = child;
+        }
+    }
+
+    private void removeFirst () {
+        count--;
+        swap (0, count);
+        events[count] = null;
+        down (0);
+    }
+
+} // class EventScheduler
@@ -0,0 +1,187 @@
+package j6502;
+
+// IdleDetector.java
+// Richard Russo
+
+/**
+ * Looks for idle loops, which make no progress until something
+ * outside the CPU changes memory or raises an interrupt, and moves
+ * the cycle count past them.
+ *
+ * <p>
+ * Every so often the run loops stop at <code>checkpoint</code>, and
+ * the detector runs the loop at the program counter once, with itself
+ * in front of memory to see what it reads and writes.  If the CPU
+ * comes back to the same address in the same state, without writing
+ * and having only read memory in page tables, every further time
+ * round the loop will do the same, until an event is called or an
+ * interrupt is taken.  So the cycle count is moved on by as many
+ * whole times round the loop as fit before the next event or the end
+ * of the budget, which leaves the CPU just as running them would.
+ * </p>
+ * <p>
+ * Nothing is added to the run loops between checkpoints.  The time
+ * between looks doubles, up to <code>MAX_INTERVAL</code>, each time no
+ * idle loop is found, so busy code hardly pays for them, and goes
+ * back to <code>MIN_INTERVAL</code> when one is.
+ * </p>
+ *
+ * @see j6502.J6502Skeleton#setIdleSkipEnabled(boolean)
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+class IdleDetector implements MemoryModel {
+
+    /**
+     * The fewest and most clock cycles between looks for an idle
+     * loop.
+     */
+
+    static final int MIN_INTERVAL = 64;
+    static final int MAX_INTERVAL = 16384;
+
+    /**
+     * The most instructions an idle loop may have.
+     */
+
+    static final int MAX_INSTRUCTIONS = 16;
+
+    J6502Skeleton cpu;
+
+    boolean enabled = true;
+
+    int interval = MIN_INTERVAL;
+
+    /**
+     * The clock cycles skipped so far.
+     */
+
+    long skipped;
+
+    /**
+     * Set when the loop being tried writes to memory, or reads memory
+     * which is not in a page table.
+     */
+
+    boolean touched;
+
+    IdleDetector (J6502Skeleton cpu) {
+        this.cpu = cpu;
+    }
+
+    /**
+     * Set the cycle of the next look, <code>interval</code> cycles
+     * from now.
+     */
+
+    void rearm () {
+        cpu.idleProbe = enabled ? cpu.elapsedClocks + interval : Long.MAX_VALUE;
+    }
+
+    /**
+     * Try the loop at the program counter, for a run loop which stops
+     * at cycle <code>end</code>, and skip it if it is idle.
+     */
+
+    void probe (long end) {
+        long limit = Math.min (end, cpu.scheduler.getNextCycle ());
+
+        cpu.idleProbe = Long.MAX_VALUE;
+        cpu.updateCheckpoint ();
+
+        if (limit - cpu.elapsedClocks > MIN_INTERVAL) {
+            if (skipLoop (limit)) {
+                interval = MIN_INTERVAL;
+            } else {
+                interval = Math.min (interval * 2, MAX_INTERVAL);
+            }
+        }
+        rearm ();
+    }
+
+    /**
+     * Run the loop at the program counter once, and if it is idle,
+     * move the cycle count on to the last time round it before
+     * <code>limit</code>.
+     *
+     * @returns true if the loop was idle.
+     */
+
+    private boolean skipLoop (long limit) {
+        J6502Skeleton cpu = this.cpu;
+        char head = cpu.pc;
+        byte a = cpu.accumulator;
+        byte x = cpu.regX;
+        byte y = cpu.regY;
+        byte sp = cpu.regSP;
+        byte p = cpu.getStatus ();
+        long start = cpu.elapsedClocks;
+
+        touched = false;
+        cpu.enterBus (this);
+        try {
+            for (int count = 0; count < MAX_INSTRUCTIONS; count++) {
+                if (cpu.elapsedClocks >= Math.min (limit, cpu.checkpoint)) {
+                    return false;
+                }
+
+                int insn = (int)cpu.decode ();
+                int size = insn >>> 24;
+                int opcode = insn & 0xff;
+
+                if ((size == 0) || (opcode == 0x00)) {
+                    return false;
+                }
+                cpu.pc += size;
+
+                cpu.lastClocks = cpu.dispatch (opcode, (byte)(insn >> 8), (byte)(insn >> 16));
+                cpu.elapsedClocks += cpu.lastClocks;
+
+                if (touched) {
+                    return false;
+                }
+                if (cpu.pc == head) {
+                    break;
+                }
+            }
+        } finally {
+            cpu.leaveBus ();
+        }
+
+        if ((cpu.pc != head) || (cpu.accumulator != a) || (cpu.regX != x)
+            || (cpu.regY != y) || (cpu.regSP != sp) || (cpu.getStatus () != p)) {
+            return false;
+        }
+
+        long period = cpu.elapsedClocks - start;
+        long skip = (limit - cpu.elapsedClocks) / period * period;
+
+        cpu.elapsedClocks += skip;
+        skipped += skip;
+        return true;
+    }
+
+    public byte readMemory (char addr) {
+        int page = addr >> 8;
+        byte[] bytes = cpu.busReadPages[page];
+
+        if (bytes != null) {
+            return bytes[cpu.busReadOffsets[page] + (addr & 0xff)];
+        }
+        touched = true;
+        return cpu.busMemory.readMemory (addr);
+    }
+
+    public void writeMemory (char addr, byte data) {
+        touched = true;
+        cpu.busMemory.writeMemory (addr, data);
+    }
+
+    public void reset () {
+        cpu.busMemory.reset ();
+    }
+
+} // class IdleDetector
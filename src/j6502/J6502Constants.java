@@ -309,4 +309,163 @@ public interface J6502Constants {
                 AddressingMode.INDEXED_X,                                 null
   };
   
+  /**
+   * This array, at index i, gives the bus cycles of opcode i after
+   * the opcode fetch, as described at the end of 6502.txt.  An empty
+   * string indicates a bad opcode.
+   *
+   * @see j6502.CycleEngine
+   */
+  
+  String[] cycles = {
+           "PC w w w r r",        "OPL ZP r r r",                    "",                    "", 
+                       "",               "OPL r",         "OPL r OLD w",                    "", 
+                   "PC w",                 "OPL",                  "PC",                    "", 
+                       "",           "OPL OPH r",     "OPL OPH r OLD w",                    "", 
+      "OPL TAKEN? CROSS?",      "OPL r r FIX? r",                    "",                    "", 
+                       "",            "OPL ZP r",      "OPL ZP r OLD w",                    "", 
+                     "PC",      "OPL OPH FIX? r",                    "",                    "", 
+                       "",      "OPL OPH FIX? r", "OPL OPH FIX r OLD w",                    "", 
+          "OPL S w w OPH",        "OPL ZP r r r",                    "",                    "", 
+                  "OPL r",               "OPL r",         "OPL r OLD w",                    "", 
+                 "PC S r",                 "OPL",                  "PC",                    "", 
+              "OPL OPH r",           "OPL OPH r",     "OPL OPH r OLD w",                    "", 
+      "OPL TAKEN? CROSS?",      "OPL r r FIX? r",                    "",                    "", 
+                       "",            "OPL ZP r",      "OPL ZP r OLD w",                    "", 
+                     "PC",      "OPL OPH FIX? r",                    "",                    "", 
+                       "",      "OPL OPH FIX? r", "OPL OPH FIX r OLD w",                    "", 
+             "PC S r r r",        "OPL ZP r r r",                    "",                    "", 
+                       "",               "OPL r",         "OPL r OLD w",                    "", 
+                   "PC w",                 "OPL",                  "PC",                    "", 
+                "OPL OPH",           "OPL OPH r",     "OPL OPH r OLD w",                    "", 
+      "OPL TAKEN? CROSS?",      "OPL r r FIX? r",                    "",                    "", 
+                       "",            "OPL ZP r",      "OPL ZP r OLD w",                    "", 
+                     "PC",      "OPL OPH FIX? r",                    "",                    "", 
+                       "",      "OPL OPH FIX? r", "OPL OPH FIX r OLD w",                    "", 
+           "PC S r r RET",        "OPL ZP r r r",                    "",                    "", 
+                       "",               "OPL r",         "OPL r OLD w",                    "", 
+                 "PC S r",                 "OPL",                  "PC",                    "", 
+      "OPL OPH PTR PTR+1",           "OPL OPH r",     "OPL OPH r OLD w",                    "", 
+      "OPL TAKEN? CROSS?",      "OPL r r FIX? r",                    "",                    "", 
+                       "",            "OPL ZP r",      "OPL ZP r OLD w",                    "", 
+                     "PC",      "OPL OPH FIX? r",                    "",                    "", 
+                       "",      "OPL OPH FIX? r", "OPL OPH FIX r OLD w",                    "", 
+      "OPL TAKEN? CROSS?",      "OPL ZP r r n w",                    "",                    "", 
+                "OPL n w",             "OPL n w",             "OPL n w",                    "", 
+                     "PC",                    "",                  "PC",                    "", 
+            "OPL OPH n w",         "OPL OPH n w",         "OPL OPH n w",                    "", 
+      "OPL TAKEN? CROSS?",     "OPL r r FIX n w",                    "",                    "", 
+             "OPL ZP n w",          "OPL ZP n w",          "OPL ZP n w",                    "", 
+                     "PC",     "OPL OPH FIX n w",                  "PC",                    "", 
+                       "",     "OPL OPH FIX n w",                    "",                    "", 
+                    "OPL",        "OPL ZP r r r",                 "OPL",                    "", 
+                  "OPL r",               "OPL r",               "OPL r",                    "", 
+                     "PC",                 "OPL",                  "PC",                    "", 
+              "OPL OPH r",           "OPL OPH r",           "OPL OPH r",                    "", 
+                       "",      "OPL r r FIX? r",                    "",                    "", 
+               "OPL ZP r",            "OPL ZP r",            "OPL ZP r",                    "", 
+                     "PC",      "OPL OPH FIX? r",                  "PC",                    "", 
+         "OPL OPH FIX? r",      "OPL OPH FIX? r",      "OPL OPH FIX? r",                    "", 
+                    "OPL",        "OPL ZP r r r",                    "",                    "", 
+                  "OPL r",               "OPL r",         "OPL r OLD w",                    "", 
+                     "PC",                 "OPL",                  "PC",                    "", 
+              "OPL OPH r",           "OPL OPH r",     "OPL OPH r OLD w",                    "", 
+      "OPL TAKEN? CROSS?",      "OPL r r FIX? r",                    "",                    "", 
+                       "",            "OPL ZP r",      "OPL ZP r OLD w",                    "", 
+                     "PC",      "OPL OPH FIX? r",                    "",                    "", 
+                       "",      "OPL OPH FIX? r", "OPL OPH FIX r OLD w",                    "", 
+                    "OPL",        "OPL ZP r r r",                    "",                    "", 
+                  "OPL r",               "OPL r",         "OPL r OLD w",                    "", 
+                     "PC",                 "OPL",                  "PC",                    "", 
+              "OPL OPH r",           "OPL OPH r",     "OPL OPH r OLD w",                    "", 
+      "OPL TAKEN? CROSS?",      "OPL r r FIX? r",                    "",                    "", 
+                       "",            "OPL ZP r",      "OPL ZP r OLD w",                    "", 
+                     "PC",      "OPL OPH FIX? r",                    "",                    "", 
+                       "",      "OPL OPH FIX? r", "OPL OPH FIX r OLD w",                    ""
+  };
+  
+  /**
+   * This array, at index i, packs into one int what decoding opcode i
+   * needs: its size, clock cycles, clocks exception, addressing mode
+   * and whether it reads or writes its operand in memory, as given by
+   * the <code>INFO_</code> constants.  A 0 value indicates a bad
+   * opcode.
+   *
+   * @since 1.2
+   */
+  
+  int[] info = {
+    0x091d, 0x131a, 0x0000, 0x0000, 0x0000, 0x100e, 0x3016, 0x0000, 
+    0x090d, 0x080a, 0x0a09, 0x0000, 0x0000, 0x1513, 0x351b, 0x0000, 
+    0x0b4a, 0x1436, 0x0000, 0x0000, 0x0000, 0x1112, 0x311a, 0x0000, 
+    0x0909, 0x1733, 0x0000, 0x0000, 0x0000, 0x1633, 0x361f, 0x0000, 
+    0x0c1b, 0x131a, 0x0000, 0x0000, 0x100e, 0x100e, 0x3016, 0x0000, 
+    0x0911, 0x080a, 0x0a09, 0x0000, 0x1513, 0x1513, 0x351b, 0x0000, 
+    0x0b4a, 0x1436, 0x0000, 0x0000, 0x0000, 0x1112, 0x311a, 0x0000, 
+    0x0909, 0x1733, 0x0000, 0x0000, 0x0000, 0x1633, 0x361f, 0x0000, 
+    0x0919, 0x131a, 0x0000, 0x0000, 0x0000, 0x100e, 0x3016, 0x0000, 
+    0x090d, 0x080a, 0x0a09, 0x0000, 0x0c0f, 0x1513, 0x351b, 0x0000, 
+    0x0b4a, 0x1436, 0x0000, 0x0000, 0x0000, 0x1112, 0x311a, 0x0000, 
+    0x0909, 0x1733, 0x0000, 0x0000, 0x0000, 0x1633, 0x361f, 0x0000, 
+    0x0919, 0x131a, 0x0000, 0x0000, 0x0000, 0x100e, 0x3016, 0x0000, 
+    0x0911, 0x080a, 0x0a09, 0x0000, 0x0d17, 0x1513, 0x351b, 0x0000, 
+    0x0b4a, 0x1436, 0x0000, 0x0000, 0x0000, 0x1112, 0x311a, 0x0000, 
+    0x0909, 0x1733, 0x0000, 0x0000, 0x0000, 0x1633, 0x361f, 0x0000, 
+    0x0b4a, 0x231a, 0x0000, 0x0000, 0x200e, 0x200e, 0x200e, 0x0000, 
+    0x0909, 0x0000, 0x0909, 0x0000, 0x2513, 0x2513, 0x2513, 0x0000, 
+    0x0b4a, 0x241a, 0x0000, 0x0000, 0x2112, 0x2112, 0x2212, 0x0000, 
+    0x0909, 0x2617, 0x0909, 0x0000, 0x0000, 0x2717, 0x0000, 0x0000, 
+    0x080a, 0x131a, 0x080a, 0x0000, 0x100e, 0x100e, 0x100e, 0x0000, 
+    0x0909, 0x080a, 0x0909, 0x0000, 0x1513, 0x1513, 0x1513, 0x0000, 
+    0x0000, 0x1436, 0x0000, 0x0000, 0x1112, 0x1112, 0x1212, 0x0000, 
+    0x0909, 0x1633, 0x0909, 0x0000, 0x1613, 0x1733, 0x1733, 0x0000, 
+    0x080a, 0x131a, 0x0000, 0x0000, 0x100e, 0x100e, 0x3016, 0x0000, 
+    0x0909, 0x080a, 0x0909, 0x0000, 0x1513, 0x1513, 0x351b, 0x0000, 
+    0x0b4a, 0x1436, 0x0000, 0x0000, 0x0000, 0x1112, 0x311a, 0x0000, 
+    0x0909, 0x1733, 0x0000, 0x0000, 0x0000, 0x1633, 0x361f, 0x0000, 
+    0x080a, 0x131a, 0x0000, 0x0000, 0x100e, 0x100e, 0x3016, 0x0000, 
+    0x0909, 0x080a, 0x0909, 0x0000, 0x1513, 0x1513, 0x351b, 0x0000, 
+    0x0b4a, 0x1436, 0x0000, 0x0000, 0x0000, 0x1112, 0x311a, 0x0000, 
+    0x0909, 0x1733, 0x0000, 0x0000, 0x0000, 0x1633, 0x361f, 0x0000
+  };
+  
+  /**
+   * The size of the instruction, the low bits of <code>info</code>.
+   */
+  
+  int INFO_SIZE = 0x3;
+  
+  /**
+   * The clock cycles, as in <code>clocks</code>, are
+   * <code>(info &gt;&gt; INFO_CLOCKS_SHIFT) &amp; INFO_CLOCKS_MASK</code>.
+   */
+  
+  int INFO_CLOCKS_SHIFT = 2;
+  int INFO_CLOCKS_MASK = 0x7;
+  
+  /**
+   * The clocks exception, as in <code>exceptions</code>, is
+   * <code>(info &gt;&gt; INFO_EXCEPTION_SHIFT) &amp; INFO_EXCEPTION_MASK</code>.
+   */
+  
+  int INFO_EXCEPTION_SHIFT = 5;
+  int INFO_EXCEPTION_MASK = 0x3;
+  
+  /**
+   * The ordinal of the addressing mode is
+   * <code>(info &gt;&gt; INFO_MODE_SHIFT) &amp; INFO_MODE_MASK</code>.
+   *
+   * @see j6502.AddressingMode#forOrdinal(int)
+   */
+  
+  int INFO_MODE_SHIFT = 8;
+  int INFO_MODE_MASK = 0xf;
+  
+  /**
+   * Set if the instruction reads, or writes, its operand in memory.
+   */
+  
+  int INFO_READ = 0x1000;
+  int INFO_WRITE = 0x2000;
+  
 } // interface J6502Constants
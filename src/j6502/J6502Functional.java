@@ -0,0 +1,681 @@
+package j6502;
+
+/**
+ * A <code>J6502Functional</code> runs programs as a
+ * <code>J6502</code> does, but counts only the clock cycles in
+ * the table for each opcode, so it doesn't have to work out
+ * whether an indexed address crosses a page or a branch is
+ * taken.  It is for callers which never look at
+ * <code>getElapsedClocks ()</code>; budgets and scheduled events
+ * still work, in those cycles.
+ *
+ * <p>
+ * This class is generated by <code>j6502.build.J6502Creator</code>
+ * from 6502.txt; it overrides only the <code>J6502</code>
+ * handlers which differ.
+ * </p>
+ *
+ * @see j6502.J6502
+ *
+ * @version 1.2
+ * @since   1.2
+ * @author  Richard Russo
+ */
+
+public class J6502Functional extends J6502 {
+
+/**
+ * Create a new <code>J6502Functional</code> with a specified MemoryModel.
+ *
+ * @see j6502.MemoryModel
+ */
+
+    public J6502Functional (MemoryModel mem) {
+        super (mem);
+    }
+
+/**
+ * Create a new <code>J6502Functional</code> with a <code>DefaultMemoryModel</code>
+ *
+ * @see j6502.DefaultMemoryModel
+ */
+
+    public J6502Functional () {
+        super ();
+    }
+
+/**
+ * Create a new <code>J6502Functional</code> for <code>fork</code>.
+ *
+ * @see j6502.J6502Skeleton#newInstance(MemoryModel)
+ */
+
+    protected J6502 newInstance (MemoryModel mem) {
+        return new J6502Functional (mem);
+    }
+
+    // TXA INHERENT, CMP IMMEDIATE, BPL JMP_RELATIVE
+    int txa_8a_cmp_c9_bpl_10 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 2;
+        {
+            accumulator = regX;
+            setArithmeticFlags (accumulator);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 40);
+        {
+            cmp (accumulator, tmp);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 48);
+        {
+            if (!isSign ()) pc += tmp;
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // CMP IMMEDIATE, BPL JMP_RELATIVE
+    int cmp_c9_bpl_10 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 2;
+        tmp = (byte)(insn >> 8);
+        {
+            cmp (accumulator, tmp);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 40);
+        {
+            if (!isSign ()) pc += tmp;
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // CMP ZP_INDEXED_X, BPL JMP_RELATIVE
+    int cmp_d5_bpl_10 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 4;
+        addr = (char)(((byte)(insn >> 8) + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 40);
+        {
+            if (!isSign ()) pc += tmp;
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // LDA ZP_DIRECT, CMP IMMEDIATE, BPL JMP_RELATIVE
+    int lda_a5_cmp_c9_bpl_10 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 3;
+        addr = (char)((byte)(insn >> 8) & 0xff);
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 40);
+        {
+            cmp (accumulator, tmp);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 48);
+        {
+            if (!isSign ()) pc += tmp;
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // LDX IMMEDIATE, CMP ZP_INDEXED_X, BPL JMP_RELATIVE
+    int ldx_a2_cmp_d5_bpl_10 (long insn) {
+        int     total = 0;
+        int     clocks;
+        char    addr;
+        byte    tmp;
+        
+        clocks = 2;
+        tmp = (byte)(insn >> 8);
+        {
+            regX = tmp;
+            setArithmeticFlags (regX);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 4;
+        addr = (char)(((byte)(insn >> 40) + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        total += clocks;
+        
+        pc += 2;
+        clocks = 2;
+        tmp = (byte)(insn >> 48);
+        {
+            if (!isSign ()) pc += tmp;
+        }
+        total += clocks;
+        
+        return total | (clocks << 16);
+    }
+    
+    // BPL JMP_RELATIVE - branch on sign flag clear (branch if plus)
+    int bpl_10 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            if (!isSign ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // ORA POST_INDEXED_INDIRECT - bitwise or operation, accumulator with memory
+    int ora_11 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator |= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ORA INDEXED_Y - bitwise or operation, accumulator with memory
+    int ora_19 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator |= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // ORA INDEXED_X - bitwise or operation, accumulator with memory
+    int ora_1d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator |= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // BMI JMP_RELATIVE - branch on sign flag set (branch if minus)
+    int bmi_30 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            if (isSign ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // AND POST_INDEXED_INDIRECT - bitwise logical and operation, accumulator with memory
+    int and_31 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator &= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // AND INDEXED_Y - bitwise logical and operation, accumulator with memory
+    int and_39 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator &= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // AND INDEXED_X - bitwise logical and operation, accumulator with memory
+    int and_3d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator &= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // BVC JMP_RELATIVE - branch if overflow flag clear
+    int bvc_50 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            if (!isOverflow ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // EOR POST_INDEXED_INDIRECT - bitwise exclusive or operation, accumulator with memory
+    int eor_51 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator ^= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // EOR INDEXED_Y - bitwise exclusive or operation, accumulator with memory
+    int eor_59 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator ^= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // EOR INDEXED_X - bitwise exclusive or operation, accumulator with memory
+    int eor_5d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator ^= tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // BVS JMP_RELATIVE - branch if overflow flag set
+    int bvs_70 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            if (isOverflow ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // ADC POST_INDEXED_INDIRECT - add to accumulator with carry
+    int adc_71 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              adcBCD (tmp);
+            } else {
+              adc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // ADC INDEXED_Y - add to accumulator with carry
+    int adc_79 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              adcBCD (tmp);
+            } else {
+              adc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // ADC INDEXED_X - add to accumulator with carry
+    int adc_7d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              adcBCD (tmp);
+            } else {
+              adc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // BCS JMP_RELATIVE - branch on carry set
+    int bcs_80 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            if (isCarry ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // BCC JMP_RELATIVE - branch on carry clear
+    int bcc_90 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            if (!isCarry ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // LDA POST_INDEXED_INDIRECT - load accumulator with memory
+    int lda_b1 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LDA INDEXED_X - load accumulator with memory
+    int lda_b9 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LDA INDEXED_Y - load accumulator with memory
+    int lda_bd (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            accumulator = tmp;
+            setArithmeticFlags (accumulator);
+        }
+        return clocks;
+    }
+    
+    // LDX INDEXED_Y - load x register from memory
+    int ldx_be (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            regX = tmp;
+            setArithmeticFlags (regX);
+        }
+        return clocks;
+    }
+    
+    // BNE JMP_RELATIVE - branch on zero flag clear
+    int bne_d0 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            if (!isZero ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // CMP POST_INDEXED_INDIRECT - compare accumulator with memory
+    int cmp_d1 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        return clocks;
+    }
+    
+    // CMP INDEXED_Y - compare accumulator with memory
+    int cmp_d9 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        return clocks;
+    }
+    
+    // CMP INDEXED_X - compare accumulator with memory
+    int cmp_dd (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            cmp (accumulator, tmp);
+        }
+        return clocks;
+    }
+    
+    // BEQ JMP_RELATIVE - branch on zero flag set
+    int beq_f0 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            if (isZero ()) pc += tmp;
+        }
+        return clocks;
+    }
+    
+    // SBC POST_INDEXED_INDIRECT - subtract from accumulator with borrow
+    int sbc_f1 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              sbcBCD (tmp);
+            } else {
+              sbc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // SBC INDEXED_Y - subtract from accumulator with borrow
+    int sbc_f9 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              sbcBCD (tmp);
+            } else {
+              sbc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+    // SBC INDEXED_X - subtract from accumulator with borrow
+    int sbc_fd (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            if (isBCDMode ()) {
+              sbcBCD (tmp);
+            } else {
+              sbc (tmp);
+            }
+        }
+        return clocks;
+    }
+    
+} // class J6502Functional
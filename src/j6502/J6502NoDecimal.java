@@ -0,0 +1,290 @@
+package j6502;
+
+/**
+ * A <code>J6502NoDecimal</code> is a 6502 which ignores the
+ * decimal flag, like the 2A03 of the NES: <code>ADC</code> and
+ * <code>SBC</code> are always binary, and don't test the flag.
+ * <code>SED</code> and <code>CLD</code> still set and clear it.
+ *
+ * <p>
+ * This class is generated by <code>j6502.build.J6502Creator</code>
+ * from 6502.txt; it overrides only the <code>J6502</code>
+ * handlers which differ.
+ * </p>
+ *
+ * @see j6502.J6502
+ *
+ * @version 1.2
+ * @since   1.2
+ * @author  Richard Russo
+ */
+
+public class J6502NoDecimal extends J6502 {
+
+/**
+ * Create a new <code>J6502NoDecimal</code> with a specified MemoryModel.
+ *
+ * @see j6502.MemoryModel
+ */
+
+    public J6502NoDecimal (MemoryModel mem) {
+        super (mem);
+    }
+
+/**
+ * Create a new <code>J6502NoDecimal</code> with a <code>DefaultMemoryModel</code>
+ *
+ * @see j6502.DefaultMemoryModel
+ */
+
+    public J6502NoDecimal () {
+        super ();
+    }
+
+/**
+ * Create a new <code>J6502NoDecimal</code> for <code>fork</code>.
+ *
+ * @see j6502.J6502Skeleton#newInstance(MemoryModel)
+ */
+
+    protected J6502 newInstance (MemoryModel mem) {
+        return new J6502NoDecimal (mem);
+    }
+
+    // ADC PRE_INDEXED_INDIRECT - add to accumulator with carry
+    int adc_61 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regY) & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        tmp = readMemory (addr);
+        {
+            adc (tmp);
+        }
+        return clocks;
+    }
+    
+    // ADC ZP_DIRECT - add to accumulator with carry
+    int adc_65 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            adc (tmp);
+        }
+        return clocks;
+    }
+    
+    // ADC IMMEDIATE - add to accumulator with carry
+    int adc_69 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            adc (tmp);
+        }
+        return clocks;
+    }
+    
+    // ADC DIRECT - add to accumulator with carry
+    int adc_6d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            adc (tmp);
+        }
+        return clocks;
+    }
+    
+    // ADC POST_INDEXED_INDIRECT - add to accumulator with carry
+    int adc_71 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            adc (tmp);
+        }
+        return clocks;
+    }
+    
+    // ADC ZP_INDEXED_X - add to accumulator with carry
+    int adc_75 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            adc (tmp);
+        }
+        return clocks;
+    }
+    
+    // ADC INDEXED_Y - add to accumulator with carry
+    int adc_79 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            adc (tmp);
+        }
+        return clocks;
+    }
+    
+    // ADC INDEXED_X - add to accumulator with carry
+    int adc_7d (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regX & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            adc (tmp);
+        }
+        return clocks;
+    }
+    
+    // SBC PRE_INDEXED_INDIRECT - subtract from accumulator with borrow
+    int sbc_e1 (byte op1, byte op2) {
+        int clocks = 6;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regY) & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        tmp = readMemory (addr);
+        {
+            sbc (tmp);
+        }
+        return clocks;
+    }
+    
+    // SBC ZP_DIRECT - subtract from accumulator with borrow
+    int sbc_e5 (byte op1, byte op2) {
+        int clocks = 3;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        tmp = readMemory (addr);
+        {
+            sbc (tmp);
+        }
+        return clocks;
+    }
+    
+    // SBC IMMEDIATE - subtract from accumulator with borrow
+    int sbc_e9 (byte op1, byte op2) {
+        int clocks = 2;
+        byte    tmp;
+        
+        tmp = op1;
+        {
+            sbc (tmp);
+        }
+        return clocks;
+    }
+    
+    // SBC DIRECT - subtract from accumulator with borrow
+    int sbc_ed (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        tmp = readMemory (addr);
+        {
+            sbc (tmp);
+        }
+        return clocks;
+    }
+    
+    // SBC POST_INDEXED_INDIRECT - subtract from accumulator with borrow
+    int sbc_f1 (byte op1, byte op2) {
+        int clocks = 5;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(op1 & 0xff);
+        addr = (char)((readMemory (addr) & 0xff) | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            sbc (tmp);
+        }
+        return clocks;
+    }
+    
+    // SBC ZP_INDEXED_X - subtract from accumulator with borrow
+    int sbc_f5 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)((op1 + regX) & 0xff);
+        tmp = readMemory (addr);
+        {
+            sbc (tmp);
+        }
+        return clocks;
+    }
+    
+    // SBC INDEXED_Y - subtract from accumulator with borrow
+    int sbc_f9 (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regY & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regY & 0xff));
+        tmp = readMemory (addr);
+        {
+            sbc (tmp);
+        }
+        return clocks;
+    }
+    
+    // SBC INDEXED_X - subtract from accumulator with borrow
+    int sbc_fd (byte op1, byte op2) {
+        int clocks = 4;
+        char    addr;
+        byte    tmp;
+        
+        addr = (char)(((op2 & 0xff) << 8) | (op1 & 0xff));
+        if ((addr & 0xff) + (regX & 0xff) > 0xff) clocks++;
+        addr = (char)(addr + (regX & 0xff));
+        tmp = readMemory (addr);
+        {
+            sbc (tmp);
+        }
+        return clocks;
+    }
+    
+} // class J6502NoDecimal
@@ -4,6 +4,8 @@ package j6502;
 // Richard Russo <rrusso@cs.ucf.edu>
 // 08062000
 
+import java.nio.*;
+
 /**
  * The <code>J6502Skeleton</code> class is the base class for
  * <code>J6502</code>, which is the actual emulator.
@@ -175,29 +177,188 @@ abstract class J6502Skeleton {
     }
 
     /**
-     * These integer values give the index of the flag that they name
-     * in the <code>flags</code> array.
+     * These integer values give the bit of the status register that
+     * holds the flag that they name.
      *
      * @since 1.0
      */
 
      private static final int 
-         CARRY     = 0,
-         ZERO      = 1,
-         INTERRUPT = 2,
-         DECIMAL   = 3,
-         BREAK     = 4,
-         UNUSED    = 5,
-         OVERFLOW  = 6,
-         SIGN      = 7;
+         CARRY     = 0x01,
+         ZERO      = 0x02,
+         INTERRUPT = 0x04,
+         DECIMAL   = 0x08,
+         BREAK     = 0x10,
+         UNUSED    = 0x20,
+         OVERFLOW  = 0x40,
+         SIGN      = 0x80;
 
     //public static final int MEM_SIZE_BYTES = 65536;
 
     MemoryModel memory;
 
+    /**
+     * The page tables of the <code>MemoryModel</code>, if it is a
+     * <code>DirectMemoryModel</code>.  Otherwise every entry of
+     * <code>readPages</code> and <code>writePages</code> is
+     * <code>null</code>, so every access goes through the model.
+     *
+     * @see j6502.DirectMemoryModel
+     */
+
+    byte[][] readPages, writePages;
+    int[] readOffsets, writeOffsets;
+
+    /**
+     * The whole 64K address space, when the <code>MemoryModel</code>
+     * is a <code>DefaultMemoryModel</code> with no I/O handlers;
+     * otherwise <code>null</code>.
+     */
+
+    byte[] ram;
+
+    private DefaultMemoryModel flatMemory;
+
+    private void setMemoryModel (MemoryModel mem) {
+        memory = mem;
+
+        if (isDirect (mem)) {
+            DirectMemoryModel direct = (DirectMemoryModel)mem;
+
+            readPages = direct.getReadPages ();
+            readOffsets = direct.getReadOffsets ();
+            writePages = direct.getWritePages ();
+            writeOffsets = direct.getWriteOffsets ();
+
+            if (mem instanceof DefaultMemoryModel) {
+                flatMemory = (DefaultMemoryModel)mem;
+                flatMemory.addCPU (this);
+            } else if (mem instanceof PageTableMemoryModel) {
+                ((PageTableMemoryModel)mem).addCPU (this);
+            }
+        } else {
+            readPages = writePages = new byte[256][];
+            readOffsets = writeOffsets = new int[256];
+        }
+        memoryMapChanged (0, 0);
+    }
+
+    /**
+     * The memory model the CPU had before a <code>CycleEngine</code>
+     * put its bus in front of it, or <code>null</code>.  While the bus
+     * is in front, there are no page tables and no <code>ram</code>,
+     * so that every access the instructions make goes through the
+     * bus.
+     *
+     * @see j6502.CycleEngine
+     */
+
+    MemoryModel busMemory;
+
+    byte[][] busReadPages, busWritePages;
+    int[] busReadOffsets, busWriteOffsets;
+
+    private static final byte[][] NO_PAGES = new byte[256][];
+    private static final int[] NO_OFFSETS = new int[256];
+
+    /**
+     * Send every memory access through <code>bus</code>, until
+     * <code>leaveBus</code>.
+     */
+
+    final void enterBus (MemoryModel bus) {
+        busMemory = memory;
+        busReadPages = readPages;
+        busReadOffsets = readOffsets;
+        busWritePages = writePages;
+        busWriteOffsets = writeOffsets;
+
+        memory = bus;
+        readPages = writePages = NO_PAGES;
+        readOffsets = writeOffsets = NO_OFFSETS;
+        ram = null;
+    }
+
+    /**
+     * Go back to the memory model and page tables the CPU had before
+     * <code>enterBus</code>.
+     */
+
+    final void leaveBus () {
+        memory = busMemory;
+        readPages = busReadPages;
+        readOffsets = busReadOffsets;
+        writePages = busWritePages;
+        writeOffsets = busWriteOffsets;
+
+        busMemory = null;
+        busReadPages = busWritePages = null;
+        busReadOffsets = busWriteOffsets = null;
+        memoryMapChanged (0, 0);
+    }
+
+    /**
+     * Called by the memory model when it maps something else into
+     * <code>count</code> pages starting at <code>page</code>.  Code
+     * decoded, translated or compiled from those pages is thrown
+     * away, as if it had been overwritten.
+     */
+
+    void memoryMapChanged (int page, int count) {
+        if ((busMemory == null)
+            && (flatMemory != null) && (flatMemory.ioHandlers == null)) {
+            ram = flatMemory.memory;
+        } else {
+            ram = null;
+        }
+
+        if (codeBytes != null) {
+            for (int p = page; p < page + count; p++) {
+                if (codePages[p]) {
+                    codePages[p] = false;
+                    for (int addr = p * 256; addr < (p + 1) * 256; addr++) {
+                        if (codeBytes[addr] != 0) {
+                            invalidateCode ((char)addr);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if the CPU may use the page tables of
+     * <code>mem</code>.  A subclass of <code>DefaultMemoryModel</code>
+     * which overrides <code>readMemory</code> or
+     * <code>writeMemory</code> expects to see every access, so it does
+     * not get the fast path.
+     */
+
+    private static boolean isDirect (MemoryModel mem) {
+        if (!(mem instanceof DirectMemoryModel)) {
+            return false;
+        }
+        if (!(mem instanceof DefaultMemoryModel)
+            || (mem.getClass () == DefaultMemoryModel.class)) {
+            return true;
+        }
+
+        try {
+            Class c = mem.getClass ();
+            return (c.getMethod ("readMemory", new Class[] { char.class })
+                    .getDeclaringClass () == DefaultMemoryModel.class)
+                && (c.getMethod ("writeMemory", new Class[] { char.class, byte.class })
+                    .getDeclaringClass () == DefaultMemoryModel.class);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
     /**
      * Read a byte from memory from the currently installed
-     * <code>MemoryModel</code>.
+     * <code>MemoryModel</code>.  Pages which a
+     * <code>DirectMemoryModel</code> keeps in an array are read
+     * directly.
      *
      * @param addr The address to read from.
      * @returns a <code>byte</code> value giving the contents of the memory location.
@@ -206,6 +367,16 @@ abstract class J6502Skeleton {
      */
 
     public byte readMemory (char addr) {
+        if (ram != null) {
+            return ram[addr];
+        }
+
+        int page = addr >> 8;
+        byte[] bytes = readPages[page];
+
+        if (bytes != null) {
+            return bytes[readOffsets[page] + (addr & 0xff)];
+        }
         return memory.readMemory (addr);
     }
 
@@ -219,30 +390,57 @@ abstract class J6502Skeleton {
      */
 
     public void writeMemory (char addr, byte value) {
-        memory.writeMemory (addr, value);
+        if (ram != null) {
+            ram[addr] = value;
+        } else {
+            int page = addr >> 8;
+            byte[] bytes = writePages[page];
+
+            if (bytes != null) {
+                bytes[writeOffsets[page] + (addr & 0xff)] = value;
+            } else {
+                memory.writeMemory (addr, value);
+            }
+        }
+
+        if ((codeBytes != null) && (codeBytes[addr] != 0)) {
+            invalidateCode (addr);
+        }
     }
 
     /**
      * Resets the cpu registers to their initial state and calls
      * <code>reset</code> on the currently installed
-     * <code>MemoryModel</code>.
+     * <code>MemoryModel</code>.  The program counter is then loaded
+     * from the reset vector at <code>RESET_VECTOR</code>, as the 6502
+     * does at power on; after a reset of memory which clears it, that
+     * is 0.  The cycle count is set to 0, the interrupt lines are
+     * released, and every scheduled event is removed.
      *
      * @see j6502.MemoryModel
      * @see j6502.MemoryModel#reset()
+     * @see j6502.J6502Skeleton#triggerReset()
      *
      * @since 1.0
      */
 
     public void reset () {
-        pc = 0;
         accumulator = 0;
         regX = 0;
         regY = 0;
         regSP = (byte)(0xff);
-        System.arraycopy (initialFlags, 0, flags, 0, 8);
+        irqSources = 0;
+        nmiPending = false;
+        setStatus ((byte)INTERRUPT);
         memory.reset ();
+        invalidateDecodeCache ();
+        if (translator != null) {
+            translator.invalidate ();
+        }
+        pc = readVector (RESET_VECTOR);
         setLastClocks (0);
         setElapsedClocks (0);
+        scheduler.clear ();
     }
 
     /**
@@ -256,7 +454,7 @@ abstract class J6502Skeleton {
      */
 
     protected J6502Skeleton (MemoryModel mem) {
-        memory = mem;
+        setMemoryModel (mem);
         reset ();
         lastClocks = 0;
         elapsedClocks = 0;
@@ -319,17 +517,420 @@ abstract class J6502Skeleton {
         return readMemory (addr);
     }
 
-    final boolean[] flags = new boolean[8];
+    /**
+     * The addresses of the interrupt vectors, each the low byte of
+     * the address the 6502 jumps to.
+     *
+     * @since 1.2
+     */
+
+    public final static int
+        NMI_VECTOR   = 0xfffa,
+        RESET_VECTOR = 0xfffc,
+        IRQ_VECTOR   = 0xfffe;
+
+    /**
+     * The number of clocks taken to respond to an interrupt or
+     * <code>RESET</code>.
+     *
+     * @since 1.2
+     */
+
+    public final static int INTERRUPT_CLOCKS = 7;
+
+    /**
+     * The devices pulling the IRQ line low, one bit each.
+     */
+
+    int irqSources;
+
+    /**
+     * Set when the NMI line has gone low, until the interrupt is
+     * taken.
+     */
+
+    boolean nmiPending;
+
+    final char readVector (int vector) {
+        return (char)((readMemory ((char)vector) & 0xff)
+                      | ((readMemory ((char)(vector + 1)) & 0xff) << 8));
+    }
+
+    /**
+     * Pull the IRQ line low, or let it go.  The line is shared: it
+     * stays low while any device holds it, so each device sharing it
+     * passes its own bit as <code>source</code>.  While the line is
+     * low and the interrupt flag is clear, an interrupt is taken
+     * before the next instruction: the address of the next
+     * instruction and the status register are pushed, the interrupt
+     * flag is set, and the program counter is loaded from
+     * <code>IRQ_VECTOR</code>.  A device must let go of the line once
+     * its interrupt is handled, usually when the handler reads or
+     * writes one of its registers.
+     *
+     * @param source one bit, for example <code>1 &lt;&lt; 0</code>,
+     * which identifies the device.
+     *
+     * @since 1.2
+     */
+
+    public void setIRQLine (int source, boolean low) {
+        if (low) {
+            irqSources |= source;
+        } else {
+            irqSources &= ~source;
+        }
+        updateCheckpoint ();
+    }
+
+    /**
+     * @returns true if any device is pulling the IRQ line low.
+     *
+     * @since 1.2
+     */
+
+    public boolean isIRQAsserted () {
+        return irqSources != 0;
+    }
+
+    /**
+     * Signal a non-maskable interrupt, as the falling edge of the NMI
+     * line does.  The interrupt is taken before the next instruction,
+     * whatever the interrupt flag, and the program counter is loaded
+     * from <code>NMI_VECTOR</code>.  Signals before the interrupt is
+     * taken are merged into one.
+     *
+     * @since 1.2
+     */
+
+    public void triggerNMI () {
+        nmiPending = true;
+        updateCheckpoint ();
+    }
+
+    /**
+     * Do what pulling the <code>RESET</code> line does: the stack
+     * pointer is moved down three bytes, without writing to the
+     * stack, the interrupt flag is set, and the program counter is
+     * loaded from <code>RESET_VECTOR</code>.  Unlike
+     * <code>reset</code>, memory, the other registers, the cycle count
+     * and scheduled events are left alone.  This should be called
+     * between instructions, for example from a
+     * <code>ScheduledEvent</code>.
+     *
+     * @see j6502.J6502Skeleton#reset()
+     *
+     * @since 1.2
+     */
+
+    public void triggerReset () {
+        nmiPending = false;
+        regSP -= 3;
+        setInterrupt (true);
+        pc = readVector (RESET_VECTOR);
+        lastClocks = INTERRUPT_CLOCKS;
+        elapsedClocks += INTERRUPT_CLOCKS;
+        updateCheckpoint ();
+    }
+
+    /**
+     * Take an interrupt through <code>vector</code>.  This core's
+     * <code>RTI</code> adds one to the address it pops, because
+     * <code>BRK</code> pushes the address of its padding byte, so the
+     * address pushed is one less than that of the next instruction.
+     */
+
+    final void interrupt (int vector) {
+        char ret = (char)(pc - 1);
+
+        push ((byte)(ret >> 8));
+        push ((byte)ret);
+        push ((byte)((getStatus () & ~BREAK) | UNUSED));
+        setInterrupt (true);
+        pc = readVector (vector);
+        lastClocks = INTERRUPT_CLOCKS;
+        elapsedClocks += INTERRUPT_CLOCKS;
+    }
+
+    /**
+     * The events the devices of this CPU are waiting for.
+     */
+
+    final EventScheduler scheduler = new EventScheduler (this);
+
+    /**
+     * Get the scheduler which calls events for this CPU's devices at
+     * given cycles.
+     *
+     * @see j6502.J6502Skeleton#getCycleCount()
+     *
+     * @since 1.2
+     */
+
+    public EventScheduler getScheduler () {
+        return scheduler;
+    }
+
+    /**
+     * Get the memory model this CPU was made with, or, for a CPU made
+     * by <code>fork</code>, the fork of its parent's memory.
+     *
+     * @see j6502.J6502Skeleton#fork()
+     *
+     * @since 1.2
+     */
+
+    public MemoryModel getMemoryModel () {
+        return (busMemory != null) ? busMemory : memory;
+    }
+
+    /**
+     * The cycle at which the run loops have to stop between
+     * instructions and call <code>service</code>: the cycle of the
+     * first scheduled event or of the next look for an idle loop, or
+     * 0 while an interrupt is waiting to be taken.
+     * <code>Long.MAX_VALUE</code> when there is nothing to do, so that
+     * the run loops only compare it with the cycle count.
+     */
+
+    long checkpoint = Long.MAX_VALUE;
+
+    /**
+     * The cycle at which the run loops next look for an idle loop.
+     */
+
+    long idleProbe = IdleDetector.MIN_INTERVAL;
+
+    final IdleDetector idle = new IdleDetector (this);
+
+    /**
+     * Work out <code>checkpoint</code> again, after an event is
+     * scheduled or removed, an interrupt line changes, or the
+     * interrupt flag is cleared.
+     */
+
+    final void updateCheckpoint () {
+        if (nmiPending || ((irqSources != 0) && ((statusBits & INTERRUPT) == 0))) {
+            checkpoint = 0;
+        } else {
+            checkpoint = Math.min (scheduler.getNextCycle (), idleProbe);
+        }
+    }
+
+    /**
+     * Called between instructions once the cycle count reaches
+     * <code>checkpoint</code>: calls the events which are due, and
+     * then takes an interrupt if one is waiting.
+     *
+     * @returns true if an interrupt was taken, in which case
+     * <code>lastClocks</code> and the cycle count include it.
+     */
+
+    final boolean service () {
+        return service (Long.MIN_VALUE);
+    }
+
+    /**
+     * Like <code>service ()</code>, for a run loop which stops at
+     * cycle <code>end</code>.  When it is time to look for an idle
+     * loop, and no interrupt was taken, the loop at the program
+     * counter is run once to see whether it is idle, and if so the
+     * cycle count is moved on as far as <code>end</code> or the next
+     * event.  <code>execute</code> passes
+     * <code>Long.MIN_VALUE</code>, so it never runs more than one
+     * instruction.
+     *
+     * @see j6502.IdleDetector
+     */
+
+    final boolean service (long end) {
+        boolean taken = false;
+
+        scheduler.fireDue (elapsedClocks);
+        if (nmiPending) {
+            nmiPending = false;
+            interrupt (NMI_VECTOR);
+            taken = true;
+        } else if ((irqSources != 0) && ((statusBits & INTERRUPT) == 0)) {
+            interrupt (IRQ_VECTOR);
+            taken = true;
+        }
+
+        if (elapsedClocks >= idleProbe) {
+            if (taken) {
+                idle.rearm ();
+            } else {
+                idle.probe (end);
+            }
+        }
+
+        updateCheckpoint ();
+        return taken;
+    }
+
+    /**
+     * Turn skipping idle loops on or off.  It is on by default.  An
+     * idle loop, such as <code>JMP *</code> or a loop which polls a
+     * byte of RAM that only an interrupt handler changes, makes no
+     * progress until the next scheduled event or the end of the
+     * budget, so <code>run</code>, <code>runUntil</code> without a
+     * condition and <code>TieredEngine.run</code> move the cycle count
+     * straight there instead of running it over and over.  The CPU
+     * ends up exactly as if the loop had been run.
+     *
+     * <p>
+     * A loop is idle when it comes back to the same address with the
+     * same registers and flags, without writing to memory or reading
+     * anything but RAM or ROM in the page tables of a
+     * <code>DirectMemoryModel</code>.  Reads from I/O handlers and
+     * other memory models may change from one read to the next, so
+     * loops which make them are always run.
+     * </p>
+     *
+     * @since 1.2
+     */
+
+    public void setIdleSkipEnabled (boolean enabled) {
+        idle.enabled = enabled;
+        idle.rearm ();
+        updateCheckpoint ();
+    }
+
+    /**
+     * Returns true if idle loops are skipped.
+     *
+     * @since 1.2
+     */
+
+    public boolean isIdleSkipEnabled () {
+        return idle.enabled;
+    }
+
+    /**
+     * Get the number of clock cycles which were skipped in idle loops
+     * rather than run.  They are included in the cycle count.
+     *
+     * @since 1.2
+     */
+
+    public long getIdleClocks () {
+        return idle.skipped;
+    }
+
+    /**
+     * The breakpoints, one bit for each address: bit
+     * <code>addr &amp; 31</code> of <code>breakpoints[addr &gt;&gt; 5]</code>.
+     * It is <code>null</code> when no breakpoints are set, so that
+     * <code>runUntil</code> can use a loop which does not check for
+     * them at all.
+     */
+
+    int[] breakpoints;
+    int breakpointCount;
+
+    /**
+     * Set or clear a breakpoint at <code>addr</code>.
+     * <code>run</code> and <code>runUntil</code> stop, returning
+     * <code>STOP_BREAKPOINT</code>, before executing the instruction
+     * at a breakpoint, unless it is the first instruction they run.
+     *
+     * @see j6502.J6502Skeleton#STOP_BREAKPOINT
+     *
+     * @since 1.2
+     */
+
+    public void setBreakpoint (char addr, boolean set) {
+        if (set == isBreakpoint (addr)) {
+            return;
+        }
+        if (breakpoints == null) {
+            breakpoints = new int[65536 / 32];
+        }
+
+        breakpoints[addr >> 5] ^= 1 << (addr & 31);
+        breakpointCount += set ? 1 : -1;
+
+        if (breakpointCount == 0) {
+            breakpoints = null;
+        }
+    }
+
+    /**
+     * Returns true if there is a breakpoint at <code>addr</code>.
+     *
+     * @since 1.2
+     */
+
+    public boolean isBreakpoint (char addr) {
+        return (breakpoints != null)
+            && ((breakpoints[addr >> 5] & (1 << (addr & 31))) != 0);
+    }
+
+    /**
+     * Returns true if any breakpoints are set.
+     *
+     * @since 1.2
+     */
+
+    public boolean hasBreakpoints () {
+        return breakpoints != null;
+    }
+
+    /**
+     * Clear all breakpoints.
+     *
+     * @since 1.2
+     */
+
+    public void clearBreakpoints () {
+        breakpoints = null;
+        breakpointCount = 0;
+    }
+
+    /**
+     * The flags are not kept as bits.  Instructions store the value
+     * the flags are computed from, and the flags are only worked out
+     * when something (a branch, <code>PHP</code>, the debugger) asks
+     * for them.
+     *
+     * <p>
+     * <code>nzResult</code> holds the last result which set the sign
+     * and zero flags.  Zero is set if its low 8 bits are 0, and sign
+     * is set if bit 7 or bit 8 is set.  Bit 8 is only used to
+     * represent sign and zero both being set, which no 8-bit result
+     * can.
+     * </p>
+     *
+     * @since 1.2
+     */
+
+    int nzResult;
+
+    /**
+     * The carry flag is bit 8 of <code>carryResult</code>, which is
+     * typically the 9-bit result of an addition.
+     *
+     * @since 1.2
+     */
+
+    int carryResult;
+
+    /**
+     * The overflow flag is bit 7 of <code>overflowResult</code>.
+     *
+     * @since 1.2
+     */
 
-    final boolean[] initialFlags = { false, // carry
-                                     false, // zero
-                                     true,  // interrupt
-                                     false, // decimal
-                                     
-                                     false, // break
-                                     false, // [unused]
-                                     false, // overflow
-                                     false }; // sign
+    int overflowResult;
+
+    /**
+     * The interrupt, decimal, break and unused bits of the status
+     * register, in their places.
+     *
+     * @since 1.2
+     */
+
+    int statusBits;
 
     /**
      * Get the status of the carry flag.
@@ -340,7 +941,7 @@ abstract class J6502Skeleton {
      */
 
     public final boolean isCarry () {
-        return flags[CARRY];
+        return (carryResult & 0x100) != 0;
     }
 
     /**
@@ -352,7 +953,7 @@ abstract class J6502Skeleton {
      */
 
     public final boolean isZero () {
-        return flags[ZERO];
+        return (nzResult & 0xff) == 0;
     }
 
     /**
@@ -364,7 +965,7 @@ abstract class J6502Skeleton {
      */
 
     public final boolean isInterrupt () {
-        return flags[INTERRUPT];
+        return (statusBits & INTERRUPT) != 0;
     }
 
     /**
@@ -376,7 +977,7 @@ abstract class J6502Skeleton {
      */
 
     public final boolean isDecimal () {
-        return flags[DECIMAL];
+        return (statusBits & DECIMAL) != 0;
     }
 
     /**
@@ -401,7 +1002,7 @@ abstract class J6502Skeleton {
      */
 
     public final boolean isBreak () {
-        return flags[BREAK];
+        return (statusBits & BREAK) != 0;
     }
 
 
@@ -414,7 +1015,7 @@ abstract class J6502Skeleton {
      */
 
     public final boolean isOverflow () {
-        return flags[OVERFLOW];
+        return (overflowResult & 0x80) != 0;
     }
 
     /**
@@ -426,7 +1027,7 @@ abstract class J6502Skeleton {
      */
 
     public final boolean isSign () {
-        return flags[SIGN];
+        return (nzResult & 0x180) != 0;
     }
 
     /**
@@ -436,7 +1037,7 @@ abstract class J6502Skeleton {
      */
 
     public final void setCarry (boolean b) {
-        flags[CARRY] = b;
+        carryResult = b ? 0x100 : 0;
     }
 
     /**
@@ -446,7 +1047,11 @@ abstract class J6502Skeleton {
      */
 
     public final void setZero (boolean b) {
-        flags[ZERO] = b;
+        if (isSign ()) {
+            nzResult = b ? 0x100 : 0x80;
+        } else {
+            nzResult = b ? 0 : 1;
+        }
     }
 
     /**
@@ -456,7 +1061,14 @@ abstract class J6502Skeleton {
      */
 
     public final void setInterrupt (boolean b) {
-        flags[INTERRUPT] = b;
+        if (b) {
+            statusBits |= INTERRUPT;
+        } else {
+            statusBits &= ~INTERRUPT;
+        }
+        if (irqSources != 0) {
+            updateCheckpoint ();
+        }
     }
 
     /**
@@ -466,7 +1078,11 @@ abstract class J6502Skeleton {
      */
 
     public final void setDecimal (boolean b) {
-        flags[DECIMAL] = b;
+        if (b) {
+            statusBits |= DECIMAL;
+        } else {
+            statusBits &= ~DECIMAL;
+        }
     }
 
     /**
@@ -476,7 +1092,11 @@ abstract class J6502Skeleton {
      */
 
     public final void setBreak (boolean b) {
-        flags[BREAK] = b;
+        if (b) {
+            statusBits |= BREAK;
+        } else {
+            statusBits &= ~BREAK;
+        }
     }
 
     /**
@@ -486,7 +1106,7 @@ abstract class J6502Skeleton {
      */
 
     public final void setOverflow (boolean b) {
-        flags[OVERFLOW] = b;
+        overflowResult = b ? 0x80 : 0;
     }
 
     /**
@@ -496,7 +1116,11 @@ abstract class J6502Skeleton {
      */
 
     public final void setSign (boolean b) {
-        flags[SIGN] = b;
+        if (isZero ()) {
+            nzResult = b ? 0x100 : 0;
+        } else {
+            nzResult = b ? 0x80 : 1;
+        }
     }
 
     /**
@@ -507,8 +1131,7 @@ abstract class J6502Skeleton {
      */
 
     protected final void setArithmeticFlags (byte b) {
-        setZero (b == 0);
-        setSign (b < 0);
+        nzResult = b & 0xff;
     }
 
     /**
@@ -518,15 +1141,13 @@ abstract class J6502Skeleton {
      */
 
     public byte getStatus () {
-        byte bflags = 0;
+        int bflags = statusBits
+            | ((carryResult >> 8) & CARRY)
+            | (((nzResult & 0xff) == 0) ? ZERO : 0)
+            | ((overflowResult >> 1) & OVERFLOW)
+            | (((nzResult & 0x180) != 0) ? SIGN : 0);
 
-        for (int count = 7; count >= 0; count--) {
-            bflags <<= 1;
-            if (flags[count]) {
-                bflags++;
-            }
-        }
-        return bflags;
+        return (byte)bflags;
     } // getStatus
 
     /**
@@ -536,13 +1157,19 @@ abstract class J6502Skeleton {
      */
 
     public void setStatus (byte b) {
+        statusBits = b & (INTERRUPT | DECIMAL | BREAK | UNUSED);
+        carryResult = (b & CARRY) << 8;
+        overflowResult = (b & OVERFLOW) << 1;
 
-        int count;
-        byte mask = (byte)0x01;
+        boolean zero = (b & ZERO) != 0;
+        if ((b & SIGN) != 0) {
+            nzResult = zero ? 0x100 : 0x80;
+        } else {
+            nzResult = zero ? 0 : 1;
+        }
 
-        for (count = 0; count < 8; count++) {
-            flags[count] = ((b & mask) != 0);
-            mask <<= 1;
+        if (irqSources != 0) {
+            updateCheckpoint ();
         }
     } // setStatus
 
@@ -564,12 +1191,12 @@ abstract class J6502Skeleton {
 	    carry6++;
 	}
 
-        setCarry ((result & 0x100) != 0);
-        setOverflow (isCarry () ^ ((carry6 & 0x80) != 0));
+        carryResult = result;
+        overflowResult = (result >> 1) ^ carry6;
 
 	accumulator = (byte)(result & 0xFF);
 
-	setArithmeticFlags (accumulator);
+	nzResult = result & 0xff;
     } // adc
 
     /**
@@ -580,34 +1207,7 @@ abstract class J6502Skeleton {
      */
 
     protected final void adcBCD (byte b) {
-	int low, high;
-	int result;
-
-	low = (accumulator & 0x0F) + (b & 0x0F);
-	if (isCarry ())
-	    {
-		low++;
-	    }
-
-	high = (accumulator & 0xF0) + (b & 0xF0);
-
-        setZero (((low + high) & 0xff) == 0);
-
-	if (low > 9) {
-	    low += 6;
-	}
-
-        setSign (((low + high) & 0x80) != 0);
-        setOverflow ( ((((low + ((accumulator & 0x70) + (b & 0x70))) & 0x80) << 1) // bit 6 carry
-                       ^ ((low + high) & 0x100)) != 0); // bit 7 carry
-
-	if (high > 0x90) {
-	    high += 0x60;
-	}
-
-	result = high + low;
-	accumulator = (byte)(result);
-        setCarry ((result & 0x100) != 0);
+        setArithmeticResult (ArithmeticTables.ADC_BCD[arithmeticIndex (b)]);
     } // adcBCD
 
     /**
@@ -632,50 +1232,34 @@ abstract class J6502Skeleton {
      */
 
     protected final void sbcBCD (byte b) {
-	int low, high;
-	int result;
-
-	low = (accumulator & 0x0F) - (b & 0x0F);
-
-	if (!isCarry ())
-	    {
-		low --;
-	    }
-
-	low &= 0xFF;
-	if ((low & 0x10) != 0)
-	    {
-		low -= 6;
-	    }
-
-	high = (accumulator & 0xF0) - (b & 0xF0);
-	high &= 0xFF;
-
-	if ((low & 0x10) != 0)
-	    {
-		high -= 0x10;
-	    }
-
-	if ((high & 0x100) != 0)
-	    {
-		high -= 0x60;
-	    }
-
-	result = (accumulator & 0xFF) - (b & 0xFF);
-	if (isCarry ())
-	    {
-		result --;
-	    }
-
-        setCarry ((result & 0x100) != 0);
-        setSign ((result & 0x80)  != 0);
-        setZero ((result & 0xff) == 0);
-        setOverflow ( (((result ^ accumulator) != 0)
-                       && (((accumulator ^ b) & 0x80) != 0)));
-
-	accumulator = (byte)((high & 0xF0) + (low & 0x0F));
+        setArithmeticResult (ArithmeticTables.SBC_BCD[arithmeticIndex (b)]);
     } // sbcBCD
 
+    /**
+     * The index into the <code>ArithmeticTables</code> of the carry
+     * flag, the accumulator and b.
+     *
+     * @since 1.2
+     */
+
+    private int arithmeticIndex (byte b) {
+        return ((carryResult & 0x100) << 8) | ((accumulator & 0xff) << 8) | (b & 0xff);
+    }
+
+    /**
+     * Set the accumulator and the sign, overflow, zero and carry flags
+     * from an entry of the <code>ArithmeticTables</code>.
+     *
+     * @since 1.2
+     */
+
+    private void setArithmeticResult (int entry) {
+        accumulator = (byte)entry;
+        carryResult = entry;
+        overflowResult = entry >> 8;
+        nzResult = entry >>> 16;
+    }
+
     /**
      * Compare the value of a to the value of b, and set the relevant
      * flags accordingly.
@@ -691,8 +1275,8 @@ abstract class J6502Skeleton {
 	
 	i = (a & 0xFF) + (b & 0xFF);
 	
-        setCarry ((i & 0x100) != 0);
-        setArithmeticFlags ((byte)(i & 0xff));
+        carryResult = i;
+        nzResult = i & 0xff;
     }
 
     /**
@@ -700,6 +1284,9 @@ abstract class J6502Skeleton {
      * the <code>extraClocks</code> variable should be added to the
      * value in the table of clock cycles for opcode, to correct for
      * any exceptions to the table, depending on addressing mode.
+     * The generated handlers of <code>J6502</code> compute addresses
+     * and extra clocks in place, in locals, and use neither this nor
+     * the addressing functions below, which are kept for subclasses.
      *
      * @since 1.0
      */
@@ -892,8 +1479,6 @@ abstract class J6502Skeleton {
         return direct (lsb, msb);
     } // jmpIndirect
 
-    private final byte[] insnBuf = new byte[3];
-
     /**
      * Execute the instruction in the array <code>insn</code>.  It is
      * executed as if pc is pointing to the next instruction in
@@ -912,12 +1497,65 @@ abstract class J6502Skeleton {
 
     public abstract int execute (byte[] insn);
 
+    /**
+     * Execute the instruction with the given opcode and operand
+     * bytes.  Operands the instruction does not use are ignored.  It
+     * is executed as if pc is pointing to the next instruction in
+     * memory.
+     *
+     * @returns the number of clock cycles elapsed, or 0 if the
+     * opcode was invalid.
+     *
+     * @since 1.2
+     */
+
+    abstract int dispatch (int opcode, byte op1, byte op2);
+
+    /**
+     * Get the opcode sequences which have superinstructions, i.e. one
+     * generated method which runs the whole sequence.  Superinstruction
+     * <code>n</code> runs sequence <code>n - 1</code>.
+     *
+     * @see j6502.J6502Skeleton#dispatchSuper(int,long)
+     */
+
+    abstract int[][] getSuperinstructions ();
+
+    /**
+     * Run superinstruction <code>number</code>.  <code>insn</code> is
+     * the decoded sequence, as returned by <code>decode</code>, and
+     * the program counter must already point past its first
+     * instruction.
+     *
+     * @returns the number of clock cycles elapsed in bits 0-15, and the
+     * number taken by the last instruction of the sequence in bits
+     * 16-31.
+     */
+
+    abstract int dispatchSuper (int number, long insn);
+
+    /**
+     * The most bytes of code a superinstruction may cover.
+     */
+
+    static final int MAX_SUPERINSTRUCTION_BYTES = 8;
+
     int lastClocks;
-    int elapsedClocks;
+
+    /**
+     * The clocks elapsed since construction or the last reset.  This
+     * is a <code>long</code>, which will not wrap: an
+     * <code>int</code> wraps after 35 minutes of a 1 MHz 6502.
+     */
+
+    long elapsedClocks;
 
     /**
      * Execute the instruction pointed to by the program counter, and
      * advance the program counter to point to the next instruction.
+     * Scheduled events which are due are called first, and if an
+     * interrupt is then waiting, it is taken instead of executing an
+     * instruction.
      *
      * @returns an int value giving the number clock cycles elapsed
      * during execution of the instruction, or 0 indicating that the
@@ -928,24 +1566,480 @@ abstract class J6502Skeleton {
      */
 
     public int execute () {
-        insnBuf[0] = readMemory (pc);
-        
-        int size = J6502Constants.sizes[insnBuf[0] & 0xff];
-
-        //System.out.println ("0: " + (insnBuf[0] & 0xff));
-        for (int count = 1; count < size; count++) {
-            insnBuf[count] = readMemory ((char)(pc + count));
-            //System.out.println (count + ": " + (insnBuf[count] & 0xff));
+        if ((elapsedClocks >= checkpoint) && service ()) {
+            return lastClocks;
         }
 
+        int insn = (int)decode ();
+        int size = insn >>> 24;
+
         pc += size;
 
-        lastClocks = execute (insnBuf);
+        lastClocks = dispatch (insn & 0xff, (byte)(insn >> 8), (byte)(insn >> 16));
 
         elapsedClocks += lastClocks;
         return lastClocks;
     }
 
+    /**
+     * The decoded instruction at each address, or 0 if there isn't
+     * one.  <code>null</code> when the decode cache is disabled.
+     *
+     * @see j6502.J6502Skeleton#decode()
+     */
+
+    long[] decodeCache;
+
+    /**
+     * Marks every byte of memory which is part of a cached,
+     * translated or compiled instruction, with the
+     * <code>DECODED</code>, <code>TRANSLATED</code> and
+     * <code>COMPILED</code> bits.  <code>null</code> when none of the
+     * decode cache, a <code>TieredEngine</code> or compiled code is in
+     * use.
+     */
+
+    byte[] codeBytes;
+
+    /**
+     * Set for each page which may have a mark in
+     * <code>codeBytes</code>, so that remapping a page without code
+     * does not have to look at every byte.
+     */
+
+    boolean[] codePages;
+
+    static final int
+        DECODED    = 0x01,
+        TRANSLATED = 0x02,
+        COMPILED   = 0x04;
+
+    /**
+     * True while some code is marked <code>COMPILED</code>.
+     */
+
+    boolean compiledCode;
+
+    /**
+     * The <code>TieredEngine</code> running this CPU, which is told
+     * when translated code is written to.
+     */
+
+    TieredEngine translator;
+
+    /**
+     * Set when the CPU writes to a byte of translated or compiled
+     * code.  A translated block checks it after each instruction which
+     * writes to memory, and stops early if it was rewritten under it.
+     */
+
+    boolean codeWritten;
+
+    /**
+     * Allocate or free <code>codeBytes</code>, depending on whether
+     * anything needs it.
+     */
+
+    void updateCodeBytes () {
+        if ((decodeCache == null) && (translator == null)
+            && !compiledCode) {
+            codeBytes = null;
+            codePages = null;
+        } else if (codeBytes == null) {
+            codeBytes = new byte[65536];
+            codePages = new boolean[256];
+        }
+    }
+
+    /**
+     * Turn the decode cache on or off.  It is off by default.
+     *
+     * <p>
+     * With the cache on, each instruction is fetched from the
+     * <code>MemoryModel</code> and decoded once, and then executed
+     * from the cache every time the program counter comes back to it.
+     * The cache entry is dropped whenever the CPU writes to one of
+     * the bytes of the instruction, so self-modifying code still
+     * works.
+     * </p>
+     * <p>
+     * Changes to code which do not go through the CPU, e.g. writing
+     * to the <code>MemoryModel</code> directly, or memory-mapped I/O
+     * that reads differently each time, are not seen.  Call
+     * <code>invalidateDecodeCache</code> after changing code that way.
+     * Pages mapped again by a <code>PageTableMemoryModel</code> are
+     * seen.
+     * </p>
+     *
+     * @since 1.2
+     */
+
+    public void setDecodeCacheEnabled (boolean enabled) {
+        if (enabled == isDecodeCacheEnabled ()) {
+            return;
+        }
+
+        if (enabled) {
+            decodeCache = new long[65536];
+        } else {
+            invalidateDecodeCache ();
+            decodeCache = null;
+        }
+        updateCodeBytes ();
+    }
+
+    /**
+     * Returns true if the decode cache is on.
+     *
+     * @see j6502.J6502Skeleton#setDecodeCacheEnabled(boolean)
+     *
+     * @since 1.2
+     */
+
+    public boolean isDecodeCacheEnabled () {
+        return decodeCache != null;
+    }
+
+    /**
+     * Drop every instruction in the decode cache.
+     *
+     * @see j6502.J6502Skeleton#setDecodeCacheEnabled(boolean)
+     *
+     * @since 1.2
+     */
+
+    public void invalidateDecodeCache () {
+        if (decodeCache != null) {
+            java.util.Arrays.fill (decodeCache, 0);
+            clearCodeBytes (DECODED);
+        }
+    }
+
+    /**
+     * Drop every cached instruction which might contain the byte at
+     * <code>addr</code>.  A cache entry covers at most
+     * <code>MAX_SUPERINSTRUCTION_BYTES</code> bytes, so those are the
+     * ones which start at <code>addr</code> and the few addresses
+     * before it.
+     */
+
+    private void invalidateCode (char addr) {
+        int marks = codeBytes[addr];
+        codeBytes[addr] = 0;
+
+        if ((marks & DECODED) != 0) {
+            for (int count = 0; count < MAX_SUPERINSTRUCTION_BYTES; count++) {
+                decodeCache[(char)(addr - count)] = 0;
+            }
+        }
+        if ((marks & TRANSLATED) != 0) {
+            codeWritten = true;
+            translator.codeWritten (addr);
+        }
+        if ((marks & COMPILED) != 0) {
+            codeWritten = true;
+        }
+    }
+
+    /**
+     * Clear the given mark from every byte of memory.
+     */
+
+    void clearCodeBytes (int mark) {
+        if (codeBytes != null) {
+            for (int count = 0; count < codeBytes.length; count++) {
+                codeBytes[count] &= ~mark;
+            }
+        }
+    }
+
+    /**
+     * Mark <code>size</code> bytes of memory, starting at
+     * <code>addr</code>, as code.
+     */
+
+    void markCode (char addr, int size, int mark) {
+        for (int count = 0; count < size; count++) {
+            char at = (char)(addr + count);
+
+            codeBytes[at] |= mark;
+            codePages[at >> 8] = true;
+        }
+    }
+
+    /**
+     * Mark <code>size</code> bytes of memory, starting at
+     * <code>addr</code>, as code which has been compiled ahead of
+     * time into a subclass (see <code>j6502.build.StaticRecompiler</code>).
+     * When the CPU writes to one of them,
+     * <code>isCodeWritten</code> starts returning true, and the
+     * subclass should stop trusting its compiled code.
+     *
+     * @since 1.2
+     */
+
+    protected final void markCompiledCode (char addr, int size) {
+        compiledCode = true;
+        updateCodeBytes ();
+        markCode (addr, size, COMPILED);
+    }
+
+    /**
+     * Forget all code marked with <code>markCompiledCode</code>.
+     *
+     * @since 1.2
+     */
+
+    protected final void clearCompiledCode () {
+        clearCodeBytes (COMPILED);
+        compiledCode = false;
+        updateCodeBytes ();
+    }
+
+    /**
+     * Returns true if the CPU has written to translated or compiled
+     * code since the last call to <code>clearCodeWritten</code>.
+     *
+     * @see j6502.J6502Skeleton#markCompiledCode(char,int)
+     *
+     * @since 1.2
+     */
+
+    protected final boolean isCodeWritten () {
+        return codeWritten;
+    }
+
+    /**
+     * Reset the flag returned by <code>isCodeWritten</code>.
+     *
+     * @since 1.2
+     */
+
+    protected final void clearCodeWritten () {
+        codeWritten = false;
+    }
+
+    /**
+     * Get the cycle at which a run loop of a subclass has to stop
+     * between instructions and call <code>serviceCheckpoint</code>.
+     * It is 0 while an interrupt is waiting to be taken.
+     *
+     * @since 1.2
+     */
+
+    protected final long getCheckpoint () {
+        return checkpoint;
+    }
+
+    /**
+     * Call the events which are due, and take an interrupt if one is
+     * waiting, for a run loop which stops at cycle <code>end</code>.
+     * Subclasses with their own run loop call this whenever the cycle
+     * count reaches <code>getCheckpoint ()</code>.
+     *
+     * @returns true if an interrupt was taken.
+     *
+     * @since 1.2
+     */
+
+    protected final boolean serviceCheckpoint (long end) {
+        return service (end);
+    }
+
+    /**
+     * Move the cycle count on by <code>clocks</code>, for a run loop
+     * of a subclass which has just run that many.  Unlike
+     * <code>setCycleCount</code>, this does not put off the next look
+     * for an idle loop, so idle loops in the code it runs are still
+     * skipped.
+     *
+     * @see j6502.J6502Skeleton#setCycleCount(long)
+     *
+     * @since 1.2
+     */
+
+    protected final void advanceCycleCount (long clocks) {
+        elapsedClocks += clocks;
+        updateCheckpoint ();
+    }
+
+    /**
+     * Decode the instruction the program counter points to.  The
+     * result is packed into a long: the opcode is in bits 0-7, the
+     * first operand in bits 8-15, the second operand in bits 16-23,
+     * and the size of the instruction in bits 24-25.  The size is 0
+     * if the opcode is invalid.
+     *
+     * <p>
+     * When the decode cache is on, the instruction may also start a
+     * superinstruction.  Then its number is in bits 32-39, and the
+     * operands of the instructions after the first follow in bits
+     * 40-63.  Callers which only want one instruction can cast the
+     * result to an int.
+     * </p>
+     *
+     * @since 1.2
+     */
+
+    final long decode () {
+        long[] cache = decodeCache;
+
+        if (cache != null) {
+            long insn = cache[pc];
+            if (insn != 0) {
+                return insn;
+            }
+        }
+
+        int opcode = readMemory (pc) & 0xff;
+        int size = J6502Constants.info[opcode] & J6502Constants.INFO_SIZE;
+        long insn = opcode | (size << 24);
+
+        if (size > 1) {
+            insn |= (readMemory ((char)(pc + 1)) & 0xff) << 8;
+            if (size > 2) {
+                insn |= (readMemory ((char)(pc + 2)) & 0xff) << 16;
+            }
+        }
+
+        if ((cache != null) && (size != 0)) {
+            insn = fuse (insn);
+            cache[pc] = insn;
+        }
+
+        return insn;
+    } // decode
+
+    /**
+     * Look for a superinstruction starting with the instruction at
+     * the program counter, and mark the bytes the cache entry covers.
+     *
+     * @returns <code>insn</code>, with the superinstruction added if
+     * one matches.
+     */
+
+    private long fuse (long insn) {
+        int opcode = (int)insn & 0xff;
+        int size = (int)insn >>> 24;
+        int[][] sequences = getSuperinstructions ();
+
+    sequences:
+        for (int number = 0; number < sequences.length; number++) {
+            int[] sequence = sequences[number];
+            if (sequence[0] != opcode) {
+                continue;
+            }
+
+            long operands = 0;
+            int shift = 40;
+            char addr = (char)(pc + size);
+
+            for (int idx = 1; idx < sequence.length; idx++) {
+                int next = readMemory (addr) & 0xff;
+                if (next != sequence[idx]) {
+                    continue sequences;
+                }
+
+                int nextSize = J6502Constants.info[next] & J6502Constants.INFO_SIZE;
+                for (int count = 1; count < nextSize; count++) {
+                    operands |= (long)(readMemory ((char)(addr + count)) & 0xff)
+                        << shift;
+                    shift += 8;
+                }
+                addr += nextSize;
+            }
+
+            markCode (pc, (char)(addr - pc), DECODED);
+            return insn | ((long)(number + 1) << 32) | operands;
+        }
+
+        markCode (pc, size, DECODED);
+        return insn;
+    } // fuse
+
+    /**
+     * <code>run</code> stopped because the cycle budget was used up.
+     *
+     * @see j6502.J6502Skeleton#run(int)
+     *
+     * @since 1.2
+     */
+
+    public final static int STOP_BUDGET = 0;
+
+    /**
+     * <code>run</code> stopped at a <code>BRK</code> instruction.  The
+     * program counter points at the <code>BRK</code>, which has not
+     * been executed.
+     *
+     * @since 1.2
+     */
+
+    public final static int STOP_BREAK = 1;
+
+    /**
+     * <code>run</code> stopped at an invalid opcode.  The program
+     * counter points at the opcode.
+     *
+     * @since 1.2
+     */
+
+    public final static int STOP_BAD_OPCODE = 2;
+
+    /**
+     * <code>runUntil</code> stopped because its
+     * <code>StopCondition</code> asked it to.
+     *
+     * @since 1.2
+     */
+
+    public final static int STOP_CONDITION = 3;
+
+    /**
+     * <code>run</code> stopped at a breakpoint.  The program counter
+     * points at the instruction, which has not been executed.
+     *
+     * @see j6502.J6502Skeleton#setBreakpoint(char,boolean)
+     *
+     * @since 1.2
+     */
+
+    public final static int STOP_BREAKPOINT = 4;
+
+    /**
+     * Execute instructions until at least <code>cycleBudget</code>
+     * clock cycles have elapsed, or a <code>BRK</code>, invalid
+     * opcode or breakpoint is reached.  This is much faster than calling
+     * <code>execute ()</code> in a loop.
+     *
+     * @returns one of the <code>STOP_</code> constants, giving the
+     * reason execution stopped.
+     *
+     * @see j6502.J6502Skeleton#runUntil(StopCondition,int)
+     *
+     * @since 1.2
+     */
+
+    public int run (int cycleBudget) {
+        return runUntil (null, cycleBudget);
+    }
+
+    /**
+     * Like <code>run</code>, but also asks <code>condition</code>
+     * before every instruction whether to stop.  The clock counters
+     * are up to date when the condition is called.  A
+     * <code>null</code> condition never stops.
+     *
+     * @returns one of the <code>STOP_</code> constants, giving the
+     * reason execution stopped.
+     *
+     * @see j6502.StopCondition
+     *
+     * @since 1.2
+     */
+
+    public abstract int runUntil (StopCondition condition, int cycleBudget);
+
     /**
      * Get the number of clocks elapsed during the last instruction
      * that was executed.
@@ -970,13 +2064,16 @@ abstract class J6502Skeleton {
 
     /**
      * Get the number of clocks elapsed since construction or the last
-     * reset.
+     * reset, or <code>Integer.MAX_VALUE</code> if more have elapsed
+     * than an <code>int</code> holds.
+     *
+     * @see j6502.J6502Skeleton#getCycleCount()
      *
      * @since 1.0
      */
 
     public int getElapsedClocks () {
-        return elapsedClocks;
+        return (int)Math.min (elapsedClocks, Integer.MAX_VALUE);
     }
 
     /**
@@ -988,11 +2085,381 @@ abstract class J6502Skeleton {
      */
 
     public void setElapsedClocks (int i) {
-        if (i < 0) {
+        setCycleCount (i);
+    }
+
+    /**
+     * Get the number of clocks elapsed since construction or the last
+     * reset.  Events are scheduled by this count.
+     *
+     * @see j6502.EventScheduler#schedule(long,ScheduledEvent)
+     *
+     * @since 1.2
+     */
+
+    public long getCycleCount () {
+        return elapsedClocks;
+    }
+
+    /**
+     * Set the cycle count.  Scheduled events keep the cycles they
+     * were scheduled for, so moving the count back delays them, and
+     * moving it forward makes them due.
+     *
+     * @since 1.2
+     */
+
+    public void setCycleCount (long cycles) {
+        if (cycles < 0) {
             throw new IllegalArgumentException ();
         }
 
-        elapsedClocks = i;
+        elapsedClocks = cycles;
+        idle.rearm ();
+        updateCheckpoint ();
+    }
+
+    /**
+     * Create a CPU of the same class as this one, on
+     * <code>mem</code>, for <code>fork</code>.  Every generated core
+     * overrides this; a subclass which is to be forked must too.
+     *
+     * @since 1.2
+     */
+
+    protected abstract J6502 newInstance (MemoryModel mem);
+
+    /**
+     * Make an independent copy of this CPU and its memory, which can
+     * be run on from the same state.  The memory must be a
+     * <code>PageTableMemoryModel</code>, which is forked
+     * copy-on-write, so this takes microseconds however much memory
+     * there is, and the child only costs memory for the pages it or
+     * this CPU write to afterwards.
+     *
+     * <p>
+     * The child is of the same class as this CPU, made by
+     * <code>newInstance</code>, so a <code>J6502NoDecimal</code> forks
+     * a <code>J6502NoDecimal</code>.  It has its decode cache off, and
+     * no <code>TieredEngine</code>.  It has the same cycle count and
+     * interrupt lines, but no scheduled events, since they belong to
+     * this CPU's devices.
+     * </p>
+     *
+     * @exception UnsupportedOperationException if the memory model
+     * can't be forked, or this CPU is of a subclass which does not
+     * override <code>newInstance</code>.
+     *
+     * @see j6502.PageTableMemoryModel#fork()
+     *
+     * @since 1.2
+     */
+
+    public J6502 fork () {
+        if (!(memory instanceof PageTableMemoryModel)) {
+            throw new UnsupportedOperationException ("can't fork a "
+                                                     + memory.getClass ().getName ());
+        }
+
+        // Construct the child on empty memory, because the constructor
+        // resets its memory.
+        J6502 child = newInstance (new PageTableMemoryModel ());
+        if (child.getClass () != getClass ()) {
+            throw new UnsupportedOperationException ("can't fork a "
+                                                     + getClass ().getName ());
+        }
+
+        PageTableMemoryModel childMemory = ((PageTableMemoryModel)memory).fork ();
+        J6502Skeleton skeleton = child;
+
+        skeleton.setMemoryModel (childMemory);
+        child.accumulator = accumulator;
+        child.regX = regX;
+        child.regY = regY;
+        child.regSP = regSP;
+        child.pc = pc;
+        child.nzResult = nzResult;
+        child.carryResult = carryResult;
+        child.overflowResult = overflowResult;
+        child.statusBits = statusBits;
+        child.lastClocks = lastClocks;
+        child.elapsedClocks = elapsedClocks;
+        child.irqSources = irqSources;
+        child.nmiPending = nmiPending;
+        skeleton.idle.enabled = idle.enabled;
+        skeleton.idle.rearm ();
+        skeleton.updateCheckpoint ();
+        return child;
+    }
+
+    /**
+     * The first four bytes of a saved state.
+     *
+     * @since 1.2
+     */
+
+    public final static int STATE_MAGIC = 0x4a363530; // "J650"
+
+    /**
+     * The version of the saved state format written by
+     * <code>saveState</code>.
+     *
+     * @since 1.2
+     */
+
+    public final static int STATE_VERSION = 3;
+
+    /**
+     * The number of bytes <code>saveState</code> writes.
+     *
+     * @since 1.2
+     */
+
+    public final static int STATE_SIZE = 4 + 1 + 2 + 5 + 4 + 8 + 4 + 1 + 32 + 65536;
+
+    /**
+     * The size of a version 1 state, which had an <code>int</code>
+     * cycle count and no interrupt lines.
+     */
+
+    final static int STATE_SIZE_1 = 4 + 1 + 2 + 5 + 4 + 4 + 65536;
+
+    /**
+     * The size of a version 2 state, which had no map of the pages
+     * saved.
+     */
+
+    final static int STATE_SIZE_2 = 4 + 1 + 2 + 5 + 4 + 8 + 4 + 1 + 65536;
+
+    /**
+     * Returns true if <code>saveState</code> saves the contents of
+     * <code>page</code>.  Every page is saved, except the pages of a
+     * <code>DirectMemoryModel</code> which have no array, such as I/O
+     * pages.
+     */
+
+    private boolean isSavedPage (int page, boolean direct) {
+        return !direct || (readPages[page] != null);
+    }
+
+    /**
+     * Save the registers, clock counts and the contents of memory at
+     * the position of <code>buffer</code>, which is advanced by
+     * <code>STATE_SIZE</code> bytes.  Nothing is allocated, and pages
+     * of a <code>DirectMemoryModel</code> are copied in bulk.
+     *
+     * <p>
+     * The format is big-endian: <code>STATE_MAGIC</code>, a version
+     * byte, the program counter, A, X, Y, S and P, the last clock
+     * count, the cycle count as a <code>long</code>, the devices
+     * holding the IRQ line as an <code>int</code>, a byte which is 1
+     * if an NMI is waiting, 32 bytes with one bit for each page
+     * saved, and then all 64K of memory.  The pages of a
+     * <code>DirectMemoryModel</code> which have no array, such as I/O
+     * pages, are not saved: their bit is clear, and they are filled
+     * with zeros, so that taking a snapshot never reads a device.
+     * The pages of any other memory model are read with
+     * <code>readMemory</code>, since it has no I/O pages to tell
+     * apart.  Anything a memory model keeps outside the address
+     * space, such as the banks not currently mapped, is not saved,
+     * and neither are scheduled events, which the devices that own
+     * them have to schedule again.
+     * </p>
+     *
+     * @exception BufferOverflowException if fewer than
+     * <code>STATE_SIZE</code> bytes remain in the buffer.
+     *
+     * @see j6502.J6502Skeleton#loadState(ByteBuffer)
+     *
+     * @since 1.2
+     */
+
+    public void saveState (ByteBuffer buffer) {
+        if (buffer.remaining () < STATE_SIZE) {
+            throw new BufferOverflowException ();
+        }
+
+        ByteOrder order = buffer.order ();
+        buffer.order (ByteOrder.BIG_ENDIAN);
+
+        buffer.putInt (STATE_MAGIC);
+        buffer.put ((byte)STATE_VERSION);
+        buffer.putChar (pc);
+        buffer.put (accumulator);
+        buffer.put (regX);
+        buffer.put (regY);
+        buffer.put (regSP);
+        buffer.put (getStatus ());
+        buffer.putInt (lastClocks);
+        buffer.putLong (elapsedClocks);
+        buffer.putInt (irqSources);
+        buffer.put ((byte)(nmiPending ? 1 : 0));
+
+        boolean direct = isDirect (memory);
+
+        for (int page = 0; page < 256; page += 8) {
+            int bits = 0;
+            for (int count = 0; count < 8; count++) {
+                if (isSavedPage (page + count, direct)) {
+                    bits |= 1 << count;
+                }
+            }
+            buffer.put ((byte)bits);
+        }
+
+        for (int page = 0; page < 256; page++) {
+            byte[] bytes = readPages[page];
+
+            if (bytes != null) {
+                buffer.put (bytes, readOffsets[page], 256);
+            } else if (isSavedPage (page, direct)) {
+                for (int addr = page * 256; addr < (page + 1) * 256; addr++) {
+                    buffer.put (memory.readMemory ((char)addr));
+                }
+            } else {
+                for (int count = 0; count < 256; count++) {
+                    buffer.put ((byte)0);
+                }
+            }
+        }
+
+        buffer.order (order);
+    }
+
+    /**
+     * Restore a state written by <code>saveState</code>, from the
+     * position of <code>buffer</code>, which is advanced past it.
+     * Nothing is allocated.
+     *
+     * <p>
+     * Pages which were saved are written back into the arrays of a
+     * <code>DirectMemoryModel</code> directly, and into any other
+     * memory model with <code>writeMemory</code>.  A page of a
+     * <code>DirectMemoryModel</code> which can be read but not
+     * written, such as ROM or RAM shared with a fork, is only passed
+     * the bytes which differ, through <code>writeMemory</code>, and
+     * I/O pages are left alone, so loading a snapshot never writes to
+     * a device.  Decoded, translated or compiled code
+     * is only thrown away where the code bytes differ from the
+     * state's.  States of versions 1 and 2 can also be read; they
+     * have every page saved, and version 1 leaves the interrupt
+     * lines released.
+     * </p>
+     *
+     * @exception IllegalArgumentException if the buffer does not
+     * hold a state of a version this class can read.  Nothing is
+     * changed in that case.
+     *
+     * @see j6502.J6502Skeleton#saveState(ByteBuffer)
+     *
+     * @since 1.2
+     */
+
+    public void loadState (ByteBuffer buffer) {
+        ByteOrder order = buffer.order ();
+        buffer.order (ByteOrder.BIG_ENDIAN);
+
+        int start = buffer.position ();
+        if ((buffer.remaining () < STATE_SIZE_1)
+            || (buffer.getInt (start) != STATE_MAGIC)) {
+            buffer.order (order);
+            throw new IllegalArgumentException ("not a saved J6502 state");
+        }
+        int version = buffer.get (start + 4);
+        int size = (version == 1) ? STATE_SIZE_1
+            : (version == 2) ? STATE_SIZE_2
+            : STATE_SIZE;
+        if ((version < 1) || (version > STATE_VERSION)) {
+            buffer.order (order);
+            throw new IllegalArgumentException ("saved state version "
+                                                + version);
+        }
+        if (buffer.remaining () < size) {
+            buffer.order (order);
+            throw new IllegalArgumentException ("not a saved J6502 state");
+        }
+        buffer.position (start + 5);
+
+        pc = buffer.getChar ();
+        accumulator = buffer.get ();
+        regX = buffer.get ();
+        regY = buffer.get ();
+        regSP = buffer.get ();
+        setStatus (buffer.get ());
+        lastClocks = buffer.getInt ();
+        if (version == 1) {
+            elapsedClocks = buffer.getInt ();
+            irqSources = 0;
+            nmiPending = false;
+        } else {
+            elapsedClocks = buffer.getLong ();
+            irqSources = buffer.getInt ();
+            nmiPending = buffer.get () != 0;
+        }
+        idle.rearm ();
+        updateCheckpoint ();
+
+        int map = buffer.position ();
+        if (version >= 3) {
+            buffer.position (map + 32);
+        }
+
+        boolean direct = isDirect (memory);
+
+        for (int page = 0; page < 256; page++) {
+            int at = buffer.position ();
+            byte[] bytes = writePages[page];
+            int offset = writeOffsets[page];
+            boolean code = (codePages != null) && codePages[page];
+
+            buffer.position (at + 256);
+
+            if ((version >= 3)
+                && ((buffer.get (map + (page >> 3)) & (1 << (page & 7))) == 0)) {
+                continue;
+            }
+
+            if (bytes != null) {
+                if (!code) {
+                    buffer.position (at);
+                    buffer.get (bytes, offset, 256);
+                    continue;
+                }
+                for (int count = 0; count < 256; count++) {
+                    byte value = buffer.get (at + count);
+
+                    if (bytes[offset + count] != value) {
+                        bytes[offset + count] = value;
+                        if (codeBytes[page * 256 + count] != 0) {
+                            invalidateCode ((char)(page * 256 + count));
+                        }
+                    }
+                }
+            } else if (readPages[page] != null) {
+                for (int count = 0; count < 256; count++) {
+                    char addr = (char)(page * 256 + count);
+                    byte value = buffer.get (at + count);
+
+                    if (readPages[page][readOffsets[page] + count] != value) {
+                        memory.writeMemory (addr, value);
+                        if (code && (codeBytes[addr] != 0)) {
+                            invalidateCode (addr);
+                        }
+                    }
+                }
+            } else if (!direct) {
+                for (int count = 0; count < 256; count++) {
+                    char addr = (char)(page * 256 + count);
+
+                    memory.writeMemory (addr, buffer.get (at + count));
+                    if (code && (codeBytes[addr] != 0)) {
+                        invalidateCode (addr);
+                    }
+                }
+            }
+        }
+
+        buffer.order (order);
     }
 
 } // class J6502Skeleton
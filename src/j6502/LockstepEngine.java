@@ -0,0 +1,524 @@
+package j6502;
+
+// LockstepEngine.java
+// Richard Russo
+
+/**
+ * A <code>LockstepEngine</code> runs many copies ("lanes") of the same
+ * program, each with its own registers and its own changes to memory,
+ * for example to fuzz a ROM or sweep a parameter.
+ *
+ * <p>
+ * The registers of every lane are kept in primitive arrays, one array
+ * per register, rather than in a <code>J6502</code> per lane.  Memory
+ * is one shared 64K base image; the first time a lane writes to a
+ * page, the lane gets its own copy of that page, and from then on it
+ * sees its copy.  A lane which only touches its zero page and stack
+ * costs a few hundred bytes, not 64K.
+ * </p>
+ * <p>
+ * Despite the name, the lanes are not run an instruction at a time
+ * across all of them; that would mean switching lanes, and their
+ * pages, after every instruction.  Instead each lane runs in turn for
+ * a few hundred instructions, to the end of a basic block, on one
+ * internal <code>J6502</code> with the decode cache on.  Between
+ * turns, the lanes are sorted by program counter, so lanes at the
+ * same address (a group) run one after the other through the same
+ * decoded code, which is still in the cache.  When the lanes of a
+ * group take different branches, the group splits; when they meet
+ * again, they are grouped together again.  A lane whose own pages
+ * hold code has that code decoded again on each of its turns.
+ * </p>
+ * <p>
+ * So each instruction runs as fast as with <code>J6502.run</code> and
+ * the decode cache, and no faster; what the engine saves is memory
+ * and set-up.  Each lane costs its registers and the pages it has
+ * written, where a <code>J6502</code> on a
+ * <code>DefaultMemoryModel</code> costs 64K and a CPU, which has to
+ * be cleared and loaded; with thousands of lanes, that also keeps far
+ * more of them in the processor's caches.  With a few lanes, or lanes
+ * which write to many pages, separate CPUs are as fast or faster.
+ * <code>LockstepBenchmark</code>, in <code>jmh/</code>, compares the
+ * two.
+ * </p>
+ * <p>
+ * Each lane sees exactly what a <code>J6502</code> on a
+ * <code>DefaultMemoryModel</code> holding the base image would see:
+ * the same registers, clock counts and memory.  There is no I/O.
+ * </p>
+ *
+ * @see j6502.J6502
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class LockstepEngine {
+
+    /**
+     * The number of instructions a lane runs in one turn.  The turn
+     * is carried on to the end of the basic block it is in, so that
+     * lanes running the same code stop at the same address.
+     *
+     * @since 1.2
+     */
+
+    public final static int TURN_INSTRUCTIONS = 256;
+
+    int lanes;
+
+    byte[] accumulator;
+    byte[] regX;
+    byte[] regY;
+    byte[] regSP;
+    byte[] regP;
+    char[] pc;
+    int[] lastClocks;
+    long[] elapsedClocks;
+    int[] stopReason;
+
+    /**
+     * The lanes still running in the current call to
+     * <code>run</code>, as <code>pc &lt;&lt; 32 | lane</code>, kept
+     * sorted so that groups are together.
+     */
+
+    long[] active;
+
+    int groupCount;
+
+    LaneMemory memory;
+    J6502 cpu;
+
+    /**
+     * Create an engine with <code>lanes</code> lanes.  Every lane
+     * starts with the registers of a newly created <code>J6502</code>
+     * and sees <code>image</code> as its memory.
+     *
+     * @param image the base memory of every lane, 65536 bytes.  It is
+     * copied.
+     *
+     * @since 1.2
+     */
+
+    public LockstepEngine (byte[] image, int lanes) {
+        if ((image.length != 65536) || (lanes < 1)) {
+            throw new IllegalArgumentException ();
+        }
+
+        this.lanes = lanes;
+        accumulator = new byte[lanes];
+        regX = new byte[lanes];
+        regY = new byte[lanes];
+        regSP = new byte[lanes];
+        regP = new byte[lanes];
+        pc = new char[lanes];
+        lastClocks = new int[lanes];
+        elapsedClocks = new long[lanes];
+        stopReason = new int[lanes];
+        active = new long[lanes];
+
+        memory = new LaneMemory (lanes);
+        cpu = new J6502 (memory);
+        memory.setImage (image);
+        cpu.setDecodeCacheEnabled (true);
+
+        for (int lane = 0; lane < lanes; lane++) {
+            save (lane);
+        }
+    }
+
+    /**
+     * Get the number of lanes.
+     *
+     * @since 1.2
+     */
+
+    public int getLaneCount () {
+        return lanes;
+    }
+
+    /**
+     * Get the number of groups the lanes were in when the last call
+     * to <code>run</code> stopped, not counting lanes which had
+     * stopped before.
+     *
+     * @since 1.2
+     */
+
+    public int getGroupCount () {
+        return groupCount;
+    }
+
+    /**
+     * Get the registers of one lane.
+     *
+     * @since 1.2
+     */
+
+    public J6502Registers getRegisters (int lane) {
+        J6502Registers r = new J6502Registers ();
+
+        r.accumulator = accumulator[lane];
+        r.regX = regX[lane];
+        r.regY = regY[lane];
+        r.regSP = regSP[lane];
+        r.regP = regP[lane];
+        r.pc = pc[lane];
+        return r;
+    }
+
+    /**
+     * Set the registers of one lane.
+     *
+     * @since 1.2
+     */
+
+    public void setRegisters (int lane, J6502Registers r) {
+        accumulator[lane] = r.accumulator;
+        regX[lane] = r.regX;
+        regY[lane] = r.regY;
+        regSP[lane] = r.regSP;
+        regP[lane] = r.regP;
+        pc[lane] = r.pc;
+    }
+
+    /**
+     * Set the program counter of one lane.
+     *
+     * @since 1.2
+     */
+
+    public void setPC (int lane, char addr) {
+        pc[lane] = addr;
+    }
+
+    /**
+     * Get the program counter of one lane.
+     *
+     * @since 1.2
+     */
+
+    public char getPC (int lane) {
+        return pc[lane];
+    }
+
+    /**
+     * Get the number of clocks one lane has run for, or
+     * <code>Integer.MAX_VALUE</code> if it has run for more than an
+     * <code>int</code> holds.
+     *
+     * @see j6502.LockstepEngine#getCycleCount(int)
+     *
+     * @since 1.2
+     */
+
+    public int getElapsedClocks (int lane) {
+        return (int)Math.min (elapsedClocks[lane], Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the number of clocks one lane has run for, as a
+     * <code>long</code>.
+     *
+     * @since 1.2
+     */
+
+    public long getCycleCount (int lane) {
+        return elapsedClocks[lane];
+    }
+
+    /**
+     * Get the number of clocks the last instruction of one lane took.
+     *
+     * @since 1.2
+     */
+
+    public int getLastClocks (int lane) {
+        return lastClocks[lane];
+    }
+
+    /**
+     * Get why one lane stopped in the last call to <code>run</code>:
+     * one of the <code>STOP_</code> constants of <code>J6502</code>.
+     *
+     * @since 1.2
+     */
+
+    public int getStopReason (int lane) {
+        return stopReason[lane];
+    }
+
+    /**
+     * Read a byte of one lane's memory.
+     *
+     * @since 1.2
+     */
+
+    public byte readMemory (int lane, char addr) {
+        memory.select (lane);
+        return cpu.readMemory (addr);
+    }
+
+    /**
+     * Write a byte to one lane's memory, e.g. to give it its own
+     * input.  Only that lane sees the change.
+     *
+     * @since 1.2
+     */
+
+    public void writeMemory (int lane, char addr, byte value) {
+        memory.select (lane);
+        cpu.writeMemory (addr, value);
+    }
+
+    /**
+     * Get the number of pages of memory one lane has its own copy of.
+     *
+     * @since 1.2
+     */
+
+    public int getPrivatePageCount (int lane) {
+        return memory.dirtyCount[lane];
+    }
+
+    /**
+     * Run every lane until it has run for at least
+     * <code>cycleBudget</code> more clock cycles, or reaches a
+     * <code>BRK</code> or an invalid opcode.  This works like
+     * <code>J6502.run</code> for each lane; see
+     * <code>getStopReason</code> for why each one stopped.
+     *
+     * @see j6502.J6502Skeleton#run(int)
+     *
+     * @since 1.2
+     */
+
+    public void run (int cycleBudget) {
+        int[] remaining = new int[lanes];
+        int count = lanes;
+
+        for (int lane = 0; lane < lanes; lane++) {
+            remaining[lane] = cycleBudget;
+            stopReason[lane] = J6502.STOP_BUDGET;
+            active[lane] = ((long)pc[lane] << 32) | lane;
+        }
+        if (cycleBudget <= 0) {
+            groupCount = 0;
+            return;
+        }
+
+        while (count > 0) {
+            if (!isSorted (active, count)) {
+                java.util.Arrays.sort (active, 0, count);
+            }
+
+            int groups = 0;
+            int kept = 0;
+            long lastPC = -1;
+
+            for (int i = 0; i < count; i++) {
+                int lane = (int)active[i];
+
+                if ((active[i] >>> 32) != lastPC) {
+                    lastPC = active[i] >>> 32;
+                    groups++;
+                }
+
+                if (runBlock (lane, remaining)) {
+                    active[kept++] = ((long)pc[lane] << 32) | lane;
+                }
+            }
+
+            groupCount = groups;
+            count = kept;
+        }
+    }
+
+    private static boolean isSorted (long[] keys, int count) {
+        for (int i = 1; i < count; i++) {
+            if (keys[i - 1] > keys[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Run one turn of one lane.
+     *
+     * @returns true if the lane can keep running.
+     */
+
+    private boolean runBlock (int lane, int[] remaining) {
+        J6502 cpu = this.cpu;
+
+        memory.select (lane);
+        load (lane);
+
+        int left = remaining[lane];
+        int clocks = lastClocks[lane];
+        int reason = J6502.STOP_BUDGET;
+        int instructions = 0;
+        int opcode;
+
+        do {
+            int insn = (int)cpu.decode ();
+            int size = insn >>> 24;
+            opcode = insn & 0xff;
+
+            if (size == 0) {
+                reason = J6502.STOP_BAD_OPCODE;
+                break;
+            }
+            if (opcode == 0x00) {
+                reason = J6502.STOP_BREAK;
+                break;
+            }
+            cpu.pc += size;
+
+            clocks = cpu.dispatch (opcode, (byte)(insn >> 8), (byte)(insn >> 16));
+            left -= clocks;
+            instructions++;
+        } while ((left > 0) && !(BlockTranslator.endsBlock[opcode]
+                                 && (instructions >= TURN_INSTRUCTIONS)));
+
+        elapsedClocks[lane] += remaining[lane] - left;
+        remaining[lane] = left;
+        lastClocks[lane] = clocks;
+        save (lane);
+
+        stopReason[lane] = reason;
+        return (reason == J6502.STOP_BUDGET) && (left > 0);
+    }
+
+    private void load (int lane) {
+        cpu.accumulator = accumulator[lane];
+        cpu.regX = regX[lane];
+        cpu.regY = regY[lane];
+        cpu.regSP = regSP[lane];
+        cpu.setStatus (regP[lane]);
+        cpu.pc = pc[lane];
+    }
+
+    private void save (int lane) {
+        accumulator[lane] = cpu.accumulator;
+        regX[lane] = cpu.regX;
+        regY[lane] = cpu.regY;
+        regSP[lane] = cpu.regSP;
+        regP[lane] = cpu.getStatus ();
+        pc[lane] = cpu.pc;
+    }
+
+    /**
+     * The memory of the selected lane: the base pages, except where
+     * the lane has its own copy.  Base pages are mapped shared, so the
+     * first write to one comes to <code>writeMemory</code>, which
+     * gives the lane its copy.
+     */
+
+    static class LaneMemory extends PageTableMemoryModel {
+        byte[][] base = new byte[PAGES][];
+
+        /**
+         * Each lane's own pages, or <code>null</code> until it has
+         * one.
+         */
+
+        byte[][][] lanePages;
+
+        /**
+         * The numbers of the pages in <code>lanePages</code>.
+         */
+
+        int[][] dirty;
+        int[] dirtyCount;
+
+        int lane;
+
+        LaneMemory (int lanes) {
+            lanePages = new byte[lanes][][];
+            dirty = new int[lanes][];
+            dirtyCount = new int[lanes];
+        }
+
+        void setImage (byte[] image) {
+            for (int page = 0; page < PAGES; page++) {
+                base[page] = new byte[PAGE_SIZE];
+                System.arraycopy (image, page * PAGE_SIZE, base[page], 0, PAGE_SIZE);
+                mapBase (page);
+            }
+            changed (0, PAGES);
+        }
+
+        private void mapBase (int page) {
+            setPage (page, base[page], 0, null, 0, null);
+            shared[page] = true;
+        }
+
+        /**
+         * Map the pages of <code>newLane</code> in place of the
+         * current lane's.
+         */
+
+        void select (int newLane) {
+            if (newLane == lane) {
+                return;
+            }
+
+            byte[][] own = lanePages[newLane];
+
+            for (int i = 0; i < dirtyCount[lane]; i++) {
+                int page = dirty[lane][i];
+
+                if ((own == null) || (own[page] == null)) {
+                    mapBase (page);
+                    changed (page, 1);
+                }
+            }
+            for (int i = 0; i < dirtyCount[newLane]; i++) {
+                int page = dirty[newLane][i];
+
+                setPage (page, own[page], 0, own[page], 0, null);
+                changed (page, 1);
+            }
+            lane = newLane;
+        }
+
+        public void writeMemory (char addr, byte value) {
+            int page = addr >> 8;
+
+            if (!shared[page]) {
+                super.writeMemory (addr, value);
+                return;
+            }
+
+            if (lanePages[lane] == null) {
+                lanePages[lane] = new byte[PAGES][];
+                dirty[lane] = new int[4];
+            }
+            if (dirtyCount[lane] == dirty[lane].length) {
+                int[] grown = new int[dirty[lane].length * 2];
+                System.arraycopy (dirty[lane], 0, grown, 0, dirtyCount[lane]);
+                dirty[lane] = grown;
+            }
+
+            byte[] copy = new byte[PAGE_SIZE];
+            System.arraycopy (base[page], 0, copy, 0, PAGE_SIZE);
+            copy[addr & 0xff] = value;
+
+            lanePages[lane][page] = copy;
+            dirty[lane][dirtyCount[lane]++] = page;
+            setPage (page, copy, 0, copy, 0, null);
+        }
+
+        /**
+         * The lanes' memory is not cleared; the base image stays.
+         */
+
+        public void reset () {
+        }
+    }
+
+} // class LockstepEngine
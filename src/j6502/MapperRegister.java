@@ -0,0 +1,32 @@
+package j6502;
+
+/**
+ * A <code>MapperRegister</code> is told about every write to the
+ * pages it is attached to in a <code>BankedMemoryModel</code>, the way
+ * a cartridge mapper or banking chip watches the address bus.  It
+ * usually answers by mapping other banks into the address space.
+ *
+ * @see j6502.BankedMemoryModel#setMapperRegister(int,int,MapperRegister)
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public interface MapperRegister {
+
+    /**
+     * Called when the CPU writes to one of the pages this register is
+     * attached to.  If the page is RAM, the value has already been
+     * stored.
+     *
+     * @param memory the memory model that was written to.
+     * @param addr the address written to.
+     * @param value the value written.
+     *
+     * @since 1.2
+     */
+
+    public void writeRegister (BankedMemoryModel memory, char addr, byte value);
+
+} // interface MapperRegister
@@ -0,0 +1,486 @@
+package j6502;
+
+import java.lang.ref.WeakReference;
+import java.util.Vector;
+
+/**
+ * PageTableMemoryModel.java<BR>
+ * Richard Russo <A HREF="mailto:rrusso@cs.ucf.edu">rrusso@cs.ucf.edu</A>
+ *
+ * <P>
+ *
+ * A <CODE>MemoryModel</CODE> built from a table of 256-byte pages.
+ * Each page of the 64K address space is RAM, ROM, an I/O page handled
+ * by another <CODE>MemoryModel</CODE>, or unmapped.  RAM and ROM pages
+ * are slices of byte arrays supplied by the caller, so one array may
+ * back many pages, and the same slice may appear at several addresses
+ * to mirror it.
+ *
+ * </p>
+ * <P>
+ *
+ * The CPU reads RAM and ROM pages and writes RAM pages directly (see
+ * <CODE>DirectMemoryModel</CODE>), so only accesses to I/O pages and
+ * writes to ROM cost a method call.  Writes to ROM and unmapped pages
+ * are ignored, and unmapped pages read as 0.  I/O handlers are given
+ * the full address.
+ *
+ * </p>
+ * <P>
+ *
+ * Pages may be mapped again at any time, even while the CPU is
+ * running.  A new instance has every page unmapped.
+ *
+ * </p>
+ *
+ * <P>
+ *
+ * Following is license information; for more information please see
+ * the file named COPYING distributed with this software.
+ *
+ * </p>
+ *
+ * <HR>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * <P>
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * </p>
+ *
+ * <P>
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ *
+ * </p>
+ *
+ * @version 1.2
+ * @since   1.2
+ *
+ * @author Richard Russo
+ *
+ * @see j6502.MemoryModel
+ * @see j6502.DirectMemoryModel
+ */
+
+public class PageTableMemoryModel implements DirectMemoryModel {
+
+    /**
+     * The size, in bytes, of one page.
+     *
+     * @since 1.2
+     */
+
+    public final static int PAGE_SIZE = 256;
+
+    /**
+     * The number of pages in the address space.
+     *
+     * @since 1.2
+     */
+
+    public final static int PAGES = 256;
+
+    byte[][] readPages = new byte[PAGES][];
+    int[] readOffsets = new int[PAGES];
+    byte[][] writePages = new byte[PAGES][];
+    int[] writeOffsets = new int[PAGES];
+
+    /**
+     * The handler of each I/O page; <code>null</code> for every other
+     * page.
+     */
+
+    MemoryModel[] ioHandlers = new MemoryModel[PAGES];
+
+    /**
+     * Set for RAM pages whose array is shared with a fork.  Their
+     * write entry is <code>null</code> until the first write, which
+     * gives this model its own copy of the page.
+     */
+
+    boolean[] shared = new boolean[PAGES];
+
+    /**
+     * The CPUs using this memory, which are told when a page is
+     * mapped.  Each is held by a <code>WeakReference</code>, so that a
+     * CPU which is thrown away is not kept alive by its memory;
+     * cleared references are dropped.
+     */
+
+    Vector cpus = new Vector ();
+
+    /**
+     * Create a memory model with every page unmapped.
+     *
+     * @since 1.2
+     */
+
+    public PageTableMemoryModel () {
+    }
+
+    /**
+     * Map <code>count</code> pages of RAM, starting at
+     * <code>page</code>, onto <code>data</code> starting at
+     * <code>offset</code>.
+     *
+     * @since 1.2
+     */
+
+    public void mapRAM (int page, int count, byte[] data, int offset)
+    {
+        checkSlice (page, count, data, offset);
+
+        for (int i = 0; i < count; i++) {
+            setPage (page + i, data, offset + i * PAGE_SIZE,
+                     data, offset + i * PAGE_SIZE, null);
+        }
+        changed (page, count);
+    }
+
+    /**
+     * Map <code>count</code> pages of new, zeroed RAM starting at
+     * <code>page</code>.
+     *
+     * @returns the array holding the new RAM.
+     *
+     * @since 1.2
+     */
+
+    public byte[] mapRAM (int page, int count)
+    {
+        byte[] data = new byte[count * PAGE_SIZE];
+
+        mapRAM (page, count, data, 0);
+        return data;
+    }
+
+    /**
+     * Map <code>count</code> pages of ROM, starting at
+     * <code>page</code>, onto <code>data</code> starting at
+     * <code>offset</code>.  The CPU can read these pages but not
+     * write them; the array itself may still be changed.
+     *
+     * @since 1.2
+     */
+
+    public void mapROM (int page, int count, byte[] data, int offset)
+    {
+        checkSlice (page, count, data, offset);
+
+        for (int i = 0; i < count; i++) {
+            setPage (page + i, data, offset + i * PAGE_SIZE, null, 0, null);
+        }
+        changed (page, count);
+    }
+
+    /**
+     * Pass all reads and writes of <code>count</code> pages, starting
+     * at <code>page</code>, on to <code>handler</code>.
+     *
+     * @since 1.2
+     */
+
+    public void mapIO (int page, int count, MemoryModel handler)
+    {
+        checkPages (page, count);
+
+        for (int i = 0; i < count; i++) {
+            setPage (page + i, null, 0, null, 0, handler);
+        }
+        changed (page, count);
+    }
+
+    /**
+     * Make <code>count</code> pages, starting at <code>page</code>,
+     * show whatever is currently mapped at the same number of pages
+     * starting at <code>source</code>.  Mapping the source pages again
+     * afterwards does not change the mirror.  Pages are copied from
+     * the lowest up, so if <code>source</code> is below
+     * <code>page</code> and the two ranges overlap, the source pages
+     * repeat to fill the range.
+     *
+     * @since 1.2
+     */
+
+    public void mirror (int page, int count, int source)
+    {
+        checkPages (page, count);
+        checkPages (source, count);
+
+        for (int i = 0; i < count; i++) {
+            int from = source + i;
+
+            setPage (page + i, readPages[from], readOffsets[from],
+                     writePages[from], writeOffsets[from], ioHandlers[from]);
+        }
+        changed (page, count);
+    }
+
+    /**
+     * Unmap <code>count</code> pages starting at <code>page</code>.
+     *
+     * @since 1.2
+     */
+
+    public void unmap (int page, int count)
+    {
+        checkPages (page, count);
+
+        for (int i = 0; i < count; i++) {
+            setPage (page + i, null, 0, null, 0, null);
+        }
+        changed (page, count);
+    }
+
+    /**
+     * Get the I/O handler of a page, or <code>null</code> if it is not
+     * an I/O page.
+     *
+     * @since 1.2
+     */
+
+    public MemoryModel getIOHandler (int page)
+    {
+        return ioHandlers[page];
+    }
+
+    /**
+     * Make an independent copy of this memory, in time proportional
+     * to the number of pages rather than the amount of memory.  The
+     * copy and this model share their RAM until one of them writes to
+     * a page, which gives the writer its own copy of just that page.
+     * ROM is shared for good.  I/O pages map to the same handlers in
+     * both.
+     *
+     * @since 1.2
+     */
+
+    public PageTableMemoryModel fork ()
+    {
+        PageTableMemoryModel child = new PageTableMemoryModel ();
+
+        for (int page = 0; page < PAGES; page++) {
+            if (writePages[page] != null) {
+                writePages[page] = null;
+                writeOffsets[page] = 0;
+                shared[page] = true;
+            }
+            child.setPage (page, readPages[page], readOffsets[page],
+                           null, 0, ioHandlers[page]);
+            child.shared[page] = shared[page];
+        }
+        return child;
+    }
+
+    /**
+     * Stop sharing the RAM page at <code>page</code>, and any mirrors
+     * of it, by mapping <code>copy</code> in its place.
+     */
+
+    void unshare (int page, byte[] copy)
+    {
+        byte[] bytes = readPages[page];
+        int offset = readOffsets[page];
+
+        for (int mirror = 0; mirror < PAGES; mirror++) {
+            if (shared[mirror] && (readPages[mirror] == bytes)
+                && (readOffsets[mirror] == offset)) {
+                setPage (mirror, copy, 0, copy, 0, null);
+            }
+        }
+    }
+
+    /**
+     * Set one entry of the page table.  Every mapping method comes
+     * through here.
+     */
+
+    void setPage (int page, byte[] read, int readOffset,
+                  byte[] write, int writeOffset, MemoryModel handler)
+    {
+        shared[page] = false;
+        readPages[page] = read;
+        readOffsets[page] = readOffset;
+        writePages[page] = write;
+        writeOffsets[page] = writeOffset;
+        ioHandlers[page] = handler;
+    }
+
+    private void checkPages (int page, int count)
+    {
+        if ((page < 0) || (count < 0) || (page + count > PAGES)) {
+            throw new IllegalArgumentException ();
+        }
+    }
+
+    private void checkSlice (int page, int count, byte[] data, int offset)
+    {
+        checkPages (page, count);
+        if ((offset < 0) || (offset + count * PAGE_SIZE > data.length)) {
+            throw new IllegalArgumentException ();
+        }
+    }
+
+    void addCPU (J6502Skeleton cpu)
+    {
+        for (int i = cpus.size () - 1; i >= 0; i--) {
+            if (((WeakReference)cpus.elementAt (i)).get () == null) {
+                cpus.removeElementAt (i);
+            }
+        }
+        cpus.addElement (new WeakReference (cpu));
+    }
+
+    void changed (int page, int count)
+    {
+        for (int i = cpus.size () - 1; i >= 0; i--) {
+            J6502Skeleton cpu = (J6502Skeleton)((WeakReference)cpus.elementAt (i)).get ();
+
+            if (cpu == null) {
+                cpus.removeElementAt (i);
+            } else {
+                cpu.memoryMapChanged (page, count);
+            }
+        }
+    }
+
+    /**
+     * See the general contract of method <code>getReadPages</code> of
+     * <code>DirectMemoryModel</code>.
+     *
+     * @see j6502.DirectMemoryModel#getReadPages()
+     *
+     * @since 1.2
+     */
+
+    public byte[][] getReadPages ()
+    {
+        return readPages;
+    }
+
+    /**
+     * See the general contract of method <code>getReadOffsets</code>
+     * of <code>DirectMemoryModel</code>.
+     *
+     * @see j6502.DirectMemoryModel#getReadOffsets()
+     *
+     * @since 1.2
+     */
+
+    public int[] getReadOffsets ()
+    {
+        return readOffsets;
+    }
+
+    /**
+     * See the general contract of method <code>getWritePages</code> of
+     * <code>DirectMemoryModel</code>.
+     *
+     * @see j6502.DirectMemoryModel#getWritePages()
+     *
+     * @since 1.2
+     */
+
+    public byte[][] getWritePages ()
+    {
+        return writePages;
+    }
+
+    /**
+     * See the general contract of method <code>getWriteOffsets</code>
+     * of <code>DirectMemoryModel</code>.
+     *
+     * @see j6502.DirectMemoryModel#getWriteOffsets()
+     *
+     * @since 1.2
+     */
+
+    public int[] getWriteOffsets ()
+    {
+        return writeOffsets;
+    }
+
+    /**
+     * See the general contract of method <CODE>writeMemory</CODE> of
+     * <CODE>MemoryModel</CODE>.
+     *
+     * @see j6502.MemoryModel#writeMemory(char,byte)
+     *
+     * @since 1.2
+     */
+
+    public void writeMemory (char addr, byte value)
+    {
+        int page = addr >> 8;
+        byte[] bytes = writePages[page];
+
+        if (bytes != null) {
+            bytes[writeOffsets[page] + (addr & 0xff)] = value;
+        } else if (shared[page]) {
+            byte[] copy = new byte[PAGE_SIZE];
+
+            System.arraycopy (readPages[page], readOffsets[page],
+                              copy, 0, PAGE_SIZE);
+            unshare (page, copy);
+            copy[addr & 0xff] = value;
+        } else if (ioHandlers[page] != null) {
+            ioHandlers[page].writeMemory (addr, value);
+        }
+    }
+
+    /**
+     * See the general contract of method <CODE>readMemory</CODE> of
+     * <CODE>MemoryModel</CODE>.
+     *
+     * @see j6502.MemoryModel#readMemory(char)
+     *
+     * @since 1.2
+     */
+
+    public byte readMemory (char addr)
+    {
+        int page = addr >> 8;
+        byte[] bytes = readPages[page];
+
+        if (bytes != null) {
+            return bytes[readOffsets[page] + (addr & 0xff)];
+        } else if (ioHandlers[page] != null) {
+            return ioHandlers[page].readMemory (addr);
+        }
+        return 0;
+    }
+
+    /**
+     * Sets every RAM location to 0.  ROM, I/O handlers and the page
+     * table are left alone, except that RAM shared with a fork is
+     * replaced with new pages.
+     *
+     * @see j6502.MemoryModel#reset
+     * @since 1.2
+     */
+
+    public void reset ()
+    {
+        for (int page = 0; page < PAGES; page++) {
+            if (writePages[page] != null) {
+                java.util.Arrays.fill (writePages[page], writeOffsets[page],
+                                       writeOffsets[page] + PAGE_SIZE, (byte)0);
+            } else if (shared[page]) {
+                unshare (page, new byte[PAGE_SIZE]);
+            }
+        }
+    }
+
+} // class PageTableMemoryModel
@@ -0,0 +1,38 @@
+package j6502;
+
+/**
+ * A <code>ScheduledEvent</code> is something a device wants done at a
+ * given cycle, such as a timer running out or a video chip reaching
+ * the end of a frame.  It is put in the CPU's
+ * <code>EventScheduler</code>, and called between instructions once
+ * the CPU's cycle count reaches that cycle.
+ *
+ * @see j6502.EventScheduler
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public interface ScheduledEvent {
+
+    /**
+     * Called between instructions, on the first instruction boundary
+     * at or after the cycle the event was scheduled for, or, when a
+     * <code>CycleEngine</code> runs the CPU, before the first bus
+     * cycle at or after it, which may be inside an instruction.  The
+     * event may schedule itself or other events again, and raise or
+     * lower the CPU's interrupt lines; an interrupt is taken before
+     * the next instruction.
+     *
+     * @param cpu the CPU whose scheduler the event was in.
+     * @param cycle the cycle the event was scheduled for.
+     * <code>cpu.getCycleCount ()</code> may be a few clocks past it,
+     * because instructions are not split.
+     *
+     * @since 1.2
+     */
+
+    public void fire (J6502 cpu, long cycle);
+
+} // interface ScheduledEvent
@@ -0,0 +1,28 @@
+package j6502;
+
+/**
+ * A <code>StopCondition</code> decides when
+ * <code>J6502.runUntil</code> should stop running instructions.
+ *
+ * @see j6502.J6502Skeleton#runUntil(StopCondition,int)
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public interface StopCondition {
+
+    /**
+     * Called before each instruction is executed.
+     *
+     * @param pc the address of the instruction about to be executed.
+     *
+     * @returns true to stop before executing the instruction.
+     *
+     * @since 1.2
+     */
+
+    public boolean shouldStop (char pc);
+
+} // interface StopCondition
@@ -0,0 +1,318 @@
+package j6502;
+
+// TieredEngine.java
+// Richard Russo
+
+import java.util.*;
+
+/**
+ * A <code>TieredEngine</code> runs a <code>J6502</code> in two tiers.
+ * Code starts out interpreted, one basic block at a time, and the
+ * engine counts how many times each block is entered.  When a block
+ * has been entered <code>getHotThreshold ()</code> times, it is
+ * translated into JVM bytecode (see <code>BlockTranslator</code>),
+ * and from then on the whole block runs as one compiled method.
+ *
+ * <p>
+ * The translated code behaves exactly like the interpreter, clock
+ * counts included.  When the CPU writes to the code of a translated
+ * block, the block is thrown away, and will be translated again if it
+ * gets hot again.  A block which is rewritten more than
+ * <code>MAX_RETRANSLATIONS</code> times is left to the interpreter.
+ * As with the decode cache, code changed without going through the
+ * CPU is not seen; call <code>invalidate</code> after doing that.
+ * </p>
+ * <p>
+ * Translation needs Java 15 or later.  On older JVMs the engine
+ * simply interprets everything.
+ * </p>
+ *
+ * @see j6502.J6502#run(int)
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class TieredEngine {
+
+    /**
+     * The default number of times a block must be entered before it
+     * is translated.
+     *
+     * @since 1.2
+     */
+
+    public static final int DEFAULT_HOT_THRESHOLD = 256;
+
+    /**
+     * How many times the code at one address may be translated before
+     * the engine gives up on it.
+     *
+     * @since 1.2
+     */
+
+    public static final int MAX_RETRANSLATIONS = 8;
+
+    J6502 cpu;
+
+    int hotThreshold = DEFAULT_HOT_THRESHOLD;
+
+    /**
+     * The translated block starting at each address, or
+     * <code>null</code>.
+     */
+
+    final TranslatedBlock[] blocks = new TranslatedBlock[65536];
+
+    /**
+     * The number of times the block at each address was entered
+     * since it was last translated.
+     */
+
+    final int[] entries = new int[65536];
+
+    /**
+     * The number of times the code at each address was translated.
+     */
+
+    final byte[] translations = new byte[65536];
+
+    /**
+     * The translated blocks that touch each page, for invalidation.
+     */
+
+    final Vector[] pageBlocks = new Vector[256];
+
+    int blockCount = 0;
+
+    /**
+     * Create an engine which runs <code>cpu</code>.  The CPU should
+     * only be run through this engine from now on.
+     *
+     * @since 1.2
+     */
+
+    public TieredEngine (J6502 cpu) {
+        this.cpu = cpu;
+        cpu.translator = this;
+        cpu.updateCodeBytes ();
+    }
+
+    /**
+     * Returns true if blocks can be translated on this JVM.
+     *
+     * @since 1.2
+     */
+
+    public static boolean isTranslationAvailable () {
+        return BlockTranslator.isAvailable ();
+    }
+
+    /**
+     * Get the CPU this engine runs.
+     *
+     * @since 1.2
+     */
+
+    public J6502 getCPU () {
+        return cpu;
+    }
+
+    /**
+     * Get the number of entries after which a block is translated.
+     *
+     * @since 1.2
+     */
+
+    public int getHotThreshold () {
+        return hotThreshold;
+    }
+
+    /**
+     * Set the number of entries after which a block is translated.
+     *
+     * @since 1.2
+     */
+
+    public void setHotThreshold (int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException ();
+        }
+        hotThreshold = threshold;
+    }
+
+    /**
+     * Get the number of translated blocks currently in use.
+     *
+     * @since 1.2
+     */
+
+    public int getTranslatedBlockCount () {
+        return blockCount;
+    }
+
+    /**
+     * Run until at least <code>cycleBudget</code> clock cycles have
+     * elapsed, or a <code>BRK</code> or invalid opcode is reached.
+     * This works like <code>J6502.run</code>, except that the budget
+     * is only checked between blocks, so it can be overshot by up to
+     * a whole block.  Scheduled events and interrupts are likewise
+     * handled between blocks.  When the CPU has breakpoints, it is
+     * run by <code>J6502.run</code> instead, which checks for them
+     * before every instruction.
+     *
+     * @returns one of the <code>STOP_</code> constants of
+     * <code>J6502</code>.
+     *
+     * @see j6502.J6502Skeleton#run(int)
+     *
+     * @since 1.2
+     */
+
+    public int run (int cycleBudget) {
+        if (cpu.breakpoints != null) {
+            return cpu.run (cycleBudget);
+        }
+
+        J6502 cpu = this.cpu;
+        int clocks = cpu.lastClocks;
+        long end = cpu.elapsedClocks + cycleBudget;
+        int reason = J6502.STOP_BUDGET;
+
+    blockLoop:
+        while (cpu.elapsedClocks < end) {
+            if (cpu.elapsedClocks >= cpu.checkpoint) {
+                cpu.lastClocks = clocks;
+                cpu.service (end);
+                clocks = cpu.lastClocks;
+                continue;
+            }
+
+            char start = cpu.pc;
+            TranslatedBlock block = blocks[start];
+
+            if ((block == null)
+                && (++entries[start] >= hotThreshold)) {
+                block = translate (start);
+            }
+
+            if (block != null) {
+                cpu.codeWritten = false;
+                cpu.elapsedClocks += block.run (cpu);
+                clocks = cpu.lastClocks;
+                continue;
+            }
+
+            int opcode;
+            do {
+                int insn = (int)cpu.decode ();
+                int size = insn >>> 24;
+                opcode = insn & 0xff;
+
+                if (size == 0) {
+                    reason = J6502.STOP_BAD_OPCODE;
+                    break blockLoop;
+                }
+                if (opcode == 0x00) {
+                    reason = J6502.STOP_BREAK;
+                    break blockLoop;
+                }
+                cpu.pc += size;
+
+                clocks = cpu.dispatch (opcode, (byte)(insn >> 8), (byte)(insn >> 16));
+                cpu.elapsedClocks += clocks;
+            } while (!BlockTranslator.endsBlock[opcode] && (cpu.elapsedClocks < end));
+        }
+
+        cpu.lastClocks = clocks;
+        return reason;
+    } // run
+
+    private TranslatedBlock translate (char start) {
+        entries[start] = 0;
+
+        if (translations[start] >= MAX_RETRANSLATIONS) {
+            return null;
+        }
+
+        TranslatedBlock block = BlockTranslator.translate (cpu, start);
+        if (block == null) {
+            translations[start] = MAX_RETRANSLATIONS;
+            return null;
+        }
+
+        translations[start]++;
+        blocks[start] = block;
+        blockCount++;
+
+        cpu.markCode (start, block.length, J6502Skeleton.TRANSLATED);
+
+        int firstPage = start >> 8;
+        int lastPage = ((char)(start + block.length - 1)) >> 8;
+        for (int page = firstPage; ; page = (page + 1) & 0xff) {
+            if (pageBlocks[page] == null) {
+                pageBlocks[page] = new Vector ();
+            }
+            pageBlocks[page].add (block);
+            if (page == lastPage) {
+                break;
+            }
+        }
+
+        return block;
+    } // translate
+
+    /**
+     * Called by the CPU when it writes to a byte of translated code.
+     * Throws away every block which contains that byte.
+     */
+
+    void codeWritten (char addr) {
+        Vector v = pageBlocks[addr >> 8];
+        if (v == null) {
+            return;
+        }
+
+        for (int idx = v.size () - 1; idx >= 0; idx--) {
+            TranslatedBlock block = (TranslatedBlock)v.get (idx);
+            if (block.contains (addr)) {
+                remove (block);
+            }
+        }
+    }
+
+    private void remove (TranslatedBlock block) {
+        if (blocks[block.start] != block) {
+            return;
+        }
+
+        blocks[block.start] = null;
+        blockCount--;
+
+        for (int page = 0; page < pageBlocks.length; page++) {
+            if (pageBlocks[page] != null) {
+                pageBlocks[page].remove (block);
+            }
+        }
+    }
+
+    /**
+     * Throw away every translated block, and forget how often each
+     * block was entered.  Call this after changing code without going
+     * through the CPU, e.g. by writing to the <code>MemoryModel</code>
+     * directly.
+     *
+     * @since 1.2
+     */
+
+    public void invalidate () {
+        Arrays.fill (blocks, null);
+        Arrays.fill (entries, 0);
+        Arrays.fill (translations, (byte)0);
+        Arrays.fill (pageBlocks, null);
+        blockCount = 0;
+        cpu.clearCodeBytes (J6502Skeleton.TRANSLATED);
+    }
+
+} // class TieredEngine
@@ -0,0 +1,49 @@
+package j6502;
+
+/**
+ * A basic block of 6502 code which has been translated into JVM
+ * bytecode by <code>BlockTranslator</code>.  The subclasses are
+ * generated at run time.
+ *
+ * @see j6502.BlockTranslator
+ * @see j6502.TieredEngine
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+abstract class TranslatedBlock {
+
+    /**
+     * The address of the first instruction of the block.
+     */
+
+    char start;
+
+    /**
+     * The number of bytes of 6502 code in the block.
+     */
+
+    int length;
+
+    /**
+     * Execute the block.  On return, the program counter points to
+     * the next instruction to execute.  If the block writes to its own
+     * code, it stops after the instruction which did it.
+     *
+     * @returns the number of clock cycles elapsed.
+     */
+
+    abstract int run (J6502 cpu);
+
+    /**
+     * Returns true if the block contains the byte at
+     * <code>addr</code>.
+     */
+
+    boolean contains (char addr) {
+        return (char)(addr - start) < length;
+    }
+
+} // class TranslatedBlock
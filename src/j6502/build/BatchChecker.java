@@ -0,0 +1,265 @@
+package j6502.build;
+
+// BatchChecker.java
+// Richard Russo
+
+import j6502.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Checks that <code>BatchRunner</code> gives the same results as
+ * running each instance by itself.  The workloads of the corpus are
+ * run, over and over, as one batch on several threads, with every
+ * <code>FAILING</code>th instance throwing an exception as it is set
+ * up.  Each result must be at its own index, end as a serial run of
+ * the same workload does and as recorded, and the failing instances
+ * must have their exception recorded.  A batch with one instance
+ * which throws an <code>Error</code> must throw it from
+ * <code>run</code>.  This is run by the build, and fails the build if
+ * any does not hold.
+ *
+ * <pre>
+ * usage: java j6502.build.BatchChecker directory
+ * </pre>
+ *
+ * @see j6502.BatchRunner
+ * @see j6502.build.WorkloadRunner
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class BatchChecker {
+
+    /**
+     * The number of times each workload is run in the batch, and the
+     * number of threads it is run on.
+     */
+
+    static final int COPIES = 25;
+    static final int THREADS = 4;
+
+    /**
+     * Every <code>FAILING</code>th instance throws a
+     * <code>SetUpException</code> from <code>start</code>.
+     */
+
+    static final int FAILING = 7;
+
+    static final int CYCLE_BUDGET = 10000000;
+
+    static class SetUpException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        SetUpException (int index) {
+            super ("instance " + index + " can't be set up");
+        }
+    }
+
+    static class CheckError extends Error {
+        private static final long serialVersionUID = 1L;
+
+        public CheckError (String message) {
+            super (message);
+        }
+    }
+
+    /**
+     * The workloads of the batch, one per instance.
+     */
+
+    static class CorpusJob implements BatchJob {
+        WorkloadRunner[] workloads;
+
+        CorpusJob (WorkloadRunner[] workloads) {
+            this.workloads = workloads;
+        }
+
+        public J6502 start (int index)
+            throws Exception
+        {
+            if (index % FAILING == FAILING - 1) {
+                throw new SetUpException (index);
+            }
+            return workloads[index].setUp ();
+        }
+
+        public Object finish (int index, J6502 cpu, int stopReason) {
+            return workloads[index].describe (cpu, stopReason);
+        }
+
+    } // class CorpusJob
+
+    /**
+     * Run the batch, and each instance by itself.
+     *
+     * @returns what went wrong.
+     */
+
+    static Vector checkResults (WorkloadRunner[] workloads) {
+        Vector wrong = new Vector ();
+        BatchRunner runner = new BatchRunner (THREADS);
+        BatchResult[] results;
+
+        try {
+            results = runner.run (workloads.length, new CorpusJob (workloads),
+                                  CYCLE_BUDGET);
+        } finally {
+            runner.shutdown ();
+        }
+
+        if (results.length != workloads.length) {
+            wrong.addElement (results.length + " results for "
+                              + workloads.length + " instances");
+            return wrong;
+        }
+
+        for (int index = 0; index < workloads.length; index++) {
+            WorkloadRunner workload = workloads[index];
+            BatchResult result = results[index];
+            String what = "instance " + index + " (" + workload.name + ")";
+
+            if (result == null) {
+                wrong.addElement (what + ": no result");
+                continue;
+            }
+            if (result.index != index) {
+                wrong.addElement (what + ": result of instance " + result.index);
+                continue;
+            }
+
+            if (index % FAILING == FAILING - 1) {
+                if ((result.stopReason != BatchResult.STOP_ERROR)
+                    || !(result.error instanceof SetUpException)) {
+                    wrong.addElement (what + ": stopped with " + result.stopReason
+                                      + " and " + result.error
+                                      + ", expected its SetUpException");
+                }
+                continue;
+            }
+            if (result.error != null) {
+                wrong.addElement (what + ": threw " + result.error);
+                continue;
+            }
+
+            J6502 cpu = workload.setUp ();
+            int stop = cpu.run (CYCLE_BUDGET);
+            Vector serial = workload.describe (cpu, stop);
+
+            if ((result.stopReason != stop)
+                || (result.elapsedClocks != cpu.getCycleCount ())
+                || (result.registers.pc != cpu.getPC ())
+                || !serial.equals (result.value)) {
+                wrong.addElement (what + ": ended with " + result.value
+                                  + ", but alone with " + serial);
+                continue;
+            }
+
+            Vector recorded = workload.compare (cpu, stop);
+            for (int line = 0; line < recorded.size (); line++) {
+                wrong.addElement (what + ": " + recorded.elementAt (line));
+            }
+        }
+        return wrong;
+    }
+
+    /**
+     * Run a batch in which one instance throws an <code>Error</code>.
+     *
+     * @returns what went wrong, or <code>null</code>.
+     */
+
+    static String checkError (final WorkloadRunner workload) {
+        BatchRunner runner = new BatchRunner (THREADS);
+
+        try {
+            runner.run (THREADS * 4, new BatchJob () {
+                    public J6502 start (int index) {
+                        if (index == THREADS) {
+                            throw new CheckError ("instance " + index);
+                        }
+                        return workload.setUp ();
+                    }
+
+                    public Object finish (int index, J6502 cpu, int stopReason) {
+                        return null;
+                    }
+                }, CYCLE_BUDGET);
+        } catch (Throwable t) {
+            // the pool may throw a copy of the Error, caused by the
+            // one thrown on its thread
+            for (Throwable cause = t; cause != null; cause = cause.getCause ()) {
+                if (cause instanceof CheckError) {
+                    return null;
+                }
+            }
+            return "run threw " + t + " instead of the Error";
+        } finally {
+            runner.shutdown ();
+        }
+        return "the Error was not thrown from run";
+    }
+
+    static boolean report (String name, Vector wrong) {
+        if (wrong.size () > 0) {
+            System.out.println (name + ": FAILED");
+            for (int idx = 0; idx < wrong.size (); idx++) {
+                System.out.println ("    " + wrong.elementAt (idx));
+            }
+            return false;
+        }
+        System.out.println (name + ": ok");
+        return true;
+    }
+
+    public static void main (String[] args)
+        throws Exception
+    {
+        if (args.length != 1) {
+            System.err.println ("usage: java j6502.build.BatchChecker directory");
+            System.exit (1);
+        }
+
+        File dir = new File (args[0]);
+        String[] names = dir.list ();
+        Vector corpus = new Vector ();
+
+        Arrays.sort (names);
+        for (int idx = 0; idx < names.length; idx++) {
+            if (names[idx].endsWith (".expect")) {
+                corpus.addElement (new WorkloadRunner (new File (dir, names[idx])));
+            }
+        }
+        if (corpus.size () == 0) {
+            System.err.println ("BatchChecker: no workloads in " + dir);
+            System.exit (1);
+        }
+
+        // neighbouring instances run different workloads, so that the
+        // threads finish their halves at different times and steal
+        WorkloadRunner[] workloads = new WorkloadRunner[corpus.size () * COPIES];
+        for (int index = 0; index < workloads.length; index++) {
+            workloads[index] = (WorkloadRunner)corpus.elementAt (index % corpus.size ());
+        }
+
+        boolean ok = report (workloads.length + " instances on " + THREADS + " threads",
+                             checkResults (workloads));
+
+        Vector wrong = new Vector ();
+        String error = checkError ((WorkloadRunner)corpus.elementAt (0));
+        if (error != null) {
+            wrong.addElement (error);
+        }
+        ok &= report ("an Error from one instance", wrong);
+
+        if (!ok) {
+            System.err.println ("BatchChecker: a batch did not run like its"
+                                + " instances alone");
+            System.exit (1);
+        }
+    }
+
+} // class BatchChecker
@@ -1,5 +1,7 @@
 package j6502.build;
 
+import j6502.*;
+
 import java.io.*;
 import java.text.*;
 import java.util.*;
@@ -8,6 +10,24 @@ class CPUSpecReader {
 
     LineNumberReader stdin;
 
+    /**
+     * The words a bus cycle sequence is made of.  See the comments at
+     * the end of 6502.txt.
+     */
+
+    static final String[] CYCLE_TOKENS = {
+        "OPL", "OPH", "PC", "ZP", "PTR", "PTR+1", "FIX", "FIX?",
+        "S", "RET", "OLD", "TAKEN?", "CROSS?", "r", "w", "n"
+    };
+
+    /**
+     * The default bus cycle sequences given by the CYCLES lines,
+     * keyed by addressing mode and flags, e.g. "DIRECT rw", or
+     * "INHERENT *" for any flags.
+     */
+
+    Hashtable cycleDefaults = new Hashtable ();
+
     public CPUSpecReader (InputStream in)
         throws Exception
     {
@@ -38,6 +58,11 @@ class CPUSpecReader {
 
         line = nextGoodLine ();
 
+        while ((null != line) && line.startsWith ("CYCLES ")) {
+            readCycles (line);
+            line = nextGoodLine ();
+        }
+
         if (null == line) {
             return null;
             /**
@@ -169,6 +194,98 @@ class CPUSpecReader {
 
     } // readOperationSpec
 
+    /**
+     * Read a CYCLES line, which gives the default bus cycles of an
+     * addressing mode:
+     *
+     * <pre>
+     * CYCLES mode flags token...
+     * </pre>
+     *
+     * where flags is r, w, rw, or * for any.
+     */
+
+    private void readCycles (String line)
+        throws CPUSpecFormatException
+    {
+        StringTokenizer st = new StringTokenizer (line, " ");
+
+        st.nextToken ();
+        if (st.countTokens () < 3) {
+            throw new CPUSpecFormatException
+                ("bad CYCLES line: " + stdin.getLineNumber ());
+        }
+
+        String mode = st.nextToken ();
+        String flags = st.nextToken ();
+
+        if ((AddressingMode.getByName (mode) == null)
+            || !(flags.equals ("r") || flags.equals ("w")
+                 || flags.equals ("rw") || flags.equals ("*"))) {
+            throw new CPUSpecFormatException
+                ("bad CYCLES mode or flags, line: " + stdin.getLineNumber ());
+        }
+
+        String[] tokens = new String[st.countTokens ()];
+        for (int count = 0; count < tokens.length; count++) {
+            tokens[count] = st.nextToken ();
+        }
+
+        cycleDefaults.put (mode + " " + flags, tokens);
+    }
+
+    /**
+     * Give every instruction record its bus cycles, from the record
+     * line or else from the CYCLES defaults, and check that they add
+     * up to the clock ticks of the record.  The opcode fetch is not
+     * written down but counts as a cycle; cycles marked with a '?',
+     * and 'n', which is a read the bus does not see, do not count.
+     */
+
+    void resolveCycles (OperationSpec spec)
+        throws CPUSpecFormatException
+    {
+        String flags = (spec.read ? "r" : "") + (spec.write ? "w" : "");
+        InstructionRecord[] recs = spec.getRecords ();
+
+        for (int idx = 0; idx < recs.length; idx++) {
+            InstructionRecord rec = recs[idx];
+            String opcode = Integer.toHexString (rec.opcode);
+
+            if (rec.cycles == null) {
+                String mode = rec.addrMode.toString ();
+
+                rec.cycles = (String[])cycleDefaults.get (mode + " " + flags);
+                if (rec.cycles == null) {
+                    rec.cycles = (String[])cycleDefaults.get (mode + " *");
+                }
+                if (rec.cycles == null) {
+                    throw new CPUSpecFormatException
+                        ("no bus cycles for opcode " + opcode);
+                }
+            }
+
+            int count = 1;
+            for (int t = 0; t < rec.cycles.length; t++) {
+                String token = rec.cycles[t];
+
+                if (!Arrays.asList (CYCLE_TOKENS).contains (token)) {
+                    throw new CPUSpecFormatException
+                        ("bad bus cycle " + token + " for opcode " + opcode);
+                }
+                if (!token.equals ("n") && !token.endsWith ("?")) {
+                    count++;
+                }
+            }
+
+            if (count != rec.clockTicks) {
+                throw new CPUSpecFormatException
+                    ("bus cycles of opcode " + opcode + " add up to "
+                     + count + ", not " + rec.clockTicks);
+            }
+        }
+    }
+
     /**
      * Get all OperationSpecs defined.
      *
@@ -188,6 +305,10 @@ class CPUSpecReader {
             spec = readOperationSpec ();
         }
 
+        for (Enumeration e = v.elements (); e.hasMoreElements ();) {
+            resolveCycles ((OperationSpec)e.nextElement ());
+        }
+
         OperationSpec[] specs = new OperationSpec[v.size ()];
 
         int count = 0;
@@ -197,6 +318,52 @@ class CPUSpecReader {
         return specs;
     }
 
+    /**
+     * Read a list of opcode sequences, such as a superinstruction
+     * profile written by <code>SequenceProfiler</code>.  Each line
+     * holds the opcodes of one sequence, in hex, separated by spaces.
+     * Anything after a '#' is a comment.
+     *
+     * @returns an array with the opcodes of each sequence.
+     */
+
+    public int[][] readSequences ()
+        throws IOException, CPUSpecFormatException
+    {
+        Vector v = new Vector ();
+        String line;
+
+        while (null != (line = nextGoodLine ())) {
+            int comment = line.indexOf ('#');
+            if (comment >= 0) {
+                line = line.substring (0, comment);
+            }
+
+            StringTokenizer st = new StringTokenizer (line);
+            if (st.countTokens () == 0) {
+                continue;
+            }
+
+            int[] sequence = new int[st.countTokens ()];
+            for (int count = 0; count < sequence.length; count++) {
+                try {
+                    sequence[count] = Integer.parseInt (st.nextToken (), 16);
+                } catch (NumberFormatException e) {
+                    sequence[count] = -1;
+                }
+                if ((sequence[count] < 0) || (sequence[count] > 0xff)) {
+                    throw new CPUSpecFormatException
+                        ("bad opcode, line: " + stdin.getLineNumber ());
+                }
+            }
+            v.add (sequence);
+        }
+
+        int[][] sequences = new int[v.size ()][];
+        v.copyInto (sequences);
+        return sequences;
+    } // readSequences
+
     public static void main (String[] args) 
         throws Exception
     {
@@ -0,0 +1,267 @@
+package j6502.build;
+
+// ForkChecker.java
+// Richard Russo
+
+import j6502.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Checks that <code>fork</code> gives a CPU and memory which are
+ * independent of the ones forked, through the copy-on-write pages of
+ * <code>PageTableMemoryModel</code>.  Writes in the parent and in the
+ * child after a fork must only be seen by the writer, including
+ * through mirrors of the page written; <code>reset</code> of pages
+ * still shared must only clear the memory reset; and each workload of
+ * the corpus, forked halfway through a run by a scheduled event, must
+ * end in the recorded state in both the parent and the child.  This
+ * is run by the build, and fails the build if any does not hold.
+ *
+ * <pre>
+ * usage: java j6502.build.ForkChecker directory
+ * </pre>
+ *
+ * @see j6502.J6502Skeleton#fork()
+ * @see j6502.PageTableMemoryModel#fork()
+ * @see j6502.build.WorkloadRunner
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class ForkChecker {
+
+    static final int RAM_PAGES = 0x40;
+
+    /**
+     * RAM is mirrored at <code>MIRROR</code>, and there is a page of
+     * ROM at <code>ROM</code>.
+     */
+
+    static final int MIRROR = 0x40;
+    static final int ROM = 0xff;
+
+    /**
+     * Make a CPU on a <code>PageTableMemoryModel</code> with
+     * <code>RAM_PAGES</code> pages of RAM, mirrored at
+     * <code>MIRROR</code>, and ROM at <code>ROM</code>.
+     */
+
+    static J6502 makeCPU () {
+        PageTableMemoryModel memory = new PageTableMemoryModel ();
+        byte[] rom = new byte[256];
+
+        for (int count = 0; count < rom.length; count++) {
+            rom[count] = (byte)count;
+        }
+        memory.mapRAM (0, RAM_PAGES);
+        memory.mirror (MIRROR, RAM_PAGES, 0);
+        memory.mapROM (ROM, 1, rom, 0);
+        return new J6502 (memory);
+    }
+
+    static void expect (Vector wrong, String what, J6502 cpu, int addr, int want) {
+        int got = cpu.readMemory ((char)addr) & 0xff;
+
+        if (got != want) {
+            wrong.addElement (what + ": $" + WorkloadRunner.formatHex (addr, 4)
+                              + " is " + got + ", expected " + want);
+        }
+    }
+
+    /**
+     * Write in the parent and in the child after a fork, directly and
+     * through the mirror.
+     *
+     * @returns what went wrong.
+     */
+
+    static Vector checkWrites () {
+        Vector wrong = new Vector ();
+        J6502 parent = makeCPU ();
+
+        parent.writeMemory ((char)0x0010, (byte)1);
+        parent.writeMemory ((char)0x0120, (byte)2);
+
+        J6502 child = parent.fork ();
+        PageTableMemoryModel parentMemory = (PageTableMemoryModel)parent.getMemoryModel ();
+        PageTableMemoryModel childMemory = (PageTableMemoryModel)child.getMemoryModel ();
+
+        expect (wrong, "child before writing", child, 0x0010, 1);
+        expect (wrong, "child mirror before writing", child, 0x4120, 2);
+
+        // the child writes through the mirror, which must land in its
+        // own copy of page 0, seen at both addresses
+        child.writeMemory ((char)0x4010, (byte)3);
+        expect (wrong, "child after writing the mirror", child, 0x0010, 3);
+        expect (wrong, "child mirror after writing the mirror", child, 0x4010, 3);
+        expect (wrong, "parent after the child wrote", parent, 0x0010, 1);
+        expect (wrong, "parent mirror after the child wrote", parent, 0x4010, 1);
+
+        // the parent writes page 1 directly
+        parent.writeMemory ((char)0x0121, (byte)4);
+        expect (wrong, "parent mirror after writing", parent, 0x4121, 4);
+        expect (wrong, "child after the parent wrote", child, 0x0121, 0);
+        expect (wrong, "child mirror after the parent wrote", child, 0x4121, 0);
+
+        // a second write to a page already copied
+        child.writeMemory ((char)0x0011, (byte)5);
+        parent.writeMemory ((char)0x0122, (byte)6);
+        expect (wrong, "parent after a second write", parent, 0x0011, 0);
+        expect (wrong, "child after a second write", child, 0x0122, 0);
+
+        // ROM can't be written by either
+        child.writeMemory ((char)0xff05, (byte)0);
+        expect (wrong, "ROM after the child wrote", child, 0xff05, 5);
+        expect (wrong, "ROM in the parent", parent, 0xff05, 5);
+
+        // pages neither wrote are still shared
+        if (parentMemory.getReadPages ()[2] != childMemory.getReadPages ()[2]) {
+            wrong.addElement ("a page neither wrote is no longer shared");
+        }
+        if (parentMemory.getReadPages ()[0] == childMemory.getReadPages ()[0]) {
+            wrong.addElement ("a page the child wrote is still shared");
+        }
+        return wrong;
+    }
+
+    /**
+     * Reset the memory of the child, and then of the parent, while
+     * their pages are shared.
+     *
+     * @returns what went wrong.
+     */
+
+    static Vector checkReset () {
+        Vector wrong = new Vector ();
+        J6502 parent = makeCPU ();
+
+        parent.writeMemory ((char)0x0010, (byte)1);
+        parent.writeMemory ((char)0x0210, (byte)2);
+
+        J6502 child = parent.fork ();
+        PageTableMemoryModel childMemory = (PageTableMemoryModel)child.getMemoryModel ();
+
+        childMemory.reset ();
+        expect (wrong, "child after its reset", child, 0x0010, 0);
+        expect (wrong, "child mirror after its reset", child, 0x4210, 0);
+        expect (wrong, "child ROM after its reset", child, 0xff10, 0x10);
+        expect (wrong, "parent after the child's reset", parent, 0x0010, 1);
+        expect (wrong, "parent mirror after the child's reset", parent, 0x4210, 2);
+
+        // the child's mirror still mirrors its new page
+        child.writeMemory ((char)0x0030, (byte)3);
+        expect (wrong, "child mirror after writing", child, 0x4030, 3);
+        expect (wrong, "parent after the child wrote", parent, 0x0030, 0);
+
+        parent.getMemoryModel ().reset ();
+        expect (wrong, "parent after its reset", parent, 0x0010, 0);
+        expect (wrong, "child after the parent's reset", child, 0x0030, 3);
+
+        parent.writeMemory ((char)0x0040, (byte)4);
+        expect (wrong, "parent mirror after writing", parent, 0x4040, 4);
+        expect (wrong, "child after the parent wrote", child, 0x0040, 0);
+        return wrong;
+    }
+
+    /**
+     * Run <code>workload</code> on a <code>PageTableMemoryModel</code>
+     * with one of the <code>WorkloadRunner</code> engines, fork it
+     * from a scheduled event halfway through, and then run the child
+     * to the end too.
+     *
+     * @returns what went wrong.
+     */
+
+    static Vector checkWorkload (final WorkloadRunner workload, int engine) {
+        long clocks = Long.parseLong (workload.expected.getProperty ("clocks").trim ());
+        PageTableMemoryModel memory = new PageTableMemoryModel ();
+        final J6502[] child = new J6502[1];
+
+        memory.mapRAM (0, PageTableMemoryModel.PAGES);
+        J6502 parent = workload.setUp (memory);
+        parent.getScheduler ().schedule (clocks / 2, new ScheduledEvent () {
+                public void fire (J6502 cpu, long cycle) {
+                    child[0] = cpu.fork ();
+                }
+            });
+
+        Vector wrong = new Vector ();
+        int parentStop = workload.run (parent, engine);
+
+        if (child[0] == null) {
+            wrong.addElement ("the parent was never forked");
+            return wrong;
+        }
+
+        Vector parentWrong = workload.compare (parent, parentStop);
+        for (int idx = 0; idx < parentWrong.size (); idx++) {
+            wrong.addElement ("parent: " + parentWrong.elementAt (idx));
+        }
+
+        int stop = child[0].run ((int)(workload.cycles - child[0].getCycleCount ()));
+        Vector childWrong = workload.compare (child[0], stop);
+        for (int idx = 0; idx < childWrong.size (); idx++) {
+            wrong.addElement ("child: " + childWrong.elementAt (idx));
+        }
+
+        // the child ran over the same memory, which must not have
+        // changed the parent's
+        parentWrong = workload.compare (parent, parentStop);
+        for (int idx = 0; idx < parentWrong.size (); idx++) {
+            wrong.addElement ("parent after the child ran: " + parentWrong.elementAt (idx));
+        }
+        return wrong;
+    }
+
+    static boolean report (String name, Vector wrong) {
+        if (wrong.size () > 0) {
+            System.out.println (name + ": FAILED");
+            for (int idx = 0; idx < wrong.size (); idx++) {
+                System.out.println ("    " + wrong.elementAt (idx));
+            }
+            return false;
+        }
+        System.out.println (name + ": ok");
+        return true;
+    }
+
+    public static void main (String[] args)
+        throws Exception
+    {
+        if (args.length != 1) {
+            System.err.println ("usage: java j6502.build.ForkChecker directory");
+            System.exit (1);
+        }
+
+        boolean ok = report ("writes after a fork", checkWrites ());
+        ok &= report ("reset after a fork", checkReset ());
+
+        File dir = new File (args[0]);
+        String[] names = dir.list ();
+
+        Arrays.sort (names);
+        for (int idx = 0; idx < names.length; idx++) {
+            if (!names[idx].endsWith (".expect")) {
+                continue;
+            }
+
+            WorkloadRunner workload = new WorkloadRunner (new File (dir, names[idx]));
+            for (int engine = 0; engine < 2; engine++) {
+                ok &= report (workload.name + " forked with the "
+                              + WorkloadRunner.ENGINES[engine],
+                              checkWorkload (workload, engine));
+            }
+        }
+
+        if (!ok) {
+            System.err.println ("ForkChecker: a fork was not independent of"
+                                + " the CPU forked");
+            System.exit (1);
+        }
+    }
+
+} // class ForkChecker
@@ -15,12 +15,21 @@ class InstructionRecord {
     int size, clockTicks;
     int exception;
 
+    /**
+     * The bus cycles of the instruction, after the opcode fetch, as
+     * tokens of the CYCLES language of the specification file.  Only
+     * set on the record when the record line gives them; the
+     * <code>CPUSpecReader</code> fills in the rest from the defaults.
+     */
+
+    String[] cycles;
+
     public static InstructionRecord parse (String s) {
         StringTokenizer st = new StringTokenizer (s, " ");
 
         InstructionRecord is = new InstructionRecord ();
 
-        if (st.countTokens () != 5) {
+        if (st.countTokens () < 5) {
             return null;
         }
 
@@ -50,6 +59,13 @@ class InstructionRecord {
             return null;
         }
 
+        if (st.hasMoreTokens ()) {
+            is.cycles = new String[st.countTokens ()];
+            for (int count = 0; count < is.cycles.length; count++) {
+                is.cycles[count] = st.nextToken ();
+            }
+        }
+
         return is;
     } // parse
 
@@ -1,5 +1,7 @@
 package j6502.build;
 
+import j6502.*;
+
 import java.io.*;
 import java.util.*;
 
@@ -107,6 +109,73 @@ public class J6502ConstantsCreator
         return modes;
     }
 
+    private String[] getCycles () {
+        String[] cycles = new String[set.length];
+
+        String dq = "\"";
+
+        for (int count = 0; count < set.length; count++) {
+            StringBuffer buf = new StringBuffer ();
+
+            if (set[count] != null) {
+                String[] tokens = set[count].rec.cycles;
+
+                for (int t = 0; t < tokens.length; t++) {
+                    if (t > 0) {
+                        buf.append (' ');
+                    }
+                    buf.append (tokens[t]);
+                }
+            }
+            cycles[count] = dq + buf + dq;
+        }
+
+        return cycles;
+    }
+
+    /**
+     * The packed description of each opcode, laid out as the
+     * <code>INFO_</code> constants say, as 4-digit hex literals.
+     */
+
+    private String[] getInfo () {
+        String[] info = new String[set.length];
+
+        for (int count = 0; count < set.length; count++) {
+            int value = 0;
+
+            if (set[count] != null) {
+                InstructionRecord rec = set[count].rec;
+                AddressingMode mode = rec.addrMode;
+                boolean memory = !(mode.equals (AddressingMode.ACCUMULATOR)
+                                   || mode.equals (AddressingMode.INHERENT)
+                                   || mode.equals (AddressingMode.IMMEDIATE)
+                                   || mode.equals (AddressingMode.JMP_RELATIVE)
+                                   || mode.equals (AddressingMode.JMP_DIRECT)
+                                   || mode.equals (AddressingMode.JMP_INDIRECT));
+
+                value = rec.size
+                    | (rec.clockTicks << 2)
+                    | (rec.exception << 5)
+                    | (mode.ord () << 8);
+                if (memory && set[count].read) {
+                    value |= 0x1000;
+                }
+                if (memory && set[count].write) {
+                    value |= 0x2000;
+                }
+            }
+
+            String hex = Integer.toHexString (value);
+            while (hex.length () < 4) {
+                hex = "0" + hex;
+            }
+            info[count] = "0x" + hex;
+        }
+
+        return info;
+    }
+
     private void printCode (String[] code) {
         printCode (ipw, code);
     }
@@ -211,6 +280,87 @@ public class J6502ConstantsCreator
         caf.output (ipw, 2);
         ipw.println ();
 
+        String[] cyclesComment = {
+            "/**",
+            " * This array, at index i, gives the bus cycles of opcode i after",
+            " * the opcode fetch, as described at the end of 6502.txt.  An empty",
+            " * string indicates a bad opcode.",
+            " *",
+            " * @see j6502.CycleEngine",
+            " */",
+            ""
+        };
+
+        printCode (cyclesComment);
+
+        caf = new CodeArrayFormatter ("cycles", "String",
+                                      getCycles ());
+        caf.output (ipw, 4);
+        ipw.println ();
+
+        String[] infoComment = {
+            "/**",
+            " * This array, at index i, packs into one int what decoding opcode i",
+            " * needs: its size, clock cycles, clocks exception, addressing mode",
+            " * and whether it reads or writes its operand in memory, as given by",
+            " * the <code>INFO_</code> constants.  A 0 value indicates a bad",
+            " * opcode.",
+            " *",
+            " * @since 1.2",
+            " */",
+            ""
+        };
+
+        printCode (infoComment);
+
+        caf = new CodeArrayFormatter ("info", "int", getInfo ());
+        caf.output (ipw, 8);
+        ipw.println ();
+
+        String[] infoFields = {
+            "/**",
+            " * The size of the instruction, the low bits of <code>info</code>.",
+            " */",
+            "",
+            "int INFO_SIZE = 0x3;",
+            "",
+            "/**",
+            " * The clock cycles, as in <code>clocks</code>, are",
+            " * <code>(info &gt;&gt; INFO_CLOCKS_SHIFT) &amp; INFO_CLOCKS_MASK</code>.",
+            " */",
+            "",
+            "int INFO_CLOCKS_SHIFT = 2;",
+            "int INFO_CLOCKS_MASK = 0x7;",
+            "",
+            "/**",
+            " * The clocks exception, as in <code>exceptions</code>, is",
+            " * <code>(info &gt;&gt; INFO_EXCEPTION_SHIFT) &amp; INFO_EXCEPTION_MASK</code>.",
+            " */",
+            "",
+            "int INFO_EXCEPTION_SHIFT = 5;",
+            "int INFO_EXCEPTION_MASK = 0x3;",
+            "",
+            "/**",
+            " * The ordinal of the addressing mode is",
+            " * <code>(info &gt;&gt; INFO_MODE_SHIFT) &amp; INFO_MODE_MASK</code>.",
+            " *",
+            " * @see j6502.AddressingMode#forOrdinal(int)",
+            " */",
+            "",
+            "int INFO_MODE_SHIFT = 8;",
+            "int INFO_MODE_MASK = 0xf;",
+            "",
+            "/**",
+            " * Set if the instruction reads, or writes, its operand in memory.",
+            " */",
+            "",
+            "int INFO_READ = 0x1000;",
+            "int INFO_WRITE = 0x2000;",
+            ""
+        };
+
+        printCode (infoFields);
+
         ipw.unindent ();
         printCode (postCode);
     }
@@ -11,10 +11,76 @@ public class J6502Creator
 
     public static final String fileName = "J6502.java";
 
+    /**
+     * The cores which can be written.  <code>NMOS</code> is the 6502
+     * itself, class <code>J6502</code>.  <code>NO_DECIMAL</code> is
+     * a 6502 like the NES's 2A03, which ignores the decimal flag, and
+     * <code>FUNCTIONAL</code> counts only the clock cycles in the
+     * table for each opcode, without the extra cycles for crossing a
+     * page or taking a branch.  Each of these is a subclass of
+     * <code>J6502</code> which overrides only the handlers whose code
+     * differs from it.
+     */
+
+    public static final int NMOS = 0;
+    public static final int NO_DECIMAL = 1;
+    public static final int FUNCTIONAL = 2;
+
+    /**
+     * The class name of each core.
+     */
+
+    public static final String[] coreNames = {
+        "J6502",
+        "J6502NoDecimal",
+        "J6502Functional"
+    };
+
+    /**
+     * The superinstruction profile, read if it is present.
+     */
+
+    public static final String profileName = "superinstructions.profile";
+
+    /**
+     * The most bytes of code one superinstruction may cover.  This
+     * must match <code>J6502Skeleton.MAX_SUPERINSTRUCTION_BYTES</code>.
+     */
+
+    static final int MAX_SUPERINSTRUCTION_BYTES = 8;
+
+    /**
+     * The most operand bytes the instructions after the first may
+     * have, since they are packed into bits 40-63 of a decoded
+     * instruction.
+     */
+
+    static final int MAX_FOLLOWING_OPERAND_BYTES = 3;
+
     IndentingPrintWriter ipw;
 
     InstructionSpec[] set;
 
+    /**
+     * The opcode sequences to write superinstructions for.
+     */
+
+    int[][] sequences;
+
+    /**
+     * The core being written, one of <code>NMOS</code>,
+     * <code>NO_DECIMAL</code> or <code>FUNCTIONAL</code>.
+     */
+
+    int core = NMOS;
+
+    /**
+     * The local variable the clock cycles of an instruction are
+     * counted in.
+     */
+
+    String clocksVar = "clocks";
+
     String[] preCode = {
         "package j6502;",
         "",
@@ -55,60 +121,251 @@ public class J6502Creator
         "    }",
         "",
         "/**",
+        " * Create a new <code>J6502</code> for <code>fork</code>.",
+        " *",
+        " * @see j6502.J6502Skeleton#newInstance(MemoryModel)",
+        " */",
+        "",
+        "    protected J6502 newInstance (MemoryModel mem) {",
+        "        return new J6502 (mem);",
+        "    }",
+        "",
+        "/**",
         " * Execute the instruction in the array.",
         " *",
         " * @see j6502.J6502Skeleton#execute(byte[])",
         " */",
         "",
         "    public int execute (byte[] insn) {",
-        "        int clocks;",
         "        int opcode = insn[0] & 0xff;",
-        "        boolean badOpcode = false;",
-        "        char    addr;",
-        "        byte    tmp;",
+        "        int size = J6502Constants.info[opcode] & J6502Constants.INFO_SIZE;",
+        "",
+        "        return dispatch (opcode,",
+        "                         (size > 1) ? insn[1] : 0,",
+        "                         (size > 2) ? insn[2] : 0);",
+        "    }",
+        "",
+        "/**",
+        " * Run instructions until the cycle budget is used up, a",
+        " * <code>BRK</code> or bad opcode is reached, or the stop condition",
+        " * asks to stop.  Instructions come from the decode cache when it",
+        " * is enabled, and then superinstructions are used, as long as",
+        " * they cannot run past the end of the budget or the next",
+        " * scheduled event.  The cycle count is kept in a local, and only",
+        " * written back to <code>elapsedClocks</code> for",
+        " * <code>service</code>, the stop condition and the end of the",
+        " * run, and before each instruction when memory is not plain RAM,",
+        " * so that devices see the cycle the instruction started on.",
+        " * Between instructions, only the cycle count is compared with",
+        " * <code>checkpoint</code> to see whether events are due, an",
+        " * interrupt is waiting, or it is time to look for an idle loop to",
+        " * skip.  Idle loops are not skipped when there is a stop",
+        " * condition, which has to see every instruction.  When breakpoints",
+        " * are set, <code>runBreakpoints</code> is used instead, so this",
+        " * loop never checks for them.",
+        " *",
+        " * @see j6502.J6502Skeleton#runUntil(StopCondition,int)",
+        " */",
+        "",
+        "    public int runUntil (StopCondition condition, int cycleBudget) {",
+        "        if (breakpoints != null) {",
+        "            return runBreakpoints (condition, cycleBudget);",
+        "        }",
+        "",
+        "        int clocks = lastClocks;",
+        "        long cycles = elapsedClocks;",
+        "        long end = cycles + cycleBudget;",
+        "        int reason = STOP_BUDGET;",
+        "",
+        "        while (cycles < end) {",
+        "            if (cycles >= checkpoint) {",
+        "                elapsedClocks = cycles;",
+        "                lastClocks = clocks;",
+        "                service ((condition == null) ? end : Long.MIN_VALUE);",
+        "                clocks = lastClocks;",
+        "                cycles = elapsedClocks;",
+        "                continue;",
+        "            }",
+        "            if (condition != null) {",
+        "                elapsedClocks = cycles;",
+        "                lastClocks = clocks;",
+        "                if (condition.shouldStop (pc)) {",
+        "                    reason = STOP_CONDITION;",
+        "                    break;",
+        "                }",
+        "                cycles = elapsedClocks;",
+        "            }",
         "",
-        "        extraClocks = 0;",
-        "        clocks = J6502Constants.clocks[opcode];",
+        "            long insn = decode ();",
+        "            int opcode = (int)insn & 0xff;",
+        "            int size = (int)insn >>> 24;",
         "",
+        "            if (size == 0) {",
+        "                reason = STOP_BAD_OPCODE;",
+        "                break;",
+        "            }",
+        "            if (opcode == 0x00) {",
+        "                reason = STOP_BREAK;",
+        "                break;",
+        "            }",
+        "            pc += size;",
+        "            if (ram == null) {",
+        "                elapsedClocks = cycles;",
+        "            }",
+        "",
+        "            int number = (int)(insn >>> 32) & 0xff;",
+        "            if ((number != 0) && (condition == null)",
+        "                && (Math.min (end, checkpoint) - cycles > MAX_LEADING_CLOCKS)) {",
+        "                int result = dispatchSuper (number, insn);",
+        "                clocks = result >>> 16;",
+        "                cycles += result & 0xffff;",
+        "            } else {",
+        "                clocks = dispatch (opcode, (byte)(insn >> 8), (byte)(insn >> 16));",
+        "                cycles += clocks;",
+        "            }",
+        "        }",
+        "",
+        "        elapsedClocks = cycles;",
+        "        lastClocks = clocks;",
+        "        return reason;",
+        "    } // runUntil",
+        "",
+        "/**",
+        " * The <code>runUntil</code> loop used when breakpoints are set.",
+        " * Before each instruction, the bit for the program counter is",
+        " * tested in <code>breakpoints</code>.  The first instruction is",
+        " * run even if it is at a breakpoint, so that running again",
+        " * carries on from one.  Every instruction has to be seen, so",
+        " * superinstructions are not used and idle loops are not skipped.",
+        " */",
+        "",
+        "    final int runBreakpoints (StopCondition condition, int cycleBudget) {",
+        "        int clocks = lastClocks;",
+        "        long cycles = elapsedClocks;",
+        "        long end = cycles + cycleBudget;",
+        "        int reason = STOP_BUDGET;",
+        "        int resume = pc;",
+        "",
+        "        while (cycles < end) {",
+        "            if (cycles >= checkpoint) {",
+        "                elapsedClocks = cycles;",
+        "                lastClocks = clocks;",
+        "                service (Long.MIN_VALUE);",
+        "                clocks = lastClocks;",
+        "                cycles = elapsedClocks;",
+        "                continue;",
+        "            }",
+        "            if (((breakpoints[pc >> 5] & (1 << (pc & 31))) != 0)",
+        "                && (pc != resume)) {",
+        "                reason = STOP_BREAKPOINT;",
+        "                break;",
+        "            }",
+        "            if (condition != null) {",
+        "                elapsedClocks = cycles;",
+        "                lastClocks = clocks;",
+        "                if (condition.shouldStop (pc)) {",
+        "                    reason = STOP_CONDITION;",
+        "                    break;",
+        "                }",
+        "                cycles = elapsedClocks;",
+        "            }",
+        "",
+        "            long insn = decode ();",
+        "            int opcode = (int)insn & 0xff;",
+        "            int size = (int)insn >>> 24;",
+        "",
+        "            if (size == 0) {",
+        "                reason = STOP_BAD_OPCODE;",
+        "                break;",
+        "            }",
+        "            if (opcode == 0x00) {",
+        "                reason = STOP_BREAK;",
+        "                break;",
+        "            }",
+        "            pc += size;",
+        "            resume = -1;",
+        "            if (ram == null) {",
+        "                elapsedClocks = cycles;",
+        "            }",
+        "",
+        "            clocks = dispatch (opcode, (byte)(insn >> 8), (byte)(insn >> 16));",
+        "            cycles += clocks;",
+        "        }",
+        "",
+        "        elapsedClocks = cycles;",
+        "        lastClocks = clocks;",
+        "        return reason;",
+        "    } // runBreakpoints",
+        "",
+        "/**",
+        " * Execute one instruction whose operands have already been",
+        " * fetched.  The program counter must already point to the next",
+        " * instruction.",
+        " *",
+        " * @see j6502.J6502Skeleton#dispatch(int,byte,byte)",
+        " */",
+        "",
+        "    final int dispatch (int opcode, byte op1, byte op2) {",
         "        switch (opcode) {"
     };
 
+    String[] dispatchPostCode = {
+        "        default:",
+        "            return 0;",
+        "        }"
+    };
+
+    String[] dispatchEndCode = {
+        "    } // dispatch",
+        ""
+    };
+
+    String[] superPreCode = {
+        "/**",
+        " * The opcode sequences which have superinstructions, from",
+        " * superinstructions.profile.",
+        " *",
+        " * @see j6502.J6502Skeleton#getSuperinstructions()",
+        " */",
+        ""
+    };
+
+    String[] superPostCode = {
+        "/**",
+        " * Run a superinstruction.",
+        " *",
+        " * @see j6502.J6502Skeleton#dispatchSuper(int,long)",
+        " */",
+        "",
+        "    final int dispatchSuper (int number, long insn) {",
+        "        switch (number) {"
+    };
+
     String[] postCode = {
-        "        }",
-        "        return clocks;",
-        "    } // execute",
         "} // class J6502"
     };
 
     public J6502Creator (PrintWriter out, InstructionSpec[] set) {
+        this (out, set, new int[0][]);
+    }
+
+    public J6502Creator (PrintWriter out, InstructionSpec[] set,
+                         int[][] sequences) {
+        this (out, set, sequences, NMOS);
+    }
+
+    public J6502Creator (PrintWriter out, InstructionSpec[] set,
+                         int[][] sequences, int core) {
         ipw = new IndentingPrintWriter (out, 4);
         this.set = set;
+        this.sequences = sequences;
+        this.core = core;
     }
 
     void printCode (String[] code) {
         printCode (ipw, code);
     }
 
-    // note that these are in the ordinal value
-    // of the AddressingMode contants
-    String[] addressingFunctions =
-    {
-        "zpDirect",
-        "zpIndexedX",
-        "zpIndexedY",
-        "preIndexedIndirect",
-        "postIndexedIndirect",
-        "direct",
-        "indexedX",
-        "indexedY",
-        "immediate",
-        "inherent",
-        "accumulator",
-        "jmpRelative",
-        "jmpDirect",
-        "jmpIndirect"
-    };
-
     String replace (String src, char c, String s) {
         StringTokenizer st = new StringTokenizer (src, "" + c, true);
         StringBuffer buf = new StringBuffer ();
@@ -132,15 +389,156 @@ public class J6502Creator
         }
     }
 
+    /**
+     * Resolve each <code>if (condition) { ... } else { ... }</code>
+     * in <code>code</code> whose condition is known to be
+     * <code>value</code>, leaving only the lines of the branch that
+     * is taken.  Each <code>{</code> and <code>}</code> is expected to
+     * end or start its line, as in 6502.txt.
+     */
+
+    String[] selectBranch (String[] code, String condition, boolean value) {
+        Vector result = new Vector ();
+        String ifLine = "if (" + condition + ") {";
+        int count = 0;
+
+        while (count < code.length) {
+            if (!code[count].trim ().equals (ifLine)) {
+                result.addElement (code[count]);
+                count++;
+                continue;
+            }
+
+            String indent = code[count].substring (0, code[count].indexOf ("if"));
+            String bodyIndent = null;
+            boolean taking = value;
+            int depth = 1;
+
+            for (count++; (count < code.length) && (depth > 0); count++) {
+                String line = code[count].trim ();
+
+                if (line.startsWith ("}")) {
+                    depth--;
+                }
+                if ((depth == 0) && line.equals ("} else {")) {
+                    taking = !value;
+                    depth = 1;
+                    continue;
+                }
+                if ((depth > 0) && taking) {
+                    if (bodyIndent == null) {
+                        bodyIndent = code[count].substring
+                            (0, code[count].indexOf (line));
+                    }
+                    if (code[count].startsWith (bodyIndent)) {
+                        line = code[count].substring (bodyIndent.length ());
+                    }
+                    result.addElement (indent + line);
+                }
+                if (line.endsWith ("{")) {
+                    depth++;
+                }
+            }
+        }
+
+        String[] tmp = new String[result.size ()];
+        result.copyInto (tmp);
+        return tmp;
+    }
+
+    /**
+     * Get the code of an instruction, as this core runs it.
+     */
+
+    String[] getCode (InstructionSpec is) {
+        String[] code = is.code.getCode ();
+
+        if (core == NO_DECIMAL) {
+            code = selectBranch (code, "isBCDMode ()", false);
+        }
+        return code;
+    }
+
+    /**
+     * Write the code which sets <code>addr</code> for an addressing
+     * mode, in place, with the operands and registers in locals.  If
+     * <code>pageCrossing</code> is set, a clock cycle is added to
+     * <code>clocksVar</code> when indexing crosses a page.  The quirks
+     * of the <code>J6502Skeleton</code> addressing functions are kept:
+     * pre-indexed indirect addressing is indexed by Y.
+     */
+
+    void createAddress (AddressingMode mode, String[] operands,
+                        boolean pageCrossing) {
+        String lsb = operands[0] + " & 0xff";
+        String direct = "((" + operands[1] + " & 0xff) << 8) | (" + lsb + ")";
+        String pointer = "(readMemory (addr) & 0xff)"
+            + " | ((readMemory ((char)((addr + 1) & 0xff)) & 0xff) << 8)";
+        String index = null;
+
+        if (mode.equals (AddressingMode.ZP_DIRECT)) {
+            ipw.println ("addr = (char)(" + lsb + ");");
+        } else if (mode.equals (AddressingMode.ZP_INDEXED_X)) {
+            ipw.println ("addr = (char)((" + operands[0] + " + regX) & 0xff);");
+        } else if (mode.equals (AddressingMode.ZP_INDEXED_Y)) {
+            ipw.println ("addr = (char)((" + operands[0] + " + regY) & 0xff);");
+        } else if (mode.equals (AddressingMode.PRE_INDEXED_INDIRECT)) {
+            ipw.println ("addr = (char)((" + operands[0] + " + regY) & 0xff);");
+            ipw.println ("addr = (char)(" + pointer + ");");
+        } else if (mode.equals (AddressingMode.POST_INDEXED_INDIRECT)) {
+            ipw.println ("addr = (char)(" + lsb + ");");
+            ipw.println ("addr = (char)(" + pointer + ");");
+            index = "regY";
+        } else if (mode.equals (AddressingMode.INDEXED_X)) {
+            ipw.println ("addr = (char)(" + direct + ");");
+            index = "regX";
+        } else if (mode.equals (AddressingMode.INDEXED_Y)) {
+            ipw.println ("addr = (char)(" + direct + ");");
+            index = "regY";
+        } else {
+            ipw.println ("addr = (char)(" + direct + ");");
+        }
+
+        if (index != null) {
+            if (pageCrossing) {
+                ipw.println ("if ((addr & 0xff) + (" + index + " & 0xff) > 0xff) "
+                             + clocksVar + "++;");
+            }
+            ipw.println ("addr = (char)(addr + (" + index + " & 0xff));");
+        }
+    } // createAddress
+
+    /**
+     * Returns true if this core adds the extra clock cycles of an
+     * opcode whose clocks_exception is <code>exception</code>.
+     */
+
+    boolean countsPenalty (int opcode, int exception) {
+        return (core != FUNCTIONAL)
+            && (J6502Constants.exceptions[opcode] == exception);
+    }
+
     void create (InstructionSpec is) {
+        create (is, new String[] { "op1", "op2" });
+    }
+
+    /**
+     * Write the code for one instruction, with the given expressions
+     * for its operand bytes.  The code uses the local variables
+     * <code>addr</code> and <code>tmp</code>, adds any extra clock
+     * cycles to <code>clocksVar</code>, and expects <code>pc</code> to
+     * already point to the next instruction.
+     */
+
+    void create (InstructionSpec is, String[] operands) {
 
         String atSymbol = "addr";
         String dollarSymbol = "tmp";
-        String instructionArrayName = "insn";
 
         AddressingMode mode = is.rec.addrMode;
+        int opcode = is.rec.opcode;
 
-        String[] code = is.code.getCode ();
+        String[] code = getCode (is);
 
         if (mode.equals (AddressingMode.ACCUMULATOR)) {
 
@@ -162,8 +560,7 @@ public class J6502Creator
 
         } else if (mode.equals (AddressingMode.IMMEDIATE)) {
 
-            ipw.println (dollarSymbol + " = " 
-                         + instructionArrayName + "[1];");
+            ipw.println (dollarSymbol + " = " + operands[0] + ";");
             replace (code, '$', dollarSymbol);
 
             ipw.println ("{");
@@ -174,9 +571,11 @@ public class J6502Creator
 
         } else if (mode.equals (AddressingMode.JMP_RELATIVE)) {
             
-            ipw.println (dollarSymbol + " = " 
-                         + instructionArrayName + "[1];");
-            ipw.println ("jmpRelative (" + dollarSymbol + ");");
+            ipw.println (dollarSymbol + " = " + operands[0] + ";");
+            if (countsPenalty (opcode, 2)) {
+                ipw.println (clocksVar + " += ((((pc + " + dollarSymbol
+                             + ") ^ pc) & 0xff00) == 0) ? 1 : 2;");
+            }
             replace (code, '$', dollarSymbol);
 
             ipw.println ("{");
@@ -185,24 +584,10 @@ public class J6502Creator
             ipw.unindent ();
             ipw.println ("}");
 
-        } else if (mode.equals (AddressingMode.JMP_DIRECT)) {
-            
-            ipw.println ("addr = jmpDirect ("
-                         + instructionArrayName + "[1], "
-                         + instructionArrayName + "[2]);");
-            replace (code, '@', atSymbol);
-
-            ipw.println ("{");
-            ipw.indent ();
-            printCode (code);
-            ipw.unindent ();
-            ipw.println ("}");
-
-        } else if (mode.equals (AddressingMode.JMP_INDIRECT)) {
+        } else if (mode.equals (AddressingMode.JMP_DIRECT)
+                   || mode.equals (AddressingMode.JMP_INDIRECT)) {
 
-            ipw.println ("addr = jmpDirect ("
-                         + instructionArrayName + "[1], "
-                         + instructionArrayName + "[2]);");
+            createAddress (AddressingMode.DIRECT, operands, false);
             replace (code, '@', atSymbol);
 
             ipw.println ("{");
@@ -212,28 +597,7 @@ public class J6502Creator
             ipw.println ("}");
 
         } else {
-            int opcode = is.rec.opcode;
-            int num = J6502Constants.sizes[opcode] - 1;
-
-            StringBuffer setupLine = new StringBuffer ();
-
-            setupLine.append (atSymbol + " = ");
-
-            setupLine.append (addressingFunctions[mode.ord ()]);
-            setupLine.append (" (");
-
-            boolean first = true;
-            for (int count = 0; count < num; count++) {
-                if (first) {
-                    first = false;
-                } else {
-                    setupLine.append (", ");
-                }
-                setupLine.append (instructionArrayName
-                                  + "[" + (1 + count) + "]");
-            }
-            setupLine.append (");");
-            ipw.println (setupLine.toString ());
+            createAddress (mode, operands, countsPenalty (opcode, 1));
             ipw.println (dollarSymbol + " = readMemory (" + atSymbol
                          + ");");
 
@@ -251,46 +615,453 @@ public class J6502Creator
                              + ");");
             }
         }
-    } // create(InstructionSpec)
+    } // create(InstructionSpec,String[])
 
-    public void create () {
-        int opcode;
+    /**
+     * Get the name of the method which executes the instruction
+     * described by <code>is</code>, e.g. <code>lda_a9</code>.  The
+     * handlers are package-private so that
+     * <code>j6502.BlockTranslator</code> can call them, and it relies
+     * on this naming scheme.
+     */
+
+    String handlerName (InstructionSpec is) {
+        return is.mnemonic.toLowerCase () + "_" + hexString (is.rec.opcode);
+    }
 
-        String clocksVar = "clocks";
+    String hexString (int opcode) {
+        String numString = Integer.toHexString (opcode);
+        if (numString.length () < 2) {
+            numString = "0" + numString;
+        }
+        return numString;
+    }
 
-        printCode (preCode);
+    /**
+     * Write the method which executes one opcode.  Each opcode gets
+     * its own small method, so that no single method grows past the
+     * size the JIT is willing to compile.  The handlers are not
+     * final, so that the other cores can override them.
+     */
 
+    void createHandler (InstructionSpec is) {
+        int opcode = is.rec.opcode;
+        AddressingMode mode = is.rec.addrMode;
+
+        boolean usesAddr = !(mode.equals (AddressingMode.ACCUMULATOR)
+                             || mode.equals (AddressingMode.INHERENT)
+                             || mode.equals (AddressingMode.IMMEDIATE)
+                             || mode.equals (AddressingMode.JMP_RELATIVE));
+        boolean usesTmp = !(mode.equals (AddressingMode.ACCUMULATOR)
+                            || mode.equals (AddressingMode.INHERENT)
+                            || mode.equals (AddressingMode.JMP_DIRECT)
+                            || mode.equals (AddressingMode.JMP_INDIRECT));
+
+        ipw.println ("// " + is.mnemonic + " " + mode.toString ()
+                     + " - " + is.description);
+        ipw.println ("int " + handlerName (is)
+                     + " (byte op1, byte op2) {");
         ipw.indent ();
-        ipw.indent ();
-        for (opcode = 0; opcode < set.length; opcode++) {
-            String numString = Integer.toHexString (opcode);
-            if (numString.length () < 2) {
-                numString = "0" + numString;
+        ipw.println ("int " + clocksVar + " = "
+                     + J6502Constants.clocks[opcode] + ";");
+        if (usesAddr) {
+            ipw.println ("char    addr;");
+        }
+        if (usesTmp) {
+            ipw.println ("byte    tmp;");
+        }
+        ipw.println ();
+
+        create (is);
+
+        ipw.println ("return " + clocksVar + ";");
+        ipw.unindent ();
+        ipw.println ("}");
+        ipw.println ();
+    } // createHandler
+
+    /**
+     * Returns true if the instruction may change the program counter,
+     * so nothing can follow it in a basic block.
+     */
+
+    static boolean endsBlock (int opcode) {
+        AddressingMode mode = J6502Constants.modes[opcode];
+        String name = J6502Constants.names[opcode];
+
+        return mode.equals (AddressingMode.JMP_RELATIVE)
+            || mode.equals (AddressingMode.JMP_DIRECT)
+            || mode.equals (AddressingMode.JMP_INDIRECT)
+            || name.equals ("RTS")
+            || name.equals ("RTI")
+            || name.equals ("BRK");
+    }
+
+    /**
+     * Returns true if the instruction writes memory, or may let an
+     * interrupt in, so that nothing can follow it in a
+     * superinstruction.  The run loop has to look at
+     * <code>checkpoint</code> again after it, since a write to a
+     * device may raise an interrupt or schedule an event, and a write
+     * may change the code of the instructions after it.
+     */
+
+    static boolean endsSuperinstruction (int opcode) {
+        String name = J6502Constants.names[opcode];
+
+        return ((J6502Constants.info[opcode] & J6502Constants.INFO_WRITE) != 0)
+            || name.equals ("PHA")
+            || name.equals ("PHP")
+            || name.equals ("CLI")
+            || name.equals ("PLP");
+    }
+
+    /**
+     * Check whether a superinstruction can be made for an opcode
+     * sequence.
+     *
+     * @returns <code>null</code> if it can, or the reason it can't.
+     */
+
+    static String checkSequence (int[] sequence) {
+        if (sequence.length < 2) {
+            return "a sequence needs at least two instructions";
+        }
+
+        int bytes = 0;
+        int following = 0;
+        for (int count = 0; count < sequence.length; count++) {
+            int opcode = sequence[count];
+            int size = J6502Constants.sizes[opcode];
+
+            if ((size == 0) || (opcode == 0x00)) {
+                return "bad opcode: " + Integer.toHexString (opcode);
             }
-            ipw.println ("case 0x" + numString + ":");
-            ipw.indent ();
+            if ((count < sequence.length - 1) && endsBlock (opcode)) {
+                return "only the last instruction may be a jump: "
+                    + J6502Constants.names[opcode];
+            }
+            if ((count < sequence.length - 1) && endsSuperinstruction (opcode)) {
+                return "only the last instruction may write memory or"
+                    + " let an interrupt in: " + J6502Constants.names[opcode];
+            }
+            bytes += size;
+            if (count > 0) {
+                following += size - 1;
+            }
+        }
 
-            if (null != set[opcode]) {
-                create (set[opcode]);
+        if (bytes > MAX_SUPERINSTRUCTION_BYTES) {
+            return "too many bytes of code: " + bytes;
+        }
+        if (following > MAX_FOLLOWING_OPERAND_BYTES) {
+            return "too many operand bytes after the first instruction: "
+                + following;
+        }
+        return null;
+    } // checkSequence
+
+    String superName (int[] sequence) {
+        StringBuffer name = new StringBuffer ();
+        for (int count = 0; count < sequence.length; count++) {
+            if (count > 0) {
+                name.append ('_');
+            }
+            name.append (handlerName (set[sequence[count]]));
+        }
+        return name.toString ();
+    }
+
+    /**
+     * The most clock cycles all but the last instruction of any
+     * superinstruction can take.  A superinstruction is only used
+     * when more than this is left of the budget, so that
+     * <code>runUntil</code> stops at the same instruction either way.
+     */
+
+    int maxLeadingClocks () {
+        int max = 0;
+        for (int number = 0; number < sequences.length; number++) {
+            int clocks = 0;
+            for (int count = 0; count < sequences[number].length - 1; count++) {
+                int opcode = sequences[number][count];
+                clocks += J6502Constants.clocks[opcode];
                 if (J6502Constants.exceptions[opcode] > 0) {
-                    ipw.println (clocksVar + " += extraClocks;");
+                    clocks += 2;
                 }
+            }
+            max = Math.max (max, clocks);
+        }
+        return max;
+    }
+
+    /**
+     * Write the method which executes a whole opcode sequence.  The
+     * code for each instruction is the same as in its handler.
+     */
+
+    void createSuperHandler (int[] sequence) {
+        StringBuffer comment = new StringBuffer ("//");
+        for (int count = 0; count < sequence.length; count++) {
+            InstructionSpec is = set[sequence[count]];
+            comment.append ((count == 0) ? " " : ", ");
+            comment.append (is.mnemonic + " " + is.rec.addrMode.toString ());
+        }
+
+        ipw.println (comment.toString ());
+        ipw.println ("int " + superName (sequence)
+                     + " (long insn) {");
+        ipw.indent ();
+        ipw.println ("int     total = 0;");
+        ipw.println ("int     clocks;");
+        ipw.println ("char    addr;");
+        ipw.println ("byte    tmp;");
 
+        int shift = 40;
+        for (int count = 0; count < sequence.length; count++) {
+            int opcode = sequence[count];
+            int size = J6502Constants.sizes[opcode];
+            String[] operands;
+
+            ipw.println ();
+            if (count == 0) {
+                operands = new String[] { "(byte)(insn >> 8)",
+                                          "(byte)(insn >> 16)" };
             } else {
-                ipw.println ("badOpcode = true;");
+                operands = new String[] { "(byte)(insn >> " + shift + ")",
+                                          "(byte)(insn >> " + (shift + 8) + ")" };
+                shift += 8 * (size - 1);
+                ipw.println ("pc += " + size + ";");
             }
 
-            ipw.println ("break;");
-            ipw.println ();
+            ipw.println ("clocks = " + J6502Constants.clocks[opcode] + ";");
+            create (set[opcode], operands);
+            ipw.println ("total += clocks;");
+        }
+
+        ipw.println ();
+        ipw.println ("return total | (clocks << 16);");
+        ipw.unindent ();
+        ipw.println ("}");
+        ipw.println ();
+    } // createSuperHandler
+
+    void createSuperinstructions () {
+        printCode (superPreCode);
+
+        ipw.indent ();
+        ipw.println ("static final int[][] superinstructions = {");
+        ipw.indent ();
+        for (int number = 0; number < sequences.length; number++) {
+            StringBuffer line = new StringBuffer ("{ ");
+            for (int count = 0; count < sequences[number].length; count++) {
+                if (count > 0) {
+                    line.append (", ");
+                }
+                line.append ("0x" + hexString (sequences[number][count]));
+            }
+            line.append (" },");
+            ipw.println (line.toString ());
+        }
+        ipw.unindent ();
+        ipw.println ("};");
+        ipw.println ();
+        ipw.println ("static final int MAX_LEADING_CLOCKS = "
+                     + maxLeadingClocks () + ";");
+        ipw.println ();
+        ipw.println ("final int[][] getSuperinstructions () {");
+        ipw.println ("    return superinstructions;");
+        ipw.println ("}");
+        ipw.println ();
+        ipw.unindent ();
+
+        printCode (superPostCode);
 
+        ipw.indent ();
+        ipw.indent ();
+        for (int number = 0; number < sequences.length; number++) {
+            ipw.println ("case " + (number + 1) + ":");
+            ipw.indent ();
+            ipw.println ("return " + superName (sequences[number])
+                         + " (insn);");
+            ipw.unindent ();
+        }
+        ipw.unindent ();
+        ipw.unindent ();
+
+        printCode (dispatchPostCode);
+        ipw.indent ();
+        ipw.println ("} // dispatchSuper");
+        ipw.println ();
+        for (int number = 0; number < sequences.length; number++) {
+            createSuperHandler (sequences[number]);
+        }
+        ipw.unindent ();
+    } // createSuperinstructions
+
+    public void create () {
+        int opcode;
+
+        printCode (preCode);
+
+        ipw.indent ();
+        ipw.indent ();
+        for (opcode = 0; opcode < set.length; opcode++) {
+            if (null == set[opcode]) {
+                continue;
+            }
+
+            ipw.println ("case 0x" + hexString (opcode) + ":");
+            ipw.indent ();
+            ipw.println ("return " + handlerName (set[opcode])
+                         + " (op1, op2);");
             ipw.unindent ();
         }
         ipw.unindent ();
         ipw.unindent ();
 
+        printCode (dispatchPostCode);
+        printCode (dispatchEndCode);
+
+        createSuperinstructions ();
+
+        ipw.indent ();
+        for (opcode = 0; opcode < set.length; opcode++) {
+            if (null != set[opcode]) {
+                createHandler (set[opcode]);
+            }
+        }
+        ipw.unindent ();
+
         printCode (postCode);
     } // create
 
+    /**
+     * What each of the other cores is, for its class comment.
+     */
+
+    String[][] coreComments = {
+        {},
+        {
+            " * A <code>J6502NoDecimal</code> is a 6502 which ignores the",
+            " * decimal flag, like the 2A03 of the NES: <code>ADC</code> and",
+            " * <code>SBC</code> are always binary, and don't test the flag.",
+            " * <code>SED</code> and <code>CLD</code> still set and clear it."
+        },
+        {
+            " * A <code>J6502Functional</code> runs programs as a",
+            " * <code>J6502</code> does, but counts only the clock cycles in",
+            " * the table for each opcode, so it doesn't have to work out",
+            " * whether an indexed address crosses a page or a branch is",
+            " * taken.  It is for callers which never look at",
+            " * <code>getElapsedClocks ()</code>; budgets and scheduled events",
+            " * still work, in those cycles."
+        }
+    };
+
+    /**
+     * Write the code of a handler to a string, instead of to the
+     * output.
+     */
+
+    String captureHandler (InstructionSpec is, int[] sequence) {
+        IndentingPrintWriter saved = ipw;
+        StringWriter buf = new StringWriter ();
+
+        ipw = new IndentingPrintWriter (buf, 4);
+        ipw.indent ();
+        if (is != null) {
+            createHandler (is);
+        } else {
+            createSuperHandler (sequence);
+        }
+        ipw.flush ();
+        ipw = saved;
+        return buf.toString ();
+    }
+
+    /**
+     * Write one of the other cores, a subclass of <code>J6502</code>
+     * with the handlers whose code differs from the
+     * <code>J6502</code> handlers written by <code>nmos</code>.
+     */
+
+    public void createVariant (J6502Creator nmos) {
+        String name = coreNames[core];
+
+        printCode (new String[] {
+            "package j6502;",
+            "",
+            "/**"
+        });
+        printCode (coreComments[core]);
+        printCode (new String[] {
+            " *",
+            " * <p>",
+            " * This class is generated by <code>j6502.build.J6502Creator</code>",
+            " * from 6502.txt; it overrides only the <code>J6502</code>",
+            " * handlers which differ.",
+            " * </p>",
+            " *",
+            " * @see j6502.J6502",
+            " *",
+            " * @version 1.2",
+            " * @since   1.2",
+            " * @author  Richard Russo",
+            " */",
+            "",
+            "public class " + name + " extends J6502 {",
+            "",
+            "/**",
+            " * Create a new <code>" + name + "</code> with a specified MemoryModel.",
+            " *",
+            " * @see j6502.MemoryModel",
+            " */",
+            "",
+            "    public " + name + " (MemoryModel mem) {",
+            "        super (mem);",
+            "    }",
+            "",
+            "/**",
+            " * Create a new <code>" + name + "</code> with a <code>DefaultMemoryModel</code>",
+            " *",
+            " * @see j6502.DefaultMemoryModel",
+            " */",
+            "",
+            "    public " + name + " () {",
+            "        super ();",
+            "    }",
+            "",
+            "/**",
+            " * Create a new <code>" + name + "</code> for <code>fork</code>.",
+            " *",
+            " * @see j6502.J6502Skeleton#newInstance(MemoryModel)",
+            " */",
+            "",
+            "    protected J6502 newInstance (MemoryModel mem) {",
+            "        return new " + name + " (mem);",
+            "    }",
+            ""
+        });
+
+        for (int number = 0; number < sequences.length; number++) {
+            String code = captureHandler (null, sequences[number]);
+            if (!code.equals (nmos.captureHandler (null, sequences[number]))) {
+                ipw.print (code);
+            }
+        }
+        for (int opcode = 0; opcode < set.length; opcode++) {
+            if (null != set[opcode]) {
+                String code = captureHandler (set[opcode], null);
+                if (!code.equals (nmos.captureHandler (set[opcode], null))) {
+                    ipw.print (code);
+                }
+            }
+        }
+
+        ipw.println ("} // class " + name);
+    } // createVariant
+
     public static void main (String[] args) 
         throws Exception
     {
@@ -302,15 +1073,41 @@ public class J6502Creator
         InstructionSpec[] specs = 
             InstructionSpec.makeInstructionSpecSet (ospecs);
 
+        int[][] sequences = new int[0][];
+        if (new File (profileName).exists ()) {
+            FileInputStream pf = new FileInputStream (profileName);
+            sequences = new CPUSpecReader (pf).readSequences ();
+            pf.close ();
+
+            for (int count = 0; count < sequences.length; count++) {
+                String problem = checkSequence (sequences[count]);
+                if (problem != null) {
+                    throw new CPUSpecFormatException
+                        (profileName + ": sequence " + (count + 1)
+                         + ": " + problem);
+                }
+            }
+        }
+
         FileOutputStream fout = new FileOutputStream (fileName);
 
         J6502Creator jc = new J6502Creator (new IndentingPrintWriter (new
-            OutputStreamWriter (fout)), specs);
+            OutputStreamWriter (fout)), specs, sequences);
 
         jc.create ();
 
         f.close ();
         fout.close ();
+
+        for (int core = NO_DECIMAL; core < coreNames.length; core++) {
+            fout = new FileOutputStream (coreNames[core] + ".java");
+
+            J6502Creator vc = new J6502Creator (new IndentingPrintWriter (new
+                OutputStreamWriter (fout)), specs, sequences, core);
+
+            vc.createVariant (jc);
+            fout.close ();
+        }
     }
 
 } // J6502Creator
@@ -0,0 +1,210 @@
+package j6502.build;
+
+import java.io.*;
+
+/**
+ * Checks that no method of a compiled class is too big for the
+ * HotSpot JIT.  Methods with more than <code>HUGE_METHOD_LIMIT</code>
+ * bytes of bytecode are never compiled, and would run in the
+ * interpreter forever.  This is run by the build on the generated
+ * emulator core, and fails the build if a method is over the limit.
+ *
+ * <p>
+ * Usage: <code>java j6502.build.MethodSizeChecker class ...</code>
+ * </p>
+ */
+
+public class MethodSizeChecker {
+
+    /**
+     * The largest method, in bytes of bytecode, HotSpot will compile
+     * (the default value of <code>-XX:HugeMethodLimit</code>).
+     */
+
+    public static final int HUGE_METHOD_LIMIT = 8000;
+
+    private static final int
+        CONSTANT_Utf8               = 1,
+        CONSTANT_Integer            = 3,
+        CONSTANT_Float              = 4,
+        CONSTANT_Long               = 5,
+        CONSTANT_Double             = 6,
+        CONSTANT_Class              = 7,
+        CONSTANT_String             = 8,
+        CONSTANT_Fieldref           = 9,
+        CONSTANT_Methodref          = 10,
+        CONSTANT_InterfaceMethodref = 11,
+        CONSTANT_NameAndType        = 12,
+        CONSTANT_MethodHandle       = 15,
+        CONSTANT_MethodType         = 16,
+        CONSTANT_Dynamic            = 17,
+        CONSTANT_InvokeDynamic      = 18,
+        CONSTANT_Module             = 19,
+        CONSTANT_Package            = 20;
+
+    DataInputStream in;
+    String[] utf8;
+
+    String className;
+    int largestSize = 0;
+    String largestMethod = null;
+    int tooBig = 0;
+
+    public MethodSizeChecker (String className, InputStream in) {
+        this.className = className;
+        this.in = new DataInputStream (new BufferedInputStream (in));
+    }
+
+    private void readConstantPool ()
+        throws IOException
+    {
+        int count = in.readUnsignedShort ();
+        utf8 = new String[count];
+
+        for (int idx = 1; idx < count; idx++) {
+            int tag = in.readUnsignedByte ();
+
+            switch (tag) {
+            case CONSTANT_Utf8:
+                utf8[idx] = in.readUTF ();
+                break;
+            case CONSTANT_Class:
+            case CONSTANT_String:
+            case CONSTANT_MethodType:
+            case CONSTANT_Module:
+            case CONSTANT_Package:
+                in.skipBytes (2);
+                break;
+            case CONSTANT_MethodHandle:
+                in.skipBytes (3);
+                break;
+            case CONSTANT_Integer:
+            case CONSTANT_Float:
+            case CONSTANT_Fieldref:
+            case CONSTANT_Methodref:
+            case CONSTANT_InterfaceMethodref:
+            case CONSTANT_NameAndType:
+            case CONSTANT_Dynamic:
+            case CONSTANT_InvokeDynamic:
+                in.skipBytes (4);
+                break;
+            case CONSTANT_Long:
+            case CONSTANT_Double:
+                in.skipBytes (8);
+                idx++;
+                break;
+            default:
+                throw new IOException (className
+                                       + ": bad constant pool tag " + tag);
+            }
+        }
+    } // readConstantPool
+
+    private void skipAttributes ()
+        throws IOException
+    {
+        int count = in.readUnsignedShort ();
+        for (int attr = 0; attr < count; attr++) {
+            in.skipBytes (2);
+            in.skipBytes (in.readInt ());
+        }
+    }
+
+    private void checkMethod ()
+        throws IOException
+    {
+        in.skipBytes (2);
+        String name = utf8[in.readUnsignedShort ()]
+            + utf8[in.readUnsignedShort ()];
+
+        int count = in.readUnsignedShort ();
+        for (int attr = 0; attr < count; attr++) {
+            String attrName = utf8[in.readUnsignedShort ()];
+            int length = in.readInt ();
+
+            if (!attrName.equals ("Code")) {
+                in.skipBytes (length);
+                continue;
+            }
+
+            in.skipBytes (4);
+            int codeLength = in.readInt ();
+            in.skipBytes (length - 8);
+
+            if (codeLength > largestSize) {
+                largestSize = codeLength;
+                largestMethod = name;
+            }
+
+            if (codeLength > HUGE_METHOD_LIMIT) {
+                System.err.println (className + "." + name + ": "
+                                    + codeLength + " bytes of bytecode, "
+                                    + "the JIT will not compile more than "
+                                    + HUGE_METHOD_LIMIT);
+                tooBig++;
+            }
+        }
+    } // checkMethod
+
+    /**
+     * Read the class file and check each of its methods.
+     *
+     * @returns the number of methods which are too big.
+     */
+
+    public int check ()
+        throws IOException
+    {
+        if (in.readInt () != 0xcafebabe) {
+            throw new IOException (className + ": not a class file");
+        }
+        in.skipBytes (4);
+
+        readConstantPool ();
+
+        in.skipBytes (6);
+        in.skipBytes (2 * in.readUnsignedShort ());
+
+        int fields = in.readUnsignedShort ();
+        for (int count = 0; count < fields; count++) {
+            in.skipBytes (6);
+            skipAttributes ();
+        }
+
+        int methods = in.readUnsignedShort ();
+        for (int count = 0; count < methods; count++) {
+            checkMethod ();
+        }
+
+        return tooBig;
+    } // check
+
+    public static void main (String[] args)
+        throws Exception
+    {
+        int tooBig = 0;
+
+        for (int count = 0; count < args.length; count++) {
+            String resource = args[count].replace ('.', '/') + ".class";
+            InputStream in = MethodSizeChecker.class.getClassLoader ()
+                .getResourceAsStream (resource);
+
+            if (null == in) {
+                throw new FileNotFoundException (resource);
+            }
+
+            MethodSizeChecker checker = new MethodSizeChecker (args[count], in);
+            tooBig += checker.check ();
+            in.close ();
+
+            System.out.println (args[count] + ": largest method is "
+                                + checker.largestMethod + ", "
+                                + checker.largestSize + " bytes");
+        }
+
+        if (tooBig > 0) {
+            System.exit (1);
+        }
+    } // main
+
+} // class MethodSizeChecker
@@ -0,0 +1,219 @@
+package j6502.build;
+
+// RecompilerChecker.java
+// Richard Russo
+
+import j6502.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import javax.tools.*;
+
+/**
+ * Checks that a program compiled by <code>StaticRecompiler</code>
+ * takes IRQs and NMIs just like <code>J6502</code> does.  A small
+ * program, which enables interrupts and spins in a <code>JMP</code>
+ * loop while its handlers count interrupts, is compiled to Java,
+ * compiled with the system Java compiler and loaded.  It is then run
+ * with the IRQ line held for a while, and then an NMI, on both the
+ * compiled class and <code>J6502</code>.  Both must take the
+ * interrupts, and end in the same state, and the compiled class must
+ * skip some of the idle loop after the NMI.  This is run by the
+ * build, and fails the build if they do not.
+ *
+ * <pre>
+ * usage: java j6502.build.RecompilerChecker directory
+ * </pre>
+ *
+ * <p>
+ * 6502.txt must be in the current directory.  The compiled program
+ * is written to <code>directory</code>.
+ * </p>
+ *
+ * @see j6502.build.StaticRecompiler
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class RecompilerChecker {
+
+    static final String CLASS_NAME = "InterruptProgram";
+
+    static final char ORIGIN = 0x0200;
+    static final char IRQ_HANDLER = 0x0300;
+    static final char NMI_HANDLER = 0x0310;
+
+    /**
+     * The IRQ handler counts IRQs in <code>$10</code>, and the NMI
+     * handler counts NMIs in <code>$11</code>.
+     */
+
+    static final char IRQ_COUNT = 0x10;
+    static final char NMI_COUNT = 0x11;
+
+    static final long IRQ_END = 1000;
+    static final long NMI_AT = 1100;
+    static final int CYCLES = 1300;
+
+    static byte[] makeImage () {
+        byte[] image = new byte[NMI_HANDLER + 3 - ORIGIN];
+
+        int[] main = {
+            0x58,               // CLI
+            0x4c, 0x01, 0x02    // JMP $0201
+        };
+        int[] irq = {
+            0xe6, 0x10,         // INC $10
+            0x40                // RTI
+        };
+        int[] nmi = {
+            0xe6, 0x11,         // INC $11
+            0x40                // RTI
+        };
+
+        copy (main, image, ORIGIN);
+        copy (irq, image, IRQ_HANDLER);
+        copy (nmi, image, NMI_HANDLER);
+        return image;
+    }
+
+    static void copy (int[] code, byte[] image, char addr) {
+        for (int count = 0; count < code.length; count++) {
+            image[addr - ORIGIN + count] = (byte)code[count];
+        }
+    }
+
+    /**
+     * Compile the program with <code>StaticRecompiler</code>, and then
+     * to a class in <code>dir</code>, and load it.
+     */
+
+    static Class compile (File dir)
+        throws Exception
+    {
+        FileInputStream f = new FileInputStream ("6502.txt");
+        CPUSpecReader reader = new CPUSpecReader (f);
+
+        InstructionSpec[] specs = InstructionSpec.makeInstructionSpecSet
+            (reader.readAllOperationSpecs ());
+
+        f.close ();
+
+        Vector entryPoints = new Vector ();
+        entryPoints.add (Integer.valueOf (ORIGIN));
+        entryPoints.add (Integer.valueOf (IRQ_HANDLER));
+        entryPoints.add (Integer.valueOf (NMI_HANDLER));
+
+        dir.mkdirs ();
+        File source = new File (dir, CLASS_NAME + ".java");
+        FileOutputStream fout = new FileOutputStream (source);
+
+        StaticRecompiler sr = new StaticRecompiler
+            (new IndentingPrintWriter (new OutputStreamWriter (fout)),
+             specs, null, CLASS_NAME, "RecompilerChecker",
+             ORIGIN, makeImage (), entryPoints);
+
+        sr.create ();
+        fout.close ();
+
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler ();
+        if (javac == null) {
+            throw new Exception ("no Java compiler is available");
+        }
+
+        int status = javac.run (null, null, null, "-nowarn",
+                                "-cp", System.getProperty ("java.class.path"),
+                                "-d", dir.getPath (), source.getPath ());
+        if (status != 0) {
+            throw new Exception (source + " did not compile");
+        }
+
+        URLClassLoader loader = new URLClassLoader
+            (new URL[] { dir.toURI ().toURL () },
+             RecompilerChecker.class.getClassLoader ());
+        return loader.loadClass (CLASS_NAME);
+    }
+
+    static void writeVector (J6502 cpu, int vector, char addr) {
+        cpu.writeMemory ((char)vector, (byte)addr);
+        cpu.writeMemory ((char)(vector + 1), (byte)(addr >> 8));
+    }
+
+    /**
+     * Run the program on <code>cpu</code> with the IRQ line held.
+     * Scheduled events release the line at cycle
+     * <code>IRQ_END</code>, and trigger an NMI at <code>NMI_AT</code>,
+     * so that both happen at the same cycle on every core.
+     *
+     * @returns the state it ended in.
+     */
+
+    static String run (J6502 cpu) {
+        writeVector (cpu, J6502.IRQ_VECTOR, IRQ_HANDLER);
+        writeVector (cpu, J6502.NMI_VECTOR, NMI_HANDLER);
+        cpu.setPC (ORIGIN);
+        cpu.setInterrupt (true);
+
+        cpu.setIRQLine (1, true);
+        cpu.getScheduler ().schedule (IRQ_END, new ScheduledEvent () {
+                public void fire (J6502 cpu, long cycle) {
+                    cpu.setIRQLine (1, false);
+                }
+            });
+        cpu.getScheduler ().schedule (NMI_AT, new ScheduledEvent () {
+                public void fire (J6502 cpu, long cycle) {
+                    cpu.triggerNMI ();
+                }
+            });
+        cpu.run (CYCLES);
+
+        return "irqs " + (cpu.readMemory (IRQ_COUNT) & 0xff)
+            + " nmis " + (cpu.readMemory (NMI_COUNT) & 0xff)
+            + " pc " + Integer.toHexString (cpu.getPC ())
+            + " clocks " + cpu.getCycleCount ();
+    }
+
+    public static void main (String[] args)
+        throws Exception
+    {
+        if (args.length != 1) {
+            System.err.println ("usage: java j6502.build.RecompilerChecker directory");
+            System.exit (1);
+        }
+
+        Class compiled = compile (new File (args[0]));
+        J6502 cpu = (J6502)compiled.getConstructor (new Class[] { MemoryModel.class })
+            .newInstance (new Object[] { new DefaultMemoryModel () });
+
+        J6502 interpreter = new J6502 (new DefaultMemoryModel ());
+        byte[] image = makeImage ();
+        for (int count = 0; count < image.length; count++) {
+            interpreter.writeMemory ((char)(ORIGIN + count), image[count]);
+        }
+
+        String want = run (interpreter);
+        String got = run (cpu);
+
+        System.out.println ("interpreted: " + want);
+        System.out.println ("recompiled:  " + got);
+
+        if ((cpu.readMemory (IRQ_COUNT) == 0)
+            || (cpu.readMemory (NMI_COUNT) != 1)
+            || !got.equals (want)) {
+            System.err.println ("RecompilerChecker: the recompiled program"
+                                + " did not take its interrupts like J6502");
+            System.exit (1);
+        }
+
+        System.out.println ("recompiled idle clocks: " + cpu.getIdleClocks ());
+        if (cpu.getIdleClocks () == 0) {
+            System.err.println ("RecompilerChecker: the recompiled program"
+                                + " did not skip its idle loop");
+            System.exit (1);
+        }
+    }
+
+} // class RecompilerChecker
@@ -0,0 +1,244 @@
+package j6502.build;
+
+import j6502.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Runs 6502 programs and counts how often each short sequence of
+ * instructions is executed, to find out which sequences are worth a
+ * superinstruction.  The result is written to standard output in the
+ * format of superinstructions.profile, which <code>J6502Creator</code>
+ * reads.
+ *
+ * <pre>
+ * usage: java j6502.build.SequenceProfiler [-top count]
+ *            [-cycles count] file.o...
+ * </pre>
+ *
+ * <p>
+ * Each file is an object file in the format the debugger loads.  It
+ * is run from its load address until it reaches a <code>BRK</code>,
+ * or for <code>-cycles</code> clock cycles.  Only sequences which
+ * <code>J6502Creator.checkSequence</code> accepts are counted, and the
+ * <code>-top</code> sequences which would save the most dispatches are
+ * written out.
+ * </p>
+ *
+ * @see j6502.build.J6502Creator
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class SequenceProfiler
+    implements StopCondition
+{
+
+    /**
+     * The longest sequence counted.
+     */
+
+    static final int MAX_LENGTH = 3;
+
+    J6502 cpu;
+
+    /**
+     * The addresses and opcodes of the last few instructions,
+     * most recent last.
+     */
+
+    int[] recentPCs = new int[MAX_LENGTH];
+    int[] recentOpcodes = new int[MAX_LENGTH];
+    int recent = 0;
+
+    /**
+     * Execution counts, by sequence (as a String of hex opcodes).
+     */
+
+    Hashtable counts = new Hashtable ();
+
+    public boolean shouldStop (char pc) {
+        int opcode = cpu.readMemory (pc) & 0xff;
+
+        // forget the history if this instruction doesn't follow the
+        // last one in memory
+        if (recent > 0) {
+            int last = recent - 1;
+            int lastOpcode = recentOpcodes[last];
+            if ((J6502Creator.endsBlock (lastOpcode))
+                || ((char)(recentPCs[last] + J6502Constants.sizes[lastOpcode])
+                    != pc)) {
+                recent = 0;
+            }
+        }
+
+        if (recent == MAX_LENGTH) {
+            System.arraycopy (recentPCs, 1, recentPCs, 0, MAX_LENGTH - 1);
+            System.arraycopy (recentOpcodes, 1, recentOpcodes, 0, MAX_LENGTH - 1);
+            recent--;
+        }
+        recentPCs[recent] = pc;
+        recentOpcodes[recent] = opcode;
+        recent++;
+
+        for (int length = 2; length <= recent; length++) {
+            int[] sequence = new int[length];
+            System.arraycopy (recentOpcodes, recent - length, sequence, 0, length);
+
+            if (J6502Creator.checkSequence (sequence) == null) {
+                String key = toString (sequence);
+                int[] count = (int[])counts.get (key);
+                if (count == null) {
+                    count = new int[1];
+                    counts.put (key, count);
+                }
+                count[0]++;
+            }
+        }
+
+        return false;
+    } // shouldStop
+
+    static String toString (int[] sequence) {
+        StringBuffer buf = new StringBuffer ();
+        for (int count = 0; count < sequence.length; count++) {
+            String hex = Integer.toHexString (sequence[count]);
+            if (hex.length () < 2) {
+                hex = "0" + hex;
+            }
+            if (count > 0) {
+                buf.append (' ');
+            }
+            buf.append (hex);
+        }
+        return buf.toString ();
+    }
+
+    /**
+     * Run the program in an object file.
+     */
+
+    void run (File f, int cycles)
+        throws Exception
+    {
+        DataInputStream in = new DataInputStream (new FileInputStream (f));
+
+        if (in.available () < 2) {
+            throw new Exception (f + ": file is truncated");
+        }
+
+        int origin = in.readUnsignedByte ();
+        origin += (in.readUnsignedByte () << 8);
+
+        byte[] objectCode = new byte[in.available ()];
+        in.readFully (objectCode);
+        in.close ();
+
+        cpu = new J6502 ();
+        for (int count = 0; count < objectCode.length; count++) {
+            cpu.writeMemory ((char)(origin + count), objectCode[count]);
+        }
+        cpu.setPC ((char)origin);
+
+        recent = 0;
+        cpu.runUntil (this, cycles);
+    }
+
+    /**
+     * Write the <code>top</code> sequences which would save the most
+     * dispatches, i.e. the number of times they ran times the number
+     * of instructions after the first.
+     */
+
+    void write (PrintWriter out, int top) {
+        Vector keys = new Vector (counts.keySet ());
+        final Hashtable weights = new Hashtable ();
+
+        for (int idx = 0; idx < keys.size (); idx++) {
+            String key = (String)keys.get (idx);
+            int length = new StringTokenizer (key).countTokens ();
+            long weight = (long)((int[])counts.get (key))[0] * (length - 1);
+            weights.put (key, Long.valueOf (weight));
+        }
+
+        Collections.sort (keys, new Comparator () {
+            public int compare (Object a, Object b) {
+                long wa = ((Long)weights.get (a)).longValue ();
+                long wb = ((Long)weights.get (b)).longValue ();
+                if (wa != wb) {
+                    return (wa > wb) ? -1 : 1;
+                }
+                return ((String)a).compareTo ((String)b);
+            }
+        });
+
+        out.println ("# superinstructions.profile");
+        out.println ("#");
+        out.println ("# Opcode sequences to generate superinstructions for, written");
+        out.println ("# by j6502.build.SequenceProfiler.  Each line is one sequence,");
+        out.println ("# in hex.");
+        out.println ();
+
+        for (int idx = 0; (idx < keys.size ()) && (idx < top); idx++) {
+            String key = (String)keys.get (idx);
+            StringTokenizer st = new StringTokenizer (key);
+            StringBuffer names = new StringBuffer ();
+            while (st.hasMoreTokens ()) {
+                if (names.length () > 0) {
+                    names.append (' ');
+                }
+                names.append (J6502Constants.names
+                              [Integer.parseInt (st.nextToken (), 16)]);
+            }
+
+            StringBuffer line = new StringBuffer (key);
+            while (line.length () < 12) {
+                line.append (' ');
+            }
+            out.println (line + "# " + names + ", "
+                         + ((int[])counts.get (key))[0] + " times");
+        }
+        out.flush ();
+    } // write
+
+    static void usage () {
+        System.err.println ("usage: java j6502.build.SequenceProfiler"
+                            + " [-top count] [-cycles count] file.o...");
+        System.exit (1);
+    }
+
+    public static void main (String[] args)
+        throws Exception
+    {
+        int top = 16;
+        int cycles = 10000000;
+        int arg = 0;
+
+        while ((arg < args.length) && args[arg].startsWith ("-")) {
+            if (arg + 1 >= args.length) {
+                usage ();
+            }
+            if (args[arg].equals ("-top")) {
+                top = Integer.parseInt (args[arg + 1]);
+            } else if (args[arg].equals ("-cycles")) {
+                cycles = Integer.parseInt (args[arg + 1]);
+            } else {
+                usage ();
+            }
+            arg += 2;
+        }
+        if (arg == args.length) {
+            usage ();
+        }
+
+        SequenceProfiler profiler = new SequenceProfiler ();
+        for (; arg < args.length; arg++) {
+            profiler.run (new File (args[arg]), cycles);
+        }
+        profiler.write (new PrintWriter (System.out), top);
+    }
+
+} // class SequenceProfiler
@@ -0,0 +1,185 @@
+package j6502.build;
+
+// StateChecker.java
+// Richard Russo
+
+import j6502.*;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+
+/**
+ * Checks that a state saved with <code>saveState</code> and loaded
+ * with <code>loadState</code> carries on exactly where it left off.
+ * Each workload of the corpus is stopped halfway, saved, loaded into
+ * a new CPU and run to the end there, which must end in the recorded
+ * state after the recorded number of clocks.  A CPU on a
+ * <code>PageTableMemoryModel</code> with RAM, ROM, a mirror and an
+ * I/O page is then saved and loaded, and its RAM must come back
+ * without the I/O handler being read or written.  This is run by the
+ * build, and fails the build if either does not hold.
+ *
+ * <pre>
+ * usage: java j6502.build.StateChecker directory
+ * </pre>
+ *
+ * @see j6502.J6502Skeleton#saveState(ByteBuffer)
+ * @see j6502.build.WorkloadRunner
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class StateChecker {
+
+    /**
+     * An I/O handler which counts the accesses made to it.
+     */
+
+    static class CountingDevice implements MemoryModel {
+
+        int reads;
+        int writes;
+
+        public byte readMemory (char addr) {
+            reads++;
+            return (byte)0xff;
+        }
+
+        public void writeMemory (char addr, byte data) {
+            writes++;
+        }
+
+        public void reset () {
+        }
+
+    } // class CountingDevice
+
+    /**
+     * Run <code>workload</code> halfway, save it, load it into a new
+     * CPU and run it to the end.
+     *
+     * @returns the lines which differ from the recorded results.
+     */
+
+    static Vector checkWorkload (WorkloadRunner workload) {
+        long clocks = Long.parseLong (workload.expected.getProperty ("clocks").trim ());
+        ByteBuffer state = ByteBuffer.allocate (J6502.STATE_SIZE);
+
+        J6502 first = workload.setUp ();
+        first.run ((int)(clocks / 2));
+        first.saveState (state);
+        state.flip ();
+
+        J6502 second = workload.setUp ();
+        second.reset ();
+        second.loadState (state);
+
+        Vector wrong = new Vector ();
+        if (second.getCycleCount () != first.getCycleCount ()) {
+            wrong.addElement ("loaded at clock " + second.getCycleCount ()
+                              + ", saved at " + first.getCycleCount ());
+        }
+
+        int stop = second.run ((int)(workload.cycles - second.getCycleCount ()));
+        wrong.addAll (workload.compare (second, stop));
+        return wrong;
+    }
+
+    /**
+     * Save and load a CPU whose memory has an I/O page.
+     *
+     * @returns what went wrong, or <code>null</code>.
+     */
+
+    static String checkIO () {
+        PageTableMemoryModel memory = new PageTableMemoryModel ();
+        CountingDevice device = new CountingDevice ();
+        byte[] rom = new byte[256];
+
+        byte[] ram = memory.mapRAM (0x00, 0x40);
+        memory.mirror (0x40, 0x40, 0x00);
+        memory.mapIO (0xd0, 1, device);
+        memory.mapROM (0xff, 1, rom, 0);
+        rom[0xfc] = 0x00;
+        rom[0xfd] = 0x02;
+
+        J6502 cpu = new J6502 (memory);
+        for (int addr = 0; addr < ram.length; addr++) {
+            ram[addr] = (byte)(addr * 7);
+        }
+
+        ByteBuffer state = ByteBuffer.allocate (J6502.STATE_SIZE);
+        cpu.saveState (state);
+        state.flip ();
+
+        Arrays.fill (ram, (byte)0);
+        cpu.loadState (state);
+
+        if ((device.reads != 0) || (device.writes != 0)) {
+            return "the I/O page was read " + device.reads
+                + " times and written " + device.writes + " times";
+        }
+        for (int addr = 0; addr < ram.length; addr++) {
+            if (ram[addr] != (byte)(addr * 7)) {
+                return "RAM at " + Integer.toHexString (addr)
+                    + " was not restored";
+            }
+        }
+        if (state.hasRemaining ()) {
+            return "loadState left " + state.remaining () + " bytes";
+        }
+        return null;
+    }
+
+    public static void main (String[] args)
+        throws Exception
+    {
+        if (args.length != 1) {
+            System.err.println ("usage: java j6502.build.StateChecker directory");
+            System.exit (1);
+        }
+
+        File dir = new File (args[0]);
+        String[] names = dir.list ();
+        boolean ok = true;
+
+        Arrays.sort (names);
+        for (int idx = 0; idx < names.length; idx++) {
+            if (!names[idx].endsWith (".expect")) {
+                continue;
+            }
+
+            WorkloadRunner workload = new WorkloadRunner (new File (dir, names[idx]));
+            Vector wrong = checkWorkload (workload);
+
+            if (wrong.size () > 0) {
+                ok = false;
+                System.out.println (workload.name + ": FAILED");
+                for (int line = 0; line < wrong.size (); line++) {
+                    System.out.println ("    " + wrong.elementAt (line));
+                }
+            } else {
+                System.out.println (workload.name + ": ok");
+            }
+        }
+
+        String io = checkIO ();
+        if (io != null) {
+            ok = false;
+            System.out.println ("I/O page: FAILED");
+            System.out.println ("    " + io);
+        } else {
+            System.out.println ("I/O page: ok");
+        }
+
+        if (!ok) {
+            System.err.println ("StateChecker: a loaded state did not carry on"
+                                + " like the one saved");
+            System.exit (1);
+        }
+    }
+
+} // class StateChecker
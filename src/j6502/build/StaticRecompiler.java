@@ -0,0 +1,936 @@
+package j6502.build;
+
+import j6502.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Compiles a 6502 program ahead of time into a Java class.
+ *
+ * <p>
+ * The program is read either from an object file in the format the
+ * debugger loads (a two byte load address followed by the code), or
+ * from a raw image with a given load address.  Starting from the
+ * entry points, every instruction that can be reached by falling
+ * through, branching, <code>JMP</code> or <code>JSR</code> is found.
+ * Each routine (an entry point or the target of a <code>JSR</code>)
+ * becomes one Java method, and each instruction in it is written out
+ * using its template from 6502.txt, just like the handlers of
+ * <code>J6502</code>, but with the operands filled in as constants.
+ * </p>
+ * <p>
+ * The generated class extends <code>J6502</code>.  Its constructors
+ * and <code>reset</code> load the program into memory, and its
+ * <code>run</code> executes the compiled routines whenever the
+ * program counter is at one of them.  Code that was not found (e.g.
+ * the targets of indirect jumps, or code built at run time) is
+ * interpreted, one instruction at a time.  If the CPU writes to any
+ * byte of the compiled code, the class gives up on the compiled code
+ * and interprets everything until the next <code>reset</code>.
+ * Clock counts are the same as when interpreting, but like
+ * <code>TieredEngine</code>, the cycle budget is only checked between
+ * basic blocks.
+ * </p>
+ *
+ * <pre>
+ * usage: java j6502.build.StaticRecompiler [-raw address]
+ *            [-entry address]... [-package name] file ClassName
+ * </pre>
+ *
+ * <p>
+ * Addresses are in hex.  6502.txt must be in the current directory,
+ * and <code>ClassName.java</code> is written there.
+ * </p>
+ *
+ * @see j6502.TieredEngine
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class StaticRecompiler
+    extends CodeCreator
+{
+
+    /**
+     * The most instructions compiled into one method.  Larger
+     * routines are split, so that no method is too big for the JIT.
+     */
+
+    static final int MAX_ROUTINE_INSTRUCTIONS = 100;
+
+    /**
+     * The most instructions in one basic block.  Longer runs of
+     * straight-line code are split into several blocks.
+     */
+
+    static final int MAX_BLOCK_INSTRUCTIONS = 50;
+
+    /**
+     * The number of bytes of the image in each string constant.
+     */
+
+    static final int IMAGE_CHUNK = 4096;
+
+    IndentingPrintWriter ipw;
+
+    J6502Creator creator;
+
+    InstructionSpec[] set;
+
+    String packageName;
+    String className;
+    String sourceName;
+
+    char origin;
+    byte[] image;
+    Vector entryPoints;
+
+    DefaultMemoryModel memory = new DefaultMemoryModel ();
+    Disassembler disassembler = new Disassembler (memory);
+
+    boolean[] isInstruction = new boolean[65536];
+    boolean[] isLeader = new boolean[65536];
+    boolean[] isRoutine = new boolean[65536];
+    int[] routineOf = new int[65536];
+
+    /**
+     * The first address of every routine, in address order.
+     */
+
+    Vector routines = new Vector ();
+
+    /**
+     * The first address of every block of each routine, in address
+     * order, by the routine's first address.
+     */
+
+    Hashtable routineBlocks = new Hashtable ();
+
+    public StaticRecompiler (PrintWriter out,
+                             InstructionSpec[] set,
+                             String packageName,
+                             String className,
+                             String sourceName,
+                             char origin,
+                             byte[] image,
+                             Vector entryPoints)
+    {
+        creator = new J6502Creator (out, set);
+        creator.clocksVar = "last";
+        ipw = creator.ipw;
+        this.set = set;
+        this.packageName = packageName;
+        this.className = className;
+        this.sourceName = sourceName;
+        this.origin = origin;
+        this.image = image;
+        this.entryPoints = entryPoints;
+
+        for (int count = 0; count < image.length; count++) {
+            memory.writeMemory ((char)(origin + count), image[count]);
+        }
+    }
+
+    boolean inImage (int addr) {
+        return ((addr - origin) & 0xffff) < image.length;
+    }
+
+    int opcodeAt (int addr) {
+        return memory.readMemory ((char)addr) & 0xff;
+    }
+
+    byte operandAt (int addr, int count) {
+        return memory.readMemory ((char)(addr + count));
+    }
+
+    int sizeAt (int addr) {
+        return J6502Constants.sizes[opcodeAt (addr)];
+    }
+
+    boolean endsBlock (int opcode) {
+        return J6502Creator.endsBlock (opcode);
+    }
+
+    boolean isBranch (int opcode) {
+        return J6502Constants.modes[opcode].equals
+            (AddressingMode.JMP_RELATIVE);
+    }
+
+    boolean isJump (int opcode) {
+        return J6502Constants.modes[opcode].equals
+            (AddressingMode.JMP_DIRECT);
+    }
+
+    boolean isCall (int opcode) {
+        return J6502Constants.names[opcode].equals ("JSR");
+    }
+
+    int branchTarget (int addr) {
+        return (char)(addr + 2 + operandAt (addr, 1));
+    }
+
+    int jumpTarget (int addr) {
+        return (operandAt (addr, 1) & 0xff)
+            | ((operandAt (addr, 2) & 0xff) << 8);
+    }
+
+    /**
+     * Returns true if the instruction can write to memory, so compiled
+     * code may have to stop after it.
+     */
+
+    boolean writesMemory (int opcode) {
+        InstructionSpec is = set[opcode];
+        AddressingMode mode = is.rec.addrMode;
+
+        if (is.write && !mode.equals (AddressingMode.ACCUMULATOR)) {
+            return true;
+        }
+
+        String[] code = is.code.getCode ();
+        for (int count = 0; count < code.length; count++) {
+            if ((code[count].indexOf ("push (") >= 0)
+                || (code[count].indexOf ("writeMemory (") >= 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void addLeader (Vector work, int addr, boolean routine) {
+        addr = (char)addr;
+
+        if (routine) {
+            isRoutine[addr] = true;
+        }
+        if (!isLeader[addr]) {
+            isLeader[addr] = true;
+            work.add (Integer.valueOf (addr));
+        }
+    }
+
+    /**
+     * Find every instruction reachable from the entry points, and the
+     * first instruction of every basic block.
+     */
+
+    void discover () {
+        Vector work = new Vector ();
+
+        for (int count = 0; count < entryPoints.size (); count++) {
+            addLeader (work, ((Integer)entryPoints.get (count)).intValue (),
+                       true);
+        }
+
+        while (!work.isEmpty ()) {
+            int addr = ((Integer)work.remove (work.size () - 1)).intValue ();
+            boolean first = true;
+            int length = 0;
+
+            while (inImage (addr)) {
+                if (isInstruction[addr]) {
+                    if (!first) {
+                        isLeader[addr] = true;
+                    }
+                    break;
+                }
+
+                int opcode = opcodeAt (addr);
+                int size = J6502Constants.sizes[opcode];
+
+                if ((size == 0) || (opcode == 0x00)
+                    || !inImage (addr + size - 1)) {
+                    break;
+                }
+
+                isInstruction[addr] = true;
+                first = false;
+
+                int next = (char)(addr + size);
+
+                if (isBranch (opcode)) {
+                    addLeader (work, branchTarget (addr), false);
+                    addLeader (work, next, false);
+                    break;
+                } else if (isCall (opcode)) {
+                    addLeader (work, jumpTarget (addr), true);
+                    addLeader (work, next, false);
+                    break;
+                } else if (isJump (opcode)) {
+                    addLeader (work, jumpTarget (addr), false);
+                    break;
+                } else if (endsBlock (opcode)) {
+                    break;
+                } else if (++length == MAX_BLOCK_INSTRUCTIONS) {
+                    addLeader (work, next, false);
+                    break;
+                }
+
+                addr = next;
+            }
+        }
+
+        // a leader which turned out not to be code is left to the
+        // interpreter
+        for (int addr = 0; addr < 65536; addr++) {
+            if (!isInstruction[addr]) {
+                isLeader[addr] = false;
+                isRoutine[addr] = false;
+            }
+        }
+    } // discover
+
+    /**
+     * Get the address of the last instruction of the block starting
+     * at <code>addr</code>.
+     */
+
+    int lastInstruction (int addr) {
+        while (true) {
+            int opcode = opcodeAt (addr);
+            int next = (char)(addr + J6502Constants.sizes[opcode]);
+
+            if (endsBlock (opcode) || !isInstruction[next]
+                || isLeader[next]) {
+                return addr;
+            }
+            addr = next;
+        }
+    }
+
+    int blockSize (int addr) {
+        int size = 1;
+        for (int last = lastInstruction (addr); addr != last; size++) {
+            addr = (char)(addr + sizeAt (addr));
+        }
+        return size;
+    }
+
+    /**
+     * Put every block into a routine.  Each routine gets the blocks
+     * reachable from its first one without a <code>JSR</code>, up to
+     * <code>MAX_ROUTINE_INSTRUCTIONS</code>.  A block which does not
+     * fit starts a routine of its own.
+     */
+
+    void assignRoutines () {
+        Vector heads = new Vector ();
+
+        Arrays.fill (routineOf, -1);
+        for (int addr = 0; addr < 65536; addr++) {
+            if (isRoutine[addr]) {
+                heads.add (Integer.valueOf (addr));
+            }
+        }
+
+        for (int idx = 0; idx < heads.size (); idx++) {
+            int head = ((Integer)heads.get (idx)).intValue ();
+            if (routineOf[head] >= 0) {
+                continue;
+            }
+
+            Vector work = new Vector ();
+            int instructions = 0;
+
+            routineOf[head] = head;
+            work.add (Integer.valueOf (head));
+
+            while (!work.isEmpty ()) {
+                int block = ((Integer)work.remove (0)).intValue ();
+                int size = blockSize (block);
+
+                if ((block != head)
+                    && (instructions + size > MAX_ROUTINE_INSTRUCTIONS)) {
+                    routineOf[block] = -1;
+                    isRoutine[block] = true;
+                    heads.add (Integer.valueOf (block));
+                    continue;
+                }
+                instructions += size;
+
+                int last = lastInstruction (block);
+                int opcode = opcodeAt (last);
+                int next = (char)(last + J6502Constants.sizes[opcode]);
+                int[] successors;
+
+                if (isBranch (opcode)) {
+                    successors = new int[] { branchTarget (last), next };
+                } else if (isCall (opcode)) {
+                    successors = new int[] { next };
+                } else if (isJump (opcode)) {
+                    successors = new int[] { jumpTarget (last) };
+                } else if (endsBlock (opcode)) {
+                    successors = new int[0];
+                } else {
+                    successors = new int[] { next };
+                }
+
+                for (int count = 0; count < successors.length; count++) {
+                    int addr = successors[count];
+                    if (isLeader[addr] && !isRoutine[addr]
+                        && (routineOf[addr] < 0)) {
+                        routineOf[addr] = head;
+                        work.add (Integer.valueOf (addr));
+                    }
+                }
+            }
+        }
+
+        for (int addr = 0; addr < 65536; addr++) {
+            if (isRoutine[addr]) {
+                routines.add (Integer.valueOf (addr));
+                routineBlocks.put (Integer.valueOf (addr), new Vector ());
+            }
+        }
+        for (int addr = 0; addr < 65536; addr++) {
+            if (isLeader[addr]) {
+                ((Vector)routineBlocks.get (Integer.valueOf (routineOf[addr])))
+                    .add (Integer.valueOf (addr));
+            }
+        }
+    } // assignRoutines
+
+    String hex (int value, int digits) {
+        String s = Integer.toHexString (value);
+        while (s.length () < digits) {
+            s = "0" + s;
+        }
+        return s;
+    }
+
+    String routineName (int addr) {
+        return "routine_" + hex (addr, 4);
+    }
+
+    String[] preCode () {
+        Vector code = new Vector ();
+
+        if (packageName != null) {
+            code.add ("package " + packageName + ";");
+            code.add ("");
+        }
+        code.add ("import j6502.*;");
+        code.add ("");
+        code.add ("/**");
+        code.add (" * " + sourceName + ", compiled to Java by");
+        code.add (" * <code>j6502.build.StaticRecompiler</code>.  Do not edit.");
+        code.add (" *");
+        code.add (" * <p>");
+        code.add (" * The program is loaded into memory by the constructors and by");
+        code.add (" * <code>reset</code>.  <code>run</code> executes the compiled");
+        code.add (" * routines, and interprets any code that was not compiled.  If");
+        code.add (" * the CPU writes to the compiled code, it is no longer used");
+        code.add (" * until the next <code>reset</code>.");
+        code.add (" * </p>");
+        code.add (" */");
+        code.add ("");
+        code.add ("public class " + className + " extends J6502 {");
+        code.add ("");
+        code.add ("    public static final char ORIGIN = 0x" + hex (origin, 4) + ";");
+        code.add ("");
+
+        int entry = ((Integer)entryPoints.get (0)).intValue ();
+        code.add ("    public static final char ENTRY_POINT = 0x" + hex (entry, 4) + ";");
+        code.add ("");
+        code.add ("    static final String[] IMAGE = {");
+        for (int start = 0; start < image.length; start += IMAGE_CHUNK) {
+            int end = Math.min (start + IMAGE_CHUNK, image.length);
+            addString (code, image, start, end);
+        }
+        code.add ("    };");
+        code.add ("");
+
+        // pairs of (block address, routine number)
+        byte[] blocks = new byte[4 * countBlocks ()];
+        int length = 0;
+        for (int idx = 0; idx < routines.size (); idx++) {
+            Vector v = (Vector)routineBlocks.get (routines.get (idx));
+            for (int count = 0; count < v.size (); count++) {
+                int addr = ((Integer)v.get (count)).intValue ();
+                blocks[length++] = (byte)(addr >> 8);
+                blocks[length++] = (byte)addr;
+                blocks[length++] = (byte)((idx + 1) >> 8);
+                blocks[length++] = (byte)(idx + 1);
+            }
+        }
+
+        code.add ("    static final String[] BLOCKS = {");
+        for (int start = 0; start < blocks.length; start += IMAGE_CHUNK) {
+            addString (code, blocks, start,
+                       Math.min (start + IMAGE_CHUNK, blocks.length));
+        }
+        code.add ("    };");
+        code.add ("");
+        code.add ("    /**");
+        code.add ("     * The number of the routine which contains the block starting");
+        code.add ("     * at each address, or 0.");
+        code.add ("     */");
+        code.add ("");
+        code.add ("    static final short[] ROUTINES = new short[65536];");
+        code.add ("");
+        code.add ("    static {");
+        code.add ("        for (int chunk = 0; chunk < BLOCKS.length; chunk++) {");
+        code.add ("            String s = BLOCKS[chunk];");
+        code.add ("            for (int count = 0; count < s.length (); count += 4) {");
+        code.add ("                char addr = (char)((s.charAt (count) << 8) | s.charAt (count + 1));");
+        code.add ("                ROUTINES[addr] = (short)((s.charAt (count + 2) << 8)");
+        code.add ("                                         | s.charAt (count + 3));");
+        code.add ("            }");
+        code.add ("        }");
+        code.add ("    }");
+        code.add ("");
+        code.add ("    boolean compiled;");
+        code.add ("");
+        code.add ("    public " + className + " (MemoryModel mem) {");
+        code.add ("        super (mem);");
+        code.add ("    }");
+        code.add ("");
+        code.add ("    public " + className + " () {");
+        code.add ("        super ();");
+        code.add ("    }");
+        code.add ("");
+        code.add ("    /**");
+        code.add ("     * Reset the CPU and its memory, load the program again, and");
+        code.add ("     * start from its reset vector, if it has one.");
+        code.add ("     */");
+        code.add ("");
+        code.add ("    public void reset () {");
+        code.add ("        super.reset ();");
+        code.add ("        clearCompiledCode ();");
+        code.add ("");
+        code.add ("        char addr = ORIGIN;");
+        code.add ("        for (int chunk = 0; chunk < IMAGE.length; chunk++) {");
+        code.add ("            for (int count = 0; count < IMAGE[chunk].length (); count++) {");
+        code.add ("                writeMemory (addr++, (byte)IMAGE[chunk].charAt (count));");
+        code.add ("            }");
+        code.add ("        }");
+        code.add ("");
+        code.add ("        setPC ((char)((readMemory ((char)RESET_VECTOR) & 0xff)");
+        code.add ("                      | ((readMemory ((char)(RESET_VECTOR + 1)) & 0xff) << 8)));");
+        code.add ("        markCompiledRoutines ();");
+        code.add ("        clearCodeWritten ();");
+        code.add ("        compiled = true;");
+        code.add ("    }");
+        code.add ("");
+
+        String[] result = new String[code.size ()];
+        code.copyInto (result);
+        return result;
+    } // preCode
+
+    int countBlocks () {
+        int count = 0;
+        for (int addr = 0; addr < 65536; addr++) {
+            if (isLeader[addr]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Add the bytes from <code>start</code> to <code>end</code> as a
+     * string constant, one char per byte, 16 bytes to a line.
+     */
+
+    void addString (Vector code, byte[] bytes, int start, int end) {
+        StringBuffer line = new StringBuffer ();
+
+        for (int count = start; count < end; count++) {
+            if (line.length () == 0) {
+                line.append ((count == start) ? "        \"" : "        + \"");
+            }
+            line.append ('\\');
+            line.append (Integer.toOctalString (bytes[count] & 0xff));
+            if (((count - start) % 16 == 15) || (count == end - 1)) {
+                line.append ('"');
+                if (count == end - 1) {
+                    line.append (',');
+                }
+                code.add (line.toString ());
+                line.setLength (0);
+            }
+        }
+    }
+
+    String[] runCode = {
+        "    /**",
+        "     * Run the program until the cycle budget is used up, or a",
+        "     * <code>BRK</code> or bad opcode is reached.  With a stop",
+        "     * condition or breakpoints, everything is interpreted.",
+        "     * Compiled routines only run up to the checkpoint, so",
+        "     * scheduled events are called, and interrupts taken, between",
+        "     * basic blocks.",
+        "     *",
+        "     * @see j6502.J6502Skeleton#runUntil(StopCondition,int)",
+        "     */",
+        "",
+        "    public int runUntil (StopCondition condition, int cycleBudget) {",
+        "        if ((condition != null) || !compiled || hasBreakpoints ()) {",
+        "            return super.runUntil (condition, cycleBudget);",
+        "        }",
+        "",
+        "        long end = getCycleCount () + cycleBudget;",
+        "        int reason = STOP_BUDGET;",
+        "",
+        "        while (getCycleCount () < end) {",
+        "            if (getCycleCount () >= getCheckpoint ()) {",
+        "                serviceCheckpoint (end);",
+        "                continue;",
+        "            }",
+        "",
+        "            int routine = ROUTINES[pc];",
+        "            long now = getCycleCount ();",
+        "            long stop = Math.min (end, getCheckpoint ());",
+        "",
+        "            if ((routine != 0) && (now < stop)) {",
+        "                advanceCycleCount (callRoutine (routine, (int)(stop - now)));",
+        "            } else {",
+        "                int opcode = readMemory (pc) & 0xff;",
+        "                if (J6502Constants.sizes[opcode] == 0) {",
+        "                    reason = STOP_BAD_OPCODE;",
+        "                    break;",
+        "                }",
+        "                if (opcode == 0x00) {",
+        "                    reason = STOP_BREAK;",
+        "                    break;",
+        "                }",
+        "                execute ();",
+        "            }",
+        "",
+        "            if (isCodeWritten ()) {",
+        "                compiled = false;",
+        "                clearCompiledCode ();",
+        "                return super.runUntil (null, (int)(end - getCycleCount ()));",
+        "            }",
+        "        }",
+        "",
+        "        return reason;",
+        "    } // runUntil",
+        ""
+    };
+
+    void createMarkCompiledRoutines () {
+        ipw.println ("private void markCompiledRoutines () {");
+        ipw.indent ();
+
+        int addr = 0;
+        while (addr < 65536) {
+            if (!isInstruction[addr]) {
+                addr++;
+                continue;
+            }
+
+            int start = addr;
+            int end = addr;
+            while ((addr < 65536) && isInstruction[addr]) {
+                end = Math.max (end, addr + sizeAt (addr));
+                addr++;
+                while ((addr < end) && (addr < 65536)) {
+                    if (isInstruction[addr]) {
+                        break;
+                    }
+                    addr++;
+                }
+            }
+            ipw.println ("markCompiledCode ((char)0x" + hex (start, 4)
+                         + ", " + (end - start) + ");");
+        }
+
+        ipw.unindent ();
+        ipw.println ("}");
+        ipw.println ();
+    } // createMarkCompiledRoutines
+
+    /**
+     * Returns true if the instruction can change the checkpoint, by
+     * clearing the interrupt flag or by writing to a device which
+     * raises an interrupt line or schedules an event.  The routine
+     * returns after it if the checkpoint changed, so the interrupt is
+     * taken before the next instruction, as when interpreting.
+     */
+
+    boolean changesCheckpoint (int opcode) {
+        String name = J6502Constants.names[opcode];
+
+        return writesMemory (opcode)
+            || name.equals ("CLI")
+            || name.equals ("PLP")
+            || name.equals ("RTI");
+    }
+
+    /**
+     * Write the code for the instruction at <code>addr</code>.  The
+     * clocks it took are left in <code>last</code>, and added to
+     * <code>clocks</code>.
+     */
+
+    void createInstruction (int addr) {
+        int opcode = opcodeAt (addr);
+        int size = J6502Constants.sizes[opcode];
+        InstructionSpec is = set[opcode];
+
+        String[] operands = {
+            "(byte)0x" + hex (operandAt (addr, 1) & 0xff, 2),
+            "(byte)0x" + hex (operandAt (addr, 2) & 0xff, 2)
+        };
+
+        ipw.println ("// " + hex (addr, 4) + ": "
+                     + disassembler.getCode ((char)addr));
+        ipw.println ("pc = 0x" + hex ((char)(addr + size), 4) + ";");
+        ipw.println ("last = " + J6502Constants.clocks[opcode] + ";");
+        creator.create (is, operands);
+        ipw.println ("clocks += last;");
+
+        if (writesMemory (opcode)) {
+            ipw.println ("if (isCodeWritten () || (getCheckpoint () != checkpoint)) {");
+            ipw.indent ();
+            ipw.println ("setLastClocks (last);");
+            ipw.println ("return clocks;");
+            ipw.unindent ();
+            ipw.println ("}");
+        } else if (changesCheckpoint (opcode)) {
+            ipw.println ("if (getCheckpoint () != checkpoint) {");
+            ipw.indent ();
+            ipw.println ("setLastClocks (last);");
+            ipw.println ("return clocks;");
+            ipw.unindent ();
+            ipw.println ("}");
+        }
+    } // createInstruction
+
+    /**
+     * Write the method for the routine starting at <code>head</code>.
+     * It keeps running blocks of the routine until the program
+     * counter leaves it, <code>budget</code> clocks have passed, or an
+     * instruction changes the checkpoint.
+     */
+
+    void createRoutine (int head) {
+        Vector blocks = (Vector)routineBlocks.get (Integer.valueOf (head));
+
+        ipw.println ("private int " + routineName (head) + " (int budget) {");
+        ipw.indent ();
+        ipw.println ("int     clocks = 0;");
+        ipw.println ("int     last = 0;");
+        ipw.println ("long    checkpoint = getCheckpoint ();");
+        ipw.println ("char    addr;");
+        ipw.println ("byte    tmp;");
+        ipw.println ();
+        ipw.println ("do {");
+        ipw.indent ();
+        ipw.println ("switch (pc) {");
+
+        for (int idx = 0; idx < blocks.size (); idx++) {
+            int block = ((Integer)blocks.get (idx)).intValue ();
+            int last = lastInstruction (block);
+            int next = (char)(last + sizeAt (last));
+
+            ipw.println ("case 0x" + hex (block, 4) + ":");
+            ipw.indent ();
+            for (int addr = block; ; addr = (char)(addr + sizeAt (addr))) {
+                createInstruction (addr);
+                if (addr == last) {
+                    break;
+                }
+            }
+
+            boolean fallsThrough = !endsBlock (opcodeAt (last))
+                && (idx + 1 < blocks.size ())
+                && (((Integer)blocks.get (idx + 1)).intValue () == next);
+            if (!fallsThrough) {
+                ipw.println ("break;");
+            }
+            ipw.unindent ();
+        }
+
+        ipw.println ("default:");
+        ipw.indent ();
+        ipw.println ("setLastClocks (last);");
+        ipw.println ("return clocks;");
+        ipw.unindent ();
+        ipw.println ("}");
+        ipw.unindent ();
+        ipw.println ("} while (clocks < budget);");
+        ipw.println ();
+        ipw.println ("setLastClocks (last);");
+        ipw.println ("return clocks;");
+        ipw.unindent ();
+        ipw.println ("} // " + routineName (head));
+        ipw.println ();
+    } // createRoutine
+
+    /**
+     * Write <code>callRoutine</code>, which calls a routine by its
+     * number.  The switch is split by 256 routines at a time, to keep
+     * each method small.
+     */
+
+    void createCallRoutine () {
+        int groups = (routines.size () >> 8) + 1;
+
+        ipw.println ("private int callRoutine (int routine, int budget) {");
+        ipw.indent ();
+        ipw.println ("switch (routine >> 8) {");
+        for (int group = 0; group < groups; group++) {
+            ipw.println ("case " + group + ":");
+            ipw.indent ();
+            ipw.println ("return callRoutine" + group + " (routine, budget);");
+            ipw.unindent ();
+        }
+        ipw.println ("default:");
+        ipw.indent ();
+        ipw.println ("return 0;");
+        ipw.unindent ();
+        ipw.println ("}");
+        ipw.unindent ();
+        ipw.println ("}");
+        ipw.println ();
+
+        for (int group = 0; group < groups; group++) {
+            ipw.println ("private int callRoutine" + group
+                         + " (int routine, int budget) {");
+            ipw.indent ();
+            ipw.println ("switch (routine) {");
+            for (int idx = group << 8;
+                 (idx < routines.size ()) && (idx < (group + 1) << 8);
+                 idx++) {
+                int head = ((Integer)routines.get (idx)).intValue ();
+                ipw.println ("case " + (idx + 1) + ":");
+                ipw.indent ();
+                ipw.println ("return " + routineName (head) + " (budget);");
+                ipw.unindent ();
+            }
+            ipw.println ("default:");
+            ipw.indent ();
+            ipw.println ("return 0;");
+            ipw.unindent ();
+            ipw.println ("}");
+            ipw.unindent ();
+            ipw.println ("}");
+            ipw.println ();
+        }
+    } // createCallRoutine
+
+    public void create () {
+        discover ();
+        assignRoutines ();
+
+        printCode (ipw, preCode ());
+
+        ipw.indent ();
+        createMarkCompiledRoutines ();
+        ipw.unindent ();
+
+        printCode (ipw, runCode);
+
+        ipw.indent ();
+        createCallRoutine ();
+        for (int idx = 0; idx < routines.size (); idx++) {
+            createRoutine (((Integer)routines.get (idx)).intValue ());
+        }
+        ipw.unindent ();
+
+        ipw.println ("} // class " + className);
+        ipw.flush ();
+    } // create
+
+    static int parseAddress (String s) {
+        if (s.startsWith ("$")) {
+            s = s.substring (1);
+        } else if (s.startsWith ("0x")) {
+            s = s.substring (2);
+        }
+
+        int addr = Integer.parseInt (s, 16);
+        if ((addr < 0) || (addr > 0xffff)) {
+            throw new NumberFormatException ("bad address: " + s);
+        }
+        return addr;
+    }
+
+    static void usage () {
+        System.err.println ("usage: java j6502.build.StaticRecompiler"
+                            + " [-raw address] [-entry address]..."
+                            + " [-package name] file ClassName");
+        System.exit (1);
+    }
+
+    public static void main (String[] args)
+        throws Exception
+    {
+        int rawOrigin = -1;
+        String packageName = null;
+        Vector entryPoints = new Vector ();
+        int arg = 0;
+
+        while ((arg < args.length) && args[arg].startsWith ("-")) {
+            if (arg + 1 >= args.length) {
+                usage ();
+            }
+            if (args[arg].equals ("-raw")) {
+                rawOrigin = parseAddress (args[arg + 1]);
+            } else if (args[arg].equals ("-entry")) {
+                entryPoints.add (Integer.valueOf (parseAddress (args[arg + 1])));
+            } else if (args[arg].equals ("-package")) {
+                packageName = args[arg + 1];
+            } else {
+                usage ();
+            }
+            arg += 2;
+        }
+        if (arg + 2 != args.length) {
+            usage ();
+        }
+
+        File file = new File (args[arg]);
+        String className = args[arg + 1];
+
+        DataInputStream in = new DataInputStream (new FileInputStream (file));
+        int origin = rawOrigin;
+        if (origin < 0) {
+            if (in.available () < 2) {
+                throw new Exception ("file is truncated");
+            }
+            origin = in.readUnsignedByte ();
+            origin += (in.readUnsignedByte () << 8);
+        }
+
+        byte[] image = new byte[in.available ()];
+        in.readFully (image);
+        in.close ();
+
+        if (image.length > 65536) {
+            throw new Exception ("file size: " + image.length
+                                 + " is too big to be loaded");
+        }
+        if (entryPoints.isEmpty ()) {
+            entryPoints.add (Integer.valueOf (origin));
+        }
+
+        FileInputStream f = new FileInputStream ("6502.txt");
+        CPUSpecReader reader = new CPUSpecReader (f);
+
+        OperationSpec[] ospecs = reader.readAllOperationSpecs ();
+
+        InstructionSpec[] specs =
+            InstructionSpec.makeInstructionSpecSet (ospecs);
+
+        f.close ();
+
+        FileOutputStream fout = new FileOutputStream (className + ".java");
+
+        StaticRecompiler sr = new StaticRecompiler
+            (new IndentingPrintWriter (new OutputStreamWriter (fout)),
+             specs, packageName, className, file.getName (),
+             (char)origin, image, entryPoints);
+
+        sr.create ();
+
+        fout.close ();
+    }
+
+} // class StaticRecompiler
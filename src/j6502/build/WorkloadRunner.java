@@ -0,0 +1,488 @@
+package j6502.build;
+
+import j6502.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Runs the workload corpus: 6502 programs whose final state and exact
+ * clock count are recorded, so that a faster core can be checked for
+ * both correctness and cycle accuracy, and timed.
+ *
+ * <pre>
+ * usage: java j6502.build.WorkloadRunner [-time ms] [-record]
+ *            file.expect|directory...
+ * </pre>
+ *
+ * <p>
+ * Each workload is described by a <code>.expect</code> file, in the
+ * format of <code>java.util.Properties</code>:
+ * </p>
+ * <pre>
+ *     object = bubblesort.o        the object file, relative to this file
+ *     start = 0000                 where to start, in hex (default: load address)
+ *     core = J6502NoDecimal        the core to run on (default: J6502)
+ *     cycles = 1000000             the cycle budget
+ *     stop = 1                     the stop reason <code>run</code> returns
+ *     clocks = 3180                <code>getCycleCount ()</code>
+ *     a = 00                       the registers, in hex
+ *     x = 0a
+ *     y = ff
+ *     sp = ff
+ *     p = 05
+ *     pc = 0028
+ *     memory.0050 = 00 03 05 ...   bytes from an address, in hex
+ * </pre>
+ *
+ * <p>
+ * Each workload is run with the interpreter, with the decode cache,
+ * with a <code>TieredEngine</code> and with a
+ * <code>CycleEngine</code>, and every one must end in the expected
+ * state.  The clock count of the <code>CycleEngine</code> is not
+ * checked, since it counts the clocks of the 6502 rather than those
+ * of the <code>clocks</code> table.  Each is then run again and again for
+ * <code>-time</code> milliseconds (default 1000; 0 only checks), and
+ * the emulated clock rate is printed.  The exit status is 1 if any
+ * workload did not end as expected.
+ * </p>
+ * <p>
+ * With <code>-record</code>, each workload is run once with the
+ * interpreter, and what it did is written out in the same format,
+ * for the same memory ranges, to make the <code>.expect</code> file
+ * of a new workload.
+ * </p>
+ *
+ * @author  Richard Russo
+ * @version 1.2
+ * @since   1.2
+ */
+
+public class WorkloadRunner {
+
+    /**
+     * The ways a workload is run.
+     */
+
+    static final String[] ENGINES = {
+        "interpreter", "decode cache", "tiered", "cycle engine"
+    };
+
+    /**
+     * The index of the <code>CycleEngine</code> in
+     * <code>ENGINES</code>.  It counts the clocks of the 6502 rather
+     * than those of the <code>clocks</code> table, so its clock count
+     * is not checked.
+     */
+
+    static final int CYCLE_ENGINE = 3;
+
+    String name;
+    File object;
+    Properties expected;
+    int start;
+    int cycles;
+
+    /**
+     * The core the workload runs on, one of the
+     * <code>J6502Creator</code> cores.
+     */
+
+    int core;
+
+    /**
+     * The contents of the object file and where it is loaded.
+     */
+
+    byte[] code;
+    int origin;
+
+    public WorkloadRunner (File expectFile)
+        throws Exception
+    {
+        name = expectFile.getName ();
+        if (name.endsWith (".expect")) {
+            name = name.substring (0, name.length () - ".expect".length ());
+        }
+
+        expected = new Properties ();
+        InputStream in = new FileInputStream (expectFile);
+        expected.load (in);
+        in.close ();
+
+        String objectName = expected.getProperty ("object");
+        if (objectName == null) {
+            throw new Exception (expectFile + ": no object");
+        }
+        object = new File (expectFile.getParentFile (), objectName);
+        load ();
+
+        start = hex ("start", origin);
+        cycles = Integer.parseInt (expected.getProperty ("cycles", "10000000"));
+
+        String coreName = expected.getProperty ("core", "J6502").trim ();
+        for (core = 0; core < J6502Creator.coreNames.length; core++) {
+            if (J6502Creator.coreNames[core].equals (coreName)) {
+                break;
+            }
+        }
+        if (core == J6502Creator.coreNames.length) {
+            throw new Exception (expectFile + ": no such core: " + coreName);
+        }
+    }
+
+    /**
+     * Read the object file, in the format the debugger loads.
+     */
+
+    void load ()
+        throws Exception
+    {
+        DataInputStream in = new DataInputStream (new FileInputStream (object));
+
+        if (in.available () < 2) {
+            throw new Exception (object + ": file is truncated");
+        }
+
+        origin = in.readUnsignedByte ();
+        origin += (in.readUnsignedByte () << 8);
+
+        code = new byte[in.available ()];
+        in.readFully (code);
+        in.close ();
+    }
+
+    private int hex (String key, int defaultValue) {
+        String value = expected.getProperty (key);
+
+        if (value == null) {
+            return defaultValue;
+        }
+        return Integer.parseInt (value.trim (), 16);
+    }
+
+    /**
+     * Make a CPU with the workload loaded, ready to run.
+     */
+
+    J6502 setUp () {
+        return setUp (new DefaultMemoryModel ());
+    }
+
+    /**
+     * Make a CPU on <code>memory</code> with the workload loaded,
+     * ready to run.
+     */
+
+    J6502 setUp (MemoryModel memory) {
+        J6502 cpu;
+
+        if (core == J6502Creator.NO_DECIMAL) {
+            cpu = new J6502NoDecimal (memory);
+        } else if (core == J6502Creator.FUNCTIONAL) {
+            cpu = new J6502Functional (memory);
+        } else {
+            cpu = new J6502 (memory);
+        }
+
+        for (int count = 0; count < code.length; count++) {
+            cpu.writeMemory ((char)(origin + count), code[count]);
+        }
+        cpu.setPC ((char)start);
+        return cpu;
+    }
+
+    /**
+     * Run a CPU made by <code>setUp</code> with one of the
+     * <code>ENGINES</code>.
+     *
+     * @returns the stop reason.
+     */
+
+    int run (J6502 cpu, int engine) {
+        if (engine == 1) {
+            cpu.setDecodeCacheEnabled (true);
+        }
+        if (engine == 2) {
+            return new TieredEngine (cpu).run (cycles);
+        }
+        if (engine == CYCLE_ENGINE) {
+            return new CycleEngine (cpu).run (cycles);
+        }
+        return cpu.run (cycles);
+    }
+
+    static String formatHex (int value, int digits) {
+        StringBuffer buf = new StringBuffer (Integer.toHexString (value));
+
+        while (buf.length () < digits) {
+            buf.insert (0, '0');
+        }
+        return buf.toString ();
+    }
+
+    /**
+     * The memory ranges named in the <code>.expect</code> file, by
+     * address, in order.
+     */
+
+    Vector memoryKeys () {
+        Vector keys = new Vector ();
+
+        for (Enumeration e = expected.propertyNames (); e.hasMoreElements ();) {
+            String key = (String)e.nextElement ();
+            if (key.startsWith ("memory.")) {
+                keys.addElement (key);
+            }
+        }
+        Collections.sort (keys);
+        return keys;
+    }
+
+    /**
+     * Describe how a CPU ended up, as lines of the
+     * <code>.expect</code> format, with memory from the same ranges
+     * as the expected results.
+     */
+
+    Vector describe (J6502 cpu, int stop) {
+        Vector lines = new Vector ();
+        J6502Registers r = cpu.getRegisters ();
+
+        lines.addElement ("stop = " + stop);
+        lines.addElement ("clocks = " + cpu.getCycleCount ());
+        lines.addElement ("a = " + formatHex (r.accumulator & 0xff, 2));
+        lines.addElement ("x = " + formatHex (r.regX & 0xff, 2));
+        lines.addElement ("y = " + formatHex (r.regY & 0xff, 2));
+        lines.addElement ("sp = " + formatHex (r.regSP & 0xff, 2));
+        lines.addElement ("p = " + formatHex (r.regP & 0xff, 2));
+        lines.addElement ("pc = " + formatHex (r.pc, 4));
+
+        Vector keys = memoryKeys ();
+        for (int idx = 0; idx < keys.size (); idx++) {
+            String key = (String)keys.elementAt (idx);
+            int addr = Integer.parseInt (key.substring ("memory.".length ()), 16);
+            int length = new StringTokenizer (expected.getProperty (key)).countTokens ();
+            StringBuffer bytes = new StringBuffer ();
+
+            for (int count = 0; count < length; count++) {
+                if (count > 0) {
+                    bytes.append (' ');
+                }
+                bytes.append (formatHex (cpu.readMemory ((char)(addr + count)) & 0xff, 2));
+            }
+            lines.addElement (key + " = " + bytes);
+        }
+        return lines;
+    }
+
+    /**
+     * Compare a CPU with the expected results.
+     *
+     * @returns the lines which differ, as "expected / actual".
+     */
+
+    Vector compare (J6502 cpu, int stop) {
+        return compare (cpu, stop, true);
+    }
+
+    /**
+     * Compare a CPU with the expected results, leaving out the clock
+     * count unless <code>clocks</code> is true.
+     *
+     * @returns the lines which differ, as "expected / actual".
+     */
+
+    Vector compare (J6502 cpu, int stop, boolean clocks) {
+        Vector actual = describe (cpu, stop);
+        Vector wrong = new Vector ();
+
+        for (int idx = 0; idx < actual.size (); idx++) {
+            String line = (String)actual.elementAt (idx);
+            int equals = line.indexOf (" = ");
+            String key = line.substring (0, equals);
+            String value = line.substring (equals + 3);
+            String want = expected.getProperty (key);
+
+            if (!clocks && key.equals ("clocks")) {
+                continue;
+            }
+            if ((want == null) || !normalize (want).equals (value)) {
+                wrong.addElement (key + ": expected " + want + ", got " + value);
+            }
+        }
+        return wrong;
+    }
+
+    private static String normalize (String value) {
+        StringBuffer buf = new StringBuffer ();
+        StringTokenizer st = new StringTokenizer (value.toLowerCase ());
+
+        while (st.hasMoreTokens ()) {
+            if (buf.length () > 0) {
+                buf.append (' ');
+            }
+            buf.append (st.nextToken ());
+        }
+        return buf.toString ();
+    }
+
+    /**
+     * Check the workload with every engine, then time each for
+     * <code>time</code> milliseconds.
+     *
+     * @returns true if every engine ended as expected.
+     */
+
+    boolean check (PrintStream out, long time) {
+        boolean ok = true;
+
+        for (int engine = 0; engine < ENGINES.length; engine++) {
+            J6502 cpu = setUp ();
+            Vector wrong = compare (cpu, run (cpu, engine), engine != CYCLE_ENGINE);
+            StringBuffer line = new StringBuffer (name);
+
+            while (line.length () < 20) {
+                line.append (' ');
+            }
+            line.append (ENGINES[engine]);
+            while (line.length () < 34) {
+                line.append (' ');
+            }
+
+            if (wrong.size () > 0) {
+                ok = false;
+                out.println (line + "FAILED");
+                for (int idx = 0; idx < wrong.size (); idx++) {
+                    out.println ("    " + wrong.elementAt (idx));
+                }
+                continue;
+            }
+
+            line.append ("ok");
+            if (time > 0) {
+                line.append ("  " + formatMHz (time (engine, time)) + " MHz");
+            }
+            out.println (line);
+        }
+        return ok;
+    }
+
+    /**
+     * Run the workload over and over for about <code>time</code>
+     * milliseconds.
+     *
+     * @returns the emulated clock rate, in MHz.
+     */
+
+    double time (int engine, long time) {
+        long clocks = 0;
+        long nanos = 0;
+
+        while (nanos < time * 1000000L) {
+            J6502 cpu = setUp ();
+            long before = System.nanoTime ();
+
+            run (cpu, engine);
+            nanos += System.nanoTime () - before;
+            clocks += cpu.getCycleCount ();
+        }
+        return clocks * 1000.0 / nanos;
+    }
+
+    static String formatMHz (double mhz) {
+        String s = Long.toString (Math.round (mhz * 10));
+
+        if (s.length () < 2) {
+            s = "0" + s;
+        }
+        s = s.substring (0, s.length () - 1) + "." + s.substring (s.length () - 1);
+        while (s.length () < 7) {
+            s = " " + s;
+        }
+        return s;
+    }
+
+    /**
+     * Write what the workload did, for its <code>.expect</code> file.
+     */
+
+    void record (PrintStream out) {
+        J6502 cpu = setUp ();
+        Vector lines = describe (cpu, run (cpu, 0));
+
+        out.println ("# " + name);
+        out.println ("object = " + expected.getProperty ("object"));
+        out.println ("start = " + formatHex (start, 4));
+        if (core != J6502Creator.NMOS) {
+            out.println ("core = " + J6502Creator.coreNames[core]);
+        }
+        out.println ("cycles = " + cycles);
+        for (int idx = 0; idx < lines.size (); idx++) {
+            out.println (lines.elementAt (idx));
+        }
+        out.println ();
+    }
+
+    static void usage () {
+        System.err.println ("usage: java j6502.build.WorkloadRunner"
+                            + " [-time ms] [-record] file.expect|directory...");
+        System.exit (1);
+    }
+
+    public static void main (String[] args)
+        throws Exception
+    {
+        long time = 1000;
+        boolean record = false;
+        int arg = 0;
+
+        while ((arg < args.length) && args[arg].startsWith ("-")) {
+            if (args[arg].equals ("-record")) {
+                record = true;
+                arg++;
+            } else if (args[arg].equals ("-time") && (arg + 1 < args.length)) {
+                time = Long.parseLong (args[arg + 1]);
+                arg += 2;
+            } else {
+                usage ();
+            }
+        }
+        if (arg == args.length) {
+            usage ();
+        }
+
+        Vector files = new Vector ();
+        for (; arg < args.length; arg++) {
+            File f = new File (args[arg]);
+
+            if (f.isDirectory ()) {
+                String[] names = f.list ();
+                Arrays.sort (names);
+                for (int idx = 0; idx < names.length; idx++) {
+                    if (names[idx].endsWith (".expect")) {
+                        files.addElement (new File (f, names[idx]));
+                    }
+                }
+            } else {
+                files.addElement (f);
+            }
+        }
+
+        boolean ok = true;
+        for (int idx = 0; idx < files.size (); idx++) {
+            WorkloadRunner workload = new WorkloadRunner ((File)files.elementAt (idx));
+
+            if (record) {
+                workload.record (System.out);
+            } else if (!workload.check (System.out, time)) {
+                ok = false;
+            }
+        }
+
+        if (!ok) {
+            System.exit (1);
+        }
+    }
+
+} // class WorkloadRunner
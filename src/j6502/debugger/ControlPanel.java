@@ -14,8 +14,8 @@ public class ControlPanel extends JPanel
 
     public void cpuChanged (CPUEvent ce) {
         clocksField.setText (Integer.toString (cpu.getLastClocks()));
-        elapsedClocksField.setText (Integer
-                                    .toString (cpu.getElapsedClocks ()));
+        elapsedClocksField.setText (Long
+                                    .toString (cpu.getCycleCount ()));
         regPanel.cpuChanged (ce);
     }
 
@@ -30,6 +30,8 @@ public class ControlPanel extends JPanel
     
     JButton stepButton;
     JButton undoButton;
+    JButton runButton;
+    JButton breakButton;
 
     public ControlPanel (J6502 cpu) {
         this.cpu = cpu;
@@ -40,12 +42,14 @@ public class ControlPanel extends JPanel
         clocksField.setEditable (false);
         clocksField.setColumns (8);
         elapsedClocksField = new
-            JTextField (Integer.toString (cpu.getElapsedClocks ()));
+            JTextField (Long.toString (cpu.getCycleCount ()));
         elapsedClocksField.setEditable (false);
         elapsedClocksField.setColumns (8);
 
         stepButton = new JButton ("step");
         undoButton = new JButton ("undo");
+        runButton = new JButton ("run");
+        breakButton = new JButton ("break");
         
         JPanel infoPanel = new JPanel ();
         JPanel ctlPanel = new JPanel ();
@@ -61,6 +65,8 @@ public class ControlPanel extends JPanel
         JPanel ctlSubPanel = new JPanel ();
         ctlSubPanel.add (undoButton);
         ctlSubPanel.add (stepButton);
+        ctlSubPanel.add (runButton);
+        ctlSubPanel.add (breakButton);
 
         ctlPanel.add (ctlSubPanel);
 
@@ -121,4 +127,12 @@ public class ControlPanel extends JPanel
         return undoButton;
     }
 
+    public JButton getRunButton () {
+        return runButton;
+    }
+
+    public JButton getBreakButton () {
+        return breakButton;
+    }
+
 } // class ControlPanel
@@ -62,6 +62,12 @@ class ITableModel extends AbstractTableModel
         table = t;
     }
 
+    J6502 cpu = null;
+
+    public void setCPU (J6502 c) {
+        cpu = c;
+    }
+
     public ITableModel () {
         makeCode ();
     }
@@ -138,7 +144,7 @@ class ITableModel extends AbstractTableModel
 
         while (off < 256) {
             int opcode = readMemory ((char)(off + baseAddress)) & 0xff;
-            int size = J6502Constants.sizes[opcode];
+            int size = J6502Constants.info[opcode] & J6502Constants.INFO_SIZE;
 
             if (0 == size) {
                 code[off] = EMPTY_STRING;
@@ -176,6 +182,14 @@ class ITableModel extends AbstractTableModel
         return memory[address];
     }
 
+    public void updateRow (char address) {
+        int row = rowOfAddress (address);
+
+        if ((row >= 0) && (table != null)) {
+            table.tableChanged (new TableModelEvent (this, row, row));
+        }
+    }
+
     public void writeMemory (char address, byte data) {
 
         memPatch.add (address, readMemory (address), data);
@@ -245,7 +259,11 @@ class ITableModel extends AbstractTableModel
     public Object getValueAt (int row, int col) {
         switch (col) {
         case 0:
-            return formatWord ((char)(getPage () * PAGE_SIZE + row));
+            char addr = addressOfRow (row);
+            if ((cpu != null) && cpu.isBreakpoint (addr)) {
+                return "* " + formatWord (addr);
+            }
+            return formatWord (addr);
         case 1:
             return formatByte (memory[currentPage * PAGE_SIZE + row]);
         case 2:
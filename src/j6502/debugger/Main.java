@@ -22,7 +22,7 @@ public class Main extends JFrame
 
     public void cpuReset (CPUEvent e) {
         cpu.setLastClocks (0);
-        cpu.setElapsedClocks (0);
+        cpu.setCycleCount (0);
         cpu.setRegisters (new J6502Registers ());
         undoInformation.removeAllElements ();
     } // cpuReset
@@ -30,14 +30,14 @@ public class Main extends JFrame
     class CPUState {
         J6502Registers r;
         int clocks;
-        int elapsedClocks;
+        long elapsedClocks;
         MemoryPatch patch;
         MemoryPatch lastPatch;
 
         public CPUState (J6502 cpu) {
             this.r = cpu.getRegisters ();
             clocks = cpu.getLastClocks ();
-            elapsedClocks = cpu.getElapsedClocks ();
+            elapsedClocks = cpu.getCycleCount ();
             
             this.patch = null;
         }
@@ -50,13 +50,35 @@ public class Main extends JFrame
             patch.apply (itableModel);
             cpu.setRegisters (r);
             cpu.setLastClocks (clocks);
-            cpu.setElapsedClocks (elapsedClocks);
+            cpu.setCycleCount (elapsedClocks);
         }
     }
 
     private final static int UNDO_LIMIT = 64;
     Stack undoInformation = new Stack ();
 
+    /**
+     * The most clock cycles one press of `run' executes, so that a
+     * program which never reaches a breakpoint does not hang the
+     * debugger.
+     */
+
+    private final static int RUN_BUDGET = 1000000;
+
+    private void pushUndo (CPUState s) {
+        MemoryPatch mp = itableModel.getMemoryPatch ();
+        mpPanel.update (mp);
+        s.setPatch (mp);
+        s.lastPatch = lastMemoryPatch;
+        lastMemoryPatch = mp;
+
+        if (undoInformation.size () >= UNDO_LIMIT) {
+            undoInformation.remove (0);
+        }
+
+        undoInformation.push (s);
+    }
+
     private void undo () {
         if (undoInformation.size () == 0) {
             mpPanel.update ((MemoryPatch)null);
@@ -306,6 +328,7 @@ public class Main extends JFrame
         */
         
         cpu = new J6502 (model);
+        model.setCPU (cpu);
 
         table = new MemoryTable (cpu, itableModel, this);
 
@@ -355,21 +378,28 @@ public class Main extends JFrame
                 public void actionPerformed (ActionEvent ae) {
                     CPUState s = new CPUState (cpu);
                     cpu.execute ();
-                    MemoryPatch mp = itableModel.getMemoryPatch ();
-                    mpPanel.update (mp);
-                    s.setPatch (mp);
-                    s.lastPatch = lastMemoryPatch;
-                    lastMemoryPatch = mp;
-
-                    if (undoInformation.size () >= UNDO_LIMIT) {
-                        undoInformation.remove (0);
-                    }
+                    pushUndo (s);
+                    fireCPUEvent ();
+                }
+            });
 
-                    undoInformation.push (s);
+        cp.getRunButton ().addActionListener (new ActionListener () {
+                public void actionPerformed (ActionEvent ae) {
+                    CPUState s = new CPUState (cpu);
+                    cpu.run (RUN_BUDGET);
+                    pushUndo (s);
                     fireCPUEvent ();
                 }
             });
 
+        cp.getBreakButton ().addActionListener (new ActionListener () {
+                public void actionPerformed (ActionEvent ae) {
+                    char addr = cpu.getPC ();
+                    cpu.setBreakpoint (addr, !cpu.isBreakpoint (addr));
+                    itableModel.updateRow (addr);
+                }
+            });
+
         cp.getUndoButton ().addActionListener (new ActionListener () {
                 public void actionPerformed (ActionEvent ae) {
                     undo ();
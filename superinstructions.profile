@@ -0,0 +1,22 @@
+# superinstructions.profile
+#
+# Opcode sequences to generate superinstructions for, written
+# by j6502.build.SequenceProfiler.  Each line is one sequence,
+# in hex.
+
+8a c9 10    # TXA CMP BPL, 90 times
+a8 8a c9    # TAY TXA CMP, 90 times
+b5 e8 a8    # LDA INX TAY, 90 times
+e8 a8 8a    # INX TAY TXA, 90 times
+c9 10       # CMP BPL, 101 times
+8a c9       # TXA CMP, 90 times
+a8 8a       # TAY TXA, 90 times
+b5 e8       # LDA INX, 90 times
+d5 10       # CMP BPL, 90 times
+e8 a8       # INX TAY, 90 times
+98 4c       # TYA JMP, 80 times
+b5 ca b4    # LDA DEX LDY, 16 times
+ca b4 95    # DEX LDY STA, 16 times
+a5 c9 10    # LDA CMP BPL, 11 times
+a2 d5 10    # LDX CMP BPL, 10 times
+a5 a2 d5    # LDA LDX CMP, 10 times